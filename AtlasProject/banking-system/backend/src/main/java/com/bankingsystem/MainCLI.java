@@ -16,7 +16,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Scanner;
-import java.util.UUID;
 
 @Component
 public class MainCLI implements CommandLineRunner {
@@ -42,6 +41,12 @@ public class MainCLI implements CommandLineRunner {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private CompensationService compensationService;
+    
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+    
     private final Scanner scanner = new Scanner(System.in);
     private String currentUserId = "CLI_USER";
     
@@ -181,7 +186,7 @@ public class MainCLI implements CommandLineRunner {
                 default: throw new RuntimeException("Invalid account type selection");
             }
             
-            String accountNumber = "ACC" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+            String accountNumber = accountNumberAllocator.nextAccountNumber();
             Account account = new Account(accountNumber, customer, accountType);
             account = accountRepository.save(account);
             
@@ -347,14 +352,11 @@ public class MainCLI implements CommandLineRunner {
                 return;
             }
             
-            Transaction transaction = undoRedoStack.popUndo(accountId);
+            Transaction compensation = compensationService.undoLast(accountId, currentUserId);
             System.out.println("✅ Transaction undone successfully!");
-            System.out.println("Undone Transaction ID: " + transaction.getTransactionId());
-            System.out.println("Type: " + transaction.getType().getDisplayName());
-            System.out.println("Amount: ₹" + transaction.getAmount());
-            
-            auditService.logSuccess(currentUserId, "UNDO_TRANSACTION", "TRANSACTION", transaction.getId(), 
-                    "Undone transaction: " + transaction.getTransactionId());
+            System.out.println("Undone Transaction ID: " + compensation.getRelatedTransactionId());
+            System.out.println("Compensating Transaction ID: " + compensation.getTransactionId());
+            System.out.println("Amount: ₹" + compensation.getAmount());
             
         } catch (Exception e) {
             System.out.println("❌ Error undoing transaction: " + e.getMessage());
@@ -373,14 +375,11 @@ public class MainCLI implements CommandLineRunner {
                 return;
             }
             
-            Transaction transaction = undoRedoStack.popRedo(accountId);
+            Transaction reapplied = compensationService.redoLast(accountId, currentUserId);
             System.out.println("✅ Transaction redone successfully!");
-            System.out.println("Redone Transaction ID: " + transaction.getTransactionId());
-            System.out.println("Type: " + transaction.getType().getDisplayName());
-            System.out.println("Amount: ₹" + transaction.getAmount());
-            
-            auditService.logSuccess(currentUserId, "REDO_TRANSACTION", "TRANSACTION", transaction.getId(), 
-                    "Redone transaction: " + transaction.getTransactionId());
+            System.out.println("Redone Transaction ID: " + reapplied.getRelatedTransactionId());
+            System.out.println("Compensating Transaction ID: " + reapplied.getTransactionId());
+            System.out.println("Amount: ₹" + reapplied.getAmount());
             
         } catch (Exception e) {
             System.out.println("❌ Error redoing transaction: " + e.getMessage());
@@ -503,15 +502,15 @@ public class MainCLI implements CommandLineRunner {
                 customerRepository.save(customer3);
                 
                 // Create sample accounts
-                Account account1 = new Account("ACC" + System.currentTimeMillis() + "001", customer1, Account.AccountType.SAVINGS);
+                Account account1 = new Account(accountNumberAllocator.nextAccountNumber(), customer1, Account.AccountType.SAVINGS);
                 account1.deposit(new BigDecimal("50000"));
                 accountRepository.save(account1);
                 
-                Account account2 = new Account("ACC" + System.currentTimeMillis() + "002", customer2, Account.AccountType.CURRENT);
+                Account account2 = new Account(accountNumberAllocator.nextAccountNumber(), customer2, Account.AccountType.CURRENT);
                 account2.deposit(new BigDecimal("100000"));
                 accountRepository.save(account2);
                 
-                Account account3 = new Account("ACC" + System.currentTimeMillis() + "003", customer3, Account.AccountType.SAVINGS);
+                Account account3 = new Account(accountNumberAllocator.nextAccountNumber(), customer3, Account.AccountType.SAVINGS);
                 account3.deposit(new BigDecimal("75000"));
                 accountRepository.save(account3);
                 
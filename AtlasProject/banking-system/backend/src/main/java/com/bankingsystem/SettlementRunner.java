@@ -1,23 +1,34 @@
 package com.bankingsystem;
 
-import com.bankingsystem.model.Transaction;
+import com.bankingsystem.settlement.SettlementEngine;
+import com.bankingsystem.settlement.SettlementReport;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.SettlementQueue;
 import com.bankingsystem.service.AuditService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
-
 @Component
 public class SettlementRunner implements CommandLineRunner {
     
     @Autowired
     private SettlementQueue settlementQueue;
     
+    @Autowired
+    private SettlementEngine settlementEngine;
+    
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private OperationMetrics operationMetrics;
+    
+    @Value("${banking.settlement.enabled:true}")
+    private boolean settlementEnabled;
+    
     @Override
     public void run(String... args) throws Exception {
         // Check if this is a settlement run
@@ -26,73 +37,58 @@ public class SettlementRunner implements CommandLineRunner {
         }
     }
     
-    public void runSettlement() {
+    /**
+     * Nightly settlement on banking.settlement.cron
+     */
+    @Scheduled(cron = "${banking.settlement.cron:0 0 2 * * ?}")
+    public void scheduledSettlement() {
+        if (!settlementEnabled) {
+            return;
+        }
+        if (settlementEngine.isRunning()) {
+            System.out.println("⏭️ Skipping scheduled settlement, a run is already in progress");
+            return;
+        }
+        runSettlement();
+    }
+    
+    public SettlementReport runSettlement() {
         System.out.println("🔄 Starting batch settlement process...");
         
+        OperationMetrics.Sample sample = operationMetrics.start("settlement");
         try {
-            // Get all pending transactions
-            List<Transaction> pendingTransactions = settlementQueue.getPendingTransactions();
-            
-            if (pendingTransactions.isEmpty()) {
+            if (settlementQueue.isEmpty()) {
                 System.out.println("✅ No pending transactions to settle.");
-                return;
+                sample.success();
+                return null;
             }
             
-            System.out.println("📊 Found " + pendingTransactions.size() + " transactions to settle");
-            
-            int processedCount = 0;
-            int failedCount = 0;
+            System.out.println("📊 Found " + settlementQueue.size() + " transactions to settle");
             
-            // Process each transaction
-            for (Transaction transaction : pendingTransactions) {
-                try {
-                    // Simulate settlement processing
-                    processSettlementTransaction(transaction);
-                    settlementQueue.markAsProcessed(transaction.getTransactionId());
-                    processedCount++;
-                    
-                    System.out.println("✅ Settled transaction: " + transaction.getTransactionId());
-                    
-                } catch (Exception e) {
-                    failedCount++;
-                    System.err.println("❌ Failed to settle transaction " + transaction.getTransactionId() + ": " + e.getMessage());
-                }
-            }
+            SettlementReport report = settlementEngine.settle();
             
             // Log settlement results
-            auditService.logSuccess("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", "BATCH", 
-                    "Settlement completed. Processed: " + processedCount + ", Failed: " + failedCount);
+            auditService.logSuccess("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", report.getRunId(), 
+                    "Settlement completed. Processed: " + report.getSettled() + ", Failed: "
+                            + (report.getRejected() + report.getFailed() + report.getTimedOut()));
             
-            System.out.println("🎉 Settlement completed!");
-            System.out.println("✅ Processed: " + processedCount);
-            System.out.println("❌ Failed: " + failedCount);
+            System.out.println("🎉 Settlement completed in " + report.getElapsedMillis() + " ms ("
+                    + report.getBatches() + " batches, " + Math.round(report.getThroughput()) + " tx/s)");
+            System.out.println("✅ Processed: " + report.getSettled());
+            System.out.println("🚫 Rejected: " + report.getRejected());
+            System.out.println("🧮 Netted: " + report.getNetted() + " postings in " + report.getBalanceWrites() + " balance writes");
+            System.out.println("❌ Failed: " + report.getFailed() + " (timed out: " + report.getTimedOut() + ", requeued)");
+            System.out.println("⏱️ Lag: max " + report.getMaxLagMillis() + " ms, average " + report.getAverageLagMillis() + " ms");
+            System.out.println("📥 Remaining in queue: " + report.getRemaining());
+            sample.success();
+            return report;
             
         } catch (Exception e) {
+            sample.failure();
             System.err.println("💥 Settlement process failed: " + e.getMessage());
             auditService.logFailure("SYSTEM", "BATCH_SETTLEMENT", "SETTLEMENT", "BATCH", 
                     "Settlement process failed", e.getMessage());
             throw e;
         }
     }
-    
-    private void processSettlementTransaction(Transaction transaction) {
-        // Simulate settlement processing
-        // In a real implementation, this would:
-        // 1. Validate the transaction
-        // 2. Update account balances
-        // 3. Generate settlement reports
-        // 4. Send notifications
-        // 5. Update transaction status
-        
-        // For now, just simulate processing time
-        try {
-            Thread.sleep(100); // Simulate processing time
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Settlement interrupted", e);
-        }
-        
-        // Mark transaction as settled
-        transaction.setStatus(Transaction.TransactionStatus.COMPLETED);
-    }
 }
@@ -0,0 +1,46 @@
+package com.bankingsystem.archive;
+
+import java.time.LocalDateTime;
+
+/**
+ * Filter of an archive search; null fields match everything, the time range is inclusive
+ */
+public final class ArchiveQuery {
+
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final String userId;
+    private final String entityId;
+    private final String action;
+
+    public ArchiveQuery(LocalDateTime from, LocalDateTime to, String userId, String entityId, String action) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("Archive search start must not be after its end");
+        }
+        this.from = from;
+        this.to = to;
+        this.userId = userId;
+        this.entityId = entityId;
+        this.action = action;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getEntityId() {
+        return entityId;
+    }
+
+    public String getAction() {
+        return action;
+    }
+}
@@ -0,0 +1,292 @@
+package com.bankingsystem.archive;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Long-term audit history on local disk.
+ *
+ * Before retention removes audit logs from MongoDB they are copied, in time order, into
+ * compressed columnar AuditSegment files of about banking.audit.archive.segment-rows rows
+ * (a segment only ends where the timestamp changes).
+ * The headers of all segments (time range and bloom filters over userId, entityId and
+ * action) are kept in memory, so a search skips every segment that cannot match without
+ * touching its file and scans the remaining ones in parallel. "archived-until" records
+ * the end of the archived range and is advanced after each segment is on disk; segment,
+ * marker and directory are fsynced before the marker counts as moved. A segment
+ * past it was written by a run that crashed before advancing it; it is deleted on open
+ * and its logs, which retention kept in MongoDB, are archived again by the next run.
+ */
+@Component
+public class AuditArchive {
+
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String MARKER_FILE = "archived-until";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AuditBuckets auditBuckets;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentRows;
+    private final double falsePositiveRate;
+    private final int scanThreads;
+
+    private final List<AuditSegment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicLong segmentSequence = new AtomicLong();
+    private volatile LocalDateTime archivedUntil;
+    private ExecutorService scanners;
+
+    private final AtomicLong searches = new AtomicLong();
+    private final AtomicLong segmentsScanned = new AtomicLong();
+    private final AtomicLong segmentsPruned = new AtomicLong();
+
+    public AuditArchive(@Value("${banking.audit.archive.enabled:true}") boolean enabled,
+                        @Value("${banking.audit.archive.dir:./data/audit-archive}") String directory,
+                        @Value("${banking.audit.archive.segment-rows:100000}") int segmentRows,
+                        @Value("${banking.audit.archive.bloom-fpp:0.01}") double falsePositiveRate,
+                        @Value("${banking.audit.archive.scan-threads:4}") int scanThreads) {
+        if (segmentRows <= 0 || scanThreads <= 0) {
+            throw new IllegalArgumentException("Audit archive segment rows and scan threads must be greater than zero");
+        }
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentRows = segmentRows;
+        this.falsePositiveRate = falsePositiveRate;
+        this.scanThreads = scanThreads;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Load the headers of all segments on disk
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(directory);
+            Path marker = directory.resolve(MARKER_FILE);
+            archivedUntil = Files.exists(marker) ? LocalDateTime.parse(Files.readString(marker).trim()) : null;
+            long sequence = 0;
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.sorted().toList()) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(SEGMENT_SUFFIX + ".tmp")) {
+                        // Left behind by an interrupted archive run
+                        Files.delete(file);
+                    } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        sequence++;
+                        AuditSegment segment = AuditSegment.open(file);
+                        if (archivedUntil == null || segment.getMaxMillis() >= AuditSegment.toMillis(archivedUntil)) {
+                            // Written before an interrupted run could advance the marker
+                            System.out.println("🧹 Discarding unrecorded audit segment " + name);
+                            Files.delete(file);
+                        } else {
+                            segments.add(segment);
+                        }
+                    }
+                }
+            }
+            segmentSequence.set(sequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open audit archive in " + directory, e);
+        }
+
+        AtomicInteger threadCount = new AtomicInteger();
+        scanners = Executors.newFixedThreadPool(scanThreads, r -> {
+            Thread thread = new Thread(r, "audit-archive-scan-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        System.out.println("🗄️ Audit archive opened with " + segments.size() + " segments in " + directory);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (scanners != null) {
+            scanners.shutdownNow();
+        }
+    }
+
+    /**
+     * Copy the audit logs older than the cutoff that are not archived yet into new
+     * segments; returns the number of logs archived
+     */
+    public long archiveBefore(LocalDateTime cutoff) {
+        if (!enabled) {
+            return 0;
+        }
+        LocalDateTime from = archivedUntil;
+        if (from != null && !cutoff.isAfter(from)) {
+            return 0;
+        }
+        Criteria range = from != null
+                ? Criteria.where("timestamp").gte(from).lt(cutoff)
+                : Criteria.where("timestamp").lt(cutoff);
+        Query query = new Query(range).with(Sort.by(Sort.Direction.ASC, "timestamp", "_id"));
+
+        long archived = 0;
+        List<AuditLog> batch = new ArrayList<>(Math.min(segmentRows, 10_000));
+        try {
+            for (String bucket : auditBuckets.bucketsFor(from, cutoff)) {
+                try (Stream<AuditLog> logs = mongoTemplate.stream(query, AuditLog.class, bucket)) {
+                    Iterator<AuditLog> iterator = logs.iterator();
+                    while (iterator.hasNext()) {
+                        AuditLog auditLog = iterator.next();
+                        // Cut only between timestamps, so everything before this log is archived
+                        if (batch.size() >= segmentRows
+                                && !auditLog.getTimestamp().equals(batch.get(batch.size() - 1).getTimestamp())) {
+                            archived += writeSegment(batch);
+                            advanceMarker(auditLog.getTimestamp());
+                        }
+                        batch.add(auditLog);
+                    }
+                }
+            }
+            if (!batch.isEmpty()) {
+                archived += writeSegment(batch);
+            }
+            advanceMarker(cutoff);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to archive audit logs before " + cutoff, e);
+        }
+        return archived;
+    }
+
+    /**
+     * Archived logs matching the query, in time order. Segments are pruned by their time
+     * range and bloom filters, the rest are scanned in parallel.
+     */
+    public List<AuditLog> search(ArchiveQuery query) {
+        if (!enabled) {
+            return List.of();
+        }
+        searches.incrementAndGet();
+        List<CompletableFuture<List<AuditLog>>> scans = new ArrayList<>();
+        for (AuditSegment segment : segments) {
+            if (!segment.mightMatch(query)) {
+                segmentsPruned.incrementAndGet();
+                continue;
+            }
+            segmentsScanned.incrementAndGet();
+            scans.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    return segment.scan(query, objectMapper);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to scan audit segment " + segment.getPath(), e);
+                }
+            }, scanners));
+        }
+
+        List<AuditLog> result = new ArrayList<>();
+        for (CompletableFuture<List<AuditLog>> scan : scans) {
+            result.addAll(scan.join());
+        }
+        result.sort(Comparator.comparing(AuditLog::getTimestamp));
+        return result;
+    }
+
+    /**
+     * Get archive size and search pruning statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("segments", segments.size());
+        stats.put("rows", segments.stream().mapToLong(AuditSegment::getRows).sum());
+        stats.put("bytesOnDisk", segments.stream().mapToLong(AuditSegment::getSizeInBytes).sum());
+        stats.put("archivedUntil", archivedUntil);
+        stats.put("searches", searches.get());
+        stats.put("segmentsScanned", segmentsScanned.get());
+        stats.put("segmentsPruned", segmentsPruned.get());
+        return stats;
+    }
+
+    /**
+     * Durably move the marker; retention drops logs from MongoDB only after this returns
+     */
+    private void advanceMarker(LocalDateTime until) throws IOException {
+        Path tmp = directory.resolve(MARKER_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            out.write(ByteBuffer.wrap(until.toString().getBytes(StandardCharsets.UTF_8)));
+            out.force(true);
+        }
+        Files.move(tmp, directory.resolve(MARKER_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        archivedUntil = until;
+    }
+
+    /**
+     * Make renames in the archive directory durable. Not every platform can open a
+     * directory for this (Windows cannot), in which case the rename is left to the OS.
+     */
+    private void forceDirectory() {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException e) {
+            // Best effort, see above
+        }
+    }
+
+    private int writeSegment(List<AuditLog> batch) throws IOException {
+        int rows = batch.size();
+        String name = String.format("%s%013d-%06d%s", SEGMENT_PREFIX,
+                AuditSegment.toMillis(batch.get(0).getTimestamp()), segmentSequence.incrementAndGet(), SEGMENT_SUFFIX);
+        Path target = directory.resolve(name);
+        Path tmp = directory.resolve(name + ".tmp");
+        AuditSegment.write(tmp, batch, falsePositiveRate, objectMapper);
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+        segments.add(AuditSegment.open(target));
+        batch.clear();
+        return rows;
+    }
+}
@@ -0,0 +1,426 @@
+package com.bankingsystem.archive;
+
+import com.bankingsystem.model.AuditLog;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * One immutable, column-oriented file of archived audit logs.
+ *
+ * Layout: [magic][version][header length][header][column blocks]. The header holds the
+ * row count, the min/max timestamp, bloom filters over userId, entityId and action, and
+ * the compressed and raw length of every column block. Each column is stored and
+ * deflated on its own: timestamps as zig-zag varint deltas (rows are in time order),
+ * strings dictionary-encoded as varint codes into the segment's distinct values. Opening
+ * a segment reads only the header; a scan reads the timestamp and filter columns first
+ * and the remaining columns only when some row matches.
+ */
+public final class AuditSegment {
+
+    private static final int MAGIC = 0x41554453;
+    private static final short VERSION = 1;
+    private static final int PREAMBLE_BYTES = 10;
+    private static final TypeReference<Map<String, Object>> DETAILS_TYPE = new TypeReference<>() {};
+
+    enum Column {
+        TIMESTAMP, ID, ACTION_ID, USER_ID, ACTION, ENTITY_TYPE, ENTITY_ID,
+        DESCRIPTION, DETAILS, IP_ADDRESS, USER_AGENT, RESULT, ERROR_MESSAGE
+    }
+
+    private final Path path;
+    private final int rows;
+    private final long minMillis;
+    private final long maxMillis;
+    private final BloomFilter userIds;
+    private final BloomFilter entityIds;
+    private final BloomFilter actions;
+    private final long[] offsets;
+    private final int[] compressedLengths;
+    private final int[] rawLengths;
+    private final long sizeInBytes;
+
+    private AuditSegment(Path path, DataInputStream header, long dataStart, long sizeInBytes) throws IOException {
+        this.path = path;
+        this.rows = header.readInt();
+        this.minMillis = header.readLong();
+        this.maxMillis = header.readLong();
+        this.userIds = BloomFilter.readFrom(header);
+        this.entityIds = BloomFilter.readFrom(header);
+        this.actions = BloomFilter.readFrom(header);
+        int columns = Column.values().length;
+        this.offsets = new long[columns];
+        this.compressedLengths = new int[columns];
+        this.rawLengths = new int[columns];
+        long offset = dataStart;
+        for (int i = 0; i < columns; i++) {
+            offsets[i] = offset;
+            compressedLengths[i] = header.readInt();
+            rawLengths[i] = header.readInt();
+            offset += compressedLengths[i];
+        }
+        this.sizeInBytes = sizeInBytes;
+    }
+
+    /**
+     * Write logs (sorted by timestamp) as a new segment file
+     */
+    public static void write(Path path, List<AuditLog> logs, double falsePositiveRate,
+                             ObjectMapper objectMapper) throws IOException {
+        if (logs.isEmpty()) {
+            throw new IllegalArgumentException("Cannot write an empty audit segment");
+        }
+        int rows = logs.size();
+        long[] millis = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            millis[i] = toMillis(logs.get(i).getTimestamp());
+        }
+
+        BloomFilter userIds = BloomFilter.create(rows, falsePositiveRate);
+        BloomFilter entityIds = BloomFilter.create(rows, falsePositiveRate);
+        BloomFilter actions = BloomFilter.create(rows, falsePositiveRate);
+        for (AuditLog log : logs) {
+            addIfPresent(userIds, log.getUserId());
+            addIfPresent(entityIds, log.getEntityId());
+            addIfPresent(actions, log.getAction());
+        }
+
+        List<byte[]> raw = new ArrayList<>();
+        raw.add(encodeTimestamps(millis));
+        for (Column column : Column.values()) {
+            if (column != Column.TIMESTAMP) {
+                String[] values = new String[rows];
+                for (int i = 0; i < rows; i++) {
+                    values[i] = value(logs.get(i), column, objectMapper);
+                }
+                raw.add(encodeStrings(values));
+            }
+        }
+
+        ByteArrayOutputStream headerBytes = new ByteArrayOutputStream();
+        DataOutputStream header = new DataOutputStream(headerBytes);
+        header.writeInt(rows);
+        header.writeLong(millis[0]);
+        header.writeLong(millis[rows - 1]);
+        userIds.writeTo(header);
+        entityIds.writeTo(header);
+        actions.writeTo(header);
+        List<byte[]> compressed = new ArrayList<>();
+        for (byte[] column : raw) {
+            byte[] deflated = deflate(column);
+            compressed.add(deflated);
+            header.writeInt(deflated.length);
+            header.writeInt(column.length);
+        }
+        header.flush();
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeInt(headerBytes.size());
+            headerBytes.writeTo(out);
+            for (byte[] column : compressed) {
+                out.write(column);
+            }
+            out.flush();
+            // On disk before the archive marker can move past it
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Read the header of a segment file
+     */
+    public static AuditSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer preamble = readFully(channel, 0, PREAMBLE_BYTES);
+            if (preamble.getInt() != MAGIC || preamble.getShort() != VERSION) {
+                throw new IOException("Not an audit segment: " + path);
+            }
+            int headerLength = preamble.getInt();
+            ByteBuffer header = readFully(channel, PREAMBLE_BYTES, headerLength);
+            return new AuditSegment(path, new DataInputStream(new ByteArrayInputStream(header.array())),
+                    PREAMBLE_BYTES + headerLength, channel.size());
+        }
+    }
+
+    /**
+     * Whether the segment can hold matching rows, judged from the header alone
+     */
+    public boolean mightMatch(ArchiveQuery query) {
+        if (query.getFrom() != null && maxMillis < toMillis(query.getFrom())) {
+            return false;
+        }
+        if (query.getTo() != null && minMillis > toMillis(query.getTo())) {
+            return false;
+        }
+        return (query.getUserId() == null || userIds.mightContain(query.getUserId()))
+                && (query.getEntityId() == null || entityIds.mightContain(query.getEntityId()))
+                && (query.getAction() == null || actions.mightContain(query.getAction()));
+    }
+
+    /**
+     * Rows matching the query, in time order
+     */
+    public List<AuditLog> scan(ArchiveQuery query, ObjectMapper objectMapper) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] millis = decodeTimestamps(readColumn(channel, Column.TIMESTAMP));
+            String[] users = query.getUserId() != null ? readStrings(channel, Column.USER_ID) : null;
+            String[] entities = query.getEntityId() != null ? readStrings(channel, Column.ENTITY_ID) : null;
+            String[] actionValues = query.getAction() != null ? readStrings(channel, Column.ACTION) : null;
+            long from = query.getFrom() != null ? toMillis(query.getFrom()) : Long.MIN_VALUE;
+            long to = query.getTo() != null ? toMillis(query.getTo()) : Long.MAX_VALUE;
+
+            int[] matches = new int[rows];
+            int matched = 0;
+            for (int row = 0; row < rows; row++) {
+                if (millis[row] >= from && millis[row] <= to
+                        && (users == null || query.getUserId().equals(users[row]))
+                        && (entities == null || query.getEntityId().equals(entities[row]))
+                        && (actionValues == null || query.getAction().equals(actionValues[row]))) {
+                    matches[matched++] = row;
+                }
+            }
+            if (matched == 0) {
+                return List.of();
+            }
+
+            Map<Column, String[]> columns = new HashMap<>();
+            for (Column column : Column.values()) {
+                if (column != Column.TIMESTAMP) {
+                    columns.put(column, readStrings(channel, column));
+                }
+            }
+            List<AuditLog> result = new ArrayList<>(matched);
+            for (int i = 0; i < matched; i++) {
+                int row = matches[i];
+                AuditLog log = new AuditLog(columns.get(Column.ACTION_ID)[row], columns.get(Column.USER_ID)[row],
+                        columns.get(Column.ACTION)[row], columns.get(Column.ENTITY_TYPE)[row],
+                        columns.get(Column.ENTITY_ID)[row]);
+                log.setId(columns.get(Column.ID)[row]);
+                log.setTimestamp(LocalDateTime.ofInstant(Instant.ofEpochMilli(millis[row]), ZoneId.systemDefault()));
+                log.setDescription(columns.get(Column.DESCRIPTION)[row]);
+                String details = columns.get(Column.DETAILS)[row];
+                log.setDetails(details != null ? objectMapper.readValue(details, DETAILS_TYPE) : null);
+                log.setIpAddress(columns.get(Column.IP_ADDRESS)[row]);
+                log.setUserAgent(columns.get(Column.USER_AGENT)[row]);
+                log.setResult(columns.get(Column.RESULT)[row]);
+                log.setErrorMessage(columns.get(Column.ERROR_MESSAGE)[row]);
+                result.add(log);
+            }
+            return result;
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public long getMinMillis() {
+        return minMillis;
+    }
+
+    public long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    static long toMillis(LocalDateTime timestamp) {
+        return timestamp.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static void addIfPresent(BloomFilter filter, String value) {
+        if (value != null) {
+            filter.add(value);
+        }
+    }
+
+    private static String value(AuditLog log, Column column, ObjectMapper objectMapper) throws IOException {
+        return switch (column) {
+            case ID -> log.getId();
+            case ACTION_ID -> log.getActionId();
+            case USER_ID -> log.getUserId();
+            case ACTION -> log.getAction();
+            case ENTITY_TYPE -> log.getEntityType();
+            case ENTITY_ID -> log.getEntityId();
+            case DESCRIPTION -> log.getDescription();
+            case DETAILS -> log.getDetails() != null ? objectMapper.writeValueAsString(log.getDetails()) : null;
+            case IP_ADDRESS -> log.getIpAddress();
+            case USER_AGENT -> log.getUserAgent();
+            case RESULT -> log.getResult();
+            case ERROR_MESSAGE -> log.getErrorMessage();
+            case TIMESTAMP -> throw new IllegalArgumentException("Timestamps are not a string column");
+        };
+    }
+
+    private String[] readStrings(FileChannel channel, Column column) throws IOException {
+        return decodeStrings(readColumn(channel, column), rows);
+    }
+
+    private ByteBuffer readColumn(FileChannel channel, Column column) throws IOException {
+        int index = column.ordinal();
+        ByteBuffer compressed = readFully(channel, offsets[index], compressedLengths[index]);
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed.array());
+            byte[] raw = new byte[rawLengths[index]];
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                read += inflater.inflate(raw, read, raw.length - read);
+            }
+            if (read != raw.length) {
+                throw new IOException("Truncated " + column + " column in " + path);
+            }
+            return ByteBuffer.wrap(raw);
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt " + column + " column in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of audit segment");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] encodeTimestamps(long[] millis) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long previous = 0;
+        for (long value : millis) {
+            writeVarLong(out, zigZag(value - previous));
+            previous = value;
+        }
+        return out.toByteArray();
+    }
+
+    private long[] decodeTimestamps(ByteBuffer in) {
+        long[] millis = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long delta = readVarLong(in);
+            previous += (delta >>> 1) ^ -(delta & 1);
+            millis[i] = previous;
+        }
+        return millis;
+    }
+
+    /**
+     * Distinct values first, then one code per row (0 for null, otherwise index + 1)
+     */
+    private static byte[] encodeStrings(String[] values) {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] codes = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                codes[i] = dictionary.computeIfAbsent(values[i], value -> {
+                    distinct.add(value);
+                    return distinct.size();
+                });
+            }
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeVarLong(out, distinct.size());
+        for (String value : distinct) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(out, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+        for (int code : codes) {
+            writeVarLong(out, code);
+        }
+        return out.toByteArray();
+    }
+
+    private static String[] decodeStrings(ByteBuffer in, int rows) {
+        String[] distinct = new String[(int) readVarLong(in)];
+        for (int i = 0; i < distinct.length; i++) {
+            byte[] bytes = new byte[(int) readVarLong(in)];
+            in.get(bytes);
+            distinct[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        String[] values = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            int code = (int) readVarLong(in);
+            values[i] = code == 0 ? null : distinct[code - 1];
+        }
+        return values;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,102 @@
+package com.bankingsystem.archive;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Fixed-size bloom filter over strings, sized for an expected number of distinct values
+ * and a false positive rate. The k bit positions come from one 64-bit hash split in two
+ * (h1 + i * h2), which is as good as k independent hashes for a filter of this size.
+ */
+public final class BloomFilter {
+
+    private final long[] words;
+    private final int bits;
+    private final int hashes;
+
+    private BloomFilter(long[] words, int hashes) {
+        this.words = words;
+        this.bits = words.length * Long.SIZE;
+        this.hashes = hashes;
+    }
+
+    /**
+     * Empty filter for the given number of values and false positive rate
+     */
+    public static BloomFilter create(int expectedValues, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Bloom filter false positive rate must be between 0 and 1");
+        }
+        int n = Math.max(1, expectedValues);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE / Long.SIZE, (bits + Long.SIZE - 1) / Long.SIZE));
+        int hashes = (int) Math.max(1, Math.round((double) words * Long.SIZE / n * Math.log(2)));
+        return new BloomFilter(new long[words], Math.min(hashes, 16));
+    }
+
+    public void add(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            words[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * False means the value was never added; true means it probably was
+     */
+    public boolean mightContain(String value) {
+        long hash = hash(value);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashes; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bits);
+            if ((words[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int sizeInBytes() {
+        return words.length * Long.BYTES;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(hashes);
+        out.writeInt(words.length);
+        for (long word : words) {
+            out.writeLong(word);
+        }
+    }
+
+    static BloomFilter readFrom(DataInputStream in) throws IOException {
+        int hashes = in.readInt();
+        long[] words = new long[in.readInt()];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = in.readLong();
+        }
+        return new BloomFilter(words, hashes);
+    }
+
+    /**
+     * FNV-1a over the UTF-8 bytes, finished with the murmur3 mixer so both halves are usable
+     */
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
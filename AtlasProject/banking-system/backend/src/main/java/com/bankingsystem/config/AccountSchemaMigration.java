@@ -0,0 +1,48 @@
+package com.bankingsystem.config;
+
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Brings existing account documents in line with the atomic balance path:
+ * balances stored as strings are converted to Decimal128 (so $inc and $gte work
+ * numerically) and documents written before @Version get an initial version.
+ *
+ * Runs while the context starts, before any bean that touches balances on startup
+ * (those declare @DependsOn("accountSchemaMigration")) and before the web server
+ * accepts requests; a failed migration fails startup.
+ */
+@Component
+public class AccountSchemaMigration {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        try {
+            long converted = mongoTemplate.getCollection("accounts").updateMany(
+                    new Document("balance", new Document("$type", "string")),
+                    List.of(new Document("$set", new Document("balance", new Document("$toDecimal", "$balance"))))
+            ).getModifiedCount();
+
+            long versioned = mongoTemplate.getCollection("accounts").updateMany(
+                    new Document("version", new Document("$exists", false)),
+                    new Document("$set", new Document("version", 0L))
+            ).getModifiedCount();
+
+            if (converted > 0 || versioned > 0) {
+                System.out.println("✅ Migrated accounts: " + converted + " balances to Decimal128, " +
+                        versioned + " versions initialized");
+            }
+        } catch (Exception e) {
+            System.err.println("❌ Account schema migration failed: " + e.getMessage());
+            throw new RuntimeException("Account schema migration failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -4,34 +4,93 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.async.SdkAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.http.nio.netty.SdkEventLoopGroup;
 import software.amazon.awssdk.regions.Region;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClientBuilder;
 
+import java.time.Duration;
+
+/**
+ * DynamoDB access is non-blocking: one DynamoDbAsyncClient on a Netty connection pool
+ * with an explicit size, so calls wait on a handful of event-loop threads instead of
+ * holding a thread each. Callers bound their own in-flight requests (DynamoBatchWriter).
+ */
 @Configuration
 public class DynamoDBConfig {
-    
+
     @Value("${aws.region:ap-south-1}")
     private String awsRegion;
-    
+
     @Value("${aws.dynamodb.local.port:8003}")
     private int localPort;
-    
+
     @Value("${aws.dynamodb.local.enabled:true}")
     private boolean localEnabled;
-    
-    @Bean
-    public DynamoDbClient dynamoDbClient() {
-        DynamoDbClientBuilder builder = DynamoDbClient.builder()
+
+    @Value("${aws.dynamodb.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${aws.dynamodb.http.max-pending-acquires:1000}")
+    private int maxPendingAcquires;
+
+    @Value("${aws.dynamodb.http.event-loop-threads:2}")
+    private int eventLoopThreads;
+
+    @Value("${aws.dynamodb.http.connect-timeout-ms:2000}")
+    private long connectTimeoutMillis;
+
+    @Value("${aws.dynamodb.http.acquire-timeout-ms:5000}")
+    private long acquireTimeoutMillis;
+
+    @Value("${aws.dynamodb.http.read-timeout-ms:10000}")
+    private long readTimeoutMillis;
+
+    @Value("${aws.dynamodb.http.idle-timeout-ms:60000}")
+    private long idleTimeoutMillis;
+
+    @Value("${aws.dynamodb.api-call-timeout-ms:30000}")
+    private long apiCallTimeoutMillis;
+
+    @Value("${aws.dynamodb.api-call-attempt-timeout-ms:10000}")
+    private long apiCallAttemptTimeoutMillis;
+
+    @Bean(destroyMethod = "close")
+    public SdkAsyncHttpClient dynamoDbHttpClient() {
+        return NettyNioAsyncHttpClient.builder()
+                .maxConcurrency(maxConnections)
+                .maxPendingConnectionAcquires(maxPendingAcquires)
+                .eventLoopGroupBuilder(SdkEventLoopGroup.builder()
+                        .numberOfThreads(eventLoopThreads))
+                .connectionTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .connectionAcquisitionTimeout(Duration.ofMillis(acquireTimeoutMillis))
+                .readTimeout(Duration.ofMillis(readTimeoutMillis))
+                .writeTimeout(Duration.ofMillis(readTimeoutMillis))
+                .connectionMaxIdleTime(Duration.ofMillis(idleTimeoutMillis))
+                .tcpKeepAlive(true)
+                .build();
+    }
+
+    @Bean(destroyMethod = "close")
+    public DynamoDbAsyncClient dynamoDbAsyncClient(SdkAsyncHttpClient dynamoDbHttpClient) {
+        DynamoDbAsyncClientBuilder builder = DynamoDbAsyncClient.builder()
                 .region(Region.of(awsRegion))
-                .credentialsProvider(DefaultCredentialsProvider.create());
-        
+                .credentialsProvider(DefaultCredentialsProvider.create())
+                .httpClient(dynamoDbHttpClient)
+                .overrideConfiguration(ClientOverrideConfiguration.builder()
+                        .apiCallTimeout(Duration.ofMillis(apiCallTimeoutMillis))
+                        .apiCallAttemptTimeout(Duration.ofMillis(apiCallAttemptTimeoutMillis))
+                        .build());
+
         // Configure for local DynamoDB if enabled
         if (localEnabled) {
             builder.endpointOverride(java.net.URI.create("http://localhost:" + localPort));
         }
-        
+
         return builder.build();
     }
-    
+
 }
@@ -0,0 +1,44 @@
+package com.bankingsystem.config;
+
+import com.bankingsystem.util.SettlementQueue;
+import com.bankingsystem.util.UndoRedoStack;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Gauges for in-memory state that has no timer of its own: settlement queue depth and
+ * the footprint of the undo/redo history. Operation latencies are in OperationMetrics.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder settlementQueueMetrics(SettlementQueue settlementQueue) {
+        return registry -> {
+            Gauge.builder("banking.settlement.queue.size", settlementQueue, SettlementQueue::size)
+                    .description("Transactions waiting for settlement")
+                    .register(registry);
+            Gauge.builder("banking.settlement.queue.pending", settlementQueue, SettlementQueue::getPendingCount)
+                    .description("Pending transactions in the settlement queue")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder undoRedoMetrics(UndoRedoStack undoRedoStack) {
+        return registry -> {
+            Gauge.builder("banking.undo.retained.entries", undoRedoStack, UndoRedoStack::getRetainedEntries)
+                    .description("Transactions held in undo/redo stacks")
+                    .register(registry);
+            Gauge.builder("banking.undo.retained.bytes", undoRedoStack, UndoRedoStack::getRetainedBytes)
+                    .description("Estimated heap held by undo/redo stacks")
+                    .baseUnit("bytes")
+                    .register(registry);
+            Gauge.builder("banking.undo.accounts", undoRedoStack, UndoRedoStack::getAccountCount)
+                    .description("Accounts with an undo/redo history")
+                    .register(registry);
+        };
+    }
+}
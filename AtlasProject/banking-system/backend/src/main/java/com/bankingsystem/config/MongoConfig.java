@@ -1,5 +1,10 @@
 package com.bankingsystem.config;
 
+import com.mongodb.MongoClientSettings;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsCommandListener;
+import io.micrometer.core.instrument.binder.mongodb.MongoMetricsConnectionPoolListener;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.mongodb.config.AbstractMongoClientConfiguration;
 import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
@@ -8,6 +13,20 @@ import org.springframework.data.mongodb.repository.config.EnableMongoRepositorie
 @EnableMongoRepositories(basePackages = "com.bankingsystem.repository")
 public class MongoConfig extends AbstractMongoClientConfiguration {
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    /**
+     * This configuration builds its own MongoClient, so Boot's Mongo metrics are not
+     * applied; time every command (mongodb.driver.commands) and track the pool here
+     */
+    @Override
+    protected void configureClientSettings(MongoClientSettings.Builder builder) {
+        builder.addCommandListener(new MongoMetricsCommandListener(meterRegistry))
+                .applyToConnectionPoolSettings(pool ->
+                        pool.addConnectionPoolListener(new MongoMetricsConnectionPoolListener(meterRegistry)));
+    }
+    
     @Override
     protected String getDatabaseName() {
         return "banking_system";
@@ -4,7 +4,11 @@ import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Customer;
 import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.CustomerRepository;
+import com.bankingsystem.service.AccountNumberAllocator;
 import com.bankingsystem.service.AuditService;
+import com.bankingsystem.util.AccountState;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -13,7 +17,6 @@ import jakarta.validation.Valid;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/accounts")
@@ -29,6 +32,15 @@ public class AccountController {
     @Autowired
     private AuditService auditService;
     
+    @Autowired
+    private AccountNumberAllocator accountNumberAllocator;
+    
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+    
+    @Autowired
+    private AccountStateTable accountStateTable;
+    
     /**
      * List all accounts
      */
@@ -59,7 +71,7 @@ public class AccountController {
                     .orElseThrow(() -> new RuntimeException("Customer not found"));
             
             // Generate account number
-            String accountNumber = "ACC" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6);
+            String accountNumber = accountNumberAllocator.nextAccountNumber();
             
             // Create account
             Account account = new Account(accountNumber, customer, request.getAccountType());
@@ -140,6 +152,17 @@ public class AccountController {
     @GetMapping("/{accountNumber}/balance")
     public ResponseEntity<?> getAccountBalance(@PathVariable String accountNumber) {
         try {
+            // Served from the off-heap account state when it holds the account
+            AccountState state = accountStateTable.get(accountNumber);
+            if (state != null && state.getCurrencyCode() != null) {
+                return ResponseEntity.ok(Map.of(
+                        "success", true,
+                        "accountNumber", accountNumber,
+                        "balance", state.getBalance(),
+                        "currency", state.getCurrencyCode()
+                ));
+            }
+            
             Account account = accountRepository.findByAccountNumber(accountNumber)
                     .orElseThrow(() -> new RuntimeException("Account not found"));
             
@@ -194,6 +217,28 @@ public class AccountController {
         }
     }
     
+    /**
+     * Get account and customer near-cache statistics
+     */
+    @GetMapping("/cache/stats")
+    public ResponseEntity<?> getCacheStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "caches", entityCacheManager.getStats()
+        ));
+    }
+    
+    /**
+     * Get off-heap account state statistics, including staleness against MongoDB
+     */
+    @GetMapping("/state/stats")
+    public ResponseEntity<?> getAccountStateStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "accountState", accountStateTable.getStats()
+        ));
+    }
+    
     // Inner classes for request/response
     public static class CreateAccountRequest {
         private String customerId;
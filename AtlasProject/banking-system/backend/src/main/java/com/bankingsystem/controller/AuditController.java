@@ -130,36 +130,93 @@ public class AuditController {
     }
     
     /**
-     * Get audit log statistics
+     * Get audit log statistics (whole hours; startDate/endDate are optional)
      */
     @GetMapping("/stats")
-    public ResponseEntity<?> getAuditStats() {
+    public ResponseEntity<?> getAuditStats(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate) {
         try {
-            List<AuditLog> allLogs = auditService.getAllAuditLogs();
+            LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
             
-            long totalLogs = allLogs.size();
-            long successLogs = allLogs.stream().filter(AuditLog::isSuccess).count();
-            long failureLogs = allLogs.stream().filter(AuditLog::isFailure).count();
+            Map<String, Object> stats = auditService.getAuditStats(start, end);
             
-            Map<String, Long> actionCounts = allLogs.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            AuditLog::getAction,
-                            java.util.stream.Collectors.counting()
-                    ));
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "totalLogs", stats.get("totalLogs"),
+                    "successLogs", stats.get("successLogs"),
+                    "failureLogs", stats.get("failureLogs"),
+                    "actionCounts", stats.get("actionCounts"),
+                    "entityTypeCounts", stats.get("entityTypeCounts")
+            ));
             
-            Map<String, Long> entityTypeCounts = allLogs.stream()
-                    .collect(java.util.stream.Collectors.groupingBy(
-                            AuditLog::getEntityType,
-                            java.util.stream.Collectors.counting()
-                    ));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Search archived audit history (all parameters are optional)
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<?> searchArchive(
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String userId,
+            @RequestParam(required = false) String entityId,
+            @RequestParam(required = false) String action) {
+        try {
+            LocalDateTime start = startDate != null ? LocalDateTime.parse(startDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            LocalDateTime end = endDate != null ? LocalDateTime.parse(endDate, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+            
+            List<AuditLog> logs = auditService.searchArchivedAuditLogs(start, end, userId, entityId, action);
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "totalLogs", totalLogs,
-                    "successLogs", successLogs,
-                    "failureLogs", failureLogs,
-                    "actionCounts", actionCounts,
-                    "entityTypeCounts", entityTypeCounts
+                    "logs", logs,
+                    "count", logs.size()
+            ));
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Get audit archive statistics
+     */
+    @GetMapping("/archive/stats")
+    public ResponseEntity<?> getArchiveStats() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "archive", auditService.getArchiveStats()
+            ));
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Get audit pipeline statistics
+     */
+    @GetMapping("/pipeline/stats")
+    public ResponseEntity<?> getPipelineStats() {
+        try {
+            return ResponseEntity.ok(Map.of(
+                    "success", true,
+                    "pipeline", auditService.getPipelineStats()
             ));
             
         } catch (Exception e) {
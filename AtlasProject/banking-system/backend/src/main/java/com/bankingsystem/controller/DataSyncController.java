@@ -1,5 +1,6 @@
 package com.bankingsystem.controller;
 
+import com.bankingsystem.service.ChangeStreamReplicator;
 import com.bankingsystem.service.DataSyncService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -14,17 +15,24 @@ public class DataSyncController {
     @Autowired
     private DataSyncService dataSyncService;
     
+    @Autowired(required = false)
+    private ChangeStreamReplicator changeStreamReplicator;
+    
     /**
-     * Sync all MongoDB data to DynamoDB
+     * Sync MongoDB changes since the last sync to DynamoDB (full=true re-syncs everything)
      */
     @PostMapping("/mongodb-to-dynamodb")
-    public Map<String, Object> syncMongoDBToDynamoDB() {
+    public Map<String, Object> syncMongoDBToDynamoDB(@RequestParam(defaultValue = "false") boolean full) {
         try {
-            dataSyncService.syncAllDataToDynamoDB();
+            if (full) {
+                dataSyncService.resetCheckpoints();
+            }
+            Map<String, Object> tables = dataSyncService.syncAllDataToDynamoDB();
             
             return Map.of(
                 "success", true,
                 "message", "Data synced from MongoDB to DynamoDB successfully!",
+                "tables", tables,
                 "timestamp", java.time.LocalDateTime.now()
             );
             
@@ -38,7 +46,7 @@ public class DataSyncController {
     }
     
     /**
-     * Get sync status
+     * Get sync status, with the last run's throughput per table
      */
     @GetMapping("/status")
     public Map<String, Object> getSyncStatus() {
@@ -47,6 +55,27 @@ public class DataSyncController {
             "message", "Data sync service is running",
             "mongodbCollections", new String[]{"customers", "accounts", "transactions", "audit_logs"},
             "dynamodbTables", new String[]{"BankingCustomers", "BankingAccounts", "BankingTransactions", "BankingAuditLogs"},
+            "sync", dataSyncService.getSyncStatus(),
+            "timestamp", java.time.LocalDateTime.now()
+        );
+    }
+    
+    /**
+     * Get change stream replication status and lag
+     */
+    @GetMapping("/replication")
+    public Map<String, Object> getReplicationStatus() {
+        if (changeStreamReplicator == null) {
+            return Map.of(
+                "success", true,
+                "enabled", false,
+                "message", "Change stream replication is disabled (banking.replication.enabled=false)"
+            );
+        }
+        return Map.of(
+            "success", true,
+            "enabled", true,
+            "replication", changeStreamReplicator.getStats(),
             "timestamp", java.time.LocalDateTime.now()
         );
     }
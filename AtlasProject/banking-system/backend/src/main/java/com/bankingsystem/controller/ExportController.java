@@ -0,0 +1,134 @@
+package com.bankingsystem.controller;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.service.ExportService;
+import com.bankingsystem.service.ExportService.ExportFormat;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+
+/**
+ * Bulk exports, streamed as NDJSON (default) or CSV. Parameters are validated before
+ * the response starts; once streaming, a failure or a disconnected client just ends
+ * the body.
+ */
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    @Autowired
+    private ExportService exportService;
+
+    /**
+     * Export transactions (startDate/endDate, type and status are optional)
+     */
+    @GetMapping("/transactions")
+    public ResponseEntity<?> exportTransactions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) String status) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            LocalDateTime start = parseDate(startDate);
+            LocalDateTime end = parseDate(endDate);
+            Transaction.TransactionType transactionType = type != null ? Transaction.TransactionType.valueOf(type.toUpperCase()) : null;
+            Transaction.TransactionStatus transactionStatus = status != null ? Transaction.TransactionStatus.valueOf(status.toUpperCase()) : null;
+
+            return stream("transactions", exportFormat, out ->
+                    exportService.exportTransactions(out, exportFormat, start, end, transactionType, transactionStatus));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Export accounts (status and accountType are optional)
+     */
+    @GetMapping("/accounts")
+    public ResponseEntity<?> exportAccounts(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String accountType) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            Account.AccountStatus accountStatus = status != null ? Account.AccountStatus.valueOf(status.toUpperCase()) : null;
+            Account.AccountType type = accountType != null ? Account.AccountType.valueOf(accountType.toUpperCase()) : null;
+
+            return stream("accounts", exportFormat, out ->
+                    exportService.exportAccounts(out, exportFormat, accountStatus, type));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    /**
+     * Export audit logs (startDate/endDate, action and entityType are optional)
+     */
+    @GetMapping("/audit-logs")
+    public ResponseEntity<?> exportAuditLogs(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String startDate,
+            @RequestParam(required = false) String endDate,
+            @RequestParam(required = false) String action,
+            @RequestParam(required = false) String entityType) {
+        try {
+            ExportFormat exportFormat = ExportFormat.parse(format);
+            LocalDateTime start = parseDate(startDate);
+            LocalDateTime end = parseDate(endDate);
+
+            return stream("audit-logs", exportFormat, out ->
+                    exportService.exportAuditLogs(out, exportFormat, start, end, action, entityType));
+
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+
+    private interface Export {
+        long writeTo(OutputStream out) throws IOException;
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(String name, ExportFormat format, Export export) {
+        StreamingResponseBody body = out -> {
+            try {
+                long records = export.writeTo(out);
+                System.out.println("📤 Exported " + records + " " + name + " as " + format.getExtension());
+            } catch (IOException e) {
+                System.err.println("Export of " + name + " aborted: " + e.getMessage());
+                throw e;
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + name + "." + format.getExtension() + "\"")
+                .body(body);
+    }
+
+    private LocalDateTime parseDate(String date) {
+        return date != null ? LocalDateTime.parse(date, DateTimeFormatter.ISO_LOCAL_DATE_TIME) : null;
+    }
+}
@@ -0,0 +1,53 @@
+package com.bankingsystem.controller;
+
+import com.bankingsystem.SettlementRunner;
+import com.bankingsystem.settlement.SettlementReport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/settlement")
+@CrossOrigin(origins = "*")
+public class SettlementController {
+
+    @Autowired
+    private SettlementRunner settlementRunner;
+
+    /**
+     * Run settlement now inside this server, which owns the settlement queue
+     */
+    @PostMapping("/run")
+    public Map<String, Object> runSettlement() {
+        try {
+            SettlementReport report = settlementRunner.runSettlement();
+            if (report == null) {
+                return Map.of(
+                    "success", true,
+                    "message", "No pending transactions to settle",
+                    "timestamp", java.time.LocalDateTime.now()
+                );
+            }
+
+            return Map.of(
+                "success", true,
+                "message", "Settlement completed",
+                "runId", report.getRunId(),
+                "settled", report.getSettled(),
+                "rejected", report.getRejected(),
+                "failed", report.getFailed() + report.getTimedOut(),
+                "remaining", report.getRemaining(),
+                "elapsedMillis", report.getElapsedMillis(),
+                "timestamp", java.time.LocalDateTime.now()
+            );
+
+        } catch (Exception e) {
+            return Map.of(
+                "success", false,
+                "message", "Error running settlement: " + e.getMessage(),
+                "timestamp", java.time.LocalDateTime.now()
+            );
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package com.bankingsystem.controller;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.TransactionPage;
+import com.bankingsystem.service.BatchTransactionService;
+import com.bankingsystem.service.CompensationService;
 import com.bankingsystem.service.DepositService;
 import com.bankingsystem.service.WithdrawService;
 import com.bankingsystem.service.TransferService;
+import com.bankingsystem.util.AccountLockManager;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -12,6 +17,7 @@ import org.springframework.web.bind.annotation.*;
 import jakarta.validation.Valid;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -29,9 +35,21 @@ public class TransactionController {
     @Autowired
     private TransferService transferService;
     
+    @Autowired
+    private BatchTransactionService batchTransactionService;
+    
+    @Autowired
+    private CompensationService compensationService;
+    
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLockManager accountLockManager;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
     /**
      * Process a deposit
      */
@@ -115,16 +133,25 @@ public class TransactionController {
     }
     
     /**
-     * Get transaction history for an account
+     * Process a batch of mixed postings (deposits, withdrawals, transfers)
      */
-    @GetMapping("/account/{accountNumber}")
-    public ResponseEntity<?> getTransactionHistory(@PathVariable String accountNumber) {
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody BatchRequest request) {
         try {
-            List<Transaction> transactions = transferService.getTransferHistory(accountNumber);
+            BatchTransactionService.BatchResult result = batchTransactionService.processBatch(
+                    request.getBatchId(), 
+                    request.getPostings(), 
+                    request.getUserId()
+            );
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "transactions", transactions
+                    "message", "Batch processed: " + result.getSucceeded() + " of " + result.getTotal() + " postings applied",
+                    "batchId", result.getBatchId(),
+                    "total", result.getTotal(),
+                    "succeeded", result.getSucceeded(),
+                    "failed", result.getFailed(),
+                    "results", result.getResults()
             ));
             
         } catch (Exception e) {
@@ -136,16 +163,21 @@ public class TransactionController {
     }
     
     /**
-     * Get deposit history for an account
+     * Undo every posting of a batch with compensating postings
      */
-    @GetMapping("/account/{accountNumber}/deposits")
-    public ResponseEntity<?> getDepositHistory(@PathVariable String accountNumber) {
+    @PostMapping("/batch/{batchId}/undo")
+    public ResponseEntity<?> undoBatch(@PathVariable String batchId, @RequestBody UndoRequest request) {
         try {
-            List<Transaction> transactions = depositService.getDepositHistory(accountNumber);
+            CompensationService.BatchUndoResult result = compensationService.undoBatch(batchId, request.getUserId());
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
-                    "transactions", transactions
+                    "message", "Batch undone: " + result.getReversed() + " of " + result.getTotal() + " postings reversed",
+                    "batchId", result.getBatchId(),
+                    "total", result.getTotal(),
+                    "reversed", result.getReversed(),
+                    "skipped", result.getSkipped(),
+                    "failed", result.getFailed()
             ));
             
         } catch (Exception e) {
@@ -157,17 +189,56 @@ public class TransactionController {
     }
     
     /**
-     * Get withdrawal history for an account
+     * Get transaction history for an account, one page at a time (pass nextCursor back as cursor)
      */
-    @GetMapping("/account/{accountNumber}/withdrawals")
-    public ResponseEntity<?> getWithdrawalHistory(@PathVariable String accountNumber) {
+    @GetMapping("/account/{accountNumber}")
+    public ResponseEntity<?> getTransactionHistory(@PathVariable String accountNumber,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "50") int size) {
         try {
-            List<Transaction> transactions = withdrawService.getWithdrawalHistory(accountNumber);
+            TransactionPage page = transferService.getTransferHistoryPage(accountNumber, cursor, size);
             
-            return ResponseEntity.ok(Map.of(
-                    "success", true,
-                    "transactions", transactions
+            return ResponseEntity.ok(historyResponse(page));
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Get deposit history for an account, one page at a time (pass nextCursor back as cursor)
+     */
+    @GetMapping("/account/{accountNumber}/deposits")
+    public ResponseEntity<?> getDepositHistory(@PathVariable String accountNumber,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "50") int size) {
+        try {
+            TransactionPage page = depositService.getDepositHistoryPage(accountNumber, cursor, size);
+            
+            return ResponseEntity.ok(historyResponse(page));
+            
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                    "success", false,
+                    "message", e.getMessage()
             ));
+        }
+    }
+    
+    /**
+     * Get withdrawal history for an account, one page at a time (pass nextCursor back as cursor)
+     */
+    @GetMapping("/account/{accountNumber}/withdrawals")
+    public ResponseEntity<?> getWithdrawalHistory(@PathVariable String accountNumber,
+                                   @RequestParam(required = false) String cursor,
+                                   @RequestParam(defaultValue = "50") int size) {
+        try {
+            TransactionPage page = withdrawService.getWithdrawalHistoryPage(accountNumber, cursor, size);
+            
+            return ResponseEntity.ok(historyResponse(page));
             
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of(
@@ -190,15 +261,13 @@ public class TransactionController {
                 ));
             }
             
-            Transaction transaction = undoRedoStack.popUndo(accountId);
-            
-            // Here you would implement the actual reversal logic
-            // For now, we'll just return the transaction that was undone
+            Transaction compensation = compensationService.undoLast(accountId, request.getUserId());
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Transaction undone successfully",
-                    "undoneTransaction", transaction
+                    "undoneTransactionId", compensation.getRelatedTransactionId(),
+                    "compensatingTransaction", compensation
             ));
             
         } catch (Exception e) {
@@ -222,15 +291,13 @@ public class TransactionController {
                 ));
             }
             
-            Transaction transaction = undoRedoStack.popRedo(accountId);
-            
-            // Here you would implement the actual re-execution logic
-            // For now, we'll just return the transaction that was redone
+            Transaction reapplied = compensationService.redoLast(accountId, request.getUserId());
             
             return ResponseEntity.ok(Map.of(
                     "success", true,
                     "message", "Transaction redone successfully",
-                    "redoneTransaction", transaction
+                    "redoneTransactionId", reapplied.getRelatedTransactionId(),
+                    "compensatingTransaction", reapplied
             ));
             
         } catch (Exception e) {
@@ -268,6 +335,49 @@ public class TransactionController {
         }
     }
     
+    /**
+     * Get account lock contention statistics
+     */
+    @GetMapping("/locks/stats")
+    public ResponseEntity<?> getLockStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "locks", accountLockManager.getStats()
+        ));
+    }
+    
+    /**
+     * Get in-memory ledger partition and persistence statistics
+     */
+    @GetMapping("/ledger/stats")
+    public ResponseEntity<?> getLedgerStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "ledger", ledgerEngine.getStats()
+        ));
+    }
+    
+    /**
+     * Get undo/redo history memory statistics
+     */
+    @GetMapping("/undo/stats")
+    public ResponseEntity<?> getUndoStats() {
+        return ResponseEntity.ok(Map.of(
+                "success", true,
+                "undo", undoRedoStack.getStats()
+        ));
+    }
+    
+    private Map<String, Object> historyResponse(TransactionPage page) {
+        // nextCursor is null on the last page, which Map.of does not allow
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("success", true);
+        response.put("transactions", page.getTransactions());
+        response.put("nextCursor", page.getNextCursor());
+        response.put("hasMore", page.hasMore());
+        return response;
+    }
+    
     // Inner classes for request/response
     public static class DepositRequest {
         private String accountNumber;
@@ -323,6 +433,20 @@ public class TransactionController {
         public void setUserId(String userId) { this.userId = userId; }
     }
     
+    public static class BatchRequest {
+        private String batchId;
+        private String userId;
+        private List<BatchTransactionService.BatchPosting> postings;
+        
+        // Getters and setters
+        public String getBatchId() { return batchId; }
+        public void setBatchId(String batchId) { this.batchId = batchId; }
+        public String getUserId() { return userId; }
+        public void setUserId(String userId) { this.userId = userId; }
+        public List<BatchTransactionService.BatchPosting> getPostings() { return postings; }
+        public void setPostings(List<BatchTransactionService.BatchPosting> postings) { this.postings = postings; }
+    }
+    
     public static class UndoRequest {
         private String userId;
         
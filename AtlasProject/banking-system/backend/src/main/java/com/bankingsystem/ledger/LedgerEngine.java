@@ -0,0 +1,380 @@
+package com.bankingsystem.ledger;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.ledger.TransactionJournal.JournalEntry;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountBalanceOperations;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sharded in-memory ledger for high-volume posting (opt-in with banking.ledger.enabled).
+ *
+ * Accounts are hashed onto a fixed set of partitions, each owned by a single writer
+ * thread, so postings never take a lock. A transfer is a two-step hand-off through
+ * this same interface: the debit runs on the source partition, the credit is then
+ * handed to the destination partition, and a refused credit is compensated back on
+ * the source with adjustBalance (which is never rejected for a full queue).
+ *
+ * Balances are loaded from MongoDB on first touch and kept in memory from then on.
+ * Committed transactions are inserted asynchronously in batches, and each batch also
+ * writes back the newest post-posting balance of every account it touches. With the
+ * transaction journal enabled a posting is acknowledged once its record is durable
+ * on local disk, and anything not yet applied to MongoDB is replayed on startup.
+ * While the ledger is enabled it owns the
+ * balances of the accounts it has loaded; writes that go around it (batch postings,
+ * status changes) are not seen until the node restarts. Write-backs are ordered by
+ * the account's ledgerVersion rather than its @Version, so such writes never make a
+ * later write-back look stale.
+ */
+@Component
+@DependsOn("accountSchemaMigration")
+public class LedgerEngine implements AccountBalanceOperations {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private TransactionJournal transactionJournal;
+
+    private final boolean enabled;
+    private final int partitionCount;
+    private final int queueCapacity;
+    private final long enqueueTimeoutMillis;
+    private final long flushIntervalMillis;
+    private final long checkpointIntervalMillis;
+    private final int persistBatchSize;
+
+    private LedgerPartition[] partitions;
+    private Thread[] partitionThreads;
+    private ScheduledExecutorService persister;
+    private BlockingQueue<JournalEntry> pendingTransactions;
+    private final List<JournalEntry> failedTransactions = new ArrayList<>();
+    private long lastCheckpointMillis;
+
+    private final AtomicLong transactionsPersisted = new AtomicLong();
+    private final AtomicLong inlinePersists = new AtomicLong();
+    private final AtomicLong persistFailures = new AtomicLong();
+    private final AtomicLong balancesWritten = new AtomicLong();
+    private final AtomicLong replayed = new AtomicLong();
+    private final AtomicLong reverted = new AtomicLong();
+    private final AtomicLong staleWriteBacks = new AtomicLong();
+
+    public LedgerEngine(@Value("${banking.ledger.enabled:false}") boolean enabled,
+                        @Value("${banking.ledger.partitions:8}") int partitionCount,
+                        @Value("${banking.ledger.queue-capacity:65536}") int queueCapacity,
+                        @Value("${banking.ledger.enqueue-timeout-ms:100}") long enqueueTimeoutMillis,
+                        @Value("${banking.ledger.flush-interval-ms:50}") long flushIntervalMillis,
+                        @Value("${banking.ledger.journal.checkpoint-interval-ms:1000}") long checkpointIntervalMillis,
+                        @Value("${banking.ledger.persist-batch-size:1000}") int persistBatchSize) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("Ledger partition count must be greater than zero");
+        }
+        this.enabled = enabled;
+        this.partitionCount = partitionCount;
+        this.queueCapacity = queueCapacity;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        this.persistBatchSize = persistBatchSize;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (transactionJournal.isEnabled()) {
+            replay(transactionJournal.open());
+        }
+
+        partitions = new LedgerPartition[partitionCount];
+        partitionThreads = new Thread[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new LedgerPartition(i, accountRepository, queueCapacity, enqueueTimeoutMillis);
+            partitionThreads[i] = new Thread(partitions[i], "ledger-partition-" + i);
+            partitionThreads[i].setDaemon(true);
+            partitionThreads[i].start();
+        }
+
+        pendingTransactions = new LinkedBlockingQueue<>(queueCapacity);
+        persister = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ledger-persister");
+            thread.setDaemon(true);
+            return thread;
+        });
+        persister.scheduleWithFixedDelay(this::flushTransactions, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        System.out.println("✅ In-memory ledger started with " + partitionCount + " partitions");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        persister.shutdown();
+        persister.awaitTermination(10, TimeUnit.SECONDS);
+        for (LedgerPartition partition : partitions) {
+            partition.stop();
+        }
+        for (Thread thread : partitionThreads) {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        }
+
+        // Final write-back of everything still queued (partition threads have exited)
+        flushTransactions();
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.checkpoint(transactionJournal.getApplicableCheckpoint());
+            transactionJournal.close();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        return await(partitionFor(accountNumber).submit(p -> p.find(accountNumber)));
+    }
+
+    @Override
+    public Optional<Account> creditBalance(String accountNumber, BigDecimal amount) {
+        return await(partitionFor(accountNumber).submit(p -> p.credit(accountNumber, amount)));
+    }
+
+    @Override
+    public Optional<Account> debitBalance(String accountNumber, BigDecimal amount) {
+        return await(partitionFor(accountNumber).submit(p -> p.debit(accountNumber, amount)));
+    }
+
+    @Override
+    public Optional<Account> adjustBalance(String accountNumber, BigDecimal delta) {
+        return await(partitionFor(accountNumber).submitUninterruptibly(p -> p.adjust(accountNumber, delta)));
+    }
+
+    /**
+     * Commit a completed transaction: journal it (waiting for the fsync when the journal
+     * is enabled) and queue it for insertion; applied inline if the queue is full.
+     * If the journal refuses the record, the postings are reversed in memory and the
+     * error is rethrown, so the ledger never keeps a balance change without its transaction.
+     */
+    public void commit(Transaction transaction) {
+        long sequence = 0;
+        if (transactionJournal.isEnabled()) {
+            try {
+                sequence = transactionJournal.append(transaction);
+            } catch (RuntimeException e) {
+                revert(transaction);
+                throw e;
+            }
+            try {
+                transactionJournal.awaitDurable(sequence);
+            } catch (RuntimeException e) {
+                // The record is in the journal and may still be replayed, so the postings
+                // stand; queue it so MongoDB ends up matching, but don't acknowledge it
+                enqueue(new JournalEntry(sequence, transaction));
+                throw e;
+            }
+        }
+        enqueue(new JournalEntry(sequence, transaction));
+    }
+
+    private void enqueue(JournalEntry entry) {
+        if (!pendingTransactions.offer(entry)) {
+            inlinePersists.incrementAndGet();
+            applyToMongo(List.of(entry), false);
+        }
+    }
+
+    /**
+     * Undo the in-memory postings of a transaction that could not be committed
+     */
+    private void revert(Transaction transaction) {
+        BigDecimal amount = transaction.getAmount();
+        String source = transaction.getSourceAccount().getAccountNumber();
+        switch (transaction.getType()) {
+            case DEPOSIT:
+                adjustBalance(source, amount.negate());
+                break;
+            case TRANSFER:
+                adjustBalance(transaction.getDestinationAccount().getAccountNumber(), amount.negate());
+                adjustBalance(source, amount);
+                break;
+            default:
+                adjustBalance(source, amount);
+        }
+        reverted.incrementAndGet();
+        System.err.println("Reverted ledger postings of " + transaction.getTransactionId() + " after a journal failure");
+    }
+
+    /**
+     * Get partition and persistence statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        if (!enabled) {
+            return stats;
+        }
+        List<Map<String, Object>> partitionStats = new ArrayList<>();
+        for (LedgerPartition partition : partitions) {
+            Map<String, Object> p = new LinkedHashMap<>();
+            p.put("partition", partition.getIndex());
+            p.put("queueDepth", partition.getQueueDepth());
+            p.put("accounts", partition.getAccountCount());
+            p.put("applied", partition.getApplied());
+            p.put("rejected", partition.getRejected());
+            partitionStats.add(p);
+        }
+        stats.put("partitions", partitionStats);
+        stats.put("pendingTransactions", pendingTransactions.size());
+        stats.put("transactionsPersisted", transactionsPersisted.get());
+        stats.put("inlinePersists", inlinePersists.get());
+        stats.put("persistFailures", persistFailures.get());
+        stats.put("balancesWritten", balancesWritten.get());
+        stats.put("replayed", replayed.get());
+        stats.put("reverted", reverted.get());
+        stats.put("staleWriteBacks", staleWriteBacks.get());
+        stats.put("journal", transactionJournal.getStats());
+        return stats;
+    }
+
+    /**
+     * Apply queued transactions in batches; a failed batch is retried on the next run
+     */
+    private void flushTransactions() {
+        try {
+            while (!failedTransactions.isEmpty() || !pendingTransactions.isEmpty()) {
+                boolean retry = !failedTransactions.isEmpty();
+                List<JournalEntry> batch = new ArrayList<>(failedTransactions);
+                failedTransactions.clear();
+                pendingTransactions.drainTo(batch, Math.max(0, persistBatchSize - batch.size()));
+                try {
+                    applyToMongo(batch, retry);
+                } catch (Exception e) {
+                    persistFailures.incrementAndGet();
+                    failedTransactions.addAll(batch);
+                    System.err.println("Failed to persist " + batch.size() + " ledger transactions: " + e.getMessage());
+                    return;
+                }
+            }
+            maybeCheckpoint();
+        } catch (Exception e) {
+            System.err.println("Ledger transaction flush failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Re-apply journal entries that may not have reached MongoDB before the last shutdown
+     */
+    private void replay(List<JournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        applyToMongo(entries, true);
+        replayed.addAndGet(entries.size());
+        transactionJournal.checkpoint(entries.get(entries.size() - 1).getSequence());
+        System.out.println("♻️ Replayed " + entries.size() + " journal entries");
+    }
+
+    /**
+     * Insert the transactions and write back the newest balance of every account they
+     * touch. With skipExisting the batch may already be partly applied, so transactions
+     * that are already stored are left alone; balance write-back is idempotent anyway.
+     */
+    private void applyToMongo(List<JournalEntry> entries, boolean skipExisting) {
+        List<Transaction> transactions = new ArrayList<>(entries.size());
+        Map<String, Account> latest = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            Transaction transaction = entry.getTransaction();
+            transactions.add(transaction);
+            keepNewest(latest, transaction.getSourceAccount());
+            keepNewest(latest, transaction.getDestinationAccount());
+        }
+
+        if (skipExisting) {
+            Set<String> stored = new HashSet<>();
+            for (Transaction existing : transactionRepository.findByTransactionIdIn(
+                    transactions.stream().map(Transaction::getTransactionId).toList())) {
+                stored.add(existing.getTransactionId());
+            }
+            transactions.removeIf(t -> stored.contains(t.getTransactionId()));
+        }
+        if (!transactions.isEmpty()) {
+            transactionRepository.saveAll(transactions);
+        }
+        // Replays re-send older balances, which the version guard rightly skips
+        staleWriteBacks.addAndGet(accountRepository.saveBalanceSnapshot(latest.values()));
+        transactionsPersisted.addAndGet(transactions.size());
+        balancesWritten.addAndGet(latest.size());
+
+        if (transactionJournal.isEnabled()) {
+            transactionJournal.markApplied(entries.stream().map(JournalEntry::getSequence).toList());
+        }
+    }
+
+    private void keepNewest(Map<String, Account> latest, Account account) {
+        if (account == null || account.getVersion() == null) {
+            return;
+        }
+        latest.merge(account.getAccountNumber(), account,
+                (current, candidate) -> candidate.getVersion() > current.getVersion() ? candidate : current);
+    }
+
+    private void maybeCheckpoint() {
+        long now = System.currentTimeMillis();
+        if (transactionJournal.isEnabled() && now - lastCheckpointMillis >= checkpointIntervalMillis) {
+            transactionJournal.checkpoint(transactionJournal.getApplicableCheckpoint());
+            lastCheckpointMillis = now;
+        }
+    }
+
+    private LedgerPartition partitionFor(String accountNumber) {
+        if (!enabled) {
+            throw new IllegalStateException("In-memory ledger is not enabled");
+        }
+        if (accountNumber == null) {
+            throw new IllegalArgumentException("Account number is required");
+        }
+        int hash = accountNumber.hashCode();
+        return partitions[Math.floorMod(hash ^ (hash >>> 16), partitionCount)];
+    }
+
+    private <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+}
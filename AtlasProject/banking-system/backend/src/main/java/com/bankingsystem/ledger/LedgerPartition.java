@@ -0,0 +1,188 @@
+package com.bankingsystem.ledger;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.repository.AccountRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * One shard of the in-memory ledger.
+ *
+ * All state (the account map) is owned by the partition thread
+ * and only touched from commands it executes, so no locking is needed. Other
+ * threads talk to the partition by enqueuing commands and waiting on the returned
+ * future.
+ */
+class LedgerPartition implements Runnable {
+
+    private final int index;
+    private final AccountRepository accountRepository;
+    private final BlockingQueue<Runnable> commands;
+    private final long enqueueTimeoutMillis;
+
+    private final Map<String, Account> accounts = new HashMap<>();
+
+    private volatile boolean running = true;
+    private volatile long applied;
+    private volatile long rejected;
+
+    LedgerPartition(int index, AccountRepository accountRepository, int queueCapacity, long enqueueTimeoutMillis) {
+        this.index = index;
+        this.accountRepository = accountRepository;
+        this.commands = new ArrayBlockingQueue<>(queueCapacity);
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+    }
+
+    /**
+     * Enqueue a command; fails fast with an exception if the partition stays full
+     */
+    <T> CompletableFuture<T> submit(Function<LedgerPartition, T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        try {
+            if (!commands.offer(() -> execute(command, future), enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                future.completeExceptionally(new RuntimeException("Ledger partition " + index + " is overloaded, please retry"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.completeExceptionally(new RuntimeException("Interrupted while submitting to ledger partition " + index, e));
+        }
+        return future;
+    }
+
+    /**
+     * Enqueue a command that must not be dropped (compensations), waiting for space as long as needed
+     */
+    <T> CompletableFuture<T> submitUninterruptibly(Function<LedgerPartition, T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        boolean interrupted = false;
+        while (true) {
+            try {
+                commands.put(() -> execute(command, future));
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return future;
+    }
+
+    @Override
+    public void run() {
+        while (running || !commands.isEmpty()) {
+            try {
+                Runnable command = commands.poll(100, TimeUnit.MILLISECONDS);
+                if (command != null) {
+                    command.run();
+                }
+            } catch (InterruptedException e) {
+                // Shutdown is signalled through the running flag; keep draining
+            }
+        }
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    // Commands below run on the partition thread only
+
+    Optional<Account> find(String accountNumber) {
+        return Optional.ofNullable(load(accountNumber)).map(Account::new);
+    }
+
+    Optional<Account> credit(String accountNumber, BigDecimal amount) {
+        Account account = load(accountNumber);
+        if (account == null || account.getStatus() != Account.AccountStatus.ACTIVE) {
+            rejected++;
+            return Optional.empty();
+        }
+        return Optional.of(apply(account, amount));
+    }
+
+    Optional<Account> debit(String accountNumber, BigDecimal amount) {
+        Account account = load(accountNumber);
+        if (account == null || account.getStatus() != Account.AccountStatus.ACTIVE
+                || account.getBalance().compareTo(amount) < 0) {
+            rejected++;
+            return Optional.empty();
+        }
+        return Optional.of(apply(account, amount.negate()));
+    }
+
+    Optional<Account> adjust(String accountNumber, BigDecimal delta) {
+        Account account = load(accountNumber);
+        if (account == null) {
+            return Optional.empty();
+        }
+        return Optional.of(apply(account, delta));
+    }
+
+    private Account load(String accountNumber) {
+        Account account = accounts.get(accountNumber);
+        if (account == null) {
+            // First touch: the persisted balance becomes the ledger's starting point. A private
+            // copy, since the repository may hand out its cached instance.
+            account = accountRepository.findByAccountNumber(accountNumber).map(Account::new).orElse(null);
+            if (account != null) {
+                // Continue after the last write-back, so new write-backs are not taken as stale
+                Long ledgerVersion = account.getLedgerVersion();
+                if (ledgerVersion != null && (account.getVersion() == null || ledgerVersion > account.getVersion())) {
+                    account.setVersion(ledgerVersion);
+                }
+                accounts.put(accountNumber, account);
+            }
+        }
+        return account;
+    }
+
+    private Account apply(Account account, BigDecimal delta) {
+        LocalDateTime now = LocalDateTime.now();
+        account.setBalance(account.getBalance().add(delta));
+        account.setUpdatedAt(now);
+        account.setLastTransactionDate(now);
+        // The version travels with the transaction, so write-back can drop stale balances
+        account.setVersion(account.getVersion() == null ? 1 : account.getVersion() + 1);
+        applied++;
+        return new Account(account);
+    }
+
+    private <T> void execute(Function<LedgerPartition, T> command, CompletableFuture<T> future) {
+        try {
+            future.complete(command.apply(this));
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    int getIndex() {
+        return index;
+    }
+
+    int getQueueDepth() {
+        return commands.size();
+    }
+
+    long getApplied() {
+        return applied;
+    }
+
+    long getRejected() {
+        return rejected;
+    }
+
+    int getAccountCount() {
+        return accounts.size();
+    }
+}
@@ -0,0 +1,422 @@
+package com.bankingsystem.ledger;
+
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.TransactionCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped write-ahead journal of ledger transactions.
+ *
+ * Each record is [length][CRC32C][sequence, transaction, post-balances] written into
+ * a fixed-size mapped segment file; a full segment is forced and a new one started.
+ * A background flusher forces new bytes to disk every group-commit interval, so many
+ * concurrent postings share one fsync, and committers wait until their record is
+ * durable. Once the records up to a sequence have been applied to MongoDB a
+ * checkpoint is written and older segments are deleted. On startup every intact
+ * record after the checkpoint is handed back for replay; a torn tail (bad length or
+ * checksum) ends the scan.
+ */
+@Component
+public class TransactionJournal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER_BYTES = 8;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final long groupCommitNanos;
+
+    private final Object appendLock = new Object();
+    private final Object durableMonitor = new Object();
+
+    private FileChannel channel;
+    private MappedByteBuffer segment;
+    private int position;
+    private int forcedPosition;
+    private long lastSequence;
+
+    private volatile long durableSequence;
+    private volatile long checkpointSequence;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /** Appended sequences not yet applied to MongoDB */
+    private final ConcurrentSkipListSet<Long> unapplied = new ConcurrentSkipListSet<>();
+
+    private final AtomicLong records = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong segmentsRolled = new AtomicLong();
+    private final AtomicLong totalFsyncNanos = new AtomicLong();
+
+    public TransactionJournal(@Value("${banking.ledger.journal.enabled:false}") boolean enabled,
+                              @Value("${banking.ledger.journal.dir:./data/journal}") String directory,
+                              @Value("${banking.ledger.journal.segment-size-mb:64}") int segmentSizeMb,
+                              @Value("${banking.ledger.journal.group-commit-us:500}") long groupCommitMicros) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = segmentSizeMb * 1024 * 1024;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Open the journal and return every intact entry after the last checkpoint, in order
+     */
+    public List<JournalEntry> open() {
+        try {
+            Files.createDirectories(directory);
+            Path checkpointFile = directory.resolve(CHECKPOINT_FILE);
+            checkpointSequence = Files.exists(checkpointFile)
+                    ? Long.parseLong(Files.readString(checkpointFile).trim())
+                    : 0;
+
+            List<JournalEntry> pending = new ArrayList<>();
+            lastSequence = checkpointSequence;
+            for (Path file : listSegments()) {
+                readSegment(file, pending);
+            }
+            for (JournalEntry entry : pending) {
+                lastSequence = Math.max(lastSequence, entry.getSequence());
+            }
+
+            // Always continue in a fresh segment, so a torn tail is never appended to
+            openSegment(lastSequence + 1);
+            durableSequence = lastSequence;
+
+            running = true;
+            flusher = new Thread(this::runFlusher, "journal-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+            return pending;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open transaction journal in " + directory, e);
+        }
+    }
+
+    public void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(flusher);
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock) {
+            forceCurrent();
+            closeChannel();
+        }
+    }
+
+    /**
+     * Append a transaction record and return its sequence (not yet durable)
+     */
+    public long append(Transaction transaction) {
+        // Serialize outside the lock; only the sequence is patched in once it is assigned
+        byte[] payload = encode(0, transaction);
+        synchronized (appendLock) {
+            long sequence = lastSequence + 1;
+            ByteBuffer.wrap(payload).putLong(0, sequence);
+            int recordBytes = HEADER_BYTES + payload.length;
+            if (recordBytes > segmentBytes) {
+                throw new RuntimeException("Journal record of " + recordBytes + " bytes exceeds the segment size");
+            }
+            if (position + recordBytes > segmentBytes) {
+                rollSegment(sequence);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            segment.putInt(position + 4, (int) crc.getValue());
+            segment.put(position + HEADER_BYTES, payload);
+            // Length goes in last: a record is only visible to replay once it is complete
+            segment.putInt(position, payload.length);
+            position += recordBytes;
+
+            lastSequence = sequence;
+            unapplied.add(sequence);
+            records.incrementAndGet();
+            bytesWritten.addAndGet(recordBytes);
+            return sequence;
+        }
+    }
+
+    /**
+     * Block until the record with the given sequence has been forced to disk
+     */
+    public void awaitDurable(long sequence) {
+        if (durableSequence >= sequence) {
+            return;
+        }
+        LockSupport.unpark(flusher);
+        synchronized (durableMonitor) {
+            while (durableSequence < sequence) {
+                if (!running) {
+                    throw new RuntimeException("Transaction journal is closed");
+                }
+                try {
+                    durableMonitor.wait(10);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException("Interrupted while waiting for journal fsync", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that the given entries are now reflected in MongoDB
+     */
+    public void markApplied(List<Long> sequences) {
+        unapplied.removeAll(sequences);
+    }
+
+    /**
+     * Highest sequence below which everything has been applied to MongoDB
+     */
+    public long getApplicableCheckpoint() {
+        synchronized (appendLock) {
+            Long oldest = unapplied.isEmpty() ? null : unapplied.first();
+            return oldest != null ? oldest - 1 : lastSequence;
+        }
+    }
+
+    /**
+     * Persist the checkpoint and delete segments that lie entirely before it
+     */
+    public void checkpoint(long sequence) {
+        if (sequence <= checkpointSequence) {
+            return;
+        }
+        try {
+            Path tmp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+                out.force(true);
+            }
+            Files.move(tmp, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            checkpointSequence = sequence;
+
+            // A segment can go once the next segment starts at or before the checkpoint
+            List<Path> segments = listSegments();
+            for (int i = 0; i + 1 < segments.size(); i++) {
+                if (firstSequenceOf(segments.get(i + 1)) <= sequence + 1) {
+                    Files.deleteIfExists(segments.get(i));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write journal checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get append, fsync and checkpoint statistics
+     */
+    public Map<String, Object> getStats() {
+        long fsyncCount = fsyncs.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("records", records.get());
+        stats.put("bytesWritten", bytesWritten.get());
+        stats.put("fsyncs", fsyncCount);
+        stats.put("averageFsyncMicros", fsyncCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalFsyncNanos.get() / fsyncCount));
+        stats.put("segmentsRolled", segmentsRolled.get());
+        stats.put("durableSequence", durableSequence);
+        stats.put("checkpointSequence", checkpointSequence);
+        stats.put("unapplied", unapplied.size());
+        return stats;
+    }
+
+    private void runFlusher() {
+        while (running) {
+            long target;
+            MappedByteBuffer buffer;
+            int from;
+            int to;
+            // Claim the unforced range under the lock, but fsync outside it so appends keep flowing
+            synchronized (appendLock) {
+                target = lastSequence;
+                buffer = segment;
+                from = forcedPosition;
+                to = position;
+                forcedPosition = position;
+            }
+            if (target > durableSequence) {
+                force(buffer, from, to);
+                synchronized (durableMonitor) {
+                    durableSequence = target;
+                    durableMonitor.notifyAll();
+                }
+            } else {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+        }
+        synchronized (durableMonitor) {
+            durableMonitor.notifyAll();
+        }
+    }
+
+    private void forceCurrent() {
+        force(segment, forcedPosition, position);
+        forcedPosition = position;
+    }
+
+    private void force(MappedByteBuffer buffer, int from, int to) {
+        if (buffer == null || to == from) {
+            return;
+        }
+        long start = System.nanoTime();
+        buffer.force(from, to - from);
+        fsyncs.incrementAndGet();
+        totalFsyncNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    private void rollSegment(long firstSequence) {
+        forceCurrent();
+        closeChannel();
+        try {
+            openSegment(firstSequence);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to roll journal segment", e);
+        }
+        segmentsRolled.incrementAndGet();
+    }
+
+    private void openSegment(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        position = 0;
+        forcedPosition = 0;
+    }
+
+    private void closeChannel() {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close journal segment: " + e.getMessage());
+        }
+        channel = null;
+        segment = null;
+    }
+
+    private List<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && f.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long firstSequenceOf(Path segmentFile) {
+        String name = segmentFile.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    private void readSegment(Path file, List<JournalEntry> pending) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            int offset = 0;
+            while (offset + HEADER_BYTES <= buffer.limit()) {
+                int length = buffer.getInt(offset);
+                if (length <= 0 || offset + HEADER_BYTES + length > buffer.limit()) {
+                    return;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                    System.err.println("Journal record with bad checksum in " + file.getFileName() + " at offset " + offset);
+                    return;
+                }
+                JournalEntry entry = decode(payload);
+                if (entry.getSequence() > checkpointSequence) {
+                    pending.add(entry);
+                }
+                offset += HEADER_BYTES + length;
+            }
+        }
+    }
+
+    private static byte[] encode(long sequence, Transaction transaction) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeLong(sequence);
+            TransactionCodec.write(out, transaction);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static JournalEntry decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        return new JournalEntry(sequence, TransactionCodec.read(in));
+    }
+
+    /**
+     * A journaled transaction with its sequence number
+     */
+    public static class JournalEntry {
+        private final long sequence;
+        private final Transaction transaction;
+
+        public JournalEntry(long sequence, Transaction transaction) {
+            this.sequence = sequence;
+            this.transaction = transaction;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public Transaction getTransaction() {
+            return transaction;
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.bankingsystem.model;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -11,8 +15,11 @@ import jakarta.validation.constraints.DecimalMin;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Currency;
+import java.util.List;
 
 @Document(collection = "accounts")
+// Incremental DynamoDB sync pages through changes in this order
+@CompoundIndex(name = "sync_watermark", def = "{'updatedAt': 1, '_id': 1}")
 public class Account {
     @Id
     private String id;
@@ -29,6 +36,7 @@ public class Account {
     private AccountType accountType;
     
     @DecimalMin(value = "0.0", message = "Balance cannot be negative")
+    @Field(targetType = FieldType.DECIMAL128)
     private BigDecimal balance;
     
     private Currency currency;
@@ -37,6 +45,30 @@ public class Account {
     private LocalDateTime updatedAt;
     private LocalDateTime lastTransactionDate;
     
+    @Version
+    private Long version;
+    
+    /**
+     * Ids of the latest bulk runs (settlement netting, batch postings) applied to this
+     * account, newest last, so a redelivered run can tell it was already applied
+     */
+    private List<String> appliedBatchIds;
+    
+    public static final int APPLIED_BATCH_IDS_KEPT = 32;
+    
+    /**
+     * Transfers whose leg has been applied to this account but that are not settled yet;
+     * empty except while a transfer is in flight or was interrupted by a crash
+     */
+    private List<String> pendingTransfers;
+    
+    /**
+     * Ledger version of the last in-memory ledger write-back. Kept apart from @Version so
+     * that other writes (status changes, bulk postings) cannot make the ledger's
+     * write-backs look stale.
+     */
+    private Long ledgerVersion;
+    
     // Constructors
     public Account() {
         this.balance = BigDecimal.ZERO;
@@ -53,6 +85,26 @@ public class Account {
         this.accountType = accountType;
     }
     
+    /**
+     * Shallow copy (the referenced customer is shared)
+     */
+    public Account(Account other) {
+        this.id = other.id;
+        this.accountNumber = other.accountNumber;
+        this.customer = other.customer;
+        this.accountType = other.accountType;
+        this.balance = other.balance;
+        this.currency = other.currency;
+        this.status = other.status;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+        this.lastTransactionDate = other.lastTransactionDate;
+        this.version = other.version;
+        this.appliedBatchIds = other.appliedBatchIds;
+        this.pendingTransfers = other.pendingTransfers;
+        this.ledgerVersion = other.ledgerVersion;
+    }
+    
     // Enums
     public enum AccountType {
         SAVINGS("Savings Account"),
@@ -169,6 +221,38 @@ public class Account {
         this.lastTransactionDate = lastTransactionDate;
     }
     
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public List<String> getAppliedBatchIds() {
+        return appliedBatchIds;
+    }
+    
+    public void setAppliedBatchIds(List<String> appliedBatchIds) {
+        this.appliedBatchIds = appliedBatchIds;
+    }
+    
+    public List<String> getPendingTransfers() {
+        return pendingTransfers;
+    }
+    
+    public void setPendingTransfers(List<String> pendingTransfers) {
+        this.pendingTransfers = pendingTransfers;
+    }
+    
+    public Long getLedgerVersion() {
+        return ledgerVersion;
+    }
+    
+    public void setLedgerVersion(Long ledgerVersion) {
+        this.ledgerVersion = ledgerVersion;
+    }
+    
     // Business methods
     public boolean canWithdraw(BigDecimal amount) {
         return status == AccountStatus.ACTIVE && 
@@ -202,6 +286,7 @@ public class Account {
                 ", balance=" + balance +
                 ", currency=" + currency +
                 ", status=" + status +
+                ", version=" + version +
                 ", createdAt=" + createdAt +
                 '}';
     }
@@ -0,0 +1,64 @@
+package com.bankingsystem.model;
+
+/**
+ * Compact copy of the account (and holder) a transaction was posted to, embedded in
+ * the transaction document so history reads do not have to resolve the account and
+ * customer references. Taken when the transaction is created; it is not updated if
+ * the account or customer changes later.
+ */
+public class AccountSnapshot {
+    
+    private String accountNumber;
+    private Account.AccountType accountType;
+    private String holderName;
+    
+    public AccountSnapshot() {
+    }
+    
+    public AccountSnapshot(String accountNumber, Account.AccountType accountType, String holderName) {
+        this.accountNumber = accountNumber;
+        this.accountType = accountType;
+        this.holderName = holderName;
+    }
+    
+    /**
+     * Snapshot of an account; the holder name is left out when the customer was not loaded
+     */
+    public static AccountSnapshot of(Account account) {
+        if (account == null) {
+            return null;
+        }
+        Customer customer = account.getCustomer();
+        return new AccountSnapshot(account.getAccountNumber(), account.getAccountType(),
+                customer != null && customer.getFirstName() != null ? customer.getFullName() : null);
+    }
+    
+    /** Whether the snapshot is complete enough to stand in for the referenced account */
+    public boolean isComplete() {
+        return accountNumber != null && holderName != null;
+    }
+    
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+    
+    public void setAccountNumber(String accountNumber) {
+        this.accountNumber = accountNumber;
+    }
+    
+    public Account.AccountType getAccountType() {
+        return accountType;
+    }
+    
+    public void setAccountType(Account.AccountType accountType) {
+        this.accountType = accountType;
+    }
+    
+    public String getHolderName() {
+        return holderName;
+    }
+    
+    public void setHolderName(String holderName) {
+        this.holderName = holderName;
+    }
+}
@@ -2,6 +2,7 @@ package com.bankingsystem.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -10,6 +11,8 @@ import java.time.LocalDateTime;
 import java.util.Map;
 
 @Document(collection = "audit_logs")
+// Incremental DynamoDB sync pages through changes in this order
+@CompoundIndex(name = "sync_watermark", def = "{'timestamp': 1, '_id': 1}")
 public class AuditLog {
     @Id
     private String id;
@@ -2,6 +2,7 @@ package com.bankingsystem.model;
 
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -11,6 +12,8 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Document(collection = "customers")
+// Incremental DynamoDB sync pages through changes in this order
+@CompoundIndex(name = "sync_watermark", def = "{'updatedAt': 1, '_id': 1}")
 public class Customer {
     @Id
     private String id;
@@ -60,6 +63,22 @@ public class Customer {
         this.pincode = pincode;
     }
     
+    public Customer(Customer other) {
+        this.id = other.id;
+        this.firstName = other.firstName;
+        this.lastName = other.lastName;
+        this.email = other.email;
+        this.mobileNumber = other.mobileNumber;
+        this.address = other.address;
+        this.city = other.city;
+        this.state = other.state;
+        this.pincode = other.pincode;
+        this.panNumber = other.panNumber;
+        this.aadharNumber = other.aadharNumber;
+        this.createdAt = other.createdAt;
+        this.updatedAt = other.updatedAt;
+    }
+    
     // Getters and Setters
     public String getId() {
         return id;
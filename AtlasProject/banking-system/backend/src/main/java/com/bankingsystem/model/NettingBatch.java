@@ -0,0 +1,227 @@
+package com.bankingsystem.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+import org.springframework.data.mongodb.core.index.Indexed;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Record of one netting run during settlement: which transactions were netted, the
+ * resulting position of every account and account pair, and which postings were
+ * rejected and why. Each netted transaction carries the nettingBatchId back to it.
+ * The record is inserted as PENDING before any balance is written and marked APPLIED
+ * once every position has been applied. A resumed batch that cannot prove whether some
+ * account already received its position is marked NEEDS_REVIEW with those accounts.
+ */
+@Document(collection = "netting_batches")
+public class NettingBatch {
+    @Id
+    private String id;
+
+    @Indexed(unique = true)
+    private String nettingBatchId;
+
+    @Indexed
+    private List<String> transactionIds = new ArrayList<>();
+
+    private List<AccountPosition> accountPositions = new ArrayList<>();
+    private List<PairPosition> pairPositions = new ArrayList<>();
+    private Map<String, String> rejected = new LinkedHashMap<>();
+    private int balanceWrites;
+    private List<String> unresolvedAccounts = new ArrayList<>();
+    private Status status;
+    private LocalDateTime createdAt;
+
+    // Constructors
+    public NettingBatch() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public NettingBatch(String nettingBatchId) {
+        this();
+        this.nettingBatchId = nettingBatchId;
+    }
+
+    // Getters and Setters
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getNettingBatchId() {
+        return nettingBatchId;
+    }
+
+    public void setNettingBatchId(String nettingBatchId) {
+        this.nettingBatchId = nettingBatchId;
+    }
+
+    public List<String> getTransactionIds() {
+        return transactionIds;
+    }
+
+    public void setTransactionIds(List<String> transactionIds) {
+        this.transactionIds = transactionIds;
+    }
+
+    public List<AccountPosition> getAccountPositions() {
+        return accountPositions;
+    }
+
+    public void setAccountPositions(List<AccountPosition> accountPositions) {
+        this.accountPositions = accountPositions;
+    }
+
+    public List<PairPosition> getPairPositions() {
+        return pairPositions;
+    }
+
+    public void setPairPositions(List<PairPosition> pairPositions) {
+        this.pairPositions = pairPositions;
+    }
+
+    public Map<String, String> getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(Map<String, String> rejected) {
+        this.rejected = rejected;
+    }
+
+    public int getBalanceWrites() {
+        return balanceWrites;
+    }
+
+    public void setBalanceWrites(int balanceWrites) {
+        this.balanceWrites = balanceWrites;
+    }
+
+    public List<String> getUnresolvedAccounts() {
+        return unresolvedAccounts;
+    }
+
+    public void setUnresolvedAccounts(List<String> unresolvedAccounts) {
+        this.unresolvedAccounts = unresolvedAccounts;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * Records written before the status existed were only inserted after applying; a
+     * batch under review is not resumed again
+     */
+    public boolean isApplied() {
+        return status != Status.PENDING;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public enum Status {
+        PENDING,
+        APPLIED,
+        NEEDS_REVIEW
+    }
+
+    /**
+     * Gross debits and credits of one account in the batch, and the net change applied
+     */
+    public static class AccountPosition {
+        private String accountNumber;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal debits = BigDecimal.ZERO;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal credits = BigDecimal.ZERO;
+        private int transactions;
+        /** Account version the position was computed against */
+        private Long accountVersion;
+
+        public AccountPosition() {
+        }
+
+        public AccountPosition(String accountNumber) {
+            this.accountNumber = accountNumber;
+        }
+
+        public void debit(BigDecimal amount) {
+            debits = debits.add(amount);
+            transactions++;
+        }
+
+        public void credit(BigDecimal amount) {
+            credits = credits.add(amount);
+            transactions++;
+        }
+
+        public BigDecimal getNet() {
+            return credits.subtract(debits);
+        }
+
+        public String getAccountNumber() { return accountNumber; }
+        public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+        public BigDecimal getDebits() { return debits; }
+        public void setDebits(BigDecimal debits) { this.debits = debits; }
+        public BigDecimal getCredits() { return credits; }
+        public void setCredits(BigDecimal credits) { this.credits = credits; }
+        public int getTransactions() { return transactions; }
+        public void setTransactions(int transactions) { this.transactions = transactions; }
+        public Long getAccountVersion() { return accountVersion; }
+        public void setAccountVersion(Long accountVersion) { this.accountVersion = accountVersion; }
+    }
+
+    /**
+     * Net flow between two accounts (ordered by account number), positive when money
+     * moved from the first account to the second
+     */
+    public static class PairPosition {
+        private String firstAccountNumber;
+        private String secondAccountNumber;
+        @Field(targetType = FieldType.DECIMAL128)
+        private BigDecimal netToSecond = BigDecimal.ZERO;
+        private int transfers;
+
+        public PairPosition() {
+        }
+
+        public PairPosition(String firstAccountNumber, String secondAccountNumber) {
+            this.firstAccountNumber = firstAccountNumber;
+            this.secondAccountNumber = secondAccountNumber;
+        }
+
+        public void transfer(String fromAccountNumber, BigDecimal amount) {
+            netToSecond = fromAccountNumber.equals(firstAccountNumber) ? netToSecond.add(amount) : netToSecond.subtract(amount);
+            transfers++;
+        }
+
+        public String getFirstAccountNumber() { return firstAccountNumber; }
+        public void setFirstAccountNumber(String firstAccountNumber) { this.firstAccountNumber = firstAccountNumber; }
+        public String getSecondAccountNumber() { return secondAccountNumber; }
+        public void setSecondAccountNumber(String secondAccountNumber) { this.secondAccountNumber = secondAccountNumber; }
+        public BigDecimal getNetToSecond() { return netToSecond; }
+        public void setNetToSecond(BigDecimal netToSecond) { this.netToSecond = netToSecond; }
+        public int getTransfers() { return transfers; }
+        public void setTransfers(int transfers) { this.transfers = transfers; }
+    }
+}
@@ -3,6 +3,8 @@ package com.bankingsystem.model;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.DocumentReference;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.index.Indexed;
 
 import jakarta.validation.constraints.NotBlank;
@@ -13,6 +15,15 @@ import java.time.LocalDateTime;
 import java.util.Currency;
 
 @Document(collection = "transactions")
+@CompoundIndexes({
+    // Keyset-paginated account history, newest first, with and without a type filter
+    @CompoundIndex(name = "source_history", def = "{'sourceAccount': 1, 'transactionDate': -1, 'transactionId': -1}"),
+    @CompoundIndex(name = "destination_history", def = "{'destinationAccount': 1, 'transactionDate': -1, 'transactionId': -1}"),
+    @CompoundIndex(name = "source_type_history", def = "{'sourceAccount': 1, 'type': 1, 'transactionDate': -1, 'transactionId': -1}"),
+    @CompoundIndex(name = "destination_type_history", def = "{'destinationAccount': 1, 'type': 1, 'transactionDate': -1, 'transactionId': -1}"),
+    // Incremental DynamoDB sync pages through changes in this order
+    @CompoundIndex(name = "sync_watermark", def = "{'updatedAt': 1, '_id': 1}")
+})
 public class Transaction {
     @Id
     private String id;
@@ -36,12 +47,26 @@ public class Transaction {
     @DocumentReference
     private Account destinationAccount;
     
+    // Denormalized copies for history reads, so they need not resolve the references above
+    private AccountSnapshot sourceSnapshot;
+    private AccountSnapshot destinationSnapshot;
+    
     @NotBlank(message = "Description is required")
     private String description;
     
     private TransactionStatus status;
     private String referenceNumber;
     private String remarks;
+    
+    @Indexed(sparse = true)
+    private String batchId;
+    
+    @Indexed(sparse = true)
+    private String nettingBatchId;
+    
+    @Indexed(sparse = true)
+    private String relatedTransactionId;
+    
     private LocalDateTime transactionDate;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -62,6 +87,7 @@ public class Transaction {
         this.type = type;
         this.amount = amount;
         this.sourceAccount = sourceAccount;
+        this.sourceSnapshot = AccountSnapshot.of(sourceAccount);
         this.description = description;
     }
     
@@ -69,6 +95,7 @@ public class Transaction {
                      Account sourceAccount, Account destinationAccount, String description) {
         this(transactionId, type, amount, sourceAccount, description);
         this.destinationAccount = destinationAccount;
+        this.destinationSnapshot = AccountSnapshot.of(destinationAccount);
     }
     
     // Enums
@@ -166,6 +193,22 @@ public class Transaction {
         this.destinationAccount = destinationAccount;
     }
     
+    public AccountSnapshot getSourceSnapshot() {
+        return sourceSnapshot;
+    }
+    
+    public void setSourceSnapshot(AccountSnapshot sourceSnapshot) {
+        this.sourceSnapshot = sourceSnapshot;
+    }
+    
+    public AccountSnapshot getDestinationSnapshot() {
+        return destinationSnapshot;
+    }
+    
+    public void setDestinationSnapshot(AccountSnapshot destinationSnapshot) {
+        this.destinationSnapshot = destinationSnapshot;
+    }
+    
     public String getDescription() {
         return description;
     }
@@ -198,6 +241,30 @@ public class Transaction {
         this.remarks = remarks;
     }
     
+    public String getBatchId() {
+        return batchId;
+    }
+    
+    public void setBatchId(String batchId) {
+        this.batchId = batchId;
+    }
+    
+    public String getNettingBatchId() {
+        return nettingBatchId;
+    }
+    
+    public void setNettingBatchId(String nettingBatchId) {
+        this.nettingBatchId = nettingBatchId;
+    }
+    
+    public String getRelatedTransactionId() {
+        return relatedTransactionId;
+    }
+    
+    public void setRelatedTransactionId(String relatedTransactionId) {
+        this.relatedTransactionId = relatedTransactionId;
+    }
+    
     public LocalDateTime getTransactionDate() {
         return transactionDate;
     }
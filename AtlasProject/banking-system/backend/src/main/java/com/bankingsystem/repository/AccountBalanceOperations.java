@@ -0,0 +1,37 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Balance operations the posting services run against.
+ *
+ * Implemented by the account repository (atomic findAndModify per call) and by
+ * the in-memory ledger, so the services do not care which one holds the balances.
+ */
+public interface AccountBalanceOperations {
+    
+    /**
+     * Look up an account
+     */
+    Optional<Account> findByAccountNumber(String accountNumber);
+    
+    /**
+     * Credit an active account. Empty if the account is missing or not active.
+     */
+    Optional<Account> creditBalance(String accountNumber, BigDecimal amount);
+    
+    /**
+     * Debit an active account holding at least the given amount.
+     * Empty if the account is missing, not active or has insufficient balance.
+     */
+    Optional<Account> debitBalance(String accountNumber, BigDecimal amount);
+    
+    /**
+     * Apply a signed balance delta without status or balance guards.
+     * Only intended for compensating a partially applied posting.
+     */
+    Optional<Account> adjustBalance(String accountNumber, BigDecimal delta);
+}
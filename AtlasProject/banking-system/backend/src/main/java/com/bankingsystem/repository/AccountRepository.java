@@ -6,12 +6,13 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
-import java.util.Optional;
 
 @Repository
-public interface AccountRepository extends MongoRepository<Account, String> {
+public interface AccountRepository extends MongoRepository<Account, String>, AccountRepositoryCustom {
     
-    Optional<Account> findByAccountNumber(String accountNumber);
+    // Served by AccountRepositoryImpl (near-cache); redeclared to resolve the overlap with CrudRepository
+    @Override
+    <S extends Account> S save(S account);
     
     List<Account> findByCustomer(Customer customer);
     
@@ -0,0 +1,64 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Atomic balance mutations that bypass the read-modify-write of save().
+ * Each method is a single findAndModify round-trip returning the updated account.
+ *
+ * findByAccountNumber and save are overridden here so lookups go through the
+ * account near-cache and every write refreshes it.
+ */
+public interface AccountRepositoryCustom extends AccountBalanceOperations {
+    
+    /**
+     * Look up an account, served from the near-cache when possible
+     */
+    @Override
+    Optional<Account> findByAccountNumber(String accountNumber);
+    
+    /**
+     * Save an account (optimistic locking on @Version) and refresh the near-cache
+     */
+    <S extends Account> S save(S account);
+    
+    /**
+     * Write back balances held by the in-memory ledger in one bulk write; an account is
+     * only updated when the given (ledger) version is newer than the stored ledgerVersion.
+     * Returns the number of accounts left alone because a newer write-back was stored.
+     */
+    int saveBalanceSnapshot(Collection<Account> accounts);
+    
+    /**
+     * Debit one leg of a transfer and tag the account with the transfer id in the same
+     * write. Empty if the account is missing, not active, short of funds or already tagged.
+     */
+    Optional<Account> debitForTransfer(String accountNumber, BigDecimal amount, String transactionId);
+    
+    /**
+     * Credit one leg of a transfer and tag the account with the transfer id in the same
+     * write. Empty if the account is missing, not active or already tagged.
+     */
+    Optional<Account> creditForTransfer(String accountNumber, BigDecimal amount, String transactionId);
+    
+    /**
+     * Undo a leg still tagged with the transfer id: apply the delta and remove the tag.
+     * Empty if the account does not carry the tag.
+     */
+    Optional<Account> reverseTransferLeg(String accountNumber, BigDecimal delta, String transactionId);
+    
+    /**
+     * Remove the transfer tag once the transfer is recorded as settled
+     */
+    void releaseTransferLeg(String accountNumber, String transactionId);
+    
+    /**
+     * Accounts carrying at least one transfer tag, read from MongoDB
+     */
+    List<Account> findWithPendingTransfers();
+}
@@ -0,0 +1,179 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+    
+    @Autowired
+    private AccountStateTable accountStateTable;
+    
+    @Override
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        Account cached = entityCacheManager.accounts().get(accountNumber);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        Account account = mongoTemplate.findOne(
+                new Query(Criteria.where("accountNumber").is(accountNumber)), Account.class);
+        entityCacheManager.accounts().put(accountNumber, account);
+        accountStateTable.put(account);
+        return Optional.ofNullable(account);
+    }
+    
+    @Override
+    public <S extends Account> S save(S account) {
+        try {
+            S saved = mongoTemplate.save(account);
+            entityCacheManager.accounts().put(saved.getAccountNumber(), saved);
+            accountStateTable.put(saved);
+            return saved;
+        } catch (OptimisticLockingFailureException e) {
+            // Whatever the caller read is out of date, so the cached copy is as well
+            entityCacheManager.accounts().invalidate(account.getAccountNumber());
+            accountStateTable.remove(account.getAccountNumber());
+            throw e;
+        }
+    }
+    
+    @Override
+    public Optional<Account> creditBalance(String accountNumber, BigDecimal amount) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("status").is(Account.AccountStatus.ACTIVE));
+        return applyDelta(query, amount);
+    }
+    
+    @Override
+    public Optional<Account> debitBalance(String accountNumber, BigDecimal amount) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("status").is(Account.AccountStatus.ACTIVE)
+                .and("balance").gte(new Decimal128(amount)));
+        return applyDelta(query, amount.negate());
+    }
+    
+    @Override
+    public Optional<Account> adjustBalance(String accountNumber, BigDecimal delta) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber));
+        return applyDelta(query, delta);
+    }
+    
+    @Override
+    public int saveBalanceSnapshot(Collection<Account> accounts) {
+        if (accounts.isEmpty()) {
+            return 0;
+        }
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (Account account : accounts) {
+            updates.updateOne(
+                    // Only move forward: an older copy never overwrites a newer balance. The
+                    // guard is on ledgerVersion, which only write-backs set, so saves that
+                    // bump @Version cannot block the ledger.
+                    new Query(Criteria.where("accountNumber").is(account.getAccountNumber())
+                            .orOperator(Criteria.where("ledgerVersion").lt(account.getVersion()),
+                                    Criteria.where("ledgerVersion").exists(false))),
+                    new Update()
+                            .set("balance", new Decimal128(account.getBalance()))
+                            .set("ledgerVersion", account.getVersion())
+                            // Stale copies held elsewhere must fail their optimistic lock
+                            .inc("version", 1)
+                            .set("updatedAt", account.getUpdatedAt())
+                            .set("lastTransactionDate", account.getLastTransactionDate()));
+        }
+        int matched = updates.execute().getMatchedCount();
+        
+        for (Account account : accounts) {
+            entityCacheManager.accounts().invalidate(account.getAccountNumber());
+            accountStateTable.remove(account.getAccountNumber());
+        }
+        return accounts.size() - matched;
+    }
+    
+    @Override
+    public Optional<Account> debitForTransfer(String accountNumber, BigDecimal amount, String transactionId) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("status").is(Account.AccountStatus.ACTIVE)
+                .and("balance").gte(new Decimal128(amount))
+                .and("pendingTransfers").ne(transactionId));
+        return applyDelta(query, amount.negate(), new Update().push("pendingTransfers", transactionId));
+    }
+    
+    @Override
+    public Optional<Account> creditForTransfer(String accountNumber, BigDecimal amount, String transactionId) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("status").is(Account.AccountStatus.ACTIVE)
+                .and("pendingTransfers").ne(transactionId));
+        return applyDelta(query, amount, new Update().push("pendingTransfers", transactionId));
+    }
+    
+    @Override
+    public Optional<Account> reverseTransferLeg(String accountNumber, BigDecimal delta, String transactionId) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("pendingTransfers").is(transactionId));
+        return applyDelta(query, delta, new Update().pull("pendingTransfers", transactionId));
+    }
+    
+    @Override
+    public void releaseTransferLeg(String accountNumber, String transactionId) {
+        Query query = new Query(Criteria.where("accountNumber").is(accountNumber)
+                .and("pendingTransfers").is(transactionId));
+        Update update = new Update().pull("pendingTransfers", transactionId).inc("version", 1);
+        Account updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+        if (updated != null) {
+            entityCacheManager.accounts().put(updated.getAccountNumber(), updated);
+            accountStateTable.put(updated);
+        }
+    }
+    
+    @Override
+    public List<Account> findWithPendingTransfers() {
+        return mongoTemplate.find(new Query(Criteria.where("pendingTransfers.0").exists(true)), Account.class);
+    }
+    
+    private Optional<Account> applyDelta(Query query, BigDecimal delta) {
+        return applyDelta(query, delta, new Update());
+    }
+    
+    /**
+     * $inc the balance and the @Version field in one findAndModify, returning the new document
+     */
+    private Optional<Account> applyDelta(Query query, BigDecimal delta, Update update) {
+        LocalDateTime now = LocalDateTime.now();
+        update
+                .inc("balance", new Decimal128(delta))
+                .inc("version", 1)
+                .set("updatedAt", now)
+                .set("lastTransactionDate", now);
+        
+        Account updated = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), Account.class);
+        if (updated != null) {
+            entityCacheManager.accounts().put(updated.getAccountNumber(), updated);
+            accountStateTable.put(updated);
+        }
+        return Optional.ofNullable(updated);
+    }
+}
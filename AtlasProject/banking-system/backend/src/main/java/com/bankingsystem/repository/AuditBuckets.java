@@ -0,0 +1,175 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.AuditLog;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+/**
+ * Monthly audit log collections.
+ *
+ * Audit logs are stored in one collection per calendar month of their timestamp
+ * ("audit_logs_2024_01", JVM time zone), each with the indexes the audit queries use.
+ * A date-range query only touches the buckets of the months it covers, and retention
+ * drops whole buckets instead of deleting documents one by one. Logs written before
+ * bucketing stay in the original "audit_logs" collection, which is read as the oldest
+ * bucket until retention has emptied it.
+ */
+@Component
+public class AuditBuckets {
+
+    public static final String LEGACY_COLLECTION = "audit_logs";
+    public static final String BUCKET_PREFIX = "audit_logs_";
+
+    private static final DateTimeFormatter BUCKET_FORMAT = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final Pattern BUCKET_NAME = Pattern.compile("^audit_logs_\\d{4}_\\d{2}$");
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /** Known bucket collections; the names sort chronologically */
+    private final NavigableSet<String> buckets = new ConcurrentSkipListSet<>();
+    private volatile LocalDateTime legacyLatest;
+
+    @PostConstruct
+    public void init() {
+        for (String name : mongoTemplate.getCollectionNames()) {
+            if (isBucket(name)) {
+                buckets.add(name);
+            }
+        }
+        refreshLegacy();
+    }
+
+    /**
+     * Whether the collection is a monthly audit log bucket
+     */
+    public static boolean isBucket(String collection) {
+        return BUCKET_NAME.matcher(collection).matches();
+    }
+
+    /**
+     * Name of the bucket holding logs with the given timestamp
+     */
+    public String bucketFor(LocalDateTime timestamp) {
+        return BUCKET_PREFIX + YearMonth.from(timestamp).format(BUCKET_FORMAT);
+    }
+
+    /**
+     * Existing collections that can hold logs in [from, to], oldest first; null bounds
+     * are open
+     */
+    public List<String> bucketsFor(LocalDateTime from, LocalDateTime to) {
+        List<String> result = new ArrayList<>();
+        LocalDateTime legacy = legacyLatest;
+        if (legacy != null && (from == null || !from.isAfter(legacy))) {
+            result.add(LEGACY_COLLECTION);
+        }
+        String first = from != null ? bucketFor(from) : BUCKET_PREFIX;
+        String last = to != null ? bucketFor(to) : BUCKET_PREFIX + "~";
+        if (first.compareTo(last) <= 0) {
+            result.addAll(buckets.subSet(first, true, last, true));
+        }
+        return result;
+    }
+
+    /**
+     * All collections holding audit logs, oldest first
+     */
+    public List<String> allBuckets() {
+        return bucketsFor(null, null);
+    }
+
+    /**
+     * Newest first, for lookups that can stop at the first hit
+     */
+    public List<String> newestFirst() {
+        List<String> result = new ArrayList<>(allBuckets());
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Insert logs into the buckets of their months, creating buckets on first use
+     */
+    public void insert(List<AuditLog> auditLogs) {
+        Map<String, List<AuditLog>> byBucket = new LinkedHashMap<>();
+        for (AuditLog auditLog : auditLogs) {
+            byBucket.computeIfAbsent(bucketFor(auditLog.getTimestamp()), k -> new ArrayList<>()).add(auditLog);
+        }
+        byBucket.forEach((bucket, logs) -> {
+            ensureBucket(bucket);
+            mongoTemplate.insert(logs, bucket);
+        });
+    }
+
+    /**
+     * Remove logs older than the cutoff: buckets of earlier months are dropped, the
+     * cutoff month's bucket and the legacy collection are trimmed. Returns the dropped
+     * buckets.
+     */
+    public List<String> expireBefore(LocalDateTime cutoff) {
+        String cutoffBucket = bucketFor(cutoff);
+        List<String> dropped = new ArrayList<>(buckets.headSet(cutoffBucket, false));
+        for (String bucket : dropped) {
+            mongoTemplate.dropCollection(bucket);
+            buckets.remove(bucket);
+        }
+        Query expired = new Query(Criteria.where("timestamp").lt(cutoff));
+        if (buckets.contains(cutoffBucket)) {
+            mongoTemplate.remove(expired, cutoffBucket);
+        }
+        if (legacyLatest != null) {
+            mongoTemplate.remove(expired, LEGACY_COLLECTION);
+            refreshLegacy();
+        }
+        return dropped;
+    }
+
+    /**
+     * Whether any bucket (or the legacy collection) holds logs
+     */
+    public boolean hasLogs() {
+        return legacyLatest != null || !buckets.isEmpty();
+    }
+
+    private void ensureBucket(String bucket) {
+        if (buckets.contains(bucket)) {
+            return;
+        }
+        IndexOperations indexes = mongoTemplate.indexOps(bucket);
+        indexes.ensureIndex(new Index("actionId", Sort.Direction.ASC).unique());
+        indexes.ensureIndex(new Index("timestamp", Sort.Direction.ASC).on("_id", Sort.Direction.ASC).named("sync_watermark"));
+        indexes.ensureIndex(new Index("userId", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index("action", Sort.Direction.ASC).on("timestamp", Sort.Direction.ASC));
+        indexes.ensureIndex(new Index("entityType", Sort.Direction.ASC).on("entityId", Sort.Direction.ASC)
+                .on("timestamp", Sort.Direction.ASC));
+        buckets.add(bucket);
+    }
+
+    private void refreshLegacy() {
+        AuditLog latest = mongoTemplate.collectionExists(LEGACY_COLLECTION)
+                ? mongoTemplate.findOne(new Query().with(Sort.by(Sort.Direction.DESC, "timestamp")).limit(1),
+                        AuditLog.class, LEGACY_COLLECTION)
+                : null;
+        legacyLatest = latest != null ? latest.getTimestamp() : null;
+    }
+}
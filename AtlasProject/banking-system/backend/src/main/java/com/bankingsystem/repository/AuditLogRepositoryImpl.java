@@ -0,0 +1,109 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.AuditLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+public class AuditLogRepositoryImpl implements AuditLogRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private AuditBuckets auditBuckets;
+    
+    @Override
+    public Optional<AuditLog> findByActionId(String actionId) {
+        Query query = new Query(Criteria.where("actionId").is(actionId));
+        for (String bucket : auditBuckets.newestFirst()) {
+            AuditLog auditLog = mongoTemplate.findOne(query, AuditLog.class, bucket);
+            if (auditLog != null) {
+                return Optional.of(auditLog);
+            }
+        }
+        return Optional.empty();
+    }
+    
+    @Override
+    public List<AuditLog> findByUserId(String userId) {
+        return find(Criteria.where("userId").is(userId), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByAction(String action) {
+        return find(Criteria.where("action").is(action), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityType(String entityType) {
+        return find(Criteria.where("entityType").is(entityType), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityId(String entityId) {
+        return find(Criteria.where("entityId").is(entityId), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByResult(String result) {
+        return find(Criteria.where("result").is(result), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByTimestampBetween(LocalDateTime startDate, LocalDateTime endDate) {
+        // Exclusive bounds, as the derived query had
+        return find(Criteria.where("timestamp").gt(startDate).lt(endDate), startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByUserIdAndTimestampBetween(String userId, LocalDateTime startDate, LocalDateTime endDate) {
+        return find(Criteria.where("userId").is(userId).and("timestamp").gte(startDate).lte(endDate), startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityAndTimestampBetween(String entityType, String entityId, LocalDateTime startDate, LocalDateTime endDate) {
+        return find(Criteria.where("entityType").is(entityType).and("entityId").is(entityId)
+                .and("timestamp").gte(startDate).lte(endDate), startDate, endDate);
+    }
+    
+    @Override
+    public List<AuditLog> findByEntityTypeAndEntityId(String entityType, String entityId) {
+        return find(Criteria.where("entityType").is(entityType).and("entityId").is(entityId), null, null);
+    }
+    
+    @Override
+    public List<AuditLog> findByActionAndTimestampBetween(String action, LocalDateTime startDate, LocalDateTime endDate) {
+        return find(Criteria.where("action").is(action).and("timestamp").gte(startDate).lte(endDate), startDate, endDate);
+    }
+    
+    @Override
+    public boolean existsByActionId(String actionId) {
+        return findByActionId(actionId).isPresent();
+    }
+    
+    @Override
+    public List<AuditLog> findAllInBuckets() {
+        return find(new Criteria(), null, null);
+    }
+    
+    /**
+     * Run a query on the buckets covering [from, to] (all buckets for open bounds),
+     * oldest first
+     */
+    private List<AuditLog> find(Criteria criteria, LocalDateTime from, LocalDateTime to) {
+        Query query = new Query(criteria).with(Sort.by(Sort.Direction.ASC, "timestamp"));
+        List<AuditLog> results = new ArrayList<>();
+        for (String bucket : auditBuckets.bucketsFor(from, to)) {
+            results.addAll(mongoTemplate.find(query, AuditLog.class, bucket));
+        }
+        return results;
+    }
+}
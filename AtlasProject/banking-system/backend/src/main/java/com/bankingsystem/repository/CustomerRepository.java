@@ -7,7 +7,14 @@ import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
 @Repository
-public interface CustomerRepository extends MongoRepository<Customer, String> {
+public interface CustomerRepository extends MongoRepository<Customer, String>, CustomerRepositoryCustom {
+    
+    // Served by CustomerRepositoryImpl (near-cache); redeclared to resolve the overlap with CrudRepository
+    @Override
+    Optional<Customer> findById(String id);
+    
+    @Override
+    <S extends Customer> S save(S customer);
     
     Optional<Customer> findByEmail(String email);
     
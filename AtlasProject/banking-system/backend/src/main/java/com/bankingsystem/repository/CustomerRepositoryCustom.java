@@ -0,0 +1,16 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Customer;
+
+import java.util.Optional;
+
+/**
+ * Overrides of the base repository methods so customer lookups by id go through
+ * the customer near-cache and every save refreshes it.
+ */
+public interface CustomerRepositoryCustom {
+    
+    Optional<Customer> findById(String id);
+    
+    <S extends Customer> S save(S customer);
+}
@@ -0,0 +1,36 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.util.EntityCacheManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Optional;
+
+public class CustomerRepositoryImpl implements CustomerRepositoryCustom {
+    
+    @Autowired
+    private MongoTemplate mongoTemplate;
+    
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+    
+    @Override
+    public Optional<Customer> findById(String id) {
+        Customer cached = entityCacheManager.customers().get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        
+        Customer customer = mongoTemplate.findById(id, Customer.class);
+        entityCacheManager.customers().put(id, customer);
+        return Optional.ofNullable(customer);
+    }
+    
+    @Override
+    public <S extends Customer> S save(S customer) {
+        S saved = mongoTemplate.save(customer);
+        entityCacheManager.customers().put(saved.getId(), saved);
+        return saved;
+    }
+}
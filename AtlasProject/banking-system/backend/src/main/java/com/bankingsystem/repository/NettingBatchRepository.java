@@ -0,0 +1,17 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.NettingBatch;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface NettingBatchRepository extends MongoRepository<NettingBatch, String> {
+    
+    Optional<NettingBatch> findByNettingBatchId(String nettingBatchId);
+    
+    List<NettingBatch> findByTransactionIdsIn(Collection<String> transactionIds);
+}
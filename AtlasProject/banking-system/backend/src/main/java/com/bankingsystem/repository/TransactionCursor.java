@@ -0,0 +1,59 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Transaction;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a transaction history: the (transactionDate, transactionId) of the last
+ * posting returned. Handed to clients as an opaque URL-safe token.
+ */
+public class TransactionCursor {
+    
+    private final LocalDateTime transactionDate;
+    private final String transactionId;
+    
+    public TransactionCursor(LocalDateTime transactionDate, String transactionId) {
+        this.transactionDate = transactionDate;
+        this.transactionId = transactionId;
+    }
+    
+    public static TransactionCursor after(Transaction transaction) {
+        return new TransactionCursor(transaction.getTransactionDate(), transaction.getTransactionId());
+    }
+    
+    /**
+     * Parse a token produced by encode(); null or blank means the first page
+     */
+    public static TransactionCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.indexOf('|');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Invalid cursor: " + token);
+            }
+            return new TransactionCursor(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token);
+        }
+    }
+    
+    public String encode() {
+        String value = transactionDate + "|" + transactionId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    public LocalDateTime getTransactionDate() {
+        return transactionDate;
+    }
+    
+    public String getTransactionId() {
+        return transactionId;
+    }
+}
@@ -0,0 +1,32 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Transaction;
+
+import java.util.List;
+
+/**
+ * One page of a transaction history and the cursor to fetch the next one
+ */
+public class TransactionPage {
+    
+    private final List<Transaction> transactions;
+    private final TransactionCursor nextCursor;
+    
+    public TransactionPage(List<Transaction> transactions, TransactionCursor nextCursor) {
+        this.transactions = transactions;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Transaction> getTransactions() {
+        return transactions;
+    }
+    
+    /** Token for the next page, null on the last page */
+    public String getNextCursor() {
+        return nextCursor != null ? nextCursor.encode() : null;
+    }
+    
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
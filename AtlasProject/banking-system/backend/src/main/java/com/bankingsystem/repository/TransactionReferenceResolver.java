@@ -0,0 +1,154 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AccountSnapshot;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.Transaction;
+import com.mongodb.client.FindIterable;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads transactions without the per-document reference lookups.
+ *
+ * Mapping a transaction normally resolves its source and destination account
+ * (@DocumentReference) and each account's customer one query at a time, up to 4N
+ * extra round-trips for a page of N. Here the transactions are read raw and the
+ * references are detached before mapping. A transaction whose embedded account
+ * snapshots are complete is returned with the snapshots only (the account fields stay
+ * null). For the rest (older documents, or postings written without the customer at
+ * hand) the referenced accounts are loaded with one $in and their customers with
+ * another, and the snapshots are filled in from them.
+ */
+@Component
+public class TransactionReferenceResolver {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    /**
+     * Run a query on transactions, resolving remaining references once for the whole result
+     */
+    public List<Transaction> find(Query query) {
+        List<Document> documents = new ArrayList<>();
+        for (Document document : openCursor(query)) {
+            documents.add(document);
+        }
+        return resolve(documents);
+    }
+
+    /**
+     * Raw cursor over the transactions matching a query, for callers that resolve the
+     * results chunk by chunk (exports); the caller closes the iterator it takes from it
+     */
+    public FindIterable<Document> openCursor(Query query) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        QueryMapper queryMapper = new QueryMapper(converter);
+        MongoPersistentEntity<?> entity = converter.getMappingContext().getRequiredPersistentEntity(Transaction.class);
+
+        FindIterable<Document> cursor = mongoTemplate.getCollection(mongoTemplate.getCollectionName(Transaction.class))
+                .find(queryMapper.getMappedObject(query.getQueryObject(), entity))
+                .sort(queryMapper.getMappedSort(query.getSortObject(), entity));
+        if (query.getLimit() > 0) {
+            cursor.limit(query.getLimit());
+        }
+        if (query.getSkip() > 0) {
+            cursor.skip((int) query.getSkip());
+        }
+        return cursor;
+    }
+
+    /**
+     * Map raw transaction documents, resolving the references they still need with one
+     * $in per collection
+     */
+    public List<Transaction> resolve(List<Document> documents) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        List<Transaction> transactions = new ArrayList<>();
+        List<Object> sourceRefs = new ArrayList<>();
+        List<Object> destinationRefs = new ArrayList<>();
+        for (Document document : documents) {
+            // Detached so mapping does not resolve them one by one
+            sourceRefs.add(document.remove("sourceAccount"));
+            destinationRefs.add(document.remove("destinationAccount"));
+            transactions.add(converter.read(Transaction.class, document));
+        }
+
+        Set<Object> unresolved = new LinkedHashSet<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            if (sourceRefs.get(i) != null && !isComplete(transaction.getSourceSnapshot())) {
+                unresolved.add(sourceRefs.get(i));
+            }
+            if (destinationRefs.get(i) != null && !isComplete(transaction.getDestinationSnapshot())) {
+                unresolved.add(destinationRefs.get(i));
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return transactions;
+        }
+
+        Map<Object, Account> accounts = loadAccounts(unresolved);
+        for (int i = 0; i < transactions.size(); i++) {
+            Transaction transaction = transactions.get(i);
+            Account source = accounts.get(sourceRefs.get(i));
+            if (source != null && !isComplete(transaction.getSourceSnapshot())) {
+                transaction.setSourceAccount(source);
+                transaction.setSourceSnapshot(AccountSnapshot.of(source));
+            }
+            Account destination = accounts.get(destinationRefs.get(i));
+            if (destination != null && !isComplete(transaction.getDestinationSnapshot())) {
+                transaction.setDestinationAccount(destination);
+                transaction.setDestinationSnapshot(AccountSnapshot.of(destination));
+            }
+        }
+        return transactions;
+    }
+
+    /**
+     * One $in for the accounts and one for their customers, keyed by the stored reference
+     */
+    private Map<Object, Account> loadAccounts(Set<Object> accountRefs) {
+        MongoConverter converter = mongoTemplate.getConverter();
+
+        Map<Object, Account> accounts = new HashMap<>();
+        Map<Object, Object> customerRefs = new HashMap<>();
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Account.class))
+                .find(new Document("_id", new Document("$in", new ArrayList<>(accountRefs))))) {
+            Object accountRef = document.get("_id");
+            Object customerRef = document.remove("customer");
+            accounts.put(accountRef, converter.read(Account.class, document));
+            if (customerRef != null) {
+                customerRefs.put(accountRef, customerRef);
+            }
+        }
+        if (customerRefs.isEmpty()) {
+            return accounts;
+        }
+
+        Map<Object, Customer> customers = new HashMap<>();
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Customer.class))
+                .find(new Document("_id", new Document("$in", new ArrayList<>(new LinkedHashSet<>(customerRefs.values())))))) {
+            customers.put(document.get("_id"), converter.read(Customer.class, document));
+        }
+        customerRefs.forEach((accountRef, customerRef) -> accounts.get(accountRef).setCustomer(customers.get(customerRef)));
+        return accounts;
+    }
+
+    private boolean isComplete(AccountSnapshot snapshot) {
+        return snapshot != null && snapshot.isComplete();
+    }
+}
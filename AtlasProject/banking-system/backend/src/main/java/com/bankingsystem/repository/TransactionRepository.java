@@ -7,11 +7,12 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends MongoRepository<Transaction, String> {
+public interface TransactionRepository extends MongoRepository<Transaction, String>, TransactionRepositoryCustom {
     
     Optional<Transaction> findByTransactionId(String transactionId);
     
@@ -19,12 +20,25 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     
     List<Transaction> findByDestinationAccount(Account destinationAccount);
     
+    List<Transaction> findBySourceAccountAndType(Account sourceAccount, Transaction.TransactionType type);
+    
+    List<Transaction> findByDestinationAccountAndType(Account destinationAccount, Transaction.TransactionType type);
+    
+    @Query("{'$or': [{'sourceAccount': ?0}, {'destinationAccount': ?0}], 'type': ?1}")
+    List<Transaction> findAccountTransactionsByType(Account account, Transaction.TransactionType type);
+    
     List<Transaction> findBySourceAccountOrDestinationAccount(Account sourceAccount, Account destinationAccount);
     
     List<Transaction> findByType(Transaction.TransactionType type);
     
     List<Transaction> findByStatus(Transaction.TransactionStatus status);
     
+    List<Transaction> findByTypeAndStatus(Transaction.TransactionType type, Transaction.TransactionStatus status);
+    
+    List<Transaction> findByBatchId(String batchId);
+    
+    List<Transaction> findByBatchIdOrderByTransactionDateAscTransactionIdAsc(String batchId);
+    
     List<Transaction> findByTransactionDateBetween(LocalDateTime startDate, LocalDateTime endDate);
     
     @Query("{'sourceAccount': ?0, 'transactionDate': {$gte: ?1, $lte: ?2}}")
@@ -36,8 +50,18 @@ public interface TransactionRepository extends MongoRepository<Transaction, Stri
     @Query("{'$or': [{'sourceAccount': ?0}, {'destinationAccount': ?0}], 'transactionDate': {$gte: ?1, $lte: ?2}}")
     List<Transaction> findAccountTransactionsByDateRange(Account account, LocalDateTime startDate, LocalDateTime endDate);
     
+    @Query("{'sourceAccount': ?0, 'type': ?1, 'transactionDate': {$gte: ?2, $lte: ?3}}")
+    List<Transaction> findSourceTransactionsByTypeAndDateRange(Account account, Transaction.TransactionType type,
+                                                               LocalDateTime startDate, LocalDateTime endDate);
+    
+    @Query("{'$or': [{'sourceAccount': ?0}, {'destinationAccount': ?0}], 'type': ?1, 'transactionDate': {$gte: ?2, $lte: ?3}}")
+    List<Transaction> findAccountTransactionsByTypeAndDateRange(Account account, Transaction.TransactionType type,
+                                                                LocalDateTime startDate, LocalDateTime endDate);
+    
     @Query("{'$or': [{'sourceAccount.accountNumber': ?0}, {'destinationAccount.accountNumber': ?0}]}")
     List<Transaction> findByAccountNumber(String accountNumber);
     
     boolean existsByTransactionId(String transactionId);
+    
+    List<Transaction> findByTransactionIdIn(Collection<String> transactionIds);
 }
@@ -0,0 +1,32 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+
+/**
+ * Keyset (cursor) pagination over an account's postings.
+ *
+ * Pages are ordered newest first by (transactionDate, transactionId) and continue
+ * strictly after the cursor, so a page deep into the history costs the same index
+ * range scan as the first one instead of skipping over everything before it.
+ */
+public interface TransactionRepositoryCustom {
+    
+    /**
+     * Which side of a posting the account has to be on
+     */
+    enum AccountSide {
+        SOURCE,
+        DESTINATION,
+        EITHER
+    }
+    
+    /**
+     * One page of an account's postings, optionally of one type only
+     *
+     * @param type   null for every type
+     * @param cursor null for the first page, otherwise the nextCursor of the previous page
+     */
+    TransactionPage findAccountPage(Account account, AccountSide side, Transaction.TransactionType type,
+                                    TransactionCursor cursor, int pageSize);
+}
@@ -0,0 +1,70 @@
+package com.bankingsystem.repository;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+    
+    static final int MAX_PAGE_SIZE = 1000;
+    
+    @Autowired
+    private TransactionReferenceResolver referenceResolver;
+    
+    @Override
+    public TransactionPage findAccountPage(Account account, AccountSide side, Transaction.TransactionType type,
+                                           TransactionCursor cursor, int pageSize) {
+        if (pageSize <= 0 || pageSize > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        
+        Criteria criteria;
+        if (side == AccountSide.EITHER) {
+            // One complete branch per side so each runs on its own compound index and the
+            // planner merges the two already-sorted streams
+            criteria = new Criteria().orOperator(
+                    pageCriteria("sourceAccount", account, type, cursor),
+                    pageCriteria("destinationAccount", account, type, cursor));
+        } else {
+            criteria = pageCriteria(side == AccountSide.SOURCE ? "sourceAccount" : "destinationAccount",
+                    account, type, cursor);
+        }
+        
+        // Read one extra posting to know whether there is a next page
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.DESC, "transactionDate", "transactionId"))
+                .limit(pageSize + 1);
+        List<Transaction> transactions = new ArrayList<>(referenceResolver.find(query));
+        
+        if (transactions.size() <= pageSize) {
+            return new TransactionPage(transactions, null);
+        }
+        transactions.remove(pageSize);
+        return new TransactionPage(transactions, TransactionCursor.after(transactions.get(pageSize - 1)));
+    }
+    
+    /**
+     * account (and type) equality plus the keyset bound: transactionDate <= cursor date
+     * as the index range, with the already returned postings of that same instant
+     * (transactionId >= cursor id) filtered out on the index keys
+     */
+    private Criteria pageCriteria(String accountField, Account account, Transaction.TransactionType type,
+                                  TransactionCursor cursor) {
+        Criteria criteria = Criteria.where(accountField).is(account);
+        if (type != null) {
+            criteria.and("type").is(type);
+        }
+        if (cursor != null) {
+            criteria.and("transactionDate").lte(cursor.getTransactionDate());
+            criteria.norOperator(Criteria.where("transactionDate").is(cursor.getTransactionDate())
+                    .and("transactionId").gte(cursor.getTransactionId()));
+        }
+        return criteria;
+    }
+}
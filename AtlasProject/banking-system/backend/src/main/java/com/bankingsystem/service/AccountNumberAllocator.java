@@ -0,0 +1,83 @@
+package com.bankingsystem.service;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out sequential account numbers using hi/lo allocation.
+ *
+ * A block of numbers is reserved with a single $inc on the "counters" collection
+ * and then handed out from memory, so only one in every block-size account
+ * creations touches the database. Numbers are unique across instances; a block
+ * left unused at shutdown is simply skipped.
+ */
+@Component
+public class AccountNumberAllocator {
+
+    private static final String COUNTERS_COLLECTION = "counters";
+    private static final String COUNTER_NAME = "accountNumber";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Value("${banking.account-number.block-size:100}")
+    private long blockSize;
+
+    private final Object refillLock = new Object();
+    private volatile Block block = new Block(1, 0);
+
+    /**
+     * Allocate the next account number, e.g. "ACC000000001234"
+     */
+    public String nextAccountNumber() {
+        while (true) {
+            Block current = block;
+            long value = current.next.getAndIncrement();
+            if (value <= current.max) {
+                return String.format("ACC%012d", value);
+            }
+            synchronized (refillLock) {
+                // Another thread may already have fetched a new block
+                if (block == current) {
+                    block = reserveBlock();
+                }
+            }
+        }
+    }
+
+    private Block reserveBlock() {
+        Document counter = mongoTemplate.findAndModify(
+                Query.query(Criteria.where("_id").is(COUNTER_NAME)),
+                new Update().inc("seq", blockSize),
+                FindAndModifyOptions.options().returnNew(true).upsert(true),
+                Document.class,
+                COUNTERS_COLLECTION);
+        if (counter == null) {
+            throw new RuntimeException("Failed to reserve account numbers");
+        }
+        long hi = counter.get("seq", Number.class).longValue();
+        return new Block(hi - blockSize + 1, hi);
+    }
+
+    /**
+     * Reserved range [next, max] of account numbers
+     */
+    private static class Block {
+        private final AtomicLong next;
+        private final long max;
+
+        private Block(long first, long max) {
+            this.next = new AtomicLong(first);
+            this.max = max;
+        }
+    }
+}
@@ -1,21 +1,20 @@
 package com.bankingsystem.service;
 
+import com.bankingsystem.archive.ArchiveQuery;
+import com.bankingsystem.archive.AuditArchive;
 import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
 import com.bankingsystem.repository.AuditLogRepository;
+import com.bankingsystem.util.OperationMetrics;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
-import software.amazon.awssdk.services.dynamodb.model.PutItemResponse;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.CompletableFuture;
 
 @Service
 public class AuditService {
@@ -24,9 +23,22 @@ public class AuditService {
     private AuditLogRepository auditLogRepository;
     
     @Autowired
-    private DynamoDbClient dynamoDbClient;
+    private AuditWriter auditWriter;
     
-    private static final String DYNAMODB_TABLE_NAME = "BankingAuditLogs";
+    @Autowired
+    private AuditStatistics auditStatistics;
+    
+    @Autowired
+    private AuditBuckets auditBuckets;
+    
+    @Autowired
+    private AuditArchive auditArchive;
+    
+    @Autowired
+    private OperationMetrics operationMetrics;
+    
+    @Value("${banking.audit.retention-days:365}")
+    private int retentionDays;
     
     /**
      * Log an action to both MongoDB and DynamoDB
@@ -42,11 +54,8 @@ public class AuditService {
         auditLog.setUserAgent(userAgent);
         auditLog.markAsSuccess(description);
         
-        // Save to MongoDB
-        auditLogRepository.save(auditLog);
-        
-        // Save to DynamoDB asynchronously
-        saveToDynamoDBAsync(auditLog);
+        // Hand off to the batching writer (MongoDB + DynamoDB)
+        submit(auditLog);
     }
     
     /**
@@ -66,11 +75,19 @@ public class AuditService {
         auditLog.setDescription(description);
         auditLog.markAsFailure(errorMessage);
         
-        // Save to MongoDB
-        auditLogRepository.save(auditLog);
-        
-        // Save to DynamoDB asynchronously
-        saveToDynamoDBAsync(auditLog);
+        // Hand off to the batching writer (MongoDB + DynamoDB)
+        submit(auditLog);
+    }
+    
+    private void submit(AuditLog auditLog) {
+        OperationMetrics.Sample sample = operationMetrics.start("audit.log");
+        try {
+            auditWriter.submit(auditLog);
+            sample.success();
+        } catch (RuntimeException e) {
+            sample.failure();
+            throw e;
+        }
     }
     
     /**
@@ -105,43 +122,59 @@ public class AuditService {
      * Get all audit logs
      */
     public List<AuditLog> getAllAuditLogs() {
-        return auditLogRepository.findAll();
+        return auditLogRepository.findAllInBuckets();
+    }
+    
+    /**
+     * Get audit statistics from the hourly counters, optionally limited to [from, to)
+     */
+    public Map<String, Object> getAuditStats(LocalDateTime from, LocalDateTime to) {
+        return auditStatistics.getStats(from, to);
+    }
+    
+    /**
+     * Search the audit history that has aged out of MongoDB; any filter may be null
+     */
+    public List<AuditLog> searchArchivedAuditLogs(LocalDateTime from, LocalDateTime to,
+                                                  String userId, String entityId, String action) {
+        return auditArchive.search(new ArchiveQuery(from, to, userId, entityId, action));
+    }
+    
+    /**
+     * Get audit archive statistics (segments, size on disk, pruning)
+     */
+    public Map<String, Object> getArchiveStats() {
+        return auditArchive.getStats();
     }
     
     /**
-     * Save audit log to DynamoDB asynchronously
+     * Archive and then drop audit logs (and their hourly counters) older than
+     * banking.audit.retention-days; nothing is dropped if archiving fails
      */
-    private void saveToDynamoDBAsync(AuditLog auditLog) {
-        CompletableFuture.runAsync(() -> {
-            try {
-                Map<String, AttributeValue> item = new HashMap<>();
-                item.put("ActionID", AttributeValue.builder().s(auditLog.getActionId()).build());
-                item.put("Timestamp", AttributeValue.builder().s(auditLog.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
-                item.put("UserId", AttributeValue.builder().s(auditLog.getUserId()).build());
-                item.put("Action", AttributeValue.builder().s(auditLog.getAction()).build());
-                item.put("EntityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
-                item.put("EntityId", AttributeValue.builder().s(auditLog.getEntityId() != null ? auditLog.getEntityId() : "").build());
-                item.put("Description", AttributeValue.builder().s(auditLog.getDescription() != null ? auditLog.getDescription() : "").build());
-                item.put("Result", AttributeValue.builder().s(auditLog.getResult() != null ? auditLog.getResult() : "").build());
-                item.put("ErrorMessage", AttributeValue.builder().s(auditLog.getErrorMessage() != null ? auditLog.getErrorMessage() : "").build());
-                item.put("IpAddress", AttributeValue.builder().s(auditLog.getIpAddress() != null ? auditLog.getIpAddress() : "").build());
-                item.put("UserAgent", AttributeValue.builder().s(auditLog.getUserAgent() != null ? auditLog.getUserAgent() : "").build());
-                
-                if (auditLog.getDetails() != null) {
-                    item.put("Details", AttributeValue.builder().s(auditLog.getDetails().toString()).build());
-                }
-                
-                PutItemRequest putItemRequest = PutItemRequest.builder()
-                        .tableName(DYNAMODB_TABLE_NAME)
-                        .item(item)
-                        .build();
-                
-                PutItemResponse response = dynamoDbClient.putItem(putItemRequest);
-                System.out.println("Audit log saved to DynamoDB: " + response.toString());
-                
-            } catch (Exception e) {
-                System.err.println("Failed to save audit log to DynamoDB: " + e.getMessage());
+    @Scheduled(cron = "${banking.audit.retention-cron:0 30 3 * * ?}")
+    public void enforceRetention() {
+        OperationMetrics.Sample sample = operationMetrics.start("audit.retention");
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+            long archived = auditArchive.archiveBefore(cutoff);
+            if (archived > 0) {
+                System.out.println("🗄️ Archived " + archived + " audit logs before " + cutoff);
             }
-        });
+            List<String> dropped = auditBuckets.expireBefore(cutoff);
+            auditStatistics.expireBefore(cutoff);
+            System.out.println("🗑️ Audit retention: removed logs before " + cutoff
+                    + (dropped.isEmpty() ? "" : ", dropped " + dropped));
+            sample.success();
+        } catch (Exception e) {
+            sample.failure();
+            System.err.println("Failed to enforce audit retention: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Get audit pipeline statistics (queue depth, flush latency, failures)
+     */
+    public Map<String, Object> getPipelineStats() {
+        return auditWriter.getStats();
     }
 }
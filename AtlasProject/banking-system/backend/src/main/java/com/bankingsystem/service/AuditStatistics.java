@@ -0,0 +1,210 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import jakarta.annotation.PostConstruct;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hourly audit counters, so statistics never scan the audit log itself.
+ *
+ * Every batch the AuditWriter stores in MongoDB is also added to the
+ * "audit_counters" collection: one document per hour, action, entity type and
+ * result, keyed by exactly those four values and carrying a count, written as one
+ * bulk of $inc upserts. Statistics are a single $facet aggregation over the counters,
+ * whose size grows with hours x distinct actions rather than with audit volume.
+ * Audit logs written before the counters existed are folded in once at startup. The
+ * rebuild sets a separate "rebuilt" count per counter, so running it again gives the
+ * same result; a marker in "audit_counters_state" records its cutoff and is only marked
+ * completed at the end, so a rebuild cut off by a crash is redone on the next start.
+ */
+@Component
+public class AuditStatistics {
+
+    static final String COLLECTION = "audit_counters";
+    static final String STATE_COLLECTION = "audit_counters_state";
+    static final String REBUILD_MARKER_ID = "rebuild";
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AuditBuckets auditBuckets;
+
+    @PostConstruct
+    public void init() {
+        try {
+            mongoTemplate.indexOps(COLLECTION).ensureIndex(new Index("_id.hour", Sort.Direction.ASC));
+            Document marker = mongoTemplate.findById(REBUILD_MARKER_ID, Document.class, STATE_COLLECTION);
+            if (marker != null && marker.getBoolean("completed", false)) {
+                return;
+            }
+            if (marker == null && (mongoTemplate.estimatedCount(COLLECTION) > 0 || !auditBuckets.hasLogs())) {
+                // Counters kept from before the marker existed, or nothing to fold in
+                saveRebuildMarker(LocalDateTime.now(), true);
+                return;
+            }
+            // Resume an interrupted rebuild with its original cutoff
+            LocalDateTime cutoff = marker != null
+                    ? LocalDateTime.ofInstant(marker.getDate("cutoff").toInstant(), ZoneId.systemDefault())
+                    : LocalDateTime.now();
+            saveRebuildMarker(cutoff, false);
+            rebuild(cutoff);
+            saveRebuildMarker(cutoff, true);
+        } catch (Exception e) {
+            System.err.println("Failed to initialise audit counters: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Add a stored batch of audit logs to the hourly counters
+     */
+    public void record(List<AuditLog> batch) {
+        Map<Document, Long> deltas = new LinkedHashMap<>();
+        for (AuditLog auditLog : batch) {
+            deltas.merge(counterKey(auditLog), 1L, Long::sum);
+        }
+        BulkOperations upserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+        deltas.forEach((key, delta) ->
+                upserts.upsert(new Query(Criteria.where("_id").is(key)), new Update().inc("count", delta)));
+        upserts.execute();
+    }
+
+    /**
+     * Totals, success/failure and counts per action and entity type, optionally limited
+     * to the hours in [from, to)
+     */
+    public Map<String, Object> getStats(LocalDateTime from, LocalDateTime to) {
+        List<Document> pipeline = new ArrayList<>();
+        Document hourRange = new Document();
+        if (from != null) {
+            hourRange.append("$gte", toHour(from));
+        }
+        if (to != null) {
+            hourRange.append("$lt", toHour(to));
+        }
+        if (!hourRange.isEmpty()) {
+            pipeline.add(new Document("$match", new Document("_id.hour", hourRange)));
+        }
+        pipeline.add(new Document("$facet", new Document()
+                .append("byResult", List.of(sumBy("$_id.result")))
+                .append("byAction", List.of(sumBy("$_id.action")))
+                .append("byEntityType", List.of(sumBy("$_id.entityType")))));
+
+        Document facets = mongoTemplate.getCollection(COLLECTION).aggregate(pipeline).first();
+        Map<String, Long> resultCounts = toCounts(facets, "byResult");
+        long total = resultCounts.values().stream().mapToLong(Long::longValue).sum();
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("totalLogs", total);
+        stats.put("successLogs", resultCounts.getOrDefault("SUCCESS", 0L));
+        stats.put("failureLogs", resultCounts.getOrDefault("FAILURE", 0L));
+        stats.put("actionCounts", toCounts(facets, "byAction"));
+        stats.put("entityTypeCounts", toCounts(facets, "byEntityType"));
+        return stats;
+    }
+
+    /**
+     * Fold audit logs written before the cutoff into the counters with one server-side
+     * aggregation per audit bucket ($group by hour in the JVM's time zone, then $merge
+     * setting the "rebuilt" count of each counter; idempotent for a given cutoff)
+     */
+    public void rebuild(LocalDateTime cutoff) {
+        String timezone = ZoneId.systemDefault().getId();
+        Document timestamp = new Document("date", "$timestamp").append("timezone", timezone);
+        Document hour = new Document("$dateFromParts", new Document()
+                .append("year", new Document("$year", timestamp))
+                .append("month", new Document("$month", timestamp))
+                .append("day", new Document("$dayOfMonth", timestamp))
+                .append("hour", new Document("$hour", timestamp))
+                .append("timezone", timezone));
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("timestamp", new Document("$lt", toDate(cutoff)))),
+                new Document("$group", new Document("_id", new Document()
+                        .append("hour", hour)
+                        .append("action", "$action")
+                        .append("entityType", "$entityType")
+                        .append("result", "$result"))
+                        .append("rebuilt", new Document("$sum", 1))),
+                new Document("$merge", new Document("into", COLLECTION)
+                        .append("on", "_id")
+                        .append("whenMatched", List.of(new Document("$set",
+                                new Document("rebuilt", "$$new.rebuilt"))))
+                        .append("whenNotMatched", "insert")));
+        for (String bucket : auditBuckets.bucketsFor(null, cutoff)) {
+            mongoTemplate.getCollection(bucket).aggregate(pipeline).toCollection();
+        }
+        System.out.println("📊 Rebuilt audit counters from audit logs before " + cutoff);
+    }
+
+    /**
+     * Drop the counters of hours before the cutoff, once their logs have expired
+     */
+    public void expireBefore(LocalDateTime cutoff) {
+        mongoTemplate.remove(new Query(Criteria.where("_id.hour").lt(toHour(cutoff))), COLLECTION);
+    }
+
+    /**
+     * Counter key; field order matters, as documents compare field by field
+     */
+    private Document counterKey(AuditLog auditLog) {
+        return new Document("hour", toHour(auditLog.getTimestamp()))
+                .append("action", auditLog.getAction())
+                .append("entityType", auditLog.getEntityType())
+                .append("result", auditLog.getResult());
+    }
+
+    private void saveRebuildMarker(LocalDateTime cutoff, boolean completed) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(REBUILD_MARKER_ID)),
+                new Update().set("cutoff", toDate(cutoff)).set("completed", completed),
+                STATE_COLLECTION);
+    }
+
+    /**
+     * Sum of live and rebuilt counts per group
+     */
+    private Document sumBy(String field) {
+        Document total = new Document("$add", List.of(
+                new Document("$ifNull", List.of("$count", 0)),
+                new Document("$ifNull", List.of("$rebuilt", 0))));
+        return new Document("$group", new Document("_id", field).append("count", new Document("$sum", total)));
+    }
+
+    private Map<String, Long> toCounts(Document facets, String facet) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (facets == null) {
+            return counts;
+        }
+        for (Document row : facets.getList(facet, Document.class)) {
+            counts.put(String.valueOf(row.get("_id")), ((Number) row.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    private static Date toHour(LocalDateTime time) {
+        return toDate(time.truncatedTo(ChronoUnit.HOURS));
+    }
+
+    private static Date toDate(LocalDateTime time) {
+        return Date.from(time.atZone(ZoneId.systemDefault()).toInstant());
+    }
+}
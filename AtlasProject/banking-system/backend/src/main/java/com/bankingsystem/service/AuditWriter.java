@@ -0,0 +1,299 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background writer stage for audit events.
+ *
+ * Events go into a bounded ring buffer (ArrayBlockingQueue) and a single writer
+ * thread flushes them when a batch is full or the flush interval elapses: one
+ * insertMany per monthly MongoDB bucket and asynchronous 25-item BatchWriteItem calls to DynamoDB
+ * (bounded by the DynamoBatchWriter's in-flight limit). When the buffer is full the
+ * caller waits briefly and then flushes its own event inline, so audit events are
+ * slowed down under overload rather than dropped. A failed MongoDB insert is retried
+ * with jittered exponential backoff before its events are counted as failed. Each
+ * batch stored in MongoDB is also added to the hourly AuditStatistics counters.
+ */
+@Component
+public class AuditWriter {
+
+    @Autowired
+    private AuditBuckets auditBuckets;
+
+    @Autowired
+    private DynamoBatchWriter dynamoBatchWriter;
+
+    @Autowired
+    private AuditStatistics auditStatistics;
+
+    @Value("${aws.dynamodb.table-name:BankingAuditLogs}")
+    private String dynamoTableName;
+
+    @Value("${banking.audit.batch-size:100}")
+    private int batchSize;
+
+    @Value("${banking.audit.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${banking.audit.flush-interval-ms:200}")
+    private long flushIntervalMillis;
+
+    @Value("${banking.audit.enqueue-timeout-ms:50}")
+    private long enqueueTimeoutMillis;
+
+    @Value("${banking.audit.mongo.max-retries:3}")
+    private int mongoMaxRetries;
+
+    @Value("${banking.audit.mongo.backoff-base-ms:50}")
+    private long mongoBackoffBaseMillis;
+
+    private BlockingQueue<AuditLog> queue;
+    private Thread writerThread;
+    private volatile boolean running;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong backpressureFlushes = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedEvents = new AtomicLong();
+    private final AtomicLong mongoRetries = new AtomicLong();
+    private final AtomicLong mongoFailures = new AtomicLong();
+    private final AtomicLong dynamoFailures = new AtomicLong();
+    private final AtomicLong counterFailures = new AtomicLong();
+    private final AtomicLong totalFlushNanos = new AtomicLong();
+    private final AtomicLong maxFlushNanos = new AtomicLong();
+    private volatile long lastFlushNanos;
+
+    @PostConstruct
+    public void start() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Hand an audit event to the writer stage
+     */
+    public void submit(AuditLog auditLog) {
+        enqueued.incrementAndGet();
+        try {
+            if (queue.offer(auditLog, enqueueTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Buffer is full: write this event on the caller's thread instead of dropping it
+        backpressureFlushes.incrementAndGet();
+        flush(List.of(auditLog));
+    }
+
+    /**
+     * Get queue depth and flush statistics
+     */
+    public Map<String, Object> getStats() {
+        long flushCount = flushes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queueDepth", queue.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("enqueued", enqueued.get());
+        stats.put("flushes", flushCount);
+        stats.put("flushedEvents", flushedEvents.get());
+        stats.put("backpressureFlushes", backpressureFlushes.get());
+        stats.put("mongoRetries", mongoRetries.get());
+        stats.put("mongoFailures", mongoFailures.get());
+        stats.put("dynamoFailures", dynamoFailures.get());
+        stats.put("counterFailures", counterFailures.get());
+        stats.put("lastFlushMillis", TimeUnit.NANOSECONDS.toMillis(lastFlushNanos));
+        stats.put("averageFlushMillis", flushCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(totalFlushNanos.get() / flushCount));
+        stats.put("maxFlushMillis", TimeUnit.NANOSECONDS.toMillis(maxFlushNanos.get()));
+        stats.put("dynamo", dynamoBatchWriter.getStats());
+        return stats;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void runWriter() {
+        while (running || !queue.isEmpty()) {
+            List<AuditLog> batch = new ArrayList<>(batchSize);
+            try {
+                AuditLog first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+
+                // Keep filling until the batch is full or the flush interval has passed
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+                while (batch.size() < batchSize) {
+                    queue.drainTo(batch, batchSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize || remaining <= 0) {
+                        break;
+                    }
+                    AuditLog next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutdown requested: drain whatever is left and flush it
+                queue.drainTo(batch, batchSize - batch.size());
+            }
+
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<AuditLog> batch) {
+        long start = System.nanoTime();
+
+        List<AuditLog> stored = store(batch);
+
+        // Only count what was stored, so the counters agree with the audit log
+        if (!stored.isEmpty()) {
+            try {
+                auditStatistics.record(stored);
+            } catch (Exception e) {
+                counterFailures.addAndGet(stored.size());
+                System.err.println("Failed to update audit counters for " + stored.size() + " audit logs: " + e.getMessage());
+            }
+        }
+
+        try {
+            List<Map<String, AttributeValue>> items = new ArrayList<>(batch.size());
+            for (AuditLog auditLog : batch) {
+                items.add(toDynamoItem(auditLog));
+            }
+            // Completes on the DynamoDB client's threads; the writer moves on to the next batch
+            dynamoBatchWriter.putAllAsync(dynamoTableName, items).whenComplete((failed, error) -> {
+                if (error != null) {
+                    dynamoFailures.addAndGet(items.size());
+                    System.err.println("Failed to save audit logs to DynamoDB: " + error.getMessage());
+                } else if (failed > 0) {
+                    dynamoFailures.addAndGet(failed);
+                    System.err.println("Failed to save " + failed + " audit logs to DynamoDB after retries");
+                }
+            });
+        } catch (Exception e) {
+            dynamoFailures.addAndGet(batch.size());
+            System.err.println("Failed to save audit logs to DynamoDB: " + e.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - start;
+        flushes.incrementAndGet();
+        flushedEvents.addAndGet(batch.size());
+        totalFlushNanos.addAndGet(elapsed);
+        maxFlushNanos.accumulateAndGet(elapsed, Math::max);
+        lastFlushNanos = elapsed;
+    }
+
+    /**
+     * Insert the batch into MongoDB, retrying with backoff. Returns the events that
+     * were stored.
+     */
+    private List<AuditLog> store(List<AuditLog> batch) {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                auditBuckets.insert(batch);
+                return batch;
+            } catch (DuplicateKeyException e) {
+                // An earlier attempt stored part of the batch before failing
+                return storeEach(batch);
+            } catch (Exception e) {
+                if (attempt >= mongoMaxRetries) {
+                    mongoFailures.addAndGet(batch.size());
+                    System.err.println("Failed to save " + batch.size() + " audit logs to MongoDB after "
+                            + (attempt + 1) + " attempts: " + e.getMessage());
+                    return List.of();
+                }
+                mongoRetries.incrementAndGet();
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Insert events one at a time; an event whose actionId is already present was
+     * stored before and counts as stored
+     */
+    private List<AuditLog> storeEach(List<AuditLog> batch) {
+        List<AuditLog> stored = new ArrayList<>(batch.size());
+        for (AuditLog auditLog : batch) {
+            try {
+                auditBuckets.insert(List.of(auditLog));
+                stored.add(auditLog);
+            } catch (DuplicateKeyException e) {
+                stored.add(auditLog);
+            } catch (Exception e) {
+                mongoFailures.incrementAndGet();
+                System.err.println("Failed to save audit log " + auditLog.getActionId() + " to MongoDB: " + e.getMessage());
+            }
+        }
+        return stored;
+    }
+
+    private void backoff(int attempt) {
+        // Full jitter, as in DynamoBatchWriter
+        long ceiling = mongoBackoffBaseMillis << Math.min(attempt, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            // Shutting down: keep retrying without waiting so the final flush is not lost
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Map<String, AttributeValue> toDynamoItem(AuditLog auditLog) {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("ActionID", AttributeValue.builder().s(auditLog.getActionId()).build());
+        item.put("Timestamp", AttributeValue.builder().s(auditLog.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).build());
+        item.put("UserId", AttributeValue.builder().s(auditLog.getUserId()).build());
+        item.put("Action", AttributeValue.builder().s(auditLog.getAction()).build());
+        item.put("EntityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
+        item.put("EntityId", AttributeValue.builder().s(auditLog.getEntityId() != null ? auditLog.getEntityId() : "").build());
+        item.put("Description", AttributeValue.builder().s(auditLog.getDescription() != null ? auditLog.getDescription() : "").build());
+        item.put("Result", AttributeValue.builder().s(auditLog.getResult() != null ? auditLog.getResult() : "").build());
+        item.put("ErrorMessage", AttributeValue.builder().s(auditLog.getErrorMessage() != null ? auditLog.getErrorMessage() : "").build());
+        item.put("IpAddress", AttributeValue.builder().s(auditLog.getIpAddress() != null ? auditLog.getIpAddress() : "").build());
+        item.put("UserAgent", AttributeValue.builder().s(auditLog.getUserAgent() != null ? auditLog.getUserAgent() : "").build());
+
+        if (auditLog.getDetails() != null) {
+            item.put("Details", AttributeValue.builder().s(auditLog.getDetails().toString()).build());
+        }
+        return item;
+    }
+}
@@ -0,0 +1,520 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.UndoRedoStack;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Applies a list of mixed postings (deposits, withdrawals, transfers) in one pass.
+ *
+ * Postings are taken in order in sub-batches touching at most
+ * banking.transaction.batch.lock-accounts accounts, so a large upload never holds more
+ * than that many account locks. Per sub-batch, the accounts are loaded with a single
+ * $in query and locked together, postings are applied in order against in-memory
+ * working balances, and the net result is written back with one bulk insert for the
+ * transactions and one bulk update for the accounts. Each posting succeeds or fails on
+ * its own; a sub-batch that is rejected fails its postings, and the request only fails
+ * as a whole when nothing was applied.
+ *
+ * The transactions are inserted as PENDING before any balance moves and completed
+ * afterwards, so balances never change without a record behind them. If the insert
+ * fails, the inserted ones are removed and no balance is touched; if the balance update
+ * fails, the updates that landed are reverted (each carries the run's tag in the
+ * account's appliedBatchIds) and the transactions are marked FAILED.
+ */
+@Service
+public class BatchTransactionService {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private UndoRedoStack undoRedoStack;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+
+    @Autowired
+    private AccountStateTable accountStateTable;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Value("${banking.transaction.batch.max-size:10000}")
+    private int maxBatchSize;
+
+    @Value("${banking.transaction.batch.lock-accounts:256}")
+    private int maxLockedAccounts;
+
+    /**
+     * Process a batch of postings and return a result per posting
+     */
+    public BatchResult processBatch(String batchId, List<BatchPosting> postings, String userId) {
+        if (postings == null || postings.isEmpty()) {
+            throw new RuntimeException("Batch must contain at least one posting");
+        }
+        if (postings.size() > maxBatchSize) {
+            throw new RuntimeException("Batch size " + postings.size() + " exceeds the maximum of " + maxBatchSize);
+        }
+        if (ledgerEngine.isEnabled()) {
+            // Bulk updates would go around the balances held by the in-memory ledger
+            throw new RuntimeException("Batch postings are not available while the in-memory ledger is enabled");
+        }
+        String effectiveBatchId = batchId != null && !batchId.isBlank()
+                ? batchId
+                : idGenerator.nextId("BATCH");
+
+        try {
+            // Validate every posting up front, without touching the database
+            BatchItemResult[] results = new BatchItemResult[postings.size()];
+            List<SubBatch> subBatches = new ArrayList<>();
+            SubBatch current = new SubBatch();
+            for (int i = 0; i < postings.size(); i++) {
+                BatchPosting posting = postings.get(i);
+                String error = validate(posting);
+                if (error != null) {
+                    results[i] = BatchItemResult.failure(i, posting, error);
+                    continue;
+                }
+                Set<String> parties = posting.getType() == Transaction.TransactionType.TRANSFER
+                        ? Set.of(posting.getAccountNumber(), posting.getDestinationAccountNumber())
+                        : Set.of(posting.getAccountNumber());
+                if (!current.indexes.isEmpty() && current.wouldExceed(parties, maxLockedAccounts)) {
+                    subBatches.add(current);
+                    current = new SubBatch();
+                }
+                current.add(i, parties);
+            }
+            if (!current.indexes.isEmpty()) {
+                subBatches.add(current);
+            }
+
+            RuntimeException firstFailure = null;
+            boolean anyApplied = false;
+            for (SubBatch subBatch : subBatches) {
+                try {
+                    accountLockManager.withAccountLocks(subBatch.accountNumbers,
+                            () -> applyBatch(effectiveBatchId, postings, results, subBatch));
+                    anyApplied = true;
+                } catch (RuntimeException e) {
+                    if (firstFailure == null) {
+                        firstFailure = e;
+                    }
+                    for (int i : subBatch.indexes) {
+                        if (results[i] == null || results[i].isSuccess()) {
+                            results[i] = BatchItemResult.failure(i, postings.get(i), e.getMessage());
+                        }
+                    }
+                }
+            }
+            if (firstFailure != null && !anyApplied) {
+                throw firstFailure;
+            }
+            BatchResult result = new BatchResult(effectiveBatchId, List.of(results));
+
+            Map<String, Object> details = new HashMap<>();
+            details.put("batchId", effectiveBatchId);
+            details.put("total", result.getTotal());
+            details.put("succeeded", result.getSucceeded());
+            details.put("failed", result.getFailed());
+
+            auditService.logAction(userId, "BATCH_POSTING", "BATCH", effectiveBatchId,
+                    "Batch " + effectiveBatchId + ": " + result.getSucceeded() + " of " + result.getTotal() +
+                            " postings applied", details, null, null);
+
+            return result;
+
+        } catch (Exception e) {
+            auditService.logFailure(userId, "BATCH_POSTING", "BATCH", effectiveBatchId,
+                    "Failed to process batch " + effectiveBatchId, e.getMessage());
+            throw e;
+        }
+    }
+
+    private Void applyBatch(String batchId, List<BatchPosting> postings, BatchItemResult[] results,
+                            SubBatch subBatch) {
+        // One $in round-trip for every account in the sub-batch; the customer reference is
+        // not needed here, so skip resolving it
+        Query accountQuery = new Query(Criteria.where("accountNumber").in(subBatch.accountNumbers));
+        accountQuery.fields().exclude("customer");
+        Map<String, WorkingAccount> accounts = new HashMap<>();
+        for (Account account : mongoTemplate.find(accountQuery, Account.class)) {
+            accounts.put(account.getAccountNumber(), new WorkingAccount(account));
+        }
+
+        // Apply postings in order against working balances
+        List<Transaction> transactions = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i : subBatch.indexes) {
+            BatchPosting posting = postings.get(i);
+            WorkingAccount source = accounts.get(posting.getAccountNumber());
+            WorkingAccount destination = posting.getType() == Transaction.TransactionType.TRANSFER
+                    ? accounts.get(posting.getDestinationAccountNumber())
+                    : null;
+
+            String error = checkAccounts(posting, source, destination);
+            if (error != null) {
+                results[i] = BatchItemResult.failure(i, posting, error);
+                continue;
+            }
+
+            BigDecimal amount = posting.getAmount();
+            Transaction transaction;
+            switch (posting.getType()) {
+                case DEPOSIT:
+                    source.apply(amount);
+                    transaction = new Transaction(idGenerator.nextId("DEP"), Transaction.TransactionType.DEPOSIT,
+                            amount, source.account, posting.getDescription());
+                    break;
+                case WITHDRAWAL:
+                    source.apply(amount.negate());
+                    transaction = new Transaction(idGenerator.nextId("WTH"), Transaction.TransactionType.WITHDRAWAL,
+                            amount, source.account, posting.getDescription());
+                    break;
+                default:
+                    source.apply(amount.negate());
+                    destination.apply(amount);
+                    transaction = new Transaction(idGenerator.nextId("TRF"), Transaction.TransactionType.TRANSFER,
+                            amount, source.account, destination.account, posting.getDescription());
+                    break;
+            }
+            transaction.setReferenceNumber(idGenerator.nextId("REF"));
+            transaction.setBatchId(batchId);
+            transaction.setTransactionDate(now);
+            transactions.add(transaction);
+
+            results[i] = BatchItemResult.success(i, posting, transaction.getTransactionId(), source.balance);
+        }
+
+        if (!transactions.isEmpty()) {
+            List<String> transactionIds = transactions.stream().map(Transaction::getTransactionId).toList();
+            insertTransactions(transactions, transactionIds);
+            try {
+                persistAccounts(idGenerator.nextId("BAT"), accounts, now);
+            } catch (RuntimeException e) {
+                updateTransactions(transactionIds, new Update()
+                        .set("status", Transaction.TransactionStatus.FAILED)
+                        .set("remarks", "Balances not applied: " + e.getMessage())
+                        .set("updatedAt", LocalDateTime.now()));
+                throw e;
+            }
+            completeTransactions(transactions, transactionIds);
+
+            for (Transaction transaction : transactions) {
+                undoRedoStack.pushUndo(transaction.getSourceAccount().getId(), transaction);
+                if (transaction.getDestinationAccount() != null) {
+                    undoRedoStack.pushUndo(transaction.getDestinationAccount().getId(), transaction);
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Insert the transactions as PENDING; on failure remove whatever was inserted
+     */
+    private void insertTransactions(List<Transaction> transactions, List<String> transactionIds) {
+        try {
+            BulkOperations inserts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+            inserts.insert(transactions);
+            inserts.execute();
+        } catch (RuntimeException e) {
+            mongoTemplate.remove(new Query(Criteria.where("transactionId").in(transactionIds)), Transaction.class);
+            throw new RuntimeException("Batch rejected: transactions could not be recorded: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Mark the transactions COMPLETED once their balances are applied. The money has moved
+     * at this point, so a failure here is reported but does not fail the batch.
+     */
+    private void completeTransactions(List<Transaction> transactions, List<String> transactionIds) {
+        for (Transaction transaction : transactions) {
+            transaction.markAsCompleted();
+        }
+        try {
+            updateTransactions(transactionIds, new Update()
+                    .set("status", Transaction.TransactionStatus.COMPLETED)
+                    .set("updatedAt", LocalDateTime.now()));
+        } catch (RuntimeException e) {
+            System.err.println("⚠️ Batch balances applied but transactions still PENDING: " + e.getMessage());
+        }
+    }
+
+    private void updateTransactions(List<String> transactionIds, Update update) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("transactionId").in(transactionIds)
+                .and("status").is(Transaction.TransactionStatus.PENDING)), update, Transaction.class);
+    }
+
+    /**
+     * Write the net balance change of every touched account in one bulk update, tagging
+     * each account with the run id. Each update is guarded by the version that was read;
+     * if another writer got in between or the write fails, the updates that landed are
+     * reverted by their tag and the whole batch is rejected.
+     */
+    private void persistAccounts(String runId, Map<String, WorkingAccount> accounts, LocalDateTime now) {
+        List<WorkingAccount> touched = accounts.values().stream()
+                .filter(WorkingAccount::isTouched)
+                .toList();
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (WorkingAccount working : touched) {
+            updates.updateOne(
+                    new Query(Criteria.where("_id").is(working.account.getId())
+                            .and("version").is(working.account.getVersion())),
+                    balanceUpdate(runId, working.delta, now));
+        }
+        BulkWriteResult written;
+        try {
+            written = updates.execute();
+        } catch (RuntimeException e) {
+            // An unordered bulk may have applied part of the updates
+            revertAccounts(runId, touched, now);
+            throw e;
+        } finally {
+            // The bulk update bypasses the repository, so drop the cached copies and account states here
+            for (WorkingAccount working : touched) {
+                long version = working.account.getVersion() != null ? working.account.getVersion() : 0;
+                entityCacheManager.accounts().invalidate(working.account.getAccountNumber(), version + 1);
+                accountStateTable.remove(working.account.getAccountNumber());
+            }
+        }
+
+        if (written.getMatchedCount() == touched.size()) {
+            return;
+        }
+        revertAccounts(runId, touched, now);
+        throw new RuntimeException("Batch rejected: " + (touched.size() - written.getMatchedCount()) +
+                " account(s) were modified concurrently, please retry");
+    }
+
+    /**
+     * Undo exactly the updates of this run that landed, whatever the version is by now
+     */
+    private void revertAccounts(String runId, List<WorkingAccount> touched, LocalDateTime now) {
+        BulkOperations reverts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (WorkingAccount working : touched) {
+            reverts.updateOne(
+                    new Query(Criteria.where("_id").is(working.account.getId()).and("appliedBatchIds").is(runId)),
+                    new Update()
+                            .inc("balance", new Decimal128(working.delta.negate()))
+                            .inc("version", 1)
+                            .pull("appliedBatchIds", runId)
+                            .set("updatedAt", now));
+            entityCacheManager.accounts().invalidate(working.account.getAccountNumber());
+            accountStateTable.remove(working.account.getAccountNumber());
+        }
+        reverts.execute();
+    }
+
+    private Update balanceUpdate(String runId, BigDecimal delta, LocalDateTime now) {
+        Update update = new Update()
+                .inc("balance", new Decimal128(delta))
+                .inc("version", 1)
+                .set("updatedAt", now)
+                .set("lastTransactionDate", now);
+        update.push("appliedBatchIds").slice(-Account.APPLIED_BATCH_IDS_KEPT).each(runId);
+        return update;
+    }
+
+    private String validate(BatchPosting posting) {
+        if (posting == null || posting.getType() == null) {
+            return "Posting type is required";
+        }
+        if (posting.getType() != Transaction.TransactionType.DEPOSIT
+                && posting.getType() != Transaction.TransactionType.WITHDRAWAL
+                && posting.getType() != Transaction.TransactionType.TRANSFER) {
+            return "Unsupported posting type: " + posting.getType();
+        }
+        if (posting.getAccountNumber() == null || posting.getAccountNumber().isBlank()) {
+            return "Account number is required";
+        }
+        if (posting.getAmount() == null || posting.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Amount must be greater than zero";
+        }
+        if (posting.getType() == Transaction.TransactionType.TRANSFER) {
+            if (posting.getDestinationAccountNumber() == null || posting.getDestinationAccountNumber().isBlank()) {
+                return "Destination account number is required";
+            }
+            if (posting.getAccountNumber().equals(posting.getDestinationAccountNumber())) {
+                return "Cannot transfer to the same account";
+            }
+        }
+        return null;
+    }
+
+    private String checkAccounts(BatchPosting posting, WorkingAccount source, WorkingAccount destination) {
+        if (source == null) {
+            return "Account not found: " + posting.getAccountNumber();
+        }
+        if (source.account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return "Account is not active: " + posting.getAccountNumber();
+        }
+        if (posting.getType() == Transaction.TransactionType.TRANSFER) {
+            if (destination == null) {
+                return "Destination account not found: " + posting.getDestinationAccountNumber();
+            }
+            if (destination.account.getStatus() != Account.AccountStatus.ACTIVE) {
+                return "Destination account is not active: " + posting.getDestinationAccountNumber();
+            }
+        }
+        if (posting.getType() != Transaction.TransactionType.DEPOSIT
+                && source.balance.compareTo(posting.getAmount()) < 0) {
+            return "Insufficient balance. Available: ₹" + source.balance + ", Requested: ₹" + posting.getAmount();
+        }
+        return null;
+    }
+
+    /**
+     * Postings (by index) applied under one set of account locks
+     */
+    private static class SubBatch {
+        private final List<Integer> indexes = new ArrayList<>();
+        private final Set<String> accountNumbers = new LinkedHashSet<>();
+
+        boolean wouldExceed(Set<String> parties, int maxAccounts) {
+            int added = 0;
+            for (String accountNumber : parties) {
+                if (!accountNumbers.contains(accountNumber)) {
+                    added++;
+                }
+            }
+            return accountNumbers.size() + added > maxAccounts;
+        }
+
+        void add(int index, Set<String> parties) {
+            indexes.add(index);
+            accountNumbers.addAll(parties);
+        }
+    }
+
+    /**
+     * Account as loaded for the batch plus its running balance and net change
+     */
+    private static class WorkingAccount {
+        private final Account account;
+        private BigDecimal balance;
+        private BigDecimal delta = BigDecimal.ZERO;
+
+        WorkingAccount(Account account) {
+            this.account = account;
+            this.balance = account.getBalance() != null ? account.getBalance() : BigDecimal.ZERO;
+        }
+
+        void apply(BigDecimal change) {
+            balance = balance.add(change);
+            delta = delta.add(change);
+        }
+
+        boolean isTouched() {
+            return delta.signum() != 0;
+        }
+    }
+
+    // Inner classes for request/response
+    public static class BatchPosting {
+        private Transaction.TransactionType type;
+        private String accountNumber;
+        private String destinationAccountNumber;
+        private BigDecimal amount;
+        private String description;
+
+        // Getters and setters
+        public Transaction.TransactionType getType() { return type; }
+        public void setType(Transaction.TransactionType type) { this.type = type; }
+        public String getAccountNumber() { return accountNumber; }
+        public void setAccountNumber(String accountNumber) { this.accountNumber = accountNumber; }
+        public String getDestinationAccountNumber() { return destinationAccountNumber; }
+        public void setDestinationAccountNumber(String destinationAccountNumber) { this.destinationAccountNumber = destinationAccountNumber; }
+        public BigDecimal getAmount() { return amount; }
+        public void setAmount(BigDecimal amount) { this.amount = amount; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+    }
+
+    public static class BatchItemResult {
+        private final int index;
+        private final Transaction.TransactionType type;
+        private final boolean success;
+        private final String transactionId;
+        private final BigDecimal balance;
+        private final String message;
+
+        private BatchItemResult(int index, Transaction.TransactionType type, boolean success,
+                                String transactionId, BigDecimal balance, String message) {
+            this.index = index;
+            this.type = type;
+            this.success = success;
+            this.transactionId = transactionId;
+            this.balance = balance;
+            this.message = message;
+        }
+
+        static BatchItemResult success(int index, BatchPosting posting, String transactionId, BigDecimal balance) {
+            return new BatchItemResult(index, posting.getType(), true, transactionId, balance, "Posting applied");
+        }
+
+        static BatchItemResult failure(int index, BatchPosting posting, String message) {
+            return new BatchItemResult(index, posting != null ? posting.getType() : null, false, null, null, message);
+        }
+
+        public int getIndex() { return index; }
+        public Transaction.TransactionType getType() { return type; }
+        public boolean isSuccess() { return success; }
+        public String getTransactionId() { return transactionId; }
+        public BigDecimal getBalance() { return balance; }
+        public String getMessage() { return message; }
+    }
+
+    public static class BatchResult {
+        private final String batchId;
+        private final List<BatchItemResult> results;
+        private final int succeeded;
+
+        BatchResult(String batchId, List<BatchItemResult> results) {
+            this.batchId = batchId;
+            this.results = results;
+            this.succeeded = (int) results.stream().filter(BatchItemResult::isSuccess).count();
+        }
+
+        public String getBatchId() { return batchId; }
+        public List<BatchItemResult> getResults() { return results; }
+        public int getTotal() { return results.size(); }
+        public int getSucceeded() { return succeeded; }
+        public int getFailed() { return results.size() - succeeded; }
+    }
+}
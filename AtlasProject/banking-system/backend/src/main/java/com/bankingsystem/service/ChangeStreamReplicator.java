@@ -0,0 +1,323 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.service.DataSyncService.SyncTable;
+import com.mongodb.MongoServerException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the DynamoDB tables current by tailing a MongoDB change stream.
+ *
+ * One change stream covers the synced collections (customers, accounts, transactions,
+ * and the audit log buckets) with the full document looked up for updates. Events are coalesced per
+ * document for banking.replication.window-ms (or until banking.replication.max-batch
+ * documents are pending), so a hot account updated many times in a window is written
+ * once, and then written with concurrent BatchWriteItem requests through the
+ * DataSyncService's mapping and the DynamoBatchWriter. The resume token is stored in
+ * "replication_checkpoints" only after everything before it is in DynamoDB, so a restart
+ * continues where it left off without rescanning; if the token has fallen off the oplog
+ * the incremental sync fills the gap instead. Change streams need a replica set, hence
+ * the replicator is off unless banking.replication.enabled is set. Deletes are counted
+ * but not replicated, as only customers are keyed by _id in DynamoDB.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.replication.enabled", havingValue = "true")
+public class ChangeStreamReplicator {
+
+    static final String CHECKPOINT_COLLECTION = "replication_checkpoints";
+    static final String CHECKPOINT_ID = "change_stream";
+
+    /** Change stream errors meaning the resume token is no longer in the oplog */
+    private static final List<Integer> HISTORY_LOST_CODES = List.of(136, 280, 286);
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 30_000;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private DataSyncService dataSyncService;
+
+    @Value("${banking.replication.window-ms:500}")
+    private long windowMillis;
+
+    @Value("${banking.replication.max-batch:1000}")
+    private int maxBatch;
+
+    private final Map<SyncTable, LinkedHashMap<Object, Document>> pending = new EnumMap<>(SyncTable.class);
+    private int pendingCount;
+    private long oldestPendingMillis;
+
+    private Thread tailer;
+    private volatile boolean running;
+    private BsonDocument savedResumeToken;
+
+    private final AtomicLong eventsReceived = new AtomicLong();
+    private final AtomicLong eventsCoalesced = new AtomicLong();
+    private final AtomicLong itemsWritten = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong deletesSkipped = new AtomicLong();
+    private final AtomicLong restarts = new AtomicLong();
+    private volatile long lastAppliedEventMillis;
+    private volatile long lastAppliedAtMillis;
+    private volatile long pendingSinceMillis;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        tailer = new Thread(this::run, "change-stream-replicator");
+        tailer.setDaemon(true);
+        tailer.start();
+        System.out.println("🔁 Change stream replication to DynamoDB started");
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        tailer.interrupt();
+        tailer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Get replication counters and lag; the lag is the age of the oldest change not yet
+     * in DynamoDB, or of the last applied change when nothing is pending
+     */
+    public Map<String, Object> getStats() {
+        long now = System.currentTimeMillis();
+        long since = pendingSinceMillis;
+        long lag = since > 0 ? now - since
+                : lastAppliedEventMillis > 0 ? Math.max(0, lastAppliedAtMillis - lastAppliedEventMillis) : 0;
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("running", running && tailer.isAlive());
+        stats.put("replicationLagMs", lag);
+        stats.put("eventsReceived", eventsReceived.get());
+        stats.put("eventsCoalesced", eventsCoalesced.get());
+        stats.put("itemsWritten", itemsWritten.get());
+        stats.put("flushes", flushes.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("deletesSkipped", deletesSkipped.get());
+        stats.put("restarts", restarts.get());
+        stats.put("lastAppliedEvent", lastAppliedEventMillis > 0 ? new Date(lastAppliedEventMillis) : null);
+        return stats;
+    }
+
+    private void run() {
+        long backoff = windowMillis;
+        while (running) {
+            try {
+                tail();
+                backoff = windowMillis;
+            } catch (MongoServerException e) {
+                if (HISTORY_LOST_CODES.contains(e.getCode())) {
+                    System.err.println("⚠️ Change stream resume token expired, catching up with an incremental sync");
+                    clearResumeToken();
+                } else {
+                    System.err.println("❌ Change stream failed: " + e.getMessage());
+                }
+                backoff = pause(backoff);
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("❌ Change stream failed: " + e.getMessage());
+                backoff = pause(backoff);
+            }
+        }
+    }
+
+    /**
+     * Tail the change stream until stopped or until it fails
+     */
+    private void tail() {
+        dataSyncService.ensureTables();
+        BsonDocument resumeToken = loadResumeToken();
+        List<String> collections = Arrays.stream(SyncTable.values()).map(SyncTable::collection).toList();
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.or(
+                        Filters.in("ns.coll", collections),
+                        Filters.regex("ns.coll", "^" + AuditBuckets.BUCKET_PREFIX + "\\d{4}_\\d{2}$")))))
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .batchSize(maxBatch)
+                .maxAwaitTime(windowMillis, TimeUnit.MILLISECONDS);
+        if (resumeToken != null) {
+            stream.resumeAfter(resumeToken);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = stream.cursor()) {
+            restarts.incrementAndGet();
+            if (resumeToken == null) {
+                // Nothing to resume from: the stream now covers new changes, the sync the rest.
+                // No safety lag here, or changes made just before the stream opened would be
+                // in neither; anything the sync cannot see yet arrives through the stream.
+                dataSyncService.syncAllDataToDynamoDB(0);
+            }
+            while (running) {
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event != null) {
+                    accept(event);
+                }
+                boolean windowElapsed = pendingCount > 0 && System.currentTimeMillis() - oldestPendingMillis >= windowMillis;
+                if (pendingCount >= maxBatch || windowElapsed || (event == null && pendingCount == 0)) {
+                    if (flush()) {
+                        saveResumeToken(cursor.getResumeToken());
+                    } else {
+                        pause(windowMillis);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Coalesce an event into the pending set, keyed by collection and document id
+     */
+    private void accept(ChangeStreamDocument<Document> event) {
+        eventsReceived.incrementAndGet();
+        if (event.getNamespace() == null || event.getDocumentKey() == null) {
+            return;
+        }
+        SyncTable table = SyncTable.forCollection(event.getNamespace().getCollectionName());
+        LinkedHashMap<Object, Document> documents = pending.computeIfAbsent(table, k -> new LinkedHashMap<>());
+        Object id = event.getDocumentKey().get("_id");
+
+        Document previous;
+        if (event.getOperationType() == OperationType.DELETE) {
+            deletesSkipped.incrementAndGet();
+            previous = documents.remove(id);
+            if (previous != null) {
+                pendingCount--;
+            }
+            return;
+        }
+        if (event.getFullDocument() == null) {
+            // Updated and deleted again before the lookup ran
+            return;
+        }
+        previous = documents.put(id, event.getFullDocument());
+        if (previous != null) {
+            eventsCoalesced.incrementAndGet();
+        } else {
+            pendingCount++;
+        }
+        if (pendingSinceMillis == 0) {
+            oldestPendingMillis = System.currentTimeMillis();
+            pendingSinceMillis = event.getClusterTime() != null
+                    ? event.getClusterTime().getTime() * 1000L
+                    : oldestPendingMillis;
+        }
+        if (event.getClusterTime() != null) {
+            lastAppliedEventMillis = Math.max(lastAppliedEventMillis, event.getClusterTime().getTime() * 1000L);
+        }
+    }
+
+    /**
+     * Write all pending documents; returns false (keeping them pending) if any failed
+     */
+    private boolean flush() {
+        if (pendingCount == 0) {
+            pendingSinceMillis = 0;
+            return true;
+        }
+        int failed = 0;
+        int written = 0;
+        for (Map.Entry<SyncTable, LinkedHashMap<Object, Document>> entry : pending.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            List<Map<String, AttributeValue>> items = dataSyncService.toItems(entry.getKey(),
+                    copies(entry.getValue().values()));
+            int tableFailed = dataSyncService.writeParallel(entry.getKey().tableName(), items);
+            failed += tableFailed;
+            written += items.size() - tableFailed;
+        }
+        itemsWritten.addAndGet(written);
+        if (failed > 0) {
+            // Puts are idempotent, so the whole set is simply written again
+            failedFlushes.incrementAndGet();
+            System.err.println("⚠️ Replication flush left " + failed + " items unwritten, retrying");
+            return false;
+        }
+
+        flushes.incrementAndGet();
+        pending.values().forEach(Map::clear);
+        pendingCount = 0;
+        pendingSinceMillis = 0;
+        lastAppliedAtMillis = System.currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * The mapping detaches reference fields, so a retried flush needs the originals
+     */
+    private List<Document> copies(Iterable<Document> documents) {
+        List<Document> copies = new ArrayList<>();
+        for (Document document : documents) {
+            copies.add(new Document(document));
+        }
+        return copies;
+    }
+
+    private BsonDocument loadResumeToken() {
+        Document checkpoint = mongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+        if (checkpoint == null || checkpoint.getString("resumeToken") == null) {
+            return null;
+        }
+        return BsonDocument.parse(checkpoint.getString("resumeToken"));
+    }
+
+    private void saveResumeToken(BsonDocument resumeToken) {
+        // Idle polls hand back the same token; only store it when it moved
+        if (resumeToken == null || resumeToken.equals(savedResumeToken)) {
+            return;
+        }
+        savedResumeToken = resumeToken;
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                new Update().set("resumeToken", resumeToken.toJson()).set("savedAt", new Date()),
+                CHECKPOINT_COLLECTION);
+    }
+
+    private void clearResumeToken() {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(CHECKPOINT_ID)), CHECKPOINT_COLLECTION);
+        savedResumeToken = null;
+    }
+
+    private long pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+        return Math.min(millis * 2, MAX_RETRY_BACKOFF_MILLIS);
+    }
+}
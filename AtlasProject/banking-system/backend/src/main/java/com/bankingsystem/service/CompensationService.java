@@ -0,0 +1,468 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountBalanceOperations;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.UndoRedoStack;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Executes undo and redo as compensating postings.
+ *
+ * Undoing a posting writes a new transaction with the opposite balance effect
+ * (relatedTransactionId points at the original) through the same guarded credit/debit
+ * path the posting services use, and moves the original to REVERSED. Redo posts the
+ * original effect again and moves the original back to COMPLETED. The status change is
+ * a compare-and-set on the stored original, so a posting held in the history of both
+ * transfer parties, or undone twice concurrently, is only compensated once.
+ *
+ * A whole upload can be rolled back with undoBatch: its postings are split into lanes
+ * by account and undone newest first within a lane, with the lanes running in parallel
+ * on banking.compensation.parallelism threads.
+ */
+@Service
+public class CompensationService {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private UndoRedoStack undoRedoStack;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    private final int parallelism;
+    private final long timeoutMillis;
+
+    private ExecutorService workers;
+
+    public CompensationService(@Value("${banking.compensation.parallelism:8}") int parallelism,
+                               @Value("${banking.compensation.timeout:300000}") long timeoutMillis) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("Compensation parallelism must be greater than zero");
+        }
+        this.parallelism = parallelism;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "compensation-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    /**
+     * Undo the latest posting in an account's history; returns the compensating transaction
+     */
+    public Transaction undoLast(String accountId, String userId) {
+        Transaction original = undoRedoStack.peekUndo(accountId);
+        if (original == null) {
+            throw new RuntimeException("No transactions available to undo");
+        }
+        // Popped by identity: a posting pushed meanwhile may now be on top
+        if (currentStatus(original) == Transaction.TransactionStatus.REVERSED) {
+            // Already undone through the other party of a transfer or a batch undo
+            undoRedoStack.popUndo(accountId, original);
+            throw new RuntimeException("Transaction already reversed: " + original.getTransactionId());
+        }
+        Transaction compensation = reverse(original, userId);
+        undoRedoStack.popUndo(accountId, original);
+        return compensation;
+    }
+
+    /**
+     * Redo the latest undone posting in an account's history; returns the re-executed transaction
+     */
+    public Transaction redoLast(String accountId, String userId) {
+        Transaction original = undoRedoStack.peekRedo(accountId);
+        if (original == null) {
+            throw new RuntimeException("No transactions available to redo");
+        }
+        if (currentStatus(original) == Transaction.TransactionStatus.COMPLETED) {
+            undoRedoStack.popRedo(accountId, original);
+            throw new RuntimeException("Transaction already redone: " + original.getTransactionId());
+        }
+        Transaction reapplied = reapply(original, userId);
+        undoRedoStack.popRedo(accountId, original);
+        return reapplied;
+    }
+
+    /**
+     * Post the opposite of a completed posting and mark the original REVERSED
+     */
+    public Transaction reverse(Transaction original, String userId) {
+        return compensate(original, true, userId);
+    }
+
+    /**
+     * Post a reversed posting again and mark the original COMPLETED
+     */
+    public Transaction reapply(Transaction original, String userId) {
+        return compensate(original, false, userId);
+    }
+
+    /**
+     * Undo every completed posting of a batch, in parallel across accounts and newest
+     * first within an account
+     */
+    public BatchUndoResult undoBatch(String batchId, String userId) {
+        List<Transaction> postings = transactionRepository.findByBatchIdOrderByTransactionDateAscTransactionIdAsc(batchId);
+        if (postings.isEmpty()) {
+            throw new RuntimeException("No postings found for batch: " + batchId);
+        }
+
+        // Undo in reverse posting order, one lane per account
+        List<Transaction> newestFirst = new ArrayList<>(postings);
+        Collections.reverse(newestFirst);
+        Map<String, List<Transaction>> lanes = new LinkedHashMap<>();
+        int skipped = 0;
+        for (Transaction posting : newestFirst) {
+            if (posting.getStatus() != Transaction.TransactionStatus.COMPLETED || !isCompensable(posting)) {
+                skipped++;
+                continue;
+            }
+            lanes.computeIfAbsent(posting.getSourceAccount().getAccountNumber(), k -> new ArrayList<>()).add(posting);
+        }
+
+        List<Callable<Map<String, String>>> tasks = new ArrayList<>();
+        for (List<Transaction> lane : lanes.values()) {
+            tasks.add(() -> undoLane(lane, userId));
+        }
+
+        int reversed = 0;
+        Map<String, String> failed = new LinkedHashMap<>();
+        try {
+            List<Future<Map<String, String>>> outcomes = workers.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+            int laneIndex = 0;
+            for (List<Transaction> lane : lanes.values()) {
+                Future<Map<String, String>> outcome = outcomes.get(laneIndex++);
+                Map<String, String> laneFailures;
+                try {
+                    laneFailures = outcome.get();
+                } catch (ExecutionException | CancellationException e) {
+                    laneFailures = new HashMap<>();
+                    for (Transaction posting : lane) {
+                        if (currentStatus(posting) != Transaction.TransactionStatus.REVERSED) {
+                            laneFailures.put(posting.getTransactionId(), "Not undone before the batch undo timed out");
+                        }
+                    }
+                }
+                reversed += lane.size() - laneFailures.size();
+                failed.putAll(laneFailures);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while undoing batch " + batchId, e);
+        }
+
+        BatchUndoResult result = new BatchUndoResult(batchId, postings.size(), reversed, skipped, failed);
+        Map<String, Object> details = new HashMap<>();
+        details.put("batchId", batchId);
+        details.put("reversed", reversed);
+        details.put("skipped", skipped);
+        details.put("failed", failed.size());
+        auditService.logAction(userId, "BATCH_UNDO", "BATCH", batchId,
+                "Batch " + batchId + ": undid " + reversed + " of " + postings.size() + " postings",
+                details, null, null);
+        return result;
+    }
+
+    private Map<String, String> undoLane(List<Transaction> lane, String userId) {
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (Transaction posting : lane) {
+            if (Thread.currentThread().isInterrupted()) {
+                failures.put(posting.getTransactionId(), "Not undone before the batch undo timed out");
+                continue;
+            }
+            try {
+                reverse(posting, userId);
+            } catch (RuntimeException e) {
+                failures.put(posting.getTransactionId(), e.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    private Transaction compensate(Transaction original, boolean undo, String userId) {
+        String action = undo ? "UNDO" : "REDO";
+        try {
+            if (!isCompensable(original)) {
+                throw new RuntimeException("Transaction type " + original.getType() + " cannot be undone");
+            }
+            Set<String> accountNumbers = new LinkedHashSet<>();
+            accountNumbers.add(original.getSourceAccount().getAccountNumber());
+            if (original.getDestinationAccount() != null) {
+                accountNumbers.add(original.getDestinationAccount().getAccountNumber());
+            }
+
+            Supplier<Transaction> execution = () -> executeCompensation(original, undo, userId);
+            // Ledger partitions are single-writer, so only the MongoDB path needs account locks
+            if (ledgerEngine.isEnabled()) {
+                return execution.get();
+            }
+            return accountLockManager.withAccountLocks(accountNumbers, execution);
+
+        } catch (Exception e) {
+            auditService.logFailure(userId, action, "TRANSACTION", original.getTransactionId(),
+                    "Failed to " + action.toLowerCase() + " transaction " + original.getTransactionId(), e.getMessage());
+            throw e;
+        }
+    }
+
+    private Transaction executeCompensation(Transaction original, boolean undo, String userId) {
+        Transaction.TransactionStatus from = undo ? Transaction.TransactionStatus.COMPLETED : Transaction.TransactionStatus.REVERSED;
+        Transaction.TransactionStatus to = undo ? Transaction.TransactionStatus.REVERSED : Transaction.TransactionStatus.COMPLETED;
+        String remarks = (undo ? "Reversed" : "Redone") + " by user " + userId;
+
+        // Claim the original first; this is what keeps a posting from being compensated twice
+        if (!transition(original.getTransactionId(), from, to, remarks)) {
+            throw rejectedTransition(original, to);
+        }
+
+        String debitAccount;
+        String creditAccount;
+        if (undo) {
+            debitAccount = creditedAccount(original);
+            creditAccount = debitedAccount(original);
+        } else {
+            debitAccount = debitedAccount(original);
+            creditAccount = creditedAccount(original);
+        }
+
+        Account debited;
+        Account credited;
+        try {
+            debited = debitAccount != null
+                    ? balances().debitBalance(debitAccount, original.getAmount())
+                            .orElseThrow(() -> rejectedDebit(debitAccount, original.getAmount()))
+                    : null;
+            credited = null;
+            if (creditAccount != null) {
+                Optional<Account> result = balances().creditBalance(creditAccount, original.getAmount());
+                if (result.isEmpty()) {
+                    if (debitAccount != null) {
+                        balances().adjustBalance(debitAccount, original.getAmount());
+                    }
+                    throw new RuntimeException("Account not found or not active: " + creditAccount);
+                }
+                credited = result.get();
+            }
+        } catch (RuntimeException e) {
+            // Nothing was posted, so hand the original back
+            transition(original.getTransactionId(), to, from, original.getRemarks());
+            throw e;
+        }
+
+        Transaction compensation;
+        String description = (undo ? "Reversal of " : "Re-execution of ") + original.getTransactionId();
+        if (debited != null && credited != null) {
+            compensation = new Transaction(idGenerator.nextId("TRF"), Transaction.TransactionType.TRANSFER,
+                    original.getAmount(), debited, credited, description);
+        } else if (credited != null) {
+            compensation = new Transaction(idGenerator.nextId("DEP"), Transaction.TransactionType.DEPOSIT,
+                    original.getAmount(), credited, description);
+        } else {
+            compensation = new Transaction(idGenerator.nextId("WTH"), Transaction.TransactionType.WITHDRAWAL,
+                    original.getAmount(), debited, description);
+        }
+        compensation.setReferenceNumber(idGenerator.nextId("REF"));
+        compensation.setRelatedTransactionId(original.getTransactionId());
+        compensation.markAsCompleted();
+
+        // Save to database (batched in the background when the ledger is enabled)
+        if (ledgerEngine.isEnabled()) {
+            ledgerEngine.commit(compensation);
+        } else {
+            transactionRepository.save(compensation);
+        }
+
+        if (undo) {
+            original.markAsReversed(remarks);
+        } else {
+            original.markAsCompleted();
+            original.setRemarks(remarks);
+        }
+
+        Map<String, Object> details = new HashMap<>();
+        details.put("originalTransactionId", original.getTransactionId());
+        details.put("compensationTransactionId", compensation.getTransactionId());
+        details.put("amount", original.getAmount());
+        if (debited != null) {
+            details.put("debitedAccountNumber", debited.getAccountNumber());
+            details.put("debitedNewBalance", debited.getBalance());
+        }
+        if (credited != null) {
+            details.put("creditedAccountNumber", credited.getAccountNumber());
+            details.put("creditedNewBalance", credited.getBalance());
+        }
+        auditService.logAction(userId, undo ? "UNDO" : "REDO", "TRANSACTION", original.getTransactionId(),
+                description + " (₹" + original.getAmount() + ")", details, null, null);
+
+        return compensation;
+    }
+
+    /**
+     * Compare-and-set the stored status of a posting
+     */
+    private boolean transition(String transactionId, Transaction.TransactionStatus from,
+                               Transaction.TransactionStatus to, String remarks) {
+        Query query = new Query(Criteria.where("transactionId").is(transactionId).and("status").is(from));
+        Update update = new Update()
+                .set("status", to)
+                .set("remarks", remarks)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateFirst(query, update, Transaction.class).getModifiedCount() > 0;
+    }
+
+    private Transaction.TransactionStatus currentStatus(Transaction transaction) {
+        return transactionRepository.findByTransactionId(transaction.getTransactionId())
+                .map(Transaction::getStatus)
+                .orElse(transaction.getStatus());
+    }
+
+    /**
+     * Work out why the original could not be claimed
+     */
+    private RuntimeException rejectedTransition(Transaction original, Transaction.TransactionStatus target) {
+        Optional<Transaction> stored = transactionRepository.findByTransactionId(original.getTransactionId());
+        if (stored.isEmpty()) {
+            // Postings from the in-memory ledger reach MongoDB shortly after they complete
+            return new RuntimeException("Transaction is not persisted yet, try again shortly: " + original.getTransactionId());
+        }
+        if (stored.get().getStatus() == target) {
+            return new RuntimeException("Transaction already " + target.getDisplayName().toLowerCase() +
+                    ": " + original.getTransactionId());
+        }
+        return new RuntimeException("Transaction " + original.getTransactionId() + " is " +
+                stored.get().getStatus().getDisplayName().toLowerCase() + " and cannot be changed");
+    }
+
+    private RuntimeException rejectedDebit(String accountNumber, BigDecimal amount) {
+        Account account = balances().findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException("Account is not active: " + accountNumber);
+        }
+        return new RuntimeException("Insufficient balance in account " + accountNumber + ". Available: ₹" +
+                account.getBalance() + ", Requested: ₹" + amount);
+    }
+
+    private boolean isCompensable(Transaction transaction) {
+        switch (transaction.getType()) {
+            case DEPOSIT:
+            case WITHDRAWAL:
+                return transaction.getSourceAccount() != null;
+            case TRANSFER:
+                return transaction.getSourceAccount() != null && transaction.getDestinationAccount() != null;
+            default:
+                return false;
+        }
+    }
+
+    private String debitedAccount(Transaction transaction) {
+        return transaction.getType() == Transaction.TransactionType.DEPOSIT
+                ? null
+                : transaction.getSourceAccount().getAccountNumber();
+    }
+
+    private String creditedAccount(Transaction transaction) {
+        switch (transaction.getType()) {
+            case DEPOSIT:
+                return transaction.getSourceAccount().getAccountNumber();
+            case TRANSFER:
+                return transaction.getDestinationAccount().getAccountNumber();
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Balances live in the in-memory ledger when it is enabled, otherwise in MongoDB
+     */
+    private AccountBalanceOperations balances() {
+        return ledgerEngine.isEnabled() ? ledgerEngine : accountRepository;
+    }
+
+    public static class BatchUndoResult {
+        private final String batchId;
+        private final int total;
+        private final int reversed;
+        private final int skipped;
+        private final Map<String, String> failed;
+
+        BatchUndoResult(String batchId, int total, int reversed, int skipped, Map<String, String> failed) {
+            this.batchId = batchId;
+            this.total = total;
+            this.reversed = reversed;
+            this.skipped = skipped;
+            this.failed = failed;
+        }
+
+        public String getBatchId() { return batchId; }
+        public int getTotal() { return total; }
+        public int getReversed() { return reversed; }
+        /** Postings that were not completed (already reversed, failed, ...) or cannot be undone */
+        public int getSkipped() { return skipped; }
+        /** Reason per posting that could not be undone */
+        public Map<String, String> getFailed() { return failed; }
+    }
+}
@@ -2,89 +2,206 @@ package com.bankingsystem.service;
 
 import com.bankingsystem.model.Customer;
 import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AccountSnapshot;
 import com.bankingsystem.model.Transaction;
 import com.bankingsystem.model.AuditLog;
-import com.bankingsystem.repository.CustomerRepository;
-import com.bankingsystem.repository.AccountRepository;
-import com.bankingsystem.repository.TransactionRepository;
-import com.bankingsystem.repository.AuditLogRepository;
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.bankingsystem.util.OperationMetrics;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
 import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
-import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
 import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
-import software.amazon.awssdk.services.dynamodb.model.CreateTableResponse;
 import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
 import software.amazon.awssdk.services.dynamodb.model.AttributeDefinition;
 import software.amazon.awssdk.services.dynamodb.model.BillingMode;
 
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Incremental MongoDB to DynamoDB sync.
+ *
+ * Every collection has a high-water mark in "sync_checkpoints": the watermark field
+ * (updatedAt, or timestamp for the append-only audit log) and _id of the last document
+ * written. A run reads only the documents after that mark, in pages ordered by the same
+ * two fields (backed by the sync_watermark indexes), writes each page with concurrent
+ * async BatchWriteItem requests and advances the mark once the whole page is stored. A page
+ * that still has unprocessed items after the DynamoBatchWriter's retries leaves the mark
+ * where it was, so it is picked up again on the next run. Documents changed in the last
+ * banking.sync.safety-lag-ms are left for the next run, as writes that stamped their
+ * time earlier may not be visible yet. Re-syncing an unchanged database costs one empty
+ * indexed query per collection.
+ */
 @Service
 public class DataSyncService {
-    
+
+    static final String CHECKPOINT_COLLECTION = "sync_checkpoints";
+
+    /**
+     * Synced collections with their DynamoDB table, key attribute and watermark field
+     */
+    enum SyncTable {
+        CUSTOMERS("customers", "BankingCustomers", "customerId", "updatedAt"),
+        ACCOUNTS("accounts", "BankingAccounts", "accountNumber", "updatedAt"),
+        TRANSACTIONS("transactions", "BankingTransactions", "transactionId", "updatedAt"),
+        AUDIT_LOGS("audit_logs", "BankingAuditLogs", "actionId", "timestamp");
+
+        private final String collection;
+        private final String tableName;
+        private final String keyAttribute;
+        private final String watermarkField;
+
+        SyncTable(String collection, String tableName, String keyAttribute, String watermarkField) {
+            this.collection = collection;
+            this.tableName = tableName;
+            this.keyAttribute = keyAttribute;
+            this.watermarkField = watermarkField;
+        }
+
+        String collection() {
+            return collection;
+        }
+
+        String tableName() {
+            return tableName;
+        }
+
+        static SyncTable forCollection(String collection) {
+            for (SyncTable table : values()) {
+                if (table.collection.equals(collection)) {
+                    return table;
+                }
+            }
+            if (AuditBuckets.isBucket(collection)) {
+                return AUDIT_LOGS;
+            }
+            throw new IllegalArgumentException("Collection is not synced: " + collection);
+        }
+    }
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
     @Autowired
-    private CustomerRepository customerRepository;
-    
+    private TransactionReferenceResolver referenceResolver;
+
     @Autowired
-    private AccountRepository accountRepository;
-    
+    private DynamoBatchWriter dynamoBatchWriter;
+
     @Autowired
-    private TransactionRepository transactionRepository;
-    
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
     @Autowired
-    private AuditLogRepository auditLogRepository;
-    
+    private AuditBuckets auditBuckets;
+
     @Autowired
-    private DynamoDbClient dynamoDbClient;
-    
+    private OperationMetrics operationMetrics;
+
+    @Value("${banking.sync.page-size:1000}")
+    private int pageSize;
+
+    @Value("${banking.sync.safety-lag-ms:5000}")
+    private long safetyLagMillis;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile boolean tablesCreated;
+    private final Map<String, Map<String, Object>> lastRuns = new ConcurrentHashMap<>();
+
     /**
-     * Sync all MongoDB data to DynamoDB tables
+     * Sync MongoDB changes since the last run to DynamoDB tables, returning per-table results
      */
-    public void syncAllDataToDynamoDB() {
+    public Map<String, Object> syncAllDataToDynamoDB() {
+        return syncAllDataToDynamoDB(safetyLagMillis);
+    }
+
+    /**
+     * Sync with a given safety lag; a caller that already tails the change stream passes 0,
+     * since whatever commits after its read is delivered by the stream
+     */
+    public Map<String, Object> syncAllDataToDynamoDB(long lagMillis) {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A sync is already in progress");
+        }
+        OperationMetrics.Sample sample = operationMetrics.start("dynamodb.sync");
         try {
             // Create tables if they don't exist
-            createDynamoDBTables();
-            
-            // Sync customers
-            syncCustomersToDynamoDB();
-            
-            // Sync accounts
-            syncAccountsToDynamoDB();
-            
-            // Sync transactions
-            syncTransactionsToDynamoDB();
-            
-            // Sync audit logs
-            syncAuditLogsToDynamoDB();
-            
+            ensureTables();
+
+            Map<String, Object> results = new LinkedHashMap<>();
+            for (SyncTable table : SyncTable.values()) {
+                results.put(table.tableName, syncTable(table, lagMillis));
+            }
+
             System.out.println("✅ All data synced to DynamoDB successfully!");
-            
+            sample.success();
+            return results;
+
         } catch (Exception e) {
+            sample.failure();
             System.err.println("❌ Error syncing data to DynamoDB: " + e.getMessage());
+            throw new RuntimeException("Error syncing data to DynamoDB: " + e.getMessage(), e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Forget all high-water marks, so the next sync copies every document again
+     */
+    public void resetCheckpoints() {
+        mongoTemplate.remove(new Query(), CHECKPOINT_COLLECTION);
+        System.out.println("🔄 Sync checkpoints cleared, next sync is a full sync");
+    }
+
+    /**
+     * Get the outcome and throughput of the last run per table
+     */
+    public Map<String, Object> getSyncStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("tables", new LinkedHashMap<>(lastRuns));
+        status.put("dynamo", dynamoBatchWriter.getStats());
+        return status;
+    }
+
+    /**
+     * Create the DynamoDB tables once per process
+     */
+    void ensureTables() {
+        if (!tablesCreated) {
+            createDynamoDBTables();
+            tablesCreated = true;
         }
     }
-    
+
     /**
      * Create DynamoDB tables
      */
     private void createDynamoDBTables() {
-        // Create Customers table
-        createTable("BankingCustomers", "customerId");
-        
-        // Create Accounts table
-        createTable("BankingAccounts", "accountNumber");
-        
-        // Create Transactions table
-        createTable("BankingTransactions", "transactionId");
-        
-        // Create Audit Logs table
-        createTable("BankingAuditLogs", "actionId");
+        for (SyncTable table : SyncTable.values()) {
+            createTable(table.tableName, table.keyAttribute);
+        }
     }
-    
+
     /**
      * Create a DynamoDB table
      */
@@ -102,208 +219,254 @@ public class DataSyncService {
                             .build())
                     .billingMode(BillingMode.PAY_PER_REQUEST)
                     .build();
-            
-            CreateTableResponse response = dynamoDbClient.createTable(createTableRequest);
+
+            dynamoDbAsyncClient.createTable(createTableRequest).join();
             System.out.println("✅ Created table: " + tableName);
-            
+
         } catch (Exception e) {
             // Table might already exist
             System.out.println("ℹ️ Table " + tableName + " already exists or error: " + e.getMessage());
         }
     }
-    
+
     /**
-     * Sync customers from MongoDB to DynamoDB
+     * Copy one collection's changes since its high-water mark, page by page
      */
-    private void syncCustomersToDynamoDB() {
-        List<Customer> customers = customerRepository.findAll();
-        
-        for (Customer customer : customers) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (customer.getId() != null) {
-                item.put("customerId", AttributeValue.builder().s(customer.getId()).build());
-            }
-            if (customer.getFirstName() != null && !customer.getFirstName().trim().isEmpty()) {
-                item.put("firstName", AttributeValue.builder().s(customer.getFirstName()).build());
-            }
-            if (customer.getLastName() != null && !customer.getLastName().trim().isEmpty()) {
-                item.put("lastName", AttributeValue.builder().s(customer.getLastName()).build());
-            }
-            if (customer.getEmail() != null && !customer.getEmail().trim().isEmpty()) {
-                item.put("email", AttributeValue.builder().s(customer.getEmail()).build());
-            }
-            if (customer.getMobileNumber() != null && !customer.getMobileNumber().trim().isEmpty()) {
-                item.put("mobileNumber", AttributeValue.builder().s(customer.getMobileNumber()).build());
-            }
-            if (customer.getAddress() != null && !customer.getAddress().trim().isEmpty()) {
-                item.put("address", AttributeValue.builder().s(customer.getAddress()).build());
-            }
-            if (customer.getCity() != null && !customer.getCity().trim().isEmpty()) {
-                item.put("city", AttributeValue.builder().s(customer.getCity()).build());
-            }
-            if (customer.getState() != null && !customer.getState().trim().isEmpty()) {
-                item.put("state", AttributeValue.builder().s(customer.getState()).build());
-            }
-            if (customer.getPincode() != null && !customer.getPincode().trim().isEmpty()) {
-                item.put("pincode", AttributeValue.builder().s(customer.getPincode()).build());
-            }
-            if (customer.getCreatedAt() != null) {
-                item.put("createdAt", AttributeValue.builder().s(customer.getCreatedAt().toString()).build());
+    private Map<String, Object> syncTable(SyncTable table, long lagMillis) {
+        long started = System.nanoTime();
+        Document checkpoint = mongoTemplate.findById(table.collection, Document.class, CHECKPOINT_COLLECTION);
+        boolean hasMark = checkpoint != null;
+        Object watermark = hasMark ? checkpoint.get("watermark") : null;
+        Object lastId = hasMark ? checkpoint.get("lastId") : null;
+        Date upperBound = new Date(System.currentTimeMillis() - lagMillis);
+
+        List<String> collections = sourceCollections(table, watermark);
+        int current = 0;
+        long synced = 0;
+        long failed = 0;
+        int pages = 0;
+        while (current < collections.size()) {
+            Query query = new Query(pageCriteria(table.watermarkField, hasMark, watermark, lastId, upperBound))
+                    .with(Sort.by(Sort.Direction.ASC, table.watermarkField, "_id"))
+                    .limit(pageSize);
+            List<Document> page = mongoTemplate.find(query, Document.class, collections.get(current));
+            if (page.isEmpty()) {
+                current++;
+                continue;
+            }
+            pages++;
+            Document last = page.get(page.size() - 1);
+            Object nextWatermark = last.get(table.watermarkField);
+            Object nextId = last.get("_id");
+
+            List<Map<String, AttributeValue>> items = toItems(table, page);
+            int pageFailed = writeParallel(table.tableName, items);
+            if (pageFailed > 0) {
+                // Keep the mark before this page; it is written again on the next run
+                failed += pageFailed;
+                synced += items.size() - pageFailed;
+                break;
+            }
+            synced += items.size();
+
+            hasMark = true;
+            watermark = nextWatermark;
+            lastId = nextId;
+            saveCheckpoint(table, watermark, lastId);
+            if (page.size() < pageSize) {
+                current++;
             }
-            
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingCustomers")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
         }
-        
-        System.out.println("✅ Synced " + customers.size() + " customers to DynamoDB");
+
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("collection", table.collection);
+        result.put("itemsSynced", synced);
+        result.put("itemsFailed", failed);
+        result.put("pages", pages);
+        result.put("durationMs", elapsedMillis);
+        result.put("itemsPerSecond", elapsedMillis > 0 ? synced * 1000 / elapsedMillis : synced);
+        result.put("watermark", watermark);
+        result.put("completedAt", LocalDateTime.now());
+        lastRuns.put(table.tableName, result);
+
+        System.out.println("✅ Synced " + synced + " " + table.collection + " to DynamoDB"
+                + (failed > 0 ? " (" + failed + " failed, will retry on next sync)" : ""));
+        return result;
+    }
+
+    /**
+     * Collections to read, in watermark order. Audit logs live in monthly buckets, so only
+     * the buckets from the watermark's month on are read; the mark carries over from one
+     * bucket to the next because their timestamps do not overlap.
+     */
+    private List<String> sourceCollections(SyncTable table, Object watermark) {
+        if (table != SyncTable.AUDIT_LOGS) {
+            return List.of(table.collection);
+        }
+        LocalDateTime from = watermark instanceof Date
+                ? LocalDateTime.ofInstant(((Date) watermark).toInstant(), ZoneId.systemDefault())
+                : null;
+        return auditBuckets.bucketsFor(from, null);
     }
-    
+
     /**
-     * Sync accounts from MongoDB to DynamoDB
+     * Documents after the mark in (watermark, _id) order, up to the safety lag; documents
+     * without a watermark sort first and are paged by _id alone
      */
-    private void syncAccountsToDynamoDB() {
-        List<Account> accounts = accountRepository.findAll();
-        
-        for (Account account : accounts) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (account.getAccountNumber() != null && !account.getAccountNumber().trim().isEmpty()) {
-                item.put("accountNumber", AttributeValue.builder().s(account.getAccountNumber()).build());
-            }
-            if (account.getCustomer() != null && account.getCustomer().getId() != null) {
-                item.put("customerId", AttributeValue.builder().s(account.getCustomer().getId()).build());
-            }
-            if (account.getAccountType() != null) {
-                item.put("accountType", AttributeValue.builder().s(account.getAccountType().toString()).build());
-            }
-            if (account.getBalance() != null) {
-                item.put("balance", AttributeValue.builder().n(account.getBalance().toString()).build());
-            }
-            if (account.getStatus() != null) {
-                item.put("status", AttributeValue.builder().s(account.getStatus().toString()).build());
-            }
-            if (account.getCreatedAt() != null) {
-                item.put("createdAt", AttributeValue.builder().s(account.getCreatedAt().toString()).build());
-            }
-            
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingAccounts")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
+    private Criteria pageCriteria(String field, boolean hasMark, Object watermark, Object lastId, Date upperBound) {
+        if (!hasMark) {
+            return new Criteria().orOperator(
+                    Criteria.where(field).is(null),
+                    Criteria.where(field).lt(upperBound));
         }
-        
-        System.out.println("✅ Synced " + accounts.size() + " accounts to DynamoDB");
+        if (watermark == null) {
+            return new Criteria().orOperator(
+                    Criteria.where(field).is(null).and("_id").gt(lastId),
+                    Criteria.where(field).lt(upperBound));
+        }
+        return new Criteria().orOperator(
+                Criteria.where(field).gt(watermark).lt(upperBound),
+                Criteria.where(field).is(watermark).and("_id").gt(lastId));
+    }
+
+    private void saveCheckpoint(SyncTable table, Object watermark, Object lastId) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(table.collection)),
+                new Update().set("watermark", watermark).set("lastId", lastId).set("syncedAt", new Date()),
+                CHECKPOINT_COLLECTION);
     }
-    
+
     /**
-     * Sync transactions from MongoDB to DynamoDB
+     * Write items as concurrent BatchWriteItem requests and wait for all of them,
+     * returning how many could not be written
      */
-    private void syncTransactionsToDynamoDB() {
-        List<Transaction> transactions = transactionRepository.findAll();
-        
-        for (Transaction transaction : transactions) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (transaction.getTransactionId() != null && !transaction.getTransactionId().trim().isEmpty()) {
-                item.put("transactionId", AttributeValue.builder().s(transaction.getTransactionId()).build());
-            }
-            if (transaction.getType() != null) {
-                item.put("type", AttributeValue.builder().s(transaction.getType().toString()).build());
-            }
-            if (transaction.getAmount() != null) {
-                item.put("amount", AttributeValue.builder().n(transaction.getAmount().toString()).build());
-            }
-            if (transaction.getDescription() != null && !transaction.getDescription().trim().isEmpty()) {
-                item.put("description", AttributeValue.builder().s(transaction.getDescription()).build());
-            }
-            if (transaction.getStatus() != null) {
-                item.put("status", AttributeValue.builder().s(transaction.getStatus().toString()).build());
-            }
-            if (transaction.getTransactionDate() != null) {
-                item.put("transactionDate", AttributeValue.builder().s(transaction.getTransactionDate().toString()).build());
-            }
-            
-            if (transaction.getSourceAccount() != null && transaction.getSourceAccount().getAccountNumber() != null) {
-                item.put("sourceAccountNumber", AttributeValue.builder().s(transaction.getSourceAccount().getAccountNumber()).build());
-            }
-            
-            if (transaction.getDestinationAccount() != null && transaction.getDestinationAccount().getAccountNumber() != null) {
-                item.put("destinationAccountNumber", AttributeValue.builder().s(transaction.getDestinationAccount().getAccountNumber()).build());
-            }
-            
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingTransactions")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
+    int writeParallel(String tableName, List<Map<String, AttributeValue>> items) {
+        try {
+            return dynamoBatchWriter.putAllAsync(tableName, items).join();
+        } catch (CompletionException e) {
+            System.err.println("❌ Batch write to " + tableName + " failed: " + e.getCause().getMessage());
+            return items.size();
         }
-        
-        System.out.println("✅ Synced " + transactions.size() + " transactions to DynamoDB");
     }
-    
+
     /**
-     * Sync audit logs from MongoDB to DynamoDB
+     * Map a page of raw documents to DynamoDB items, skipping documents without a key
      */
-    private void syncAuditLogsToDynamoDB() {
-        List<AuditLog> auditLogs = auditLogRepository.findAll();
-        
-        for (AuditLog auditLog : auditLogs) {
-            Map<String, AttributeValue> item = new HashMap<>();
-            
-            // Only add non-null fields
-            if (auditLog.getActionId() != null && !auditLog.getActionId().trim().isEmpty()) {
-                item.put("actionId", AttributeValue.builder().s(auditLog.getActionId()).build());
-            }
-            if (auditLog.getUserId() != null && !auditLog.getUserId().trim().isEmpty()) {
-                item.put("userId", AttributeValue.builder().s(auditLog.getUserId()).build());
-            }
-            if (auditLog.getAction() != null && !auditLog.getAction().trim().isEmpty()) {
-                item.put("action", AttributeValue.builder().s(auditLog.getAction()).build());
-            }
-            if (auditLog.getEntityType() != null && !auditLog.getEntityType().trim().isEmpty()) {
-                item.put("entityType", AttributeValue.builder().s(auditLog.getEntityType()).build());
-            }
-            if (auditLog.getEntityId() != null && !auditLog.getEntityId().trim().isEmpty()) {
-                item.put("entityId", AttributeValue.builder().s(auditLog.getEntityId()).build());
-            }
-            if (auditLog.getDescription() != null && !auditLog.getDescription().trim().isEmpty()) {
-                item.put("description", AttributeValue.builder().s(auditLog.getDescription()).build());
-            }
-            if (auditLog.getIpAddress() != null && !auditLog.getIpAddress().trim().isEmpty()) {
-                item.put("ipAddress", AttributeValue.builder().s(auditLog.getIpAddress()).build());
-            }
-            if (auditLog.getUserAgent() != null && !auditLog.getUserAgent().trim().isEmpty()) {
-                item.put("userAgent", AttributeValue.builder().s(auditLog.getUserAgent()).build());
-            }
-            if (auditLog.getTimestamp() != null) {
-                item.put("timestamp", AttributeValue.builder().s(auditLog.getTimestamp().toString()).build());
-            }
-            if (auditLog.getResult() != null && !auditLog.getResult().trim().isEmpty()) {
-                item.put("result", AttributeValue.builder().s(auditLog.getResult()).build());
-            }
-            if (auditLog.getErrorMessage() != null && !auditLog.getErrorMessage().trim().isEmpty()) {
-                item.put("errorMessage", AttributeValue.builder().s(auditLog.getErrorMessage()).build());
-            }
-            
-            PutItemRequest putItemRequest = PutItemRequest.builder()
-                    .tableName("BankingAuditLogs")
-                    .item(item)
-                    .build();
-            
-            dynamoDbClient.putItem(putItemRequest);
+    List<Map<String, AttributeValue>> toItems(SyncTable table, List<Document> page) {
+        MongoConverter converter = mongoTemplate.getConverter();
+        List<Map<String, AttributeValue>> items = new ArrayList<>(page.size());
+        switch (table) {
+            case CUSTOMERS -> page.forEach(document -> items.add(customerItem(converter.read(Customer.class, document))));
+            case ACCOUNTS -> page.forEach(document -> {
+                // The stored reference is the customer id; no need to load the customer
+                Object customerRef = document.remove("customer");
+                items.add(accountItem(converter.read(Account.class, document),
+                        customerRef != null ? customerRef.toString() : null));
+            });
+            case TRANSACTIONS -> referenceResolver.resolve(page).forEach(transaction -> items.add(transactionItem(transaction)));
+            case AUDIT_LOGS -> page.forEach(document -> items.add(auditLogItem(converter.read(AuditLog.class, document))));
+        }
+        items.removeIf(item -> !item.containsKey(table.keyAttribute));
+        return items;
+    }
+
+    private Map<String, AttributeValue> customerItem(Customer customer) {
+        Map<String, AttributeValue> item = new HashMap<>();
+
+        // Only add non-null fields
+        if (customer.getId() != null) {
+            item.put("customerId", AttributeValue.builder().s(customer.getId()).build());
+        }
+        putText(item, "firstName", customer.getFirstName());
+        putText(item, "lastName", customer.getLastName());
+        putText(item, "email", customer.getEmail());
+        putText(item, "mobileNumber", customer.getMobileNumber());
+        putText(item, "address", customer.getAddress());
+        putText(item, "city", customer.getCity());
+        putText(item, "state", customer.getState());
+        putText(item, "pincode", customer.getPincode());
+        if (customer.getCreatedAt() != null) {
+            item.put("createdAt", AttributeValue.builder().s(customer.getCreatedAt().toString()).build());
+        }
+        return item;
+    }
+
+    private Map<String, AttributeValue> accountItem(Account account, String customerId) {
+        Map<String, AttributeValue> item = new HashMap<>();
+
+        // Only add non-null fields
+        putText(item, "accountNumber", account.getAccountNumber());
+        if (customerId != null) {
+            item.put("customerId", AttributeValue.builder().s(customerId).build());
+        }
+        if (account.getAccountType() != null) {
+            item.put("accountType", AttributeValue.builder().s(account.getAccountType().toString()).build());
+        }
+        if (account.getBalance() != null) {
+            item.put("balance", AttributeValue.builder().n(account.getBalance().toString()).build());
+        }
+        if (account.getStatus() != null) {
+            item.put("status", AttributeValue.builder().s(account.getStatus().toString()).build());
+        }
+        if (account.getCreatedAt() != null) {
+            item.put("createdAt", AttributeValue.builder().s(account.getCreatedAt().toString()).build());
+        }
+        return item;
+    }
+
+    private Map<String, AttributeValue> transactionItem(Transaction transaction) {
+        Map<String, AttributeValue> item = new HashMap<>();
+
+        // Only add non-null fields
+        putText(item, "transactionId", transaction.getTransactionId());
+        if (transaction.getType() != null) {
+            item.put("type", AttributeValue.builder().s(transaction.getType().toString()).build());
+        }
+        if (transaction.getAmount() != null) {
+            item.put("amount", AttributeValue.builder().n(transaction.getAmount().toString()).build());
+        }
+        putText(item, "description", transaction.getDescription());
+        if (transaction.getStatus() != null) {
+            item.put("status", AttributeValue.builder().s(transaction.getStatus().toString()).build());
+        }
+        if (transaction.getTransactionDate() != null) {
+            item.put("transactionDate", AttributeValue.builder().s(transaction.getTransactionDate().toString()).build());
+        }
+        putText(item, "sourceAccountNumber", accountNumber(transaction.getSourceSnapshot(), transaction.getSourceAccount()));
+        putText(item, "destinationAccountNumber", accountNumber(transaction.getDestinationSnapshot(), transaction.getDestinationAccount()));
+        return item;
+    }
+
+    private Map<String, AttributeValue> auditLogItem(AuditLog auditLog) {
+        Map<String, AttributeValue> item = new HashMap<>();
+
+        // Only add non-null fields
+        putText(item, "actionId", auditLog.getActionId());
+        putText(item, "userId", auditLog.getUserId());
+        putText(item, "action", auditLog.getAction());
+        putText(item, "entityType", auditLog.getEntityType());
+        putText(item, "entityId", auditLog.getEntityId());
+        putText(item, "description", auditLog.getDescription());
+        putText(item, "ipAddress", auditLog.getIpAddress());
+        putText(item, "userAgent", auditLog.getUserAgent());
+        if (auditLog.getTimestamp() != null) {
+            item.put("timestamp", AttributeValue.builder().s(auditLog.getTimestamp().toString()).build());
+        }
+        putText(item, "result", auditLog.getResult());
+        putText(item, "errorMessage", auditLog.getErrorMessage());
+        return item;
+    }
+
+    private String accountNumber(AccountSnapshot snapshot, Account account) {
+        if (snapshot != null && snapshot.getAccountNumber() != null) {
+            return snapshot.getAccountNumber();
+        }
+        return account != null ? account.getAccountNumber() : null;
+    }
+
+    private void putText(Map<String, AttributeValue> item, String name, String value) {
+        if (value != null && !value.trim().isEmpty()) {
+            item.put(name, AttributeValue.builder().s(value).build());
         }
-        
-        System.out.println("✅ Synced " + auditLogs.size() + " audit logs to DynamoDB");
     }
 }
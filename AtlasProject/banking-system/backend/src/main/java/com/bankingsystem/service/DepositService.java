@@ -1,9 +1,17 @@
 package com.bankingsystem.service;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountBalanceOperations;
 import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionCursor;
+import com.bankingsystem.repository.TransactionPage;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.repository.TransactionRepositoryCustom;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,7 +21,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class DepositService {
@@ -30,56 +37,39 @@ public class DepositService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLockManager accountLockManager;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
+    @Autowired
+    private OperationMetrics operationMetrics;
+    
     /**
      * Process a deposit transaction
      */
     @Transactional
     public Transaction processDeposit(String accountNumber, BigDecimal amount, String description, String userId) {
+        OperationMetrics.Sample sample = operationMetrics.start("deposit");
         try {
-            // Find the account
-            Account account = accountRepository.findByAccountNumber(accountNumber)
-                    .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-            
-            // Validate account status
-            if (account.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Account is not active: " + accountNumber);
+            Transaction transaction;
+            // Ledger partitions are single-writer, so only the MongoDB path needs account locks
+            if (ledgerEngine.isEnabled()) {
+                transaction = executeDeposit(accountNumber, amount, description, userId);
+            } else {
+                // Serialize read-modify-write on this account
+                transaction = accountLockManager.withAccountLock(accountNumber,
+                        () -> executeDeposit(accountNumber, amount, description, userId));
             }
-            
-            // Validate amount
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new RuntimeException("Deposit amount must be greater than zero");
-            }
-            
-            // Create transaction
-            String transactionId = "DEP" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.DEPOSIT, 
-                    amount, account, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the deposit
-            account.deposit(amount);
-            transaction.markAsCompleted();
-            
-            // Save to database
-            accountRepository.save(account);
-            transactionRepository.save(transaction);
-            
-            // Add to undo stack
-            undoRedoStack.pushUndo(account.getId(), transaction);
-            
-            // Log the action
-            Map<String, Object> details = new HashMap<>();
-            details.put("amount", amount);
-            details.put("accountNumber", accountNumber);
-            details.put("transactionId", transactionId);
-            details.put("newBalance", account.getBalance());
-            
-            auditService.logAction(userId, "DEPOSIT", "ACCOUNT", account.getId(), 
-                    "Deposit of ₹" + amount + " to account " + accountNumber, details, null, null);
-            
+            sample.success();
             return transaction;
             
         } catch (Exception e) {
+            sample.failure();
             // Log the failure
             auditService.logFailure(userId, "DEPOSIT", "ACCOUNT", accountNumber, 
                     "Failed to deposit ₹" + amount + " to account " + accountNumber, e.getMessage());
@@ -87,6 +77,63 @@ public class DepositService {
         }
     }
     
+    private Transaction executeDeposit(String accountNumber, BigDecimal amount, String description, String userId) {
+        // Validate amount
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Deposit amount must be greater than zero");
+        }
+        
+        // Apply the deposit atomically (single $inc guarded by account status)
+        Account account = balances().creditBalance(accountNumber, amount)
+                .orElseThrow(() -> rejectedDeposit(accountNumber));
+        
+        // Create transaction
+        String transactionId = idGenerator.nextId("DEP");
+        Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.DEPOSIT, 
+                amount, account, description);
+        transaction.setReferenceNumber(idGenerator.nextId("REF"));
+        
+        transaction.markAsCompleted();
+        
+        // Save to database (batched in the background when the ledger is enabled)
+        if (ledgerEngine.isEnabled()) {
+            ledgerEngine.commit(transaction);
+        } else {
+            transactionRepository.save(transaction);
+        }
+        
+        // Add to undo stack
+        undoRedoStack.pushUndo(account.getId(), transaction);
+        
+        // Log the action
+        Map<String, Object> details = new HashMap<>();
+        details.put("amount", amount);
+        details.put("accountNumber", accountNumber);
+        details.put("transactionId", transactionId);
+        details.put("newBalance", account.getBalance());
+        
+        auditService.logAction(userId, "DEPOSIT", "ACCOUNT", account.getId(), 
+                "Deposit of ₹" + amount + " to account " + accountNumber, details, null, null);
+        
+        return transaction;
+    }
+    
+    /**
+     * Balances live in the in-memory ledger when it is enabled, otherwise in MongoDB
+     */
+    private AccountBalanceOperations balances() {
+        return ledgerEngine.isEnabled() ? ledgerEngine : accountRepository;
+    }
+    
+    /**
+     * Work out why the guarded credit matched no account
+     */
+    private RuntimeException rejectedDeposit(String accountNumber) {
+        balances().findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        return new RuntimeException("Account is not active: " + accountNumber);
+    }
+    
     /**
      * Get deposit history for an account
      */
@@ -94,10 +141,18 @@ public class DepositService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findBySourceAccountAndType(account, Transaction.TransactionType.DEPOSIT);
+    }
+    
+    /**
+     * Get one page of deposit history for an account, newest first
+     */
+    public TransactionPage getDepositHistoryPage(String accountNumber, String cursor, int pageSize) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        
+        return transactionRepository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.SOURCE,
+                Transaction.TransactionType.DEPOSIT, TransactionCursor.decode(cursor), pageSize);
     }
     
     /**
@@ -107,9 +162,7 @@ public class DepositService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findSourceTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.DEPOSIT)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findSourceTransactionsByTypeAndDateRange(account,
+                Transaction.TransactionType.DEPOSIT, startDate, endDate);
     }
 }
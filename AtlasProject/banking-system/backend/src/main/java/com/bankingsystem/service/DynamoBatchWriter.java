@@ -0,0 +1,205 @@
+package com.bankingsystem.service;
+
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Writes items to DynamoDB with BatchWriteItem, 25 items per request (the service limit).
+ * Requests go through the async client, so no thread waits on DynamoDB; at most
+ * aws.dynamodb.max-in-flight requests are outstanding, and a caller submitting more
+ * waits for a slot. Items DynamoDB hands back as UnprocessedItems, and whole requests
+ * rejected for throttling, are retried with exponential backoff without holding a thread.
+ */
+@Component
+public class DynamoBatchWriter {
+
+    /** Maximum number of put requests DynamoDB accepts in one BatchWriteItem call */
+    public static final int MAX_BATCH_ITEMS = 25;
+
+    @Autowired
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Value("${aws.dynamodb.batch.max-retries:5}")
+    private int maxRetries;
+
+    @Value("${aws.dynamodb.batch.backoff-base-ms:50}")
+    private long backoffBaseMillis;
+
+    @Value("${aws.dynamodb.max-in-flight:32}")
+    private int maxInFlight;
+
+    private Semaphore inFlight;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong itemsWritten = new AtomicLong();
+    private final AtomicLong unprocessedRetries = new AtomicLong();
+    private final AtomicLong itemsFailed = new AtomicLong();
+    private final Map<String, TableMetrics> tableMetrics = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Put all items into the table; the future completes with the number of items that
+     * could not be written. Blocks only while the in-flight limit is reached.
+     */
+    public CompletableFuture<Integer> putAllAsync(String tableName, List<Map<String, AttributeValue>> items) {
+        List<CompletableFuture<Integer>> chunks = new ArrayList<>();
+        for (int start = 0; start < items.size(); start += MAX_BATCH_ITEMS) {
+            List<WriteRequest> chunk = new ArrayList<>(MAX_BATCH_ITEMS);
+            for (Map<String, AttributeValue> item : items.subList(start, Math.min(start + MAX_BATCH_ITEMS, items.size()))) {
+                chunk.add(WriteRequest.builder().putRequest(PutRequest.builder().item(item).build()).build());
+            }
+            acquireSlot();
+            chunks.add(writeChunk(tableName, Map.of(tableName, chunk), 0)
+                    .whenComplete((failed, error) -> inFlight.release()));
+        }
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenApply(done -> chunks.stream().mapToInt(CompletableFuture::join).sum());
+    }
+
+    /**
+     * Get batch write statistics, overall and per table (latency, throttling, retries)
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", requests.get());
+        stats.put("itemsWritten", itemsWritten.get());
+        stats.put("unprocessedRetries", unprocessedRetries.get());
+        stats.put("itemsFailed", itemsFailed.get());
+        stats.put("inFlight", inFlight != null ? maxInFlight - inFlight.availablePermits() : 0);
+        stats.put("maxInFlight", maxInFlight);
+        Map<String, Object> tables = new LinkedHashMap<>();
+        tableMetrics.forEach((table, metrics) -> tables.put(table, metrics.toMap()));
+        stats.put("tables", tables);
+        return stats;
+    }
+
+    private CompletableFuture<Integer> writeChunk(String tableName, Map<String, List<WriteRequest>> pending, int attempt) {
+        TableMetrics metrics = tableMetrics.computeIfAbsent(tableName, k -> new TableMetrics());
+        int sent = pending.get(tableName).size();
+        long started = System.nanoTime();
+        requests.incrementAndGet();
+        metrics.requests.increment();
+
+        CompletableFuture<BatchWriteItemResponse> call;
+        try {
+            call = dynamoDbAsyncClient.batchWriteItem(BatchWriteItemRequest.builder()
+                    .requestItems(pending)
+                    .build());
+        } catch (Exception e) {
+            call = CompletableFuture.failedFuture(e);
+        }
+
+        return call.handle((response, error) -> {
+            metrics.recordLatency(System.nanoTime() - started);
+            if (error != null) {
+                Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                boolean throttled = cause instanceof AwsServiceException && ((AwsServiceException) cause).isThrottlingException();
+                if (throttled) {
+                    metrics.throttled.increment();
+                    if (attempt < maxRetries) {
+                        return retryLater(tableName, pending, attempt);
+                    }
+                }
+                System.err.println("Batch write to " + tableName + " failed: " + cause.getMessage());
+                return failed(metrics, sent);
+            }
+
+            Map<String, List<WriteRequest>> unprocessed = response.unprocessedItems();
+            int remaining = unprocessed != null && unprocessed.containsKey(tableName)
+                    ? unprocessed.get(tableName).size()
+                    : 0;
+            itemsWritten.addAndGet(sent - remaining);
+            metrics.itemsWritten.add(sent - remaining);
+
+            if (remaining == 0) {
+                return CompletableFuture.completedFuture(0);
+            }
+            if (attempt >= maxRetries) {
+                return failed(metrics, remaining);
+            }
+            unprocessedRetries.incrementAndGet();
+            metrics.unprocessedRetries.increment();
+            return retryLater(tableName, Map.of(tableName, unprocessed.get(tableName)), attempt);
+        }).thenCompose(next -> next);
+    }
+
+    private CompletableFuture<Integer> failed(TableMetrics metrics, int count) {
+        itemsFailed.addAndGet(count);
+        metrics.itemsFailed.add(count);
+        return CompletableFuture.completedFuture(count);
+    }
+
+    private CompletableFuture<Integer> retryLater(String tableName, Map<String, List<WriteRequest>> pending, int attempt) {
+        long ceiling = backoffBaseMillis << Math.min(attempt, 10);
+        // Full jitter so retries from concurrent writers do not line up
+        long delay = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        return CompletableFuture.supplyAsync(() -> attempt + 1, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                .thenCompose(next -> writeChunk(tableName, pending, next));
+    }
+
+    private void acquireSlot() {
+        try {
+            inFlight.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting to write to DynamoDB", e);
+        }
+    }
+
+    /**
+     * Request latency and outcome counters of one table
+     */
+    private static class TableMetrics {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder totalLatencyNanos = new LongAdder();
+        private final AtomicLong maxLatencyNanos = new AtomicLong();
+        private final LongAdder throttled = new LongAdder();
+        private final LongAdder unprocessedRetries = new LongAdder();
+        private final LongAdder itemsWritten = new LongAdder();
+        private final LongAdder itemsFailed = new LongAdder();
+
+        private void recordLatency(long nanos) {
+            totalLatencyNanos.add(nanos);
+            maxLatencyNanos.accumulateAndGet(nanos, Math::max);
+        }
+
+        private Map<String, Object> toMap() {
+            long count = requests.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", count);
+            map.put("avgLatencyMs", count > 0 ? totalLatencyNanos.sum() / count / 1_000_000.0 : 0.0);
+            map.put("maxLatencyMs", maxLatencyNanos.get() / 1_000_000.0);
+            map.put("throttled", throttled.sum());
+            map.put("unprocessedRetries", unprocessedRetries.sum());
+            map.put("itemsWritten", itemsWritten.sum());
+            map.put("itemsFailed", itemsFailed.sum());
+            return map;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.bankingsystem.service;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AccountSnapshot;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Streams collections out as NDJSON or CSV for bulk extracts.
+ *
+ * Records are read from a MongoDB cursor that fetches banking.export.batch-size
+ * documents per round-trip and are written to the response as they arrive, with a
+ * flush after every batch, so memory use does not depend on the size of the export.
+ * Transactions are resolved per batch by the TransactionReferenceResolver instead of
+ * one account lookup per record; accounts are exported without their customer
+ * reference. If the client goes away the next write fails, the cursor is closed and
+ * the export stops.
+ */
+@Service
+public class ExportService {
+
+    public enum ExportFormat {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final String contentType;
+        private final String extension;
+
+        ExportFormat(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat parse(String format) {
+            for (ExportFormat value : values()) {
+                if (value.name().equalsIgnoreCase(format)) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Unsupported export format: " + format + " (use ndjson or csv)");
+        }
+    }
+
+    private static final int OUTPUT_BUFFER_BYTES = 64 * 1024;
+
+    private static final String[] TRANSACTION_COLUMNS = {"transactionId", "type", "status", "amount", "currency",
+            "sourceAccountNumber", "destinationAccountNumber", "description", "referenceNumber", "batchId",
+            "relatedTransactionId", "transactionDate"};
+
+    private static final String[] ACCOUNT_COLUMNS = {"accountNumber", "accountType", "status", "balance", "currency",
+            "createdAt", "updatedAt", "lastTransactionDate"};
+
+    private static final String[] AUDIT_COLUMNS = {"actionId", "timestamp", "userId", "action", "entityType",
+            "entityId", "result", "description", "errorMessage"};
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TransactionReferenceResolver referenceResolver;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private AuditBuckets auditBuckets;
+
+    @Value("${banking.export.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * Export transactions in posting order, optionally filtered by date range, type and status
+     */
+    public long exportTransactions(OutputStream output, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                                   Transaction.TransactionType type, Transaction.TransactionStatus status) throws IOException {
+        Query query = new Query(dateRange("transactionDate", from, to));
+        if (type != null) {
+            query.addCriteria(Criteria.where("type").is(type));
+        }
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "transactionDate", "transactionId"));
+
+        BufferedOutputStream out = new BufferedOutputStream(output, OUTPUT_BUFFER_BYTES);
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(out, TRANSACTION_COLUMNS);
+        }
+        long written = 0;
+        try (MongoCursor<Document> cursor = referenceResolver.openCursor(query).batchSize(batchSize).iterator()) {
+            List<Document> chunk = new ArrayList<>(batchSize);
+            while (cursor.hasNext()) {
+                chunk.add(cursor.next());
+                if (chunk.size() == batchSize || !cursor.hasNext()) {
+                    for (Transaction transaction : referenceResolver.resolve(chunk)) {
+                        if (format == ExportFormat.CSV) {
+                            writeCsvRow(out, transactionRow(transaction));
+                        } else {
+                            writeJsonLine(out, transaction);
+                        }
+                        written++;
+                    }
+                    chunk.clear();
+                    flushBatch(out);
+                }
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    /**
+     * Export accounts, optionally filtered by status and type
+     */
+    public long exportAccounts(OutputStream output, ExportFormat format, Account.AccountStatus status,
+                               Account.AccountType accountType) throws IOException {
+        Query query = new Query();
+        if (status != null) {
+            query.addCriteria(Criteria.where("status").is(status));
+        }
+        if (accountType != null) {
+            query.addCriteria(Criteria.where("accountType").is(accountType));
+        }
+        // Resolving the customer reference would cost one lookup per account
+        query.fields().exclude("customer");
+        query.with(Sort.by(Sort.Direction.ASC, "accountNumber"));
+
+        return export(output, format, query, Account.class, List.of(mongoTemplate.getCollectionName(Account.class)),
+                ACCOUNT_COLUMNS, account -> new Object[] {
+                account.getAccountNumber(), account.getAccountType(), account.getStatus(), account.getBalance(),
+                account.getCurrency(), account.getCreatedAt(), account.getUpdatedAt(), account.getLastTransactionDate()});
+    }
+
+    /**
+     * Export audit logs in time order, optionally filtered by date range, action and entity type
+     */
+    public long exportAuditLogs(OutputStream output, ExportFormat format, LocalDateTime from, LocalDateTime to,
+                                String action, String entityType) throws IOException {
+        Query query = new Query(dateRange("timestamp", from, to));
+        if (action != null) {
+            query.addCriteria(Criteria.where("action").is(action));
+        }
+        if (entityType != null) {
+            query.addCriteria(Criteria.where("entityType").is(entityType));
+        }
+        query.with(Sort.by(Sort.Direction.ASC, "timestamp"));
+
+        // Only the monthly buckets the range covers, oldest first, so the output stays in time order
+        return export(output, format, query, AuditLog.class, auditBuckets.bucketsFor(from, to),
+                AUDIT_COLUMNS, auditLog -> new Object[] {
+                auditLog.getActionId(), auditLog.getTimestamp(), auditLog.getUserId(), auditLog.getAction(),
+                auditLog.getEntityType(), auditLog.getEntityId(), auditLog.getResult(), auditLog.getDescription(),
+                auditLog.getErrorMessage()});
+    }
+
+    private interface CsvRow<T> {
+        Object[] of(T record);
+    }
+
+    private <T> long export(OutputStream output, ExportFormat format, Query query, Class<T> type,
+                            List<String> collections, String[] columns, CsvRow<T> csvRow) throws IOException {
+        query.cursorBatchSize(batchSize);
+        BufferedOutputStream out = new BufferedOutputStream(output, OUTPUT_BUFFER_BYTES);
+        if (format == ExportFormat.CSV) {
+            writeCsvRow(out, columns);
+        }
+        long written = 0;
+        for (String collection : collections) {
+            try (Stream<T> records = mongoTemplate.stream(query, type, collection)) {
+                Iterator<T> iterator = records.iterator();
+                while (iterator.hasNext()) {
+                    T record = iterator.next();
+                    if (format == ExportFormat.CSV) {
+                        writeCsvRow(out, csvRow.of(record));
+                    } else {
+                        writeJsonLine(out, record);
+                    }
+                    if (++written % batchSize == 0) {
+                        flushBatch(out);
+                    }
+                }
+            }
+        }
+        out.flush();
+        return written;
+    }
+
+    private Criteria dateRange(String field, LocalDateTime from, LocalDateTime to) {
+        if (from == null && to == null) {
+            return new Criteria();
+        }
+        Criteria criteria = Criteria.where(field);
+        if (from != null) {
+            criteria.gte(from);
+        }
+        if (to != null) {
+            criteria.lt(to);
+        }
+        return criteria;
+    }
+
+    private Object[] transactionRow(Transaction transaction) {
+        return new Object[] {transaction.getTransactionId(), transaction.getType(), transaction.getStatus(),
+                transaction.getAmount(), transaction.getCurrency(),
+                accountNumber(transaction.getSourceSnapshot(), transaction.getSourceAccount()),
+                accountNumber(transaction.getDestinationSnapshot(), transaction.getDestinationAccount()),
+                transaction.getDescription(), transaction.getReferenceNumber(), transaction.getBatchId(),
+                transaction.getRelatedTransactionId(), transaction.getTransactionDate()};
+    }
+
+    private String accountNumber(AccountSnapshot snapshot, Account account) {
+        if (snapshot != null && snapshot.getAccountNumber() != null) {
+            return snapshot.getAccountNumber();
+        }
+        return account != null ? account.getAccountNumber() : null;
+    }
+
+    /**
+     * Push a batch to the client; a disconnected client surfaces here as an IOException,
+     * which ends the export and closes the cursor
+     */
+    private void flushBatch(OutputStream out) throws IOException {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new InterruptedIOException("Export cancelled");
+        }
+        out.flush();
+    }
+
+    private void writeJsonLine(OutputStream out, Object record) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(record));
+        out.write('\n');
+    }
+
+    private void writeCsvRow(OutputStream out, Object[] values) throws IOException {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append(',');
+            }
+            row.append(csvField(values[i]));
+        }
+        row.append("\r\n");
+        out.write(row.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String csvField(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
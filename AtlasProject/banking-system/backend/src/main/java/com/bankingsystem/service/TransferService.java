@@ -1,21 +1,36 @@
 package com.bankingsystem.service;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountBalanceOperations;
 import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionCursor;
+import com.bankingsystem.repository.TransactionPage;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.repository.TransactionRepositoryCustom;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountState;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.UndoRedoStack;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Optional;
+import java.util.Set;
 
 @Service
+@DependsOn("accountSchemaMigration")
 public class TransferService {
     
     @Autowired
@@ -30,82 +45,43 @@ public class TransferService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLockManager accountLockManager;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
+    @Autowired
+    private AccountStateTable accountStateTable;
+    
+    @Autowired
+    private OperationMetrics operationMetrics;
+    
     /**
      * Process a transfer transaction between two accounts
      */
     @Transactional
     public Transaction processTransfer(String sourceAccountNumber, String destinationAccountNumber, 
                                     BigDecimal amount, String description, String userId) {
+        OperationMetrics.Sample sample = operationMetrics.start("transfer");
         try {
-            // Find source account
-            Account sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber)
-                    .orElseThrow(() -> new RuntimeException("Source account not found: " + sourceAccountNumber));
-            
-            // Find destination account
-            Account destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber)
-                    .orElseThrow(() -> new RuntimeException("Destination account not found: " + destinationAccountNumber));
-            
-            // Validate account statuses
-            if (sourceAccount.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Source account is not active: " + sourceAccountNumber);
-            }
-            
-            if (destinationAccount.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Destination account is not active: " + destinationAccountNumber);
-            }
-            
-            // Validate amount
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new RuntimeException("Transfer amount must be greater than zero");
+            Transaction transaction;
+            // Ledger partitions are single-writer, so only the MongoDB path needs account locks
+            if (ledgerEngine.isEnabled()) {
+                transaction = executeTransfer(sourceAccountNumber, destinationAccountNumber, amount, description, userId);
+            } else {
+                // Lock both accounts in a fixed order so opposing transfers cannot deadlock
+                transaction = accountLockManager.withAccountLocks(sourceAccountNumber, destinationAccountNumber,
+                        () -> executeTransfer(sourceAccountNumber, destinationAccountNumber, amount, description, userId));
             }
-            
-            // Check if source account has sufficient balance
-            if (!sourceAccount.canWithdraw(amount)) {
-                throw new RuntimeException("Insufficient balance in source account. Available: ₹" + 
-                        sourceAccount.getBalance() + ", Requested: ₹" + amount);
-            }
-            
-            // Prevent transfer to same account
-            if (sourceAccountNumber.equals(destinationAccountNumber)) {
-                throw new RuntimeException("Cannot transfer to the same account");
-            }
-            
-            // Create transaction
-            String transactionId = "TRF" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.TRANSFER, 
-                    amount, sourceAccount, destinationAccount, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the transfer
-            sourceAccount.withdraw(amount);
-            destinationAccount.deposit(amount);
-            transaction.markAsCompleted();
-            
-            // Save to database
-            accountRepository.save(sourceAccount);
-            accountRepository.save(destinationAccount);
-            transactionRepository.save(transaction);
-            
-            // Add to undo stack for both accounts
-            undoRedoStack.pushUndo(sourceAccount.getId(), transaction);
-            undoRedoStack.pushUndo(destinationAccount.getId(), transaction);
-            
-            // Log the action
-            Map<String, Object> details = new HashMap<>();
-            details.put("amount", amount);
-            details.put("sourceAccountNumber", sourceAccountNumber);
-            details.put("destinationAccountNumber", destinationAccountNumber);
-            details.put("transactionId", transactionId);
-            details.put("sourceNewBalance", sourceAccount.getBalance());
-            details.put("destinationNewBalance", destinationAccount.getBalance());
-            
-            auditService.logAction(userId, "TRANSFER", "ACCOUNT", sourceAccount.getId(), 
-                    "Transfer of ₹" + amount + " from " + sourceAccountNumber + " to " + destinationAccountNumber, 
-                    details, null, null);
-            
+            sample.success();
             return transaction;
             
         } catch (Exception e) {
+            sample.failure();
             // Log the failure
             auditService.logFailure(userId, "TRANSFER", "ACCOUNT", sourceAccountNumber, 
                     "Failed to transfer ₹" + amount + " from " + sourceAccountNumber + " to " + destinationAccountNumber, 
@@ -114,6 +90,273 @@ public class TransferService {
         }
     }
     
+    private Transaction executeTransfer(String sourceAccountNumber, String destinationAccountNumber, 
+                                    BigDecimal amount, String description, String userId) {
+        // Validate amount
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Transfer amount must be greater than zero");
+        }
+        
+        // Prevent transfer to same account
+        if (sourceAccountNumber.equals(destinationAccountNumber)) {
+            throw new RuntimeException("Cannot transfer to the same account");
+        }
+        
+        // Reject from the off-heap account state without a MongoDB round trip
+        if (!ledgerEngine.isEnabled()) {
+            preValidate(sourceAccountNumber, destinationAccountNumber, amount);
+        }
+        
+        Transaction transaction = ledgerEngine.isEnabled()
+                ? ledgerTransfer(sourceAccountNumber, destinationAccountNumber, amount, description)
+                : mongoTransfer(sourceAccountNumber, destinationAccountNumber, amount, description);
+        String transactionId = transaction.getTransactionId();
+        Account sourceAccount = transaction.getSourceAccount();
+        Account destinationAccount = transaction.getDestinationAccount();
+        
+        // Add to undo stack for both accounts
+        undoRedoStack.pushUndo(sourceAccount.getId(), transaction);
+        undoRedoStack.pushUndo(destinationAccount.getId(), transaction);
+        
+        // Log the action
+        Map<String, Object> details = new HashMap<>();
+        details.put("amount", amount);
+        details.put("sourceAccountNumber", sourceAccountNumber);
+        details.put("destinationAccountNumber", destinationAccountNumber);
+        details.put("transactionId", transactionId);
+        details.put("sourceNewBalance", sourceAccount.getBalance());
+        details.put("destinationNewBalance", destinationAccount.getBalance());
+        
+        auditService.logAction(userId, "TRANSFER", "ACCOUNT", sourceAccount.getId(), 
+                "Transfer of ₹" + amount + " from " + sourceAccountNumber + " to " + destinationAccountNumber, 
+                details, null, null);
+        
+        return transaction;
+    }
+    
+    /**
+     * Post both legs in the in-memory ledger; the commit is journaled before it returns
+     */
+    private Transaction ledgerTransfer(String sourceAccountNumber, String destinationAccountNumber,
+                                       BigDecimal amount, String description) {
+        // Debit the source atomically (guarded by status and balance >= amount)
+        Account sourceAccount = balances().debitBalance(sourceAccountNumber, amount)
+                .orElseThrow(() -> rejectedDebit(sourceAccountNumber, amount));
+        
+        // Credit the destination atomically; undo the debit if the destination cannot take it
+        Optional<Account> credited = balances().creditBalance(destinationAccountNumber, amount);
+        if (credited.isEmpty()) {
+            balances().adjustBalance(sourceAccountNumber, amount);
+            throw rejectedCredit(destinationAccountNumber);
+        }
+        
+        Transaction transaction = new Transaction(idGenerator.nextId("TRF"), Transaction.TransactionType.TRANSFER, 
+                amount, sourceAccount, credited.get(), description);
+        transaction.setReferenceNumber(idGenerator.nextId("REF"));
+        transaction.markAsCompleted();
+        
+        // Saved to MongoDB in the background
+        ledgerEngine.commit(transaction);
+        return transaction;
+    }
+    
+    /**
+     * Post both legs in MongoDB. The transfer is stored as PENDING before any money
+     * moves and each leg tags its account with the transfer id in the same write, so a
+     * crash between the legs leaves enough behind for recoverPendingTransfers() to
+     * finish or roll back the transfer.
+     */
+    private Transaction mongoTransfer(String sourceAccountNumber, String destinationAccountNumber,
+                                      BigDecimal amount, String description) {
+        Account sourceAccount = accountRepository.findByAccountNumber(sourceAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Source account not found: " + sourceAccountNumber));
+        Account destinationAccount = accountRepository.findByAccountNumber(destinationAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Destination account not found: " + destinationAccountNumber));
+        
+        String transactionId = idGenerator.nextId("TRF");
+        Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.TRANSFER, 
+                amount, sourceAccount, destinationAccount, description);
+        transaction.setReferenceNumber(idGenerator.nextId("REF"));
+        transactionRepository.save(transaction);
+        
+        // Debit the source (guarded by status and balance >= amount)
+        Optional<Account> debited = accountRepository.debitForTransfer(sourceAccountNumber, amount, transactionId);
+        if (debited.isEmpty()) {
+            throw failTransfer(transaction, rejectedDebit(sourceAccountNumber, amount));
+        }
+        
+        // Credit the destination; undo the debit if the destination cannot take it
+        Optional<Account> credited = accountRepository.creditForTransfer(destinationAccountNumber, amount, transactionId);
+        if (credited.isEmpty()) {
+            accountRepository.reverseTransferLeg(sourceAccountNumber, amount, transactionId);
+            throw failTransfer(transaction, rejectedCredit(destinationAccountNumber));
+        }
+        
+        transaction.setSourceAccount(debited.get());
+        transaction.setDestinationAccount(credited.get());
+        transaction.markAsCompleted();
+        transactionRepository.save(transaction);
+        releaseLegs(transaction);
+        return transaction;
+    }
+    
+    private RuntimeException failTransfer(Transaction transaction, RuntimeException cause) {
+        transaction.markAsFailed(cause.getMessage());
+        transactionRepository.save(transaction);
+        return cause;
+    }
+    
+    /**
+     * Clear the transfer tags; a tag left behind is cleared again by the next recovery
+     */
+    private void releaseLegs(Transaction transaction) {
+        try {
+            accountRepository.releaseTransferLeg(sourceNumberOf(transaction), transaction.getTransactionId());
+            accountRepository.releaseTransferLeg(destinationNumberOf(transaction), transaction.getTransactionId());
+        } catch (Exception e) {
+            System.err.println("Failed to release transfer " + transaction.getTransactionId() + ": " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Finish or roll back the MongoDB transfers this node left behind when it stopped.
+     * Only transfers issued under this node's id are touched: they cannot still be in
+     * flight, while other nodes' transfers may be. A PENDING transfer with both legs
+     * applied is completed; otherwise the applied leg is reversed and it is marked FAILED.
+     */
+    @PostConstruct
+    public void recoverPendingTransfers() {
+        if (ledgerEngine.isEnabled()) {
+            return;
+        }
+        Map<String, Account> tagged = new HashMap<>();
+        Set<String> transactionIds = new LinkedHashSet<>();
+        for (Transaction transaction : transactionRepository.findByTypeAndStatus(
+                Transaction.TransactionType.TRANSFER, Transaction.TransactionStatus.PENDING)) {
+            transactionIds.add(transaction.getTransactionId());
+        }
+        for (Account account : accountRepository.findWithPendingTransfers()) {
+            tagged.put(account.getAccountNumber(), account);
+            transactionIds.addAll(account.getPendingTransfers());
+        }
+        transactionIds.removeIf(transactionId -> !issuedHere(transactionId));
+        
+        int recovered = 0;
+        for (String transactionId : transactionIds) {
+            try {
+                recoverTransfer(transactionId, tagged);
+                recovered++;
+            } catch (Exception e) {
+                System.err.println("Failed to recover transfer " + transactionId + ": " + e.getMessage());
+            }
+        }
+        if (recovered > 0) {
+            System.out.println("🔁 Recovered " + recovered + " interrupted transfers");
+        }
+    }
+    
+    private void recoverTransfer(String transactionId, Map<String, Account> tagged) {
+        Transaction transaction = transactionRepository.findByTransactionId(transactionId)
+                .orElseThrow(() -> new RuntimeException("Transfer record not found"));
+        String sourceAccountNumber = sourceNumberOf(transaction);
+        String destinationAccountNumber = destinationNumberOf(transaction);
+        boolean debited = isTagged(tagged, sourceAccountNumber, transactionId);
+        boolean credited = isTagged(tagged, destinationAccountNumber, transactionId);
+        Transaction.TransactionStatus status = transaction.getStatus();
+        
+        if (status == Transaction.TransactionStatus.PENDING && debited && credited) {
+            transaction.markAsCompleted();
+            transactionRepository.save(transaction);
+        } else if (status == Transaction.TransactionStatus.PENDING || status == Transaction.TransactionStatus.FAILED) {
+            if (debited) {
+                accountRepository.reverseTransferLeg(sourceAccountNumber, transaction.getAmount(), transactionId);
+            }
+            if (credited) {
+                accountRepository.reverseTransferLeg(destinationAccountNumber, transaction.getAmount().negate(), transactionId);
+            }
+            if (status == Transaction.TransactionStatus.PENDING) {
+                transaction.markAsFailed("Interrupted transfer rolled back on restart");
+                transactionRepository.save(transaction);
+            }
+            return;
+        }
+        releaseLegs(transaction);
+    }
+    
+    private boolean issuedHere(String transactionId) {
+        try {
+            return IdGenerator.nodeOf(IdGenerator.parse(transactionId)) == idGenerator.getNodeId();
+        } catch (IllegalArgumentException e) {
+            // Not generated by IdGenerator (older data), so not a transfer this code left pending
+            return false;
+        }
+    }
+    
+    private static boolean isTagged(Map<String, Account> tagged, String accountNumber, String transactionId) {
+        Account account = tagged.get(accountNumber);
+        return account != null && account.getPendingTransfers().contains(transactionId);
+    }
+    
+    private static String sourceNumberOf(Transaction transaction) {
+        return transaction.getSourceSnapshot() != null
+                ? transaction.getSourceSnapshot().getAccountNumber()
+                : transaction.getSourceAccount().getAccountNumber();
+    }
+    
+    private static String destinationNumberOf(Transaction transaction) {
+        return transaction.getDestinationSnapshot() != null
+                ? transaction.getDestinationSnapshot().getAccountNumber()
+                : transaction.getDestinationAccount().getAccountNumber();
+    }
+    
+    /**
+     * Balances live in the in-memory ledger when it is enabled, otherwise in MongoDB
+     */
+    private AccountBalanceOperations balances() {
+        return ledgerEngine.isEnabled() ? ledgerEngine : accountRepository;
+    }
+    
+    /**
+     * Fail early when the account state table already shows the transfer cannot succeed
+     */
+    private void preValidate(String sourceAccountNumber, String destinationAccountNumber, BigDecimal amount) {
+        AccountState source = accountStateTable.stateForValidation(sourceAccountNumber);
+        if (source != null && !source.isActive()) {
+            throw new RuntimeException("Source account is not active: " + sourceAccountNumber);
+        }
+        if (source != null && !source.canWithdraw(amount)) {
+            throw new RuntimeException("Insufficient balance in source account. Available: ₹" + 
+                    source.getBalance() + ", Requested: ₹" + amount);
+        }
+        AccountState destination = accountStateTable.stateForValidation(destinationAccountNumber);
+        if (destination != null && !destination.isActive()) {
+            throw new RuntimeException("Destination account is not active: " + destinationAccountNumber);
+        }
+    }
+    
+    /**
+     * Work out why the guarded debit matched no source account
+     */
+    private RuntimeException rejectedDebit(String sourceAccountNumber, BigDecimal amount) {
+        Account sourceAccount = balances().findByAccountNumber(sourceAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Source account not found: " + sourceAccountNumber));
+        
+        if (sourceAccount.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException("Source account is not active: " + sourceAccountNumber);
+        }
+        return new RuntimeException("Insufficient balance in source account. Available: ₹" + 
+                sourceAccount.getBalance() + ", Requested: ₹" + amount);
+    }
+    
+    /**
+     * Work out why the guarded credit matched no destination account
+     */
+    private RuntimeException rejectedCredit(String destinationAccountNumber) {
+        balances().findByAccountNumber(destinationAccountNumber)
+                .orElseThrow(() -> new RuntimeException("Destination account not found: " + destinationAccountNumber));
+        return new RuntimeException("Destination account is not active: " + destinationAccountNumber);
+    }
+    
     /**
      * Get transfer history for an account
      */
@@ -121,10 +364,18 @@ public class TransferService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccountOrDestinationAccount(account, account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findAccountTransactionsByType(account, Transaction.TransactionType.TRANSFER);
+    }
+    
+    /**
+     * Get one page of transfer history for an account, newest first
+     */
+    public TransactionPage getTransferHistoryPage(String accountNumber, String cursor, int pageSize) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        
+        return transactionRepository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.EITHER,
+                Transaction.TransactionType.TRANSFER, TransactionCursor.decode(cursor), pageSize);
     }
     
     /**
@@ -134,10 +385,8 @@ public class TransferService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findAccountTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findAccountTransactionsByTypeAndDateRange(account,
+                Transaction.TransactionType.TRANSFER, startDate, endDate);
     }
     
     /**
@@ -147,10 +396,7 @@ public class TransferService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findBySourceAccountAndType(account, Transaction.TransactionType.TRANSFER);
     }
     
     /**
@@ -160,9 +406,6 @@ public class TransferService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findByDestinationAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.TRANSFER)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findByDestinationAccountAndType(account, Transaction.TransactionType.TRANSFER);
     }
 }
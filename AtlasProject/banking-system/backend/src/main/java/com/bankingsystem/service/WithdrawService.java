@@ -1,9 +1,19 @@
 package com.bankingsystem.service;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountBalanceOperations;
 import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionCursor;
+import com.bankingsystem.repository.TransactionPage;
 import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.repository.TransactionRepositoryCustom;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountState;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.UndoRedoStack;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,7 +23,6 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.UUID;
 
 @Service
 public class WithdrawService {
@@ -30,62 +39,42 @@ public class WithdrawService {
     @Autowired
     private UndoRedoStack undoRedoStack;
     
+    @Autowired
+    private AccountLockManager accountLockManager;
+    
+    @Autowired
+    private IdGenerator idGenerator;
+    
+    @Autowired
+    private LedgerEngine ledgerEngine;
+    
+    @Autowired
+    private OperationMetrics operationMetrics;
+    
+    @Autowired
+    private AccountStateTable accountStateTable;
+    
     /**
      * Process a withdrawal transaction
      */
     @Transactional
     public Transaction processWithdrawal(String accountNumber, BigDecimal amount, String description, String userId) {
+        OperationMetrics.Sample sample = operationMetrics.start("withdrawal");
         try {
-            // Find the account
-            Account account = accountRepository.findByAccountNumber(accountNumber)
-                    .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
-            
-            // Validate account status
-            if (account.getStatus() != Account.AccountStatus.ACTIVE) {
-                throw new RuntimeException("Account is not active: " + accountNumber);
-            }
-            
-            // Validate amount
-            if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-                throw new RuntimeException("Withdrawal amount must be greater than zero");
-            }
-            
-            // Check if account has sufficient balance
-            if (!account.canWithdraw(amount)) {
-                throw new RuntimeException("Insufficient balance. Available: ₹" + account.getBalance() + 
-                        ", Requested: ₹" + amount);
+            Transaction transaction;
+            // Ledger partitions are single-writer, so only the MongoDB path needs account locks
+            if (ledgerEngine.isEnabled()) {
+                transaction = executeWithdrawal(accountNumber, amount, description, userId);
+            } else {
+                // Serialize read-modify-write on this account
+                transaction = accountLockManager.withAccountLock(accountNumber,
+                        () -> executeWithdrawal(accountNumber, amount, description, userId));
             }
-            
-            // Create transaction
-            String transactionId = "WTH" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 8);
-            Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.WITHDRAWAL, 
-                    amount, account, description);
-            transaction.setReferenceNumber("REF" + System.currentTimeMillis());
-            
-            // Process the withdrawal
-            account.withdraw(amount);
-            transaction.markAsCompleted();
-            
-            // Save to database
-            accountRepository.save(account);
-            transactionRepository.save(transaction);
-            
-            // Add to undo stack
-            undoRedoStack.pushUndo(account.getId(), transaction);
-            
-            // Log the action
-            Map<String, Object> details = new HashMap<>();
-            details.put("amount", amount);
-            details.put("accountNumber", accountNumber);
-            details.put("transactionId", transactionId);
-            details.put("newBalance", account.getBalance());
-            
-            auditService.logAction(userId, "WITHDRAWAL", "ACCOUNT", account.getId(), 
-                    "Withdrawal of ₹" + amount + " from account " + accountNumber, details, null, null);
-            
+            sample.success();
             return transaction;
             
         } catch (Exception e) {
+            sample.failure();
             // Log the failure
             auditService.logFailure(userId, "WITHDRAWAL", "ACCOUNT", accountNumber, 
                     "Failed to withdraw ₹" + amount + " from account " + accountNumber, e.getMessage());
@@ -93,6 +82,88 @@ public class WithdrawService {
         }
     }
     
+    private Transaction executeWithdrawal(String accountNumber, BigDecimal amount, String description, String userId) {
+        // Validate amount
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new RuntimeException("Withdrawal amount must be greater than zero");
+        }
+        
+        // Reject from the off-heap account state without a MongoDB round trip
+        if (!ledgerEngine.isEnabled()) {
+            preValidate(accountNumber, amount);
+        }
+        
+        // Apply the withdrawal atomically (single $inc guarded by status and balance >= amount)
+        Account account = balances().debitBalance(accountNumber, amount)
+                .orElseThrow(() -> rejectedWithdrawal(accountNumber, amount));
+        
+        // Create transaction
+        String transactionId = idGenerator.nextId("WTH");
+        Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.WITHDRAWAL, 
+                amount, account, description);
+        transaction.setReferenceNumber(idGenerator.nextId("REF"));
+        
+        transaction.markAsCompleted();
+        
+        // Save to database (batched in the background when the ledger is enabled)
+        if (ledgerEngine.isEnabled()) {
+            ledgerEngine.commit(transaction);
+        } else {
+            transactionRepository.save(transaction);
+        }
+        
+        // Add to undo stack
+        undoRedoStack.pushUndo(account.getId(), transaction);
+        
+        // Log the action
+        Map<String, Object> details = new HashMap<>();
+        details.put("amount", amount);
+        details.put("accountNumber", accountNumber);
+        details.put("transactionId", transactionId);
+        details.put("newBalance", account.getBalance());
+        
+        auditService.logAction(userId, "WITHDRAWAL", "ACCOUNT", account.getId(), 
+                "Withdrawal of ₹" + amount + " from account " + accountNumber, details, null, null);
+        
+        return transaction;
+    }
+    
+    /**
+     * Balances live in the in-memory ledger when it is enabled, otherwise in MongoDB
+     */
+    private AccountBalanceOperations balances() {
+        return ledgerEngine.isEnabled() ? ledgerEngine : accountRepository;
+    }
+    
+    /**
+     * Fail early when the account state table already shows the withdrawal cannot succeed
+     */
+    private void preValidate(String accountNumber, BigDecimal amount) {
+        AccountState state = accountStateTable.stateForValidation(accountNumber);
+        if (state == null || state.canWithdraw(amount)) {
+            return;
+        }
+        if (!state.isActive()) {
+            throw new RuntimeException("Account is not active: " + accountNumber);
+        }
+        throw new RuntimeException("Insufficient balance. Available: ₹" + state.getBalance() + 
+                ", Requested: ₹" + amount);
+    }
+    
+    /**
+     * Work out why the guarded debit matched no account
+     */
+    private RuntimeException rejectedWithdrawal(String accountNumber, BigDecimal amount) {
+        Account account = balances().findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        
+        if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+            return new RuntimeException("Account is not active: " + accountNumber);
+        }
+        return new RuntimeException("Insufficient balance. Available: ₹" + account.getBalance() + 
+                ", Requested: ₹" + amount);
+    }
+    
     /**
      * Get withdrawal history for an account
      */
@@ -100,10 +171,18 @@ public class WithdrawService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findBySourceAccount(account)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.WITHDRAWAL)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findBySourceAccountAndType(account, Transaction.TransactionType.WITHDRAWAL);
+    }
+    
+    /**
+     * Get one page of withdrawal history for an account, newest first
+     */
+    public TransactionPage getWithdrawalHistoryPage(String accountNumber, String cursor, int pageSize) {
+        Account account = accountRepository.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
+        
+        return transactionRepository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.SOURCE,
+                Transaction.TransactionType.WITHDRAWAL, TransactionCursor.decode(cursor), pageSize);
     }
     
     /**
@@ -113,9 +192,7 @@ public class WithdrawService {
         Account account = accountRepository.findByAccountNumber(accountNumber)
                 .orElseThrow(() -> new RuntimeException("Account not found: " + accountNumber));
         
-        return transactionRepository.findSourceTransactionsByDateRange(account, startDate, endDate)
-                .stream()
-                .filter(tx -> tx.getType() == Transaction.TransactionType.WITHDRAWAL)
-                .collect(java.util.stream.Collectors.toList());
+        return transactionRepository.findSourceTransactionsByTypeAndDateRange(account,
+                Transaction.TransactionType.WITHDRAWAL, startDate, endDate);
     }
 }
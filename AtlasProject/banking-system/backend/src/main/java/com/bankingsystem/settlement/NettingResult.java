@@ -0,0 +1,52 @@
+package com.bankingsystem.settlement;
+
+import java.util.Map;
+
+/**
+ * Outcome of netting one settlement batch
+ */
+public class NettingResult {
+
+    private static final NettingResult NONE = new NettingResult(null, 0, Map.of(), 0);
+
+    private final String nettingBatchId;
+    private final int netted;
+    private final Map<String, String> rejected;
+    private final int balanceWrites;
+
+    public NettingResult(String nettingBatchId, int netted, Map<String, String> rejected, int balanceWrites) {
+        this.nettingBatchId = nettingBatchId;
+        this.netted = netted;
+        this.rejected = rejected;
+        this.balanceWrites = balanceWrites;
+    }
+
+    /**
+     * Nothing in the batch needed netting
+     */
+    public static NettingResult none() {
+        return NONE;
+    }
+
+    public String getNettingBatchId() {
+        return nettingBatchId;
+    }
+
+    public int getNetted() {
+        return netted;
+    }
+
+    /** Reason per rejected transaction id */
+    public Map<String, String> getRejected() {
+        return rejected;
+    }
+
+    public String getRejection(String transactionId) {
+        return rejected.get(transactionId);
+    }
+
+    /** Account balance updates written for the batch (one per account with a non-zero net position) */
+    public int getBalanceWrites() {
+        return balanceWrites;
+    }
+}
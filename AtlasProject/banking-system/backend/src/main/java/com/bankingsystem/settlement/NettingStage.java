@@ -0,0 +1,431 @@
+package com.bankingsystem.settlement;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.NettingBatch;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.NettingBatchRepository;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
+import com.bankingsystem.util.IdGenerator;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.types.Decimal128;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Nets the deferred (PENDING) postings of a settlement batch before it is settled.
+ *
+ * Instead of one balance write per transaction, the batch is reduced to a net position
+ * per account and one version-guarded $inc is written per account. Accounts are read
+ * once with $in. Postings that touch a missing or inactive account are rejected, and
+ * a debtor whose net position would overdraw it has its latest outgoing postings
+ * unwound (rejected) until it fits. The accounts stay locked from the read to the
+ * write, like every other balance writer.
+ *
+ * Positions per account and per account pair are stored with the transaction ids as a
+ * NettingBatch, inserted as PENDING before the balances are written and marked APPLIED
+ * afterwards. Each balance update also records the nettingBatchId on the account and
+ * only matches accounts that do not carry it yet, so applying a batch twice is a no-op.
+ * Transactions redelivered after a failure are not netted again: an APPLIED batch only
+ * needs its status writes, a PENDING one has its remaining positions applied. Accounts
+ * keep only the latest batch ids, so on resume a missing tag only proves a position is
+ * missing while the account's list still has room or its version is unchanged since
+ * netting; any other account is left alone and the batch is marked NEEDS_REVIEW. If another
+ * writer changed an account between the read and the write, the updates that landed are
+ * reverted by their tag, the record is dropped and the batch fails, so the engine
+ * requeues it. Every netted transaction carries its nettingBatchId.
+ */
+@Component
+public class NettingStage {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private NettingBatchRepository nettingBatchRepository;
+
+    @Autowired
+    private EntityCacheManager entityCacheManager;
+
+    @Autowired
+    private AccountStateTable accountStateTable;
+
+    @Autowired
+    private LedgerEngine ledgerEngine;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    /**
+     * Net and apply the pending postings in the batch; completed transactions are left alone
+     */
+    public NettingResult net(List<Transaction> batch) {
+        Map<String, Transaction> candidates = new LinkedHashMap<>();
+        for (Transaction transaction : batch) {
+            if (transaction.getStatus() == Transaction.TransactionStatus.PENDING && transaction.getNettingBatchId() == null) {
+                candidates.put(transaction.getTransactionId(), transaction);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return NettingResult.none();
+        }
+
+        // Redelivered after a failure: finish a batch that was cut off while applying,
+        // otherwise only the status write is missing
+        for (NettingBatch previous : nettingBatchRepository.findByTransactionIdsIn(candidates.keySet())) {
+            if (!previous.isApplied()) {
+                resume(previous);
+            }
+            for (String transactionId : previous.getTransactionIds()) {
+                Transaction transaction = candidates.remove(transactionId);
+                if (transaction != null) {
+                    transaction.setNettingBatchId(previous.getNettingBatchId());
+                }
+            }
+        }
+        if (candidates.isEmpty()) {
+            return NettingResult.none();
+        }
+        if (ledgerEngine.isEnabled()) {
+            // Bulk updates would go around the balances held by the in-memory ledger
+            throw new RuntimeException("Netted settlement postings are not available while the in-memory ledger is enabled");
+        }
+
+        return accountLockManager.withAccountLocks(accountNumbers(candidates.values()),
+                () -> netLocked(candidates));
+    }
+
+    private NettingResult netLocked(Map<String, Transaction> candidates) {
+        Map<String, Account> accounts = loadAccounts(accountNumbers(candidates.values()));
+        Map<String, String> rejected = new LinkedHashMap<>();
+        List<Transaction> included = new ArrayList<>();
+        for (Transaction transaction : candidates.values()) {
+            String problem = checkAccounts(transaction, accounts);
+            if (problem != null) {
+                rejected.put(transaction.getTransactionId(), problem);
+            } else {
+                included.add(transaction);
+            }
+        }
+
+        Map<String, NettingBatch.AccountPosition> positions = unwindOverdrafts(included, accounts, rejected);
+        if (included.isEmpty()) {
+            return new NettingResult(null, 0, rejected, 0);
+        }
+        for (NettingBatch.AccountPosition position : positions.values()) {
+            position.setAccountVersion(accounts.get(position.getAccountNumber()).getVersion());
+        }
+
+        // Record the batch before touching any balance, so a failure part-way can be resumed
+        String nettingBatchId = idGenerator.nextId("NET");
+        NettingBatch record = new NettingBatch(nettingBatchId);
+        for (Transaction transaction : included) {
+            record.getTransactionIds().add(transaction.getTransactionId());
+        }
+        record.setAccountPositions(new ArrayList<>(positions.values()));
+        record.setPairPositions(pairPositions(included));
+        record.setRejected(rejected);
+        record.setBalanceWrites(touched(positions.values()).size());
+        record.setStatus(NettingBatch.Status.PENDING);
+        nettingBatchRepository.insert(record);
+
+        int balanceWrites = applyPositions(nettingBatchId, positions, accounts);
+        markApplied(nettingBatchId);
+        for (Transaction transaction : included) {
+            transaction.setNettingBatchId(nettingBatchId);
+        }
+
+        return new NettingResult(nettingBatchId, included.size(), rejected, balanceWrites);
+    }
+
+    /**
+     * Apply whatever positions of a PENDING batch did not land before it was cut off
+     */
+    private void resume(NettingBatch previous) {
+        String nettingBatchId = previous.getNettingBatchId();
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (NettingBatch.AccountPosition position : previous.getAccountPositions()) {
+            accountNumbers.add(position.getAccountNumber());
+        }
+        List<String> unresolved = accountLockManager.withAccountLocks(accountNumbers, () -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<NettingBatch.AccountPosition> touched = touched(previous.getAccountPositions());
+            if (touched.isEmpty()) {
+                return List.<String>of();
+            }
+            BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+            for (NettingBatch.AccountPosition position : touched) {
+                updates.updateOne(provablyNotApplied(nettingBatchId, position),
+                        balanceUpdate(nettingBatchId, position.getNet(), now));
+            }
+            updates.execute();
+            for (NettingBatch.AccountPosition position : touched) {
+                entityCacheManager.accounts().invalidate(position.getAccountNumber());
+                accountStateTable.remove(position.getAccountNumber());
+            }
+
+            // Anything still without the tag may have had it trimmed away after it was applied
+            Query untagged = new Query(Criteria.where("accountNumber")
+                    .in(touched.stream().map(NettingBatch.AccountPosition::getAccountNumber).toList())
+                    .and("appliedBatchIds").ne(nettingBatchId));
+            untagged.fields().include("accountNumber");
+            return mongoTemplate.find(untagged, Account.class).stream().map(Account::getAccountNumber).toList();
+        });
+
+        if (unresolved.isEmpty()) {
+            markApplied(nettingBatchId);
+            System.out.println("🔁 Resumed netting batch " + nettingBatchId);
+        } else {
+            mongoTemplate.updateFirst(new Query(Criteria.where("nettingBatchId").is(nettingBatchId)),
+                    new Update().set("status", NettingBatch.Status.NEEDS_REVIEW).set("unresolvedAccounts", unresolved),
+                    NettingBatch.class);
+            System.err.println("Netting batch " + nettingBatchId + " needs review: cannot tell whether accounts " +
+                    unresolved + " already received their position");
+        }
+    }
+
+    private void markApplied(String nettingBatchId) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("nettingBatchId").is(nettingBatchId)),
+                new Update().set("status", NettingBatch.Status.APPLIED), NettingBatch.class);
+    }
+
+    private Set<String> accountNumbers(Iterable<Transaction> transactions) {
+        Set<String> accountNumbers = new LinkedHashSet<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getSourceAccount() != null) {
+                accountNumbers.add(transaction.getSourceAccount().getAccountNumber());
+            }
+            if (transaction.getDestinationAccount() != null) {
+                accountNumbers.add(transaction.getDestinationAccount().getAccountNumber());
+            }
+        }
+        return accountNumbers;
+    }
+
+    private Map<String, Account> loadAccounts(Set<String> accountNumbers) {
+        // The customer reference is not needed here, so skip resolving it
+        Query accountQuery = new Query(Criteria.where("accountNumber").in(accountNumbers));
+        accountQuery.fields().exclude("customer");
+        Map<String, Account> accounts = new HashMap<>();
+        for (Account account : mongoTemplate.find(accountQuery, Account.class)) {
+            accounts.put(account.getAccountNumber(), account);
+        }
+        return accounts;
+    }
+
+    private String checkAccounts(Transaction transaction, Map<String, Account> accounts) {
+        if (transaction.getSourceAccount() == null) {
+            return "Rejected at settlement: no account";
+        }
+        if (transaction.getType() == Transaction.TransactionType.TRANSFER && transaction.getDestinationAccount() == null) {
+            return "Rejected at settlement: transfer without a destination account";
+        }
+        for (Account party : new Account[] {transaction.getSourceAccount(), transaction.getDestinationAccount()}) {
+            if (party == null) {
+                continue;
+            }
+            Account account = accounts.get(party.getAccountNumber());
+            if (account == null) {
+                return "Rejected at settlement: account " + party.getAccountNumber() + " not found";
+            }
+            if (account.getStatus() != Account.AccountStatus.ACTIVE) {
+                return "Rejected at settlement: account " + party.getAccountNumber() + " is not active";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reject the latest outgoing postings of any account whose net position would take
+     * its balance below zero, until every position fits
+     */
+    private Map<String, NettingBatch.AccountPosition> unwindOverdrafts(List<Transaction> included,
+                                                                      Map<String, Account> accounts,
+                                                                      Map<String, String> rejected) {
+        while (true) {
+            Map<String, NettingBatch.AccountPosition> positions = accountPositions(included);
+            String overdrawn = null;
+            for (NettingBatch.AccountPosition position : positions.values()) {
+                BigDecimal net = position.getNet();
+                if (net.signum() < 0 && accounts.get(position.getAccountNumber()).getBalance().add(net).signum() < 0) {
+                    overdrawn = position.getAccountNumber();
+                    break;
+                }
+            }
+            if (overdrawn == null) {
+                return positions;
+            }
+            for (int i = included.size() - 1; i >= 0; i--) {
+                Transaction transaction = included.get(i);
+                if (overdrawn.equals(debitedAccount(transaction))) {
+                    included.remove(i);
+                    rejected.put(transaction.getTransactionId(),
+                            "Rejected at settlement: insufficient balance in account " + overdrawn);
+                    break;
+                }
+            }
+        }
+    }
+
+    private Map<String, NettingBatch.AccountPosition> accountPositions(List<Transaction> transactions) {
+        Map<String, NettingBatch.AccountPosition> positions = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            String debited = debitedAccount(transaction);
+            if (debited != null) {
+                positions.computeIfAbsent(debited, NettingBatch.AccountPosition::new).debit(transaction.getAmount());
+            }
+            String credited = creditedAccount(transaction);
+            if (credited != null) {
+                positions.computeIfAbsent(credited, NettingBatch.AccountPosition::new).credit(transaction.getAmount());
+            }
+        }
+        return positions;
+    }
+
+    private List<NettingBatch.PairPosition> pairPositions(List<Transaction> transactions) {
+        Map<String, NettingBatch.PairPosition> pairs = new LinkedHashMap<>();
+        for (Transaction transaction : transactions) {
+            if (transaction.getType() != Transaction.TransactionType.TRANSFER) {
+                continue;
+            }
+            String from = transaction.getSourceAccount().getAccountNumber();
+            String to = transaction.getDestinationAccount().getAccountNumber();
+            String first = from.compareTo(to) <= 0 ? from : to;
+            String second = first.equals(from) ? to : from;
+            pairs.computeIfAbsent(first + ":" + second, key -> new NettingBatch.PairPosition(first, second))
+                    .transfer(from, transaction.getAmount());
+        }
+        return new ArrayList<>(pairs.values());
+    }
+
+    private String debitedAccount(Transaction transaction) {
+        switch (transaction.getType()) {
+            case WITHDRAWAL:
+            case FEE:
+            case TRANSFER:
+                return transaction.getSourceAccount().getAccountNumber();
+            default:
+                return null;
+        }
+    }
+
+    private String creditedAccount(Transaction transaction) {
+        switch (transaction.getType()) {
+            case TRANSFER:
+                return transaction.getDestinationAccount().getAccountNumber();
+            case WITHDRAWAL:
+            case FEE:
+                return null;
+            default:
+                return transaction.getSourceAccount().getAccountNumber();
+        }
+    }
+
+    private List<NettingBatch.AccountPosition> touched(Collection<NettingBatch.AccountPosition> positions) {
+        return positions.stream()
+                .filter(position -> position.getNet().signum() != 0)
+                .toList();
+    }
+
+    /**
+     * Write one version-guarded $inc per account with a non-zero net position. If another
+     * writer got in between, the applied updates are reverted and the batch is rejected.
+     */
+    private int applyPositions(String nettingBatchId, Map<String, NettingBatch.AccountPosition> positions,
+                               Map<String, Account> accounts) {
+        LocalDateTime now = LocalDateTime.now();
+        List<NettingBatch.AccountPosition> touched = touched(positions.values());
+        if (touched.isEmpty()) {
+            return 0;
+        }
+
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (NettingBatch.AccountPosition position : touched) {
+            Account account = accounts.get(position.getAccountNumber());
+            updates.updateOne(
+                    notYetApplied(nettingBatchId, position.getAccountNumber())
+                            .addCriteria(Criteria.where("version").is(account.getVersion())),
+                    balanceUpdate(nettingBatchId, position.getNet(), now));
+        }
+        BulkWriteResult written = updates.execute();
+
+        // The bulk update bypasses the repository, so drop the cached copies and account states here
+        for (NettingBatch.AccountPosition position : touched) {
+            Account account = accounts.get(position.getAccountNumber());
+            long version = account.getVersion() != null ? account.getVersion() : 0;
+            entityCacheManager.accounts().invalidate(account.getAccountNumber(), version + 1);
+            accountStateTable.remove(account.getAccountNumber());
+        }
+
+        if (written.getMatchedCount() == touched.size()) {
+            return touched.size();
+        }
+
+        // Revert exactly the updates that landed (they carry the batch id), whatever the
+        // version is by now, then drop the record so the redelivered batch is netted afresh
+        BulkOperations reverts = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Account.class);
+        for (NettingBatch.AccountPosition position : touched) {
+            reverts.updateOne(
+                    new Query(Criteria.where("accountNumber").is(position.getAccountNumber())
+                            .and("appliedBatchIds").is(nettingBatchId)),
+                    new Update()
+                            .inc("balance", new Decimal128(position.getNet().negate()))
+                            .inc("version", 1)
+                            .pull("appliedBatchIds", nettingBatchId)
+                            .set("updatedAt", now));
+            entityCacheManager.accounts().invalidate(position.getAccountNumber());
+            accountStateTable.remove(position.getAccountNumber());
+        }
+        reverts.execute();
+        mongoTemplate.remove(new Query(Criteria.where("nettingBatchId").is(nettingBatchId)), NettingBatch.class);
+        throw new RuntimeException("Netting rejected: " + (touched.size() - written.getMatchedCount()) +
+                " account(s) were modified concurrently, the batch will be retried");
+    }
+
+    private Query notYetApplied(String nettingBatchId, String accountNumber) {
+        return new Query(Criteria.where("accountNumber").is(accountNumber).and("appliedBatchIds").ne(nettingBatchId));
+    }
+
+    /**
+     * The tag is absent and cannot have been trimmed: the list has room, or nothing
+     * has written the account since it was netted
+     */
+    private Query provablyNotApplied(String nettingBatchId, NettingBatch.AccountPosition position) {
+        Criteria listHasRoom = Criteria.where("appliedBatchIds." + (Account.APPLIED_BATCH_IDS_KEPT - 1)).exists(false);
+        Criteria provable = position.getAccountVersion() != null
+                ? new Criteria().orOperator(listHasRoom, Criteria.where("version").is(position.getAccountVersion()))
+                : listHasRoom;
+        return notYetApplied(nettingBatchId, position.getAccountNumber()).addCriteria(provable);
+    }
+
+    private Update balanceUpdate(String nettingBatchId, BigDecimal delta, LocalDateTime now) {
+        Update update = new Update()
+                .inc("balance", new Decimal128(delta))
+                .inc("version", 1)
+                .set("updatedAt", now)
+                .set("lastTransactionDate", now);
+        update.push("appliedBatchIds").slice(-Account.APPLIED_BATCH_IDS_KEPT).each(nettingBatchId);
+        return update;
+    }
+}
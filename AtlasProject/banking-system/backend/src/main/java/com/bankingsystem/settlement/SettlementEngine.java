@@ -0,0 +1,331 @@
+package com.bankingsystem.settlement;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.SettlementQueue;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Settles queued transactions in parallel.
+ *
+ * The queue is drained in batches of banking.settlement.batch-size. Deferred (pending)
+ * postings in a batch are first netted by the NettingStage, which writes one balance
+ * update per account instead of one per transaction. Each batch is then split
+ * into lanes by account, so every posting of an account is settled in order by one
+ * worker, and the lanes run on a fixed pool of banking.settlement.parallelism threads.
+ * A lane writes its whole outcome in one unordered bulk write. Lanes still running
+ * when banking.settlement.timeout expires are cancelled, and their transactions go
+ * back on the queue together with those of lanes whose write failed; settling is
+ * idempotent, so a retried lane is harmless. Settled and rejected transactions are
+ * acknowledged with markAsProcessed. Progress is checkpointed to the
+ * "settlement_checkpoints" collection after every batch.
+ */
+@Component
+public class SettlementEngine {
+
+    private static final String CHECKPOINT_COLLECTION = "settlement_checkpoints";
+    private static final String CHECKPOINT_ID = "settlement";
+
+    @Autowired
+    private SettlementQueue settlementQueue;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private NettingStage nettingStage;
+
+    private final int parallelism;
+    private final int batchSize;
+    private final long timeoutMillis;
+
+    private ExecutorService workers;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public SettlementEngine(@Value("${banking.settlement.parallelism:8}") int parallelism,
+                            @Value("${banking.settlement.batch-size:1000}") int batchSize,
+                            @Value("${banking.settlement.timeout:300000}") long timeoutMillis) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Settlement parallelism and batch size must be greater than zero");
+        }
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(parallelism, r -> {
+            Thread thread = new Thread(r, "settlement-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void stop() {
+        workers.shutdownNow();
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Settle everything queued when the run starts; transactions requeued during the
+     * run are left for the next one
+     */
+    public SettlementReport settle() {
+        if (!running.compareAndSet(false, true)) {
+            throw new RuntimeException("A settlement run is already in progress");
+        }
+        try {
+            return runSettlement();
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private SettlementReport runSettlement() {
+        String runId = idGenerator.nextId("STL");
+        long startedAt = System.currentTimeMillis();
+        warnIfPreviousRunInterrupted();
+
+        Tally total = new Tally();
+        int batches = 0;
+        int target = settlementQueue.size();
+        int drained = 0;
+        checkpoint(runId, "RUNNING", batches, total);
+        while (drained < target) {
+            List<Transaction> batch = settlementQueue.drainTo(Math.min(batchSize, target - drained));
+            if (batch.isEmpty()) {
+                break;
+            }
+            drained += batch.size();
+            total.add(settleBatch(batch));
+            batches++;
+            checkpoint(runId, "RUNNING", batches, total);
+        }
+        checkpoint(runId, "COMPLETED", batches, total);
+
+        return new SettlementReport(runId, batches, total.settled, total.rejected, total.failed, total.timedOut,
+                total.netted, total.balanceWrites, System.currentTimeMillis() - startedAt, total.maxLagMillis,
+                total.settled == 0 ? 0 : total.totalLagMillis / total.settled, settlementQueue.size());
+    }
+
+    private Tally settleBatch(List<Transaction> batch) {
+        Tally tally = new Tally();
+        NettingResult netting;
+        try {
+            netting = nettingStage.net(batch);
+        } catch (Exception e) {
+            tally.failed += batch.size();
+            batch.forEach(settlementQueue::enqueue);
+            System.err.println("❌ Failed to net " + batch.size() + " transactions: " + e.getMessage());
+            return tally;
+        }
+        tally.netted += netting.getNetted();
+        tally.balanceWrites += netting.getBalanceWrites();
+
+        List<List<Transaction>> lanes = partitionByAccount(batch);
+        List<Callable<Tally>> tasks = new ArrayList<>(lanes.size());
+        for (List<Transaction> lane : lanes) {
+            tasks.add(() -> settleLane(lane, netting));
+        }
+
+        List<Future<Tally>> results;
+        try {
+            results = workers.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            batch.forEach(settlementQueue::enqueue);
+            throw new RuntimeException("Settlement interrupted", e);
+        }
+
+        for (int i = 0; i < results.size(); i++) {
+            Future<Tally> result = results.get(i);
+            List<Transaction> lane = lanes.get(i);
+            if (result.isCancelled()) {
+                tally.timedOut += lane.size();
+                lane.forEach(settlementQueue::enqueue);
+                continue;
+            }
+            try {
+                tally.add(result.get());
+                lane.forEach(transaction -> settlementQueue.markAsProcessed(transaction.getTransactionId()));
+            } catch (ExecutionException e) {
+                tally.failed += lane.size();
+                lane.forEach(settlementQueue::enqueue);
+                System.err.println("❌ Failed to settle " + lane.size() + " transactions: " + e.getCause().getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Settlement interrupted", e);
+            }
+        }
+        return tally;
+    }
+
+    /**
+     * Validate and settle one lane with a single bulk write; runs on a worker thread
+     */
+    private Tally settleLane(List<Transaction> lane, NettingResult netting) {
+        LocalDateTime now = LocalDateTime.now();
+        BulkOperations updates = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Transaction.class);
+        List<String> problems = new ArrayList<>(lane.size());
+        for (Transaction transaction : lane) {
+            String problem = netting.getRejection(transaction.getTransactionId());
+            if (problem == null) {
+                problem = validate(transaction);
+            }
+            problems.add(problem);
+            Update update = problem == null
+                    ? new Update().set("status", Transaction.TransactionStatus.COMPLETED)
+                    : new Update().set("status", Transaction.TransactionStatus.FAILED).set("remarks", problem);
+            if (problem == null && transaction.getNettingBatchId() != null) {
+                update.set("nettingBatchId", transaction.getNettingBatchId());
+            }
+            updates.updateOne(new Query(Criteria.where("transactionId").is(transaction.getTransactionId())),
+                    update.set("updatedAt", now));
+        }
+        updates.execute();
+
+        Tally tally = new Tally();
+        for (int i = 0; i < lane.size(); i++) {
+            Transaction transaction = lane.get(i);
+            if (problems.get(i) == null) {
+                transaction.markAsCompleted();
+                long lag = transaction.getTransactionDate() != null
+                        ? Math.max(0, Duration.between(transaction.getTransactionDate(), now).toMillis())
+                        : 0;
+                tally.settled++;
+                tally.totalLagMillis += lag;
+                tally.maxLagMillis = Math.max(tally.maxLagMillis, lag);
+            } else {
+                transaction.markAsFailed(problems.get(i));
+                tally.rejected++;
+            }
+        }
+        return tally;
+    }
+
+    private String validate(Transaction transaction) {
+        if (transaction.getAmount() == null || transaction.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            return "Rejected at settlement: invalid amount";
+        }
+        if (transaction.getSourceAccount() == null && transaction.getDestinationAccount() == null) {
+            return "Rejected at settlement: no account";
+        }
+        Transaction.TransactionStatus status = transaction.getStatus();
+        if (status == Transaction.TransactionStatus.FAILED || status == Transaction.TransactionStatus.CANCELLED
+                || status == Transaction.TransactionStatus.REVERSED) {
+            return "Rejected at settlement: transaction is " + status.getDisplayName().toLowerCase();
+        }
+        return null;
+    }
+
+    /**
+     * Split a batch into at most parallelism lanes, keyed by the account that is debited
+     * (or credited, for deposits), keeping queue order within each lane
+     */
+    private List<List<Transaction>> partitionByAccount(List<Transaction> batch) {
+        List<List<Transaction>> lanes = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            lanes.add(new ArrayList<>());
+        }
+        for (Transaction transaction : batch) {
+            Account account = transaction.getSourceAccount() != null
+                    ? transaction.getSourceAccount()
+                    : transaction.getDestinationAccount();
+            int hash = account != null && account.getAccountNumber() != null ? account.getAccountNumber().hashCode() : 0;
+            lanes.get(Math.floorMod(hash ^ (hash >>> 16), parallelism)).add(transaction);
+        }
+        lanes.removeIf(List::isEmpty);
+        return lanes;
+    }
+
+    private void warnIfPreviousRunInterrupted() {
+        try {
+            Document previous = mongoTemplate.findById(CHECKPOINT_ID, Document.class, CHECKPOINT_COLLECTION);
+            if (previous != null && "RUNNING".equals(previous.getString("status"))) {
+                System.out.println("⚠️ Settlement run " + previous.getString("runId") + " was interrupted after "
+                        + previous.get("batches") + " batches; its unsettled transactions are still queued");
+            }
+        } catch (Exception e) {
+            System.err.println("Failed to read settlement checkpoint: " + e.getMessage());
+        }
+    }
+
+    private void checkpoint(String runId, String status, int batches, Tally tally) {
+        try {
+            mongoTemplate.upsert(Query.query(Criteria.where("_id").is(CHECKPOINT_ID)),
+                    new Update()
+                            .set("runId", runId)
+                            .set("status", status)
+                            .set("batches", batches)
+                            .set("settled", tally.settled)
+                            .set("rejected", tally.rejected)
+                            .set("failed", tally.failed)
+                            .set("timedOut", tally.timedOut)
+                            .set("updatedAt", new Date()),
+                    CHECKPOINT_COLLECTION);
+        } catch (Exception e) {
+            // Progress is kept in the queue itself; a missed checkpoint only affects reporting
+            System.err.println("Failed to write settlement checkpoint: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Counters for a lane, a batch or a whole run
+     */
+    private static class Tally {
+        private long settled;
+        private long rejected;
+        private long failed;
+        private long timedOut;
+        private long netted;
+        private long balanceWrites;
+        private long totalLagMillis;
+        private long maxLagMillis;
+
+        private void add(Tally other) {
+            settled += other.settled;
+            rejected += other.rejected;
+            failed += other.failed;
+            timedOut += other.timedOut;
+            netted += other.netted;
+            balanceWrites += other.balanceWrites;
+            totalLagMillis += other.totalLagMillis;
+            maxLagMillis = Math.max(maxLagMillis, other.maxLagMillis);
+        }
+    }
+}
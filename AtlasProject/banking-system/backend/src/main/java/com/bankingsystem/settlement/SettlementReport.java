@@ -0,0 +1,117 @@
+package com.bankingsystem.settlement;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Outcome of one settlement run
+ */
+public class SettlementReport {
+
+    private final String runId;
+    private final int batches;
+    private final long settled;
+    private final long rejected;
+    private final long failed;
+    private final long timedOut;
+    private final long netted;
+    private final long balanceWrites;
+    private final long elapsedMillis;
+    private final long maxLagMillis;
+    private final long averageLagMillis;
+    private final int remaining;
+
+    public SettlementReport(String runId, int batches, long settled, long rejected, long failed, long timedOut,
+                            long netted, long balanceWrites, long elapsedMillis, long maxLagMillis,
+                            long averageLagMillis, int remaining) {
+        this.runId = runId;
+        this.batches = batches;
+        this.settled = settled;
+        this.rejected = rejected;
+        this.failed = failed;
+        this.timedOut = timedOut;
+        this.netted = netted;
+        this.balanceWrites = balanceWrites;
+        this.elapsedMillis = elapsedMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.averageLagMillis = averageLagMillis;
+        this.remaining = remaining;
+    }
+
+    public String getRunId() {
+        return runId;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public long getSettled() {
+        return settled;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    /** Transactions whose write failed; they are queued again for the next run */
+    public long getFailed() {
+        return failed;
+    }
+
+    /** Transactions in lanes that ran past the batch timeout; they are queued again for the next run */
+    public long getTimedOut() {
+        return timedOut;
+    }
+
+    /** Pending postings applied through netting */
+    public long getNetted() {
+        return netted;
+    }
+
+    /** Account balance updates written by netting (one per account per batch) */
+    public long getBalanceWrites() {
+        return balanceWrites;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /** Settled transactions per second */
+    public double getThroughput() {
+        return elapsedMillis == 0 ? settled : settled * 1000.0 / elapsedMillis;
+    }
+
+    /** Longest time between a transaction being posted and settled */
+    public long getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public long getAverageLagMillis() {
+        return averageLagMillis;
+    }
+
+    /** Transactions still queued after the run */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runId", runId);
+        report.put("batches", batches);
+        report.put("settled", settled);
+        report.put("rejected", rejected);
+        report.put("failed", failed);
+        report.put("timedOut", timedOut);
+        report.put("netted", netted);
+        report.put("balanceWrites", balanceWrites);
+        report.put("elapsedMillis", elapsedMillis);
+        report.put("throughputPerSecond", Math.round(getThroughput()));
+        report.put("maxLagMillis", maxLagMillis);
+        report.put("averageLagMillis", averageLagMillis);
+        report.put("remaining", remaining);
+        return report;
+    }
+}
@@ -0,0 +1,156 @@
+package com.bankingsystem.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * In-process lock table keyed by account number.
+ *
+ * Account numbers are hashed onto a fixed array of lock stripes, so postings on
+ * independent accounts proceed in parallel while postings on the same account are
+ * serialized. When several accounts are needed (e.g. a transfer) the stripes are
+ * always acquired in ascending stripe order, which rules out lock-ordering deadlocks.
+ */
+@Component
+public class AccountLockManager {
+
+    private final ReentrantLock[] stripes;
+    private final int mask;
+    private final long timeoutMillis;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong contendedAcquisitions = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public AccountLockManager(@Value("${banking.lock.stripes:1024}") int stripeCount,
+                              @Value("${banking.lock.timeout-ms:5000}") long timeoutMillis) {
+        if (stripeCount <= 0) {
+            throw new IllegalArgumentException("Lock stripe count must be greater than zero");
+        }
+        // Round up to a power of two so the stripe index is a simple mask
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Run an action while holding the lock for a single account
+     */
+    public <T> T withAccountLock(String accountNumber, Supplier<T> action) {
+        return withAccountLocks(List.of(accountNumber), action);
+    }
+
+    /**
+     * Run an action while holding the locks for two accounts (e.g. a transfer)
+     */
+    public <T> T withAccountLocks(String firstAccountNumber, String secondAccountNumber, Supplier<T> action) {
+        return withAccountLocks(List.of(firstAccountNumber, secondAccountNumber), action);
+    }
+
+    /**
+     * Run an action while holding the locks for all given accounts.
+     * Locks are taken in ascending stripe order and released in reverse order.
+     */
+    public <T> T withAccountLocks(Collection<String> accountNumbers, Supplier<T> action) {
+        int[] ordered = accountNumbers.stream()
+                .mapToInt(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .toArray();
+
+        int acquired = 0;
+        try {
+            for (int index : ordered) {
+                acquire(stripes[index]);
+                acquired++;
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired - 1; i >= 0; i--) {
+                stripes[ordered[i]].unlock();
+            }
+        }
+    }
+
+    /**
+     * Get lock contention statistics
+     */
+    public Map<String, Object> getStats() {
+        long count = acquisitions.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("stripes", stripes.length);
+        stats.put("timeoutMillis", timeoutMillis);
+        stats.put("acquisitions", count);
+        stats.put("contendedAcquisitions", contendedAcquisitions.get());
+        stats.put("timeouts", timeouts.get());
+        stats.put("averageWaitMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalWaitNanos.get() / count));
+        stats.put("maxWaitMicros", TimeUnit.NANOSECONDS.toMicros(maxWaitNanos.get()));
+        stats.put("currentlyHeld", Arrays.stream(stripes).filter(ReentrantLock::isLocked).count());
+        return stats;
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    int stripeIndex(String accountNumber) {
+        if (accountNumber == null) {
+            throw new IllegalArgumentException("Account number is required");
+        }
+        int h = accountNumber.hashCode();
+        // Spread the high bits so sequential account numbers do not cluster
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void acquire(ReentrantLock lock) {
+        acquisitions.incrementAndGet();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contendedAcquisitions.incrementAndGet();
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for account lock", e);
+        }
+        long waited = System.nanoTime() - start;
+        totalWaitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+
+        if (!locked) {
+            timeouts.incrementAndGet();
+            throw new RuntimeException("Timed out waiting for account lock after " + timeoutMillis + " ms");
+        }
+    }
+}
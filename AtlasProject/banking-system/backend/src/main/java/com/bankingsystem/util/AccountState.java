@@ -0,0 +1,63 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Account;
+
+import java.math.BigDecimal;
+
+/**
+ * Snapshot of the balance-relevant fields of one account, as read from the AccountStateTable
+ */
+public final class AccountState {
+
+    private final String accountNumber;
+    private final Account.AccountStatus status;
+    private final BigDecimal balance;
+    private final String currencyCode;
+    private final long version;
+    private final long writtenAtMillis;
+
+    public AccountState(String accountNumber, Account.AccountStatus status, BigDecimal balance, String currencyCode,
+                        long version, long writtenAtMillis) {
+        this.accountNumber = accountNumber;
+        this.status = status;
+        this.balance = balance;
+        this.currencyCode = currencyCode;
+        this.version = version;
+        this.writtenAtMillis = writtenAtMillis;
+    }
+
+    public boolean isActive() {
+        return status == Account.AccountStatus.ACTIVE;
+    }
+
+    /**
+     * Same rule as Account.canWithdraw
+     */
+    public boolean canWithdraw(BigDecimal amount) {
+        return isActive() && balance.compareTo(amount) >= 0 && amount.compareTo(BigDecimal.ZERO) > 0;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public Account.AccountStatus getStatus() {
+        return status;
+    }
+
+    public BigDecimal getBalance() {
+        return balance;
+    }
+
+    public String getCurrencyCode() {
+        return currencyCode;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getWrittenAtMillis() {
+        return writtenAtMillis;
+    }
+}
@@ -0,0 +1,570 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Account;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Off-heap, memory-mapped table of account state: number, status, balance in minor units
+ * (paise), currency and version.
+ *
+ * The table is a fixed-size open-addressing hash table in one file, 64 bytes per slot,
+ * so reopening it after a restart maps the file and is immediately warm, with nothing to
+ * deserialize. It is written through by the account repository on every read from and
+ * write to MongoDB, and a write never replaces a newer version; bulk writers that go
+ * around the repository (batch postings, settlement netting) remove the entries they
+ * touch. Readers take no lock:
+ * every slot carries a sequence number that a writer makes odd while it changes the
+ * slot, and a reader retries when the number was odd or changed under it. Writers are
+ * serialized by one lock. A slot being written during a crash is dropped on the next
+ * open. MongoDB stays the source of truth: a sample of entries is compared against it
+ * every banking.account-state.verify-interval-ms, stale entries are refreshed and the
+ * staleness is reported.
+ */
+@Component
+public class AccountStateTable {
+
+    private static final String TABLE_FILE = "accounts.tbl";
+    private static final int MAGIC = 0x41435354;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_BYTES = 64;
+    private static final int SLOT_BYTES = 64;
+    private static final int MAX_KEY_BYTES = 28;
+    private static final int BALANCE_SCALE = 2;
+    private static final int MAX_CAPACITY = 1 << 24;
+
+    // Header layout
+    private static final int HEADER_MAGIC = 0;
+    private static final int HEADER_FORMAT = 4;
+    private static final int HEADER_CAPACITY = 8;
+    private static final int HEADER_SLOT_BYTES = 12;
+    private static final int HEADER_ENTRIES = 16;
+    private static final int HEADER_CLEAN = 20;
+
+    // Slot layout
+    private static final int SEQ = 0;
+    private static final int STATE = 4;
+    private static final int STATUS = 5;
+    private static final int KEY_LENGTH = 6;
+    private static final int BALANCE = 8;
+    private static final int VERSION = 16;
+    private static final int WRITTEN_AT = 24;
+    private static final int CURRENCY = 32;
+    private static final int KEY = 36;
+
+    private static final byte EMPTY = 0;
+    private static final byte USED = 1;
+    private static final byte DELETED = 2;
+
+    private static final VarHandle SEQUENCE = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.nativeOrder());
+    private static final Account.AccountStatus[] STATUSES = Account.AccountStatus.values();
+    private static final AccountState NO_MATCH = new AccountState(null, null, null, null, -1, 0);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    private final boolean enabled;
+    private final Path file;
+    private final int capacity;
+    private final int mask;
+    private final int maxEntries;
+    private final int sampleSize;
+    private final boolean preValidate;
+
+    private final Object writeLock = new Object();
+    private FileChannel channel;
+    private MappedByteBuffer table;
+    private int entries;
+    private int reopenedEntries;
+    private int verifyCursor;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong staleWritesRejected = new AtomicLong();
+    private final AtomicLong writesRejected = new AtomicLong();
+
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong entriesVerified = new AtomicLong();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private final AtomicLong mismatchedEntries = new AtomicLong();
+    private final AtomicLong missingEntries = new AtomicLong();
+    private volatile long lastMaxVersionLag;
+    private volatile long lastMaxEntryAgeMillis;
+    private volatile long lastVerifiedAtMillis;
+
+    public AccountStateTable(@Value("${banking.account-state.enabled:true}") boolean enabled,
+                             @Value("${banking.account-state.dir:./data/account-state}") String directory,
+                             @Value("${banking.account-state.capacity:262144}") int capacity,
+                             @Value("${banking.account-state.verify-sample-size:500}") int sampleSize,
+                             @Value("${banking.account-state.pre-validate:true}") boolean preValidate) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY || sampleSize <= 0) {
+            throw new IllegalArgumentException("Account state capacity must be between 1 and " + MAX_CAPACITY
+                    + " and the sample size greater than zero");
+        }
+        this.enabled = enabled;
+        this.file = Path.of(directory).resolve(TABLE_FILE);
+        // Power of two, so the slot of a hash is a mask away
+        this.capacity = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.mask = this.capacity - 1;
+        this.maxEntries = this.capacity / 4 * 3;
+        this.sampleSize = sampleSize;
+        this.preValidate = preValidate;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Map the table file, creating it on first start
+     */
+    @PostConstruct
+    public void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(file.getParent());
+            long size = HEADER_BYTES + (long) capacity * SLOT_BYTES;
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            boolean existing = channel.size() > 0;
+            table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+
+            if (existing && !hasLayout()) {
+                System.err.println("⚠️ Account state table " + file + " has a different layout, starting empty");
+                table = null;
+                channel.truncate(0);
+                table = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+                existing = false;
+            }
+            if (existing) {
+                entries = table.get(HEADER_CLEAN) == 1 ? table.getInt(HEADER_ENTRIES) : recoverSlots();
+            } else {
+                table.putInt(HEADER_MAGIC, MAGIC);
+                table.putInt(HEADER_FORMAT, FORMAT_VERSION);
+                table.putInt(HEADER_CAPACITY, capacity);
+                table.putInt(HEADER_SLOT_BYTES, SLOT_BYTES);
+                entries = 0;
+            }
+            table.putInt(HEADER_ENTRIES, entries);
+            table.put(HEADER_CLEAN, (byte) 0);
+            reopenedEntries = entries;
+            System.out.println("✅ Account state table opened with " + entries + " accounts from " + file);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open account state table " + file, e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (table == null) {
+            return;
+        }
+        synchronized (writeLock) {
+            table.putInt(HEADER_ENTRIES, entries);
+            table.put(HEADER_CLEAN, (byte) 1);
+            table.force();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Failed to close account state table: " + e.getMessage());
+            }
+            table = null;
+        }
+    }
+
+    /**
+     * Current state of the account, or null when the table does not hold it
+     */
+    public AccountState get(String accountNumber) {
+        MappedByteBuffer current = table;
+        if (current == null || accountNumber == null) {
+            return null;
+        }
+        byte[] key = accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (key.length <= MAX_KEY_BYTES) {
+            int slot = slotOf(accountNumber);
+            for (int probe = 0; probe < capacity; probe++) {
+                AccountState state = readSlot(current, slotOffset(slot), key);
+                if (state == null) {
+                    break;
+                }
+                if (state != NO_MATCH) {
+                    hits.incrementAndGet();
+                    return state;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * State to reject a request with before it reaches MongoDB, or null when the table
+     * does not hold the account or pre-validation is off (several instances writing the
+     * same accounts)
+     */
+    public AccountState stateForValidation(String accountNumber) {
+        return preValidate ? get(accountNumber) : null;
+    }
+
+    /**
+     * Store the account's state unless the table already holds a newer version
+     */
+    public void put(Account account) {
+        if (table == null || account == null || account.getAccountNumber() == null) {
+            return;
+        }
+        byte[] key = account.getAccountNumber().getBytes(StandardCharsets.UTF_8);
+        Long minorUnits = toMinorUnits(account.getBalance());
+        if (key.length > MAX_KEY_BYTES || minorUnits == null || account.getStatus() == null) {
+            // Not representable in a slot; make sure no older copy is left behind
+            writesRejected.incrementAndGet();
+            remove(account.getAccountNumber());
+            return;
+        }
+        long version = account.getVersion() != null ? account.getVersion() : -1L;
+        byte[] currency = account.getCurrency() != null
+                ? account.getCurrency().getCurrencyCode().getBytes(StandardCharsets.US_ASCII)
+                : new byte[0];
+
+        synchronized (writeLock) {
+            if (table == null) {
+                return;
+            }
+            int slot = findSlotForWrite(account.getAccountNumber(), key);
+            if (slot < 0) {
+                writesRejected.incrementAndGet();
+                return;
+            }
+            int offset = slotOffset(slot);
+            boolean exists = table.get(offset + STATE) == USED;
+            if (exists && table.getLong(offset + VERSION) > version) {
+                staleWritesRejected.incrementAndGet();
+                return;
+            }
+            if (!exists && entries >= maxEntries) {
+                writesRejected.incrementAndGet();
+                return;
+            }
+
+            int sequence = beginWrite(offset);
+            table.put(offset + STATE, USED);
+            table.put(offset + STATUS, (byte) account.getStatus().ordinal());
+            table.put(offset + KEY_LENGTH, (byte) key.length);
+            table.putLong(offset + BALANCE, minorUnits);
+            table.putLong(offset + VERSION, version);
+            table.putLong(offset + WRITTEN_AT, System.currentTimeMillis());
+            for (int i = 0; i < 3; i++) {
+                table.put(offset + CURRENCY + i, i < currency.length ? currency[i] : 0);
+            }
+            table.put(offset + KEY, key);
+            endWrite(offset, sequence);
+
+            if (!exists) {
+                entries++;
+                table.putInt(HEADER_ENTRIES, entries);
+            }
+            writes.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drop the account from the table
+     */
+    public void remove(String accountNumber) {
+        if (table == null || accountNumber == null) {
+            return;
+        }
+        byte[] key = accountNumber.getBytes(StandardCharsets.UTF_8);
+        if (key.length > MAX_KEY_BYTES) {
+            return;
+        }
+        synchronized (writeLock) {
+            if (table == null) {
+                return;
+            }
+            int slot = findSlotForWrite(accountNumber, key);
+            if (slot < 0 || table.get(slotOffset(slot) + STATE) != USED) {
+                return;
+            }
+            int offset = slotOffset(slot);
+            int sequence = beginWrite(offset);
+            table.put(offset + STATE, DELETED);
+            endWrite(offset, sequence);
+            entries--;
+            table.putInt(HEADER_ENTRIES, entries);
+        }
+    }
+
+    /**
+     * Compare a rotating sample of entries with MongoDB, refresh the stale ones and
+     * record how far behind they were
+     */
+    @Scheduled(fixedDelayString = "${banking.account-state.verify-interval-ms:60000}",
+            initialDelayString = "${banking.account-state.verify-interval-ms:60000}")
+    public void verify() {
+        MappedByteBuffer current = table;
+        if (current == null) {
+            return;
+        }
+        try {
+            Map<String, AccountState> sample = new LinkedHashMap<>();
+            for (int scanned = 0; scanned < capacity && sample.size() < sampleSize; scanned++) {
+                AccountState state = readSlot(current, slotOffset(verifyCursor), null);
+                if (state != null && state != NO_MATCH) {
+                    sample.put(state.getAccountNumber(), state);
+                }
+                verifyCursor = (verifyCursor + 1) & mask;
+            }
+
+            long now = System.currentTimeMillis();
+            long maxLag = 0;
+            long maxAge = 0;
+            if (!sample.isEmpty()) {
+                Query query = new Query(Criteria.where("accountNumber").in(sample.keySet()));
+                query.fields().include("accountNumber", "balance", "status", "version", "currency");
+                Map<String, Account> stored = new HashMap<>();
+                for (Account account : mongoTemplate.find(query, Account.class)) {
+                    stored.put(account.getAccountNumber(), account);
+                }
+
+                for (AccountState state : sample.values()) {
+                    maxAge = Math.max(maxAge, now - state.getWrittenAtMillis());
+                    Account account = stored.get(state.getAccountNumber());
+                    if (account == null) {
+                        missingEntries.incrementAndGet();
+                        remove(state.getAccountNumber());
+                        continue;
+                    }
+                    long version = account.getVersion() != null ? account.getVersion() : -1L;
+                    if (version > state.getVersion()) {
+                        staleEntries.incrementAndGet();
+                        maxLag = Math.max(maxLag, version - state.getVersion());
+                        put(account);
+                    } else if (version == state.getVersion() && (account.getStatus() != state.getStatus()
+                            || account.getBalance() == null || account.getBalance().compareTo(state.getBalance()) != 0)) {
+                        // Same version, different content: written outside the versioned paths
+                        mismatchedEntries.incrementAndGet();
+                        put(account);
+                    }
+                }
+            }
+
+            entriesVerified.addAndGet(sample.size());
+            verifications.incrementAndGet();
+            lastMaxVersionLag = maxLag;
+            lastMaxEntryAgeMillis = maxAge;
+            lastVerifiedAtMillis = now;
+        } catch (Exception e) {
+            System.err.println("Failed to verify account state table: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get table occupancy, hit rate and staleness against MongoDB
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("file", file.toString());
+        stats.put("capacity", capacity);
+        stats.put("entries", entries);
+        stats.put("reopenedEntries", reopenedEntries);
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups > 0 ? (double) hitCount / lookups : 0.0);
+        stats.put("writes", writes.get());
+        stats.put("staleWritesRejected", staleWritesRejected.get());
+        stats.put("writesRejected", writesRejected.get());
+
+        Map<String, Object> staleness = new LinkedHashMap<>();
+        staleness.put("verifications", verifications.get());
+        staleness.put("entriesVerified", entriesVerified.get());
+        staleness.put("staleEntries", staleEntries.get());
+        staleness.put("mismatchedEntries", mismatchedEntries.get());
+        staleness.put("missingEntries", missingEntries.get());
+        long verified = entriesVerified.get();
+        staleness.put("staleRate", verified > 0
+                ? (double) (staleEntries.get() + mismatchedEntries.get() + missingEntries.get()) / verified
+                : 0.0);
+        staleness.put("lastMaxVersionLag", lastMaxVersionLag);
+        staleness.put("lastMaxEntryAgeMs", lastMaxEntryAgeMillis);
+        staleness.put("lastVerifiedAt", lastVerifiedAtMillis > 0 ? lastVerifiedAtMillis : null);
+        stats.put("staleness", staleness);
+        return stats;
+    }
+
+    private boolean hasLayout() {
+        return table.getInt(HEADER_MAGIC) == MAGIC
+                && table.getInt(HEADER_FORMAT) == FORMAT_VERSION
+                && table.getInt(HEADER_CAPACITY) == capacity
+                && table.getInt(HEADER_SLOT_BYTES) == SLOT_BYTES;
+    }
+
+    /**
+     * After an unclean shutdown: drop slots left half-written and count the rest
+     */
+    private int recoverSlots() {
+        int used = 0;
+        int torn = 0;
+        for (int slot = 0; slot < capacity; slot++) {
+            int offset = slotOffset(slot);
+            int sequence = table.getInt(offset + SEQ);
+            if ((sequence & 1) != 0) {
+                table.put(offset + STATE, DELETED);
+                table.putInt(offset + SEQ, sequence + 1);
+                torn++;
+            } else if (table.get(offset + STATE) == USED) {
+                used++;
+            }
+        }
+        if (torn > 0) {
+            System.err.println("⚠️ Dropped " + torn + " half-written account state slots");
+        }
+        return used;
+    }
+
+    /**
+     * Read one slot without locking. Returns null for an empty slot, NO_MATCH for a
+     * deleted slot or another account, otherwise the state (of any account when key is null).
+     */
+    private AccountState readSlot(MappedByteBuffer buffer, int offset, byte[] key) {
+        while (true) {
+            int sequence = (int) SEQUENCE.getAcquire(buffer, offset + SEQ);
+            if ((sequence & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            byte state = buffer.get(offset + STATE);
+            AccountState result;
+            if (state == EMPTY) {
+                result = null;
+            } else if (state != USED || (key != null && !keyEquals(buffer, offset, key))) {
+                result = NO_MATCH;
+            } else {
+                result = decode(buffer, offset);
+            }
+            VarHandle.loadLoadFence();
+            if ((int) SEQUENCE.getVolatile(buffer, offset + SEQ) == sequence) {
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Decode a slot; the values may be torn, which the caller detects from the sequence
+     */
+    private AccountState decode(MappedByteBuffer buffer, int offset) {
+        int keyLength = Math.min(buffer.get(offset + KEY_LENGTH) & 0xff, MAX_KEY_BYTES);
+        byte[] key = new byte[keyLength];
+        buffer.get(offset + KEY, key);
+        byte[] currency = new byte[3];
+        buffer.get(offset + CURRENCY, currency);
+        return new AccountState(
+                new String(key, StandardCharsets.UTF_8),
+                STATUSES[Math.floorMod(buffer.get(offset + STATUS), STATUSES.length)],
+                BigDecimal.valueOf(buffer.getLong(offset + BALANCE), BALANCE_SCALE),
+                currency[0] != 0 ? new String(currency, StandardCharsets.US_ASCII) : null,
+                buffer.getLong(offset + VERSION),
+                buffer.getLong(offset + WRITTEN_AT));
+    }
+
+    private static boolean keyEquals(MappedByteBuffer buffer, int offset, byte[] key) {
+        if ((buffer.get(offset + KEY_LENGTH) & 0xff) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(offset + KEY + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Slot holding the account, else the first free slot on its probe path; -1 when full.
+     * Callers hold the write lock.
+     */
+    private int findSlotForWrite(String accountNumber, byte[] key) {
+        int slot = slotOf(accountNumber);
+        int firstDeleted = -1;
+        for (int probe = 0; probe < capacity; probe++) {
+            int offset = slotOffset(slot);
+            byte state = table.get(offset + STATE);
+            if (state == EMPTY) {
+                return firstDeleted >= 0 ? firstDeleted : slot;
+            }
+            if (state == USED && keyEquals(table, offset, key)) {
+                return slot;
+            }
+            if (state == DELETED && firstDeleted < 0) {
+                firstDeleted = slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return firstDeleted;
+    }
+
+    private int beginWrite(int offset) {
+        int sequence = table.getInt(offset + SEQ);
+        SEQUENCE.setOpaque(table, offset + SEQ, sequence + 1);
+        // The odd sequence must be visible before any field changes
+        VarHandle.storeStoreFence();
+        return sequence;
+    }
+
+    private void endWrite(int offset, int sequence) {
+        SEQUENCE.setRelease(table, offset + SEQ, sequence + 2);
+    }
+
+    private int slotOf(String accountNumber) {
+        // String.hashCode is specified, so slots stay valid across restarts
+        int hash = accountNumber.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private static int slotOffset(int slot) {
+        return HEADER_BYTES + slot * SLOT_BYTES;
+    }
+
+    private static Long toMinorUnits(BigDecimal balance) {
+        if (balance == null) {
+            return null;
+        }
+        try {
+            return balance.setScale(BALANCE_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+        } catch (ArithmeticException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,480 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Transaction;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Settlement queue backed by append-only chunk files, so pending settlements survive
+ * a restart (or the next settlement JVM started by cron).
+ *
+ * Every enqueue appends a [length][CRC32C][sequence, transaction] record to the current
+ * chunk; a full chunk is closed and a new one started. Queued records are also kept in
+ * memory, so dequeue and drainTo never touch the disk. Drained transactions stay "in
+ * flight" until markAsProcessed (or until they are enqueued again, which supersedes
+ * them). The consumer offset - the highest sequence below which everything has been
+ * acknowledged - is persisted on every drain, and chunks that lie entirely below it are
+ * deleted. After a crash everything above the offset is delivered again, so consumers
+ * must be idempotent (settlement is). Capacity bounds queued plus in-flight records;
+ * enqueue waits up to the enqueue timeout for space and then fails.
+ */
+@Component
+@ConditionalOnProperty(name = "banking.settlement.queue.type", havingValue = "durable")
+public class DurableSettlementQueue implements SettlementQueue {
+
+    private static final String CHUNK_PREFIX = "chunk-";
+    private static final String CHUNK_SUFFIX = ".q";
+    private static final String OFFSET_FILE = "offset";
+    private static final String LOCK_FILE = "lock";
+    private static final int HEADER_BYTES = 8;
+
+    private final Path directory;
+    private final int capacity;
+    private final long chunkBytes;
+    private final long enqueueTimeoutMillis;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+
+    private final ArrayDeque<Record> ready = new ArrayDeque<>();
+    private final Map<String, Record> pending = new HashMap<>();
+    private final Map<String, Long> inFlight = new HashMap<>();
+    /** Sequences of queued and in-flight records */
+    private final TreeSet<Long> outstanding = new TreeSet<>();
+
+    private FileChannel lockChannel;
+    private FileLock directoryLock;
+    private FileChannel chunk;
+    private long chunkPosition;
+    private long lastSequence;
+    private long persistedOffset;
+
+    public DurableSettlementQueue(@Value("${banking.settlement.queue.dir:./data/settlement-queue}") String directory,
+                                  @Value("${banking.settlement.queue.capacity:100000}") int capacity,
+                                  @Value("${banking.settlement.queue.chunk-size-mb:16}") int chunkSizeMb,
+                                  @Value("${banking.settlement.queue.enqueue-timeout-ms:1000}") long enqueueTimeoutMillis,
+                                  @Value("${banking.settlement.queue.fsync:false}") boolean fsync) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Settlement queue capacity must be greater than zero");
+        }
+        this.directory = Path.of(directory);
+        this.capacity = capacity;
+        this.chunkBytes = chunkSizeMb * 1024L * 1024L;
+        this.enqueueTimeoutMillis = enqueueTimeoutMillis;
+        this.fsync = fsync;
+    }
+
+    /**
+     * Lock the queue directory and load every record after the persisted offset
+     */
+    @PostConstruct
+    public void open() {
+        lock.lock();
+        try {
+            Files.createDirectories(directory);
+            lockChannel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            directoryLock = lockChannel.tryLock();
+            if (directoryLock == null) {
+                lockChannel.close();
+                throw new RuntimeException("Settlement queue in " + directory + " is in use by another process");
+            }
+
+            Path offsetFile = directory.resolve(OFFSET_FILE);
+            persistedOffset = Files.exists(offsetFile) ? Long.parseLong(Files.readString(offsetFile).trim()) : 0;
+            lastSequence = persistedOffset;
+
+            // A transaction enqueued again (retried) supersedes its earlier record
+            Map<String, Record> recovered = new LinkedHashMap<>();
+            for (Path file : listChunks()) {
+                readChunk(file, recovered);
+            }
+            for (Record record : recovered.values()) {
+                ready.add(record);
+                pending.put(record.transaction.getTransactionId(), record);
+                outstanding.add(record.sequence);
+            }
+
+            // Always continue in a fresh chunk, so a torn tail is never appended to
+            openChunk(lastSequence + 1);
+            if (!ready.isEmpty()) {
+                System.out.println("📥 Recovered " + ready.size() + " pending settlements from " + directory);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open settlement queue in " + directory, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        lock.lock();
+        try {
+            persistOffset();
+            if (chunk != null) {
+                chunk.close();
+                chunk = null;
+            }
+            if (directoryLock != null) {
+                directoryLock.release();
+                lockChannel.close();
+                directoryLock = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to close settlement queue: " + e.getMessage());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void enqueue(Transaction transaction) {
+        byte[] payload = encode(transaction);
+        lock.lock();
+        try {
+            String transactionId = transaction.getTransactionId();
+            long remaining = TimeUnit.MILLISECONDS.toNanos(enqueueTimeoutMillis);
+            // A retried in-flight transaction replaces its own record, so it never needs new space
+            while (!inFlight.containsKey(transactionId) && outstanding.size() >= capacity) {
+                if (remaining <= 0) {
+                    throw new RuntimeException("Settlement queue is full (" + capacity + " transactions), please retry");
+                }
+                remaining = notFull.awaitNanos(remaining);
+            }
+
+            long sequence = lastSequence + 1;
+            ByteBuffer.wrap(payload).putLong(0, sequence);
+            append(payload, sequence);
+            lastSequence = sequence;
+
+            Long superseded = inFlight.remove(transactionId);
+            if (superseded != null) {
+                outstanding.remove(superseded);
+            }
+            Record record = new Record(sequence, transaction);
+            ready.add(record);
+            pending.put(transactionId, record);
+            outstanding.add(sequence);
+            notEmpty.signal();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Failed to enqueue transaction", e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Transaction dequeue() {
+        lock.lock();
+        try {
+            while (ready.isEmpty()) {
+                notEmpty.await();
+            }
+            Transaction transaction = take().transaction;
+            persistOffset();
+            return transaction;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Transaction peek() {
+        lock.lock();
+        try {
+            Record head = ready.peekFirst();
+            return head != null ? head.transaction : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int size() {
+        lock.lock();
+        try {
+            return ready.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public List<Transaction> getPendingTransactions() {
+        lock.lock();
+        try {
+            List<Transaction> transactions = new ArrayList<>(ready.size());
+            for (Record record : ready) {
+                transactions.add(record.transaction);
+            }
+            return transactions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean isPending(String transactionId) {
+        lock.lock();
+        try {
+            return pending.containsKey(transactionId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void markAsProcessed(String transactionId) {
+        lock.lock();
+        try {
+            Long sequence = inFlight.remove(transactionId);
+            if (sequence == null) {
+                Record queued = pending.remove(transactionId);
+                if (queued == null) {
+                    return;
+                }
+                ready.remove(queued);
+                sequence = queued.sequence;
+            }
+            outstanding.remove(sequence);
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void clear() {
+        lock.lock();
+        try {
+            ready.clear();
+            pending.clear();
+            inFlight.clear();
+            outstanding.clear();
+            persistOffset();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Transaction> drainAll() {
+        return drainTo(Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Transaction> drainTo(int maxElements) {
+        lock.lock();
+        try {
+            List<Transaction> transactions = new ArrayList<>(Math.min(maxElements, ready.size()));
+            while (transactions.size() < maxElements && !ready.isEmpty()) {
+                transactions.add(take().transaction);
+            }
+            persistOffset();
+            return transactions;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Move the head record in flight; caller holds the lock
+     */
+    private Record take() {
+        Record record = ready.pollFirst();
+        pending.remove(record.transaction.getTransactionId(), record);
+        inFlight.put(record.transaction.getTransactionId(), record.sequence);
+        return record;
+    }
+
+    private void append(byte[] payload, long sequence) {
+        try {
+            int recordBytes = HEADER_BYTES + payload.length;
+            if (chunkPosition > 0 && chunkPosition + recordBytes > chunkBytes) {
+                chunk.force(false);
+                chunk.close();
+                openChunk(sequence);
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            ByteBuffer buffer = ByteBuffer.allocate(recordBytes);
+            buffer.putInt(payload.length).putInt((int) crc.getValue()).put(payload).flip();
+            while (buffer.hasRemaining()) {
+                chunk.write(buffer);
+            }
+            if (fsync) {
+                chunk.force(false);
+            }
+            chunkPosition += recordBytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to settlement queue", e);
+        }
+    }
+
+    /**
+     * Persist the consumer offset if it moved, then delete chunks entirely below it;
+     * caller holds the lock
+     */
+    private void persistOffset() {
+        long offset = outstanding.isEmpty() ? lastSequence : outstanding.first() - 1;
+        if (offset <= persistedOffset) {
+            return;
+        }
+        try {
+            if (!fsync) {
+                // The offset must never get ahead of the records it covers
+                chunk.force(false);
+            }
+            Path tmp = directory.resolve(OFFSET_FILE + ".tmp");
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                out.write(ByteBuffer.wrap(Long.toString(offset).getBytes(StandardCharsets.UTF_8)));
+                out.force(true);
+            }
+            Files.move(tmp, directory.resolve(OFFSET_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            persistedOffset = offset;
+
+            // A chunk can go once the next chunk starts at or before the offset
+            List<Path> chunks = listChunks();
+            for (int i = 0; i + 1 < chunks.size(); i++) {
+                if (firstSequenceOf(chunks.get(i + 1)) <= offset + 1) {
+                    Files.deleteIfExists(chunks.get(i));
+                }
+            }
+        } catch (IOException e) {
+            // Records stay on disk; the worst case is redelivery after a restart
+            System.err.println("Failed to persist settlement queue offset: " + e.getMessage());
+        }
+    }
+
+    private void openChunk(long firstSequence) throws IOException {
+        Path file = directory.resolve(String.format("%s%020d%s", CHUNK_PREFIX, firstSequence, CHUNK_SUFFIX));
+        chunk = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        chunkPosition = 0;
+    }
+
+    private List<Path> listChunks() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().startsWith(CHUNK_PREFIX)
+                            && f.getFileName().toString().endsWith(CHUNK_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private long firstSequenceOf(Path chunkFile) {
+        String name = chunkFile.getFileName().toString();
+        return Long.parseLong(name.substring(CHUNK_PREFIX.length(), name.length() - CHUNK_SUFFIX.length()));
+    }
+
+    private void readChunk(Path file, Map<String, Record> recovered) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        int offset = 0;
+        while (offset + HEADER_BYTES <= buffer.limit()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || offset + HEADER_BYTES + length > buffer.limit()) {
+                return;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(offset + HEADER_BYTES, payload);
+            CRC32C crc = new CRC32C();
+            crc.update(payload);
+            if ((int) crc.getValue() != buffer.getInt(offset + 4)) {
+                System.err.println("Settlement queue record with bad checksum in " + file.getFileName() + " at offset " + offset);
+                return;
+            }
+            Record record = decode(payload);
+            lastSequence = Math.max(lastSequence, record.sequence);
+            if (record.sequence > persistedOffset) {
+                String transactionId = record.transaction.getTransactionId();
+                recovered.remove(transactionId);
+                recovered.put(transactionId, record);
+            }
+            offset += HEADER_BYTES + length;
+        }
+    }
+
+    private static byte[] encode(Transaction transaction) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            // Sequence placeholder, patched in once it is assigned
+            out.writeLong(0);
+            TransactionCodec.write(out, transaction);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Record decode(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        long sequence = in.readLong();
+        return new Record(sequence, TransactionCodec.read(in));
+    }
+
+    private static class Record {
+        private final long sequence;
+        private final Transaction transaction;
+
+        private Record(long sequence, Transaction transaction) {
+            this.sequence = sequence;
+            this.transaction = transaction;
+        }
+    }
+}
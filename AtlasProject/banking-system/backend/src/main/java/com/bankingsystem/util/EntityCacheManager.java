@@ -0,0 +1,51 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Holds the near-caches in front of the account and customer repositories.
+ *
+ * Accounts are keyed by account number and versioned by their @Version field, so
+ * a cached balance is only ever replaced by a newer one. Customers carry no
+ * version and are simply replaced on every save.
+ */
+@Component
+public class EntityCacheManager {
+
+    private final NearCache<String, Account> accounts;
+    private final NearCache<String, Customer> customers;
+
+    public EntityCacheManager(@Value("${banking.cache.account.max-size:10000}") int accountMaxSize,
+                              @Value("${banking.cache.account.ttl-ms:30000}") long accountTtlMillis,
+                              @Value("${banking.cache.customer.max-size:10000}") int customerMaxSize,
+                              @Value("${banking.cache.customer.ttl-ms:300000}") long customerTtlMillis) {
+        this.accounts = new NearCache<>("accounts", accountMaxSize, accountTtlMillis, Account::new,
+                account -> account.getVersion() != null ? account.getVersion() : -1L);
+        this.customers = new NearCache<>("customers", customerMaxSize, customerTtlMillis, Customer::new,
+                customer -> 0L);
+    }
+
+    public NearCache<String, Account> accounts() {
+        return accounts;
+    }
+
+    public NearCache<String, Customer> customers() {
+        return customers;
+    }
+
+    /**
+     * Get statistics for all entity caches
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accounts", accounts.getStats());
+        stats.put("customers", customers.getStats());
+        return stats;
+    }
+}
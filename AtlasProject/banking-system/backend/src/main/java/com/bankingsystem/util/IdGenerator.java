@@ -0,0 +1,135 @@
+package com.bankingsystem.util;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ID generator for transactions, references and batches.
+ *
+ * Each ID is a 63-bit value: 41 bits of milliseconds since a custom epoch, 10 bits
+ * of node id and a 12-bit per-millisecond sequence. IDs from one node are strictly
+ * increasing, and the string form is fixed-width base36 behind a type prefix, so
+ * IDs sort by creation time and new index entries always land at the right edge.
+ * Generation is lock-free: the last timestamp and sequence live in one AtomicLong
+ * updated by CAS.
+ *
+ * IDs are only unique if every running process has its own banking.node-id. It has no
+ * default outside the development and test profiles, so a process without one fails
+ * at startup instead of issuing IDs that can collide with another node's.
+ */
+@Component
+public class IdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    /** Used when banking.node-id is unset in the development and test profiles */
+    private static final long DEVELOPMENT_NODE_ID = 1;
+
+    /** Width of Long.MAX_VALUE in base36, so every encoded ID has the same length */
+    private static final int ENCODED_WIDTH = 13;
+
+    private final long nodeId;
+
+    /** (timestamp << SEQUENCE_BITS) | sequence of the last issued ID */
+    private final AtomicLong state = new AtomicLong();
+
+    @Autowired
+    public IdGenerator(@Value("${banking.node-id:#{null}}") Long nodeId, Environment environment) {
+        this(resolveNodeId(nodeId, environment));
+    }
+
+    public IdGenerator(long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+    }
+
+    private static long resolveNodeId(Long nodeId, Environment environment) {
+        if (nodeId != null) {
+            return nodeId;
+        }
+        if (environment.acceptsProfiles(Profiles.of("development", "test"))) {
+            return DEVELOPMENT_NODE_ID;
+        }
+        throw new IllegalArgumentException("banking.node-id must be set to a node id (0-" + MAX_NODE_ID
+                + ") unique to this process");
+    }
+
+    /**
+     * Generate the next numeric ID
+     */
+    public long nextId() {
+        long now = System.currentTimeMillis() - EPOCH_MILLIS;
+        long prev;
+        long next;
+        do {
+            prev = state.get();
+            // A fresh millisecond starts at sequence 0; otherwise take the next sequence.
+            // If the sequence overflows or the clock goes backwards this simply carries into
+            // the following millisecond, so IDs never repeat or decrease.
+            next = Math.max(now << SEQUENCE_BITS, prev + 1);
+        } while (!state.compareAndSet(prev, next));
+
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    /**
+     * Generate the next ID as a prefixed string, e.g. "DEP0019XKQ2V8C0G1"
+     */
+    public String nextId(String prefix) {
+        return format(prefix, nextId());
+    }
+
+    /**
+     * Encode an ID as prefix + fixed-width upper-case base36
+     */
+    public static String format(String prefix, long id) {
+        String encoded = Long.toString(id, 36).toUpperCase();
+        StringBuilder sb = new StringBuilder(prefix.length() + ENCODED_WIDTH).append(prefix);
+        for (int i = encoded.length(); i < ENCODED_WIDTH; i++) {
+            sb.append('0');
+        }
+        return sb.append(encoded).toString();
+    }
+
+    /**
+     * Creation time (epoch millis) embedded in an ID
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /**
+     * Node that issued an ID
+     */
+    public static long nodeOf(long id) {
+        return (id >>> SEQUENCE_BITS) & MAX_NODE_ID;
+    }
+
+    /**
+     * Numeric ID behind a prefixed string ID produced by nextId(prefix)
+     */
+    public static long parse(String id) {
+        if (id == null || id.length() < ENCODED_WIDTH) {
+            throw new IllegalArgumentException("Not a generated ID: " + id);
+        }
+        return Long.parseLong(id.substring(id.length() - ENCODED_WIDTH), 36);
+    }
+
+    public long getNodeId() {
+        return nodeId;
+    }
+}
@@ -0,0 +1,191 @@
+package com.bankingsystem.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bounded in-process cache with a time-to-live and version-aware puts.
+ *
+ * Values are copied on the way in and on the way out, so callers can mutate what
+ * they get back without affecting other readers. A put is ignored when the cache
+ * already holds a newer version of the entry, which keeps a slow reader from
+ * overwriting the result of a write that finished after its read started. Writes
+ * that cannot supply the new value leave a versioned tombstone for the same reason. When
+ * the size bound is exceeded a few entries are sampled and the one written longest
+ * ago is evicted, which keeps the bound without a shared lock.
+ */
+public class NearCache<K, V> {
+
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int MAX_EVICTION_SKIP = 64;
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlMillis;
+    private final UnaryOperator<V> copier;
+    private final ToLongFunction<V> versionOf;
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong puts = new AtomicLong();
+    private final AtomicLong stalePutsRejected = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private final AtomicLong expirations = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public NearCache(String name, int maxSize, long ttlMillis, UnaryOperator<V> copier, ToLongFunction<V> versionOf) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache size must be greater than zero");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.copier = copier;
+        this.versionOf = versionOf;
+    }
+
+    /**
+     * Get a copy of the cached value, or null on a miss or expired entry
+     */
+    public V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.value == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            if (entries.remove(key, entry)) {
+                expirations.incrementAndGet();
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return copier.apply(entry.value);
+    }
+
+    /**
+     * Cache a copy of the value unless a newer version is already cached
+     */
+    public void put(K key, V value) {
+        if (key == null || value == null) {
+            return;
+        }
+        Entry<V> fresh = new Entry<>(copier.apply(value), versionOf.applyAsLong(value),
+                System.currentTimeMillis() + ttlMillis);
+        Entry<V> stored = entries.merge(key, fresh,
+                (current, candidate) -> candidate.version >= current.version ? candidate : current);
+        if (stored == fresh) {
+            puts.incrementAndGet();
+        } else {
+            stalePutsRejected.incrementAndGet();
+        }
+        if (entries.size() > maxSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Drop the entry for a key
+     */
+    public void invalidate(K key) {
+        if (key != null && entries.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /**
+     * Drop the entry for a key that was written elsewhere at the given version;
+     * until it expires, only values at least that new can be cached again
+     */
+    public void invalidate(K key, long version) {
+        if (key == null) {
+            return;
+        }
+        entries.put(key, new Entry<>(null, version, System.currentTimeMillis() + ttlMillis));
+        invalidations.incrementAndGet();
+    }
+
+    public void invalidateAll() {
+        invalidations.addAndGet(entries.size());
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Get hit/miss/eviction statistics
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.get();
+        long lookups = hitCount + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("name", name);
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("ttlMillis", ttlMillis);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("puts", puts.get());
+        stats.put("stalePutsRejected", stalePutsRejected.get());
+        stats.put("invalidations", invalidations.get());
+        stats.put("expirations", expirations.get());
+        stats.put("evictions", evictions.get());
+        return stats;
+    }
+
+    private void evict() {
+        long now = System.currentTimeMillis();
+        while (entries.size() > maxSize) {
+            K victim = null;
+            long earliestExpiry = Long.MAX_VALUE;
+            int skip = ThreadLocalRandom.current().nextInt(Math.min(MAX_EVICTION_SKIP, Math.max(1, entries.size())));
+            Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator();
+            for (int i = 0; i < skip && it.hasNext(); i++) {
+                it.next();
+            }
+            for (int i = 0; i < EVICTION_SAMPLES && it.hasNext(); i++) {
+                Map.Entry<K, Entry<V>> candidate = it.next();
+                if (candidate.getValue().isExpired(now)) {
+                    victim = candidate.getKey();
+                    break;
+                }
+                if (candidate.getValue().expiresAt < earliestExpiry) {
+                    earliestExpiry = candidate.getValue().expiresAt;
+                    victim = candidate.getKey();
+                }
+            }
+            if (victim == null || entries.remove(victim) == null) {
+                continue;
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    private static class Entry<V> {
+        private final V value;
+        private final long version;
+        private final long expiresAt;
+
+        private Entry(V value, long version, long expiresAt) {
+            this.value = value;
+            this.version = version;
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
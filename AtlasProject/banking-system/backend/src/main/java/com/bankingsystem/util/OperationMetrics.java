@@ -0,0 +1,69 @@
+package com.bankingsystem.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency and outcome of banking operations, as one "banking.operation" timer per
+ * operation and outcome (success or failure). The timers publish percentile histograms,
+ * so p99s can be aggregated across instances, and their counts are the success and
+ * failure counters.
+ */
+@Component
+public class OperationMetrics {
+
+    public static final String TIMER_NAME = "banking.operation";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public OperationMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Start timing one run of the operation; finish it with success() or failure()
+     */
+    public Sample start(String operation) {
+        return new Sample(operation, System.nanoTime());
+    }
+
+    private Timer timer(String operation, String outcome) {
+        return timers.computeIfAbsent(operation + ':' + outcome, key -> Timer.builder(TIMER_NAME)
+                .description("Latency of banking operations")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * One timed run of an operation
+     */
+    public final class Sample {
+        private final String operation;
+        private final long startNanos;
+
+        private Sample(String operation, long startNanos) {
+            this.operation = operation;
+            this.startNanos = startNanos;
+        }
+
+        public void success() {
+            stop("success");
+        }
+
+        public void failure() {
+            stop("failure");
+        }
+
+        private void stop(String outcome) {
+            timer(operation, outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.bankingsystem.util;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AccountSnapshot;
+import com.bankingsystem.model.Transaction;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Compact binary form of a Transaction for the on-disk logs (ledger journal, durable
+ * settlement queue).
+ *
+ * Accounts are written as stubs: id, account number, balance and version, which is
+ * what replay needs to restore the @DocumentReference and the post-posting balance.
+ * The embedded account snapshots are written as they are.
+ */
+public final class TransactionCodec {
+
+    private TransactionCodec() {
+    }
+
+    public static void write(DataOutputStream out, Transaction transaction) throws IOException {
+        out.writeUTF(transaction.getTransactionId());
+        out.writeUTF(transaction.getType().name());
+        out.writeUTF(transaction.getAmount().toPlainString());
+        out.writeUTF(transaction.getStatus().name());
+        writeNullable(out, transaction.getReferenceNumber());
+        writeNullable(out, transaction.getDescription());
+        writeNullable(out, transaction.getBatchId());
+        writeNullable(out, transaction.getNettingBatchId());
+        writeNullable(out, transaction.getRelatedTransactionId());
+        out.writeLong(transaction.getTransactionDate().toInstant(ZoneOffset.UTC).toEpochMilli());
+        writeAccount(out, transaction.getSourceAccount());
+        writeAccount(out, transaction.getDestinationAccount());
+        writeSnapshot(out, transaction.getSourceSnapshot());
+        writeSnapshot(out, transaction.getDestinationSnapshot());
+    }
+
+    public static Transaction read(DataInputStream in) throws IOException {
+        Transaction transaction = new Transaction();
+        transaction.setTransactionId(in.readUTF());
+        transaction.setType(Transaction.TransactionType.valueOf(in.readUTF()));
+        transaction.setAmount(new BigDecimal(in.readUTF()));
+        transaction.setStatus(Transaction.TransactionStatus.valueOf(in.readUTF()));
+        transaction.setReferenceNumber(readNullable(in));
+        transaction.setDescription(readNullable(in));
+        transaction.setBatchId(readNullable(in));
+        transaction.setNettingBatchId(readNullable(in));
+        transaction.setRelatedTransactionId(readNullable(in));
+        LocalDateTime transactionDate = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readLong()), ZoneOffset.UTC);
+        transaction.setTransactionDate(transactionDate);
+        transaction.setSourceAccount(readAccount(in, transactionDate));
+        transaction.setDestinationAccount(readAccount(in, transactionDate));
+        transaction.setSourceSnapshot(readSnapshot(in));
+        transaction.setDestinationSnapshot(readSnapshot(in));
+        return transaction;
+    }
+
+    private static void writeAccount(DataOutputStream out, Account account) throws IOException {
+        out.writeBoolean(account != null);
+        if (account != null) {
+            writeNullable(out, account.getId());
+            out.writeUTF(account.getAccountNumber());
+            writeNullable(out, account.getBalance() != null ? account.getBalance().toPlainString() : null);
+            out.writeLong(account.getVersion() != null ? account.getVersion() : 0);
+        }
+    }
+
+    private static Account readAccount(DataInputStream in, LocalDateTime transactionDate) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        Account account = new Account();
+        account.setId(readNullable(in));
+        account.setAccountNumber(in.readUTF());
+        String balance = readNullable(in);
+        account.setBalance(balance != null ? new BigDecimal(balance) : null);
+        account.setVersion(in.readLong());
+        account.setUpdatedAt(transactionDate);
+        account.setLastTransactionDate(transactionDate);
+        return account;
+    }
+
+    private static void writeSnapshot(DataOutputStream out, AccountSnapshot snapshot) throws IOException {
+        out.writeBoolean(snapshot != null);
+        if (snapshot != null) {
+            writeNullable(out, snapshot.getAccountNumber());
+            writeNullable(out, snapshot.getAccountType() != null ? snapshot.getAccountType().name() : null);
+            writeNullable(out, snapshot.getHolderName());
+        }
+    }
+
+    private static AccountSnapshot readSnapshot(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        String accountNumber = readNullable(in);
+        String accountType = readNullable(in);
+        return new AccountSnapshot(accountNumber,
+                accountType != null ? Account.AccountType.valueOf(accountType) : null, readNullable(in));
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
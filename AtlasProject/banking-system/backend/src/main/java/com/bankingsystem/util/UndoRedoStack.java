@@ -1,116 +1,430 @@
 package com.bankingsystem.util;
 
 import com.bankingsystem.model.Transaction;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Stack;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Per-account undo/redo history with bounded memory.
+ *
+ * Each account keeps its undo and redo entries in fixed-depth ring buffers, so a push
+ * onto a full history silently drops the oldest entry. On top of that a global budget
+ * on the (estimated) retained bytes is enforced: when it is exceeded, accounts are
+ * sampled and the one used longest ago loses its whole history, which keeps idle
+ * accounts from holding memory without a shared LRU list. An account's history is
+ * guarded by its own monitor; it is only ever touched by a few threads at a time.
+ * Each entry remembers the size it was charged when pushed, since the held
+ * transaction is updated in place (status, remarks) while it sits in the history.
+ */
 @Component
 public class UndoRedoStack {
-    
-    private final Map<String, Stack<Transaction>> undoStacks = new ConcurrentHashMap<>();
-    private final Map<String, Stack<Transaction>> redoStacks = new ConcurrentHashMap<>();
-    
+
+    /** Rough per-entry cost: the transaction, its two account copies and the slot */
+    private static final int ENTRY_OVERHEAD_BYTES = 640;
+    private static final int EVICTION_SAMPLES = 8;
+    private static final int MAX_EVICTION_SKIP = 64;
+
+    private final int depth;
+    private final long maxBytes;
+
+    private final ConcurrentHashMap<String, History> histories = new ConcurrentHashMap<>();
+
+    private final AtomicLong retainedEntries = new AtomicLong();
+    private final AtomicLong retainedBytes = new AtomicLong();
+    private final AtomicLong droppedEntries = new AtomicLong();
+    private final AtomicLong evictedAccounts = new AtomicLong();
+
+    public UndoRedoStack(@Value("${banking.undo.depth:20}") int depth,
+                         @Value("${banking.undo.max-bytes:67108864}") long maxBytes) {
+        if (depth <= 0) {
+            throw new IllegalArgumentException("Undo depth must be greater than zero");
+        }
+        this.depth = depth;
+        this.maxBytes = maxBytes;
+    }
+
     /**
      * Push a completed transaction to the undo stack for a specific account
      */
     public void pushUndo(String accountId, Transaction transaction) {
-        undoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-        // Clear redo stack when new transaction is added
-        redoStacks.remove(accountId);
+        while (true) {
+            History history = histories.computeIfAbsent(accountId, k -> new History(depth));
+            synchronized (history) {
+                if (history.evicted) {
+                    continue;
+                }
+                history.touch();
+                push(history.undo, transaction);
+                // Clear redo stack when new transaction is added
+                clear(history.redo);
+                break;
+            }
+        }
+        if (retainedBytes.get() > maxBytes) {
+            evict(accountId);
+        }
     }
-    
+
     /**
      * Pop the last transaction from undo stack for reversal
      */
     public Transaction popUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        if (undoStack != null && !undoStack.isEmpty()) {
-            Transaction transaction = undoStack.pop();
-            // Move to redo stack
-            redoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-            return transaction;
-        }
-        return null;
+        return move(accountId, true, null);
     }
-    
+
+    /**
+     * Move the given transaction from the undo stack to the redo stack, wherever it sits
+     * now; postings pushed after it was peeked stay where they are. False if it is gone.
+     */
+    public boolean popUndo(String accountId, Transaction transaction) {
+        return move(accountId, true, transaction) != null;
+    }
+
     /**
      * Pop the last reversed transaction from redo stack for re-execution
      */
     public Transaction popRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        if (redoStack != null && !redoStack.isEmpty()) {
-            Transaction transaction = redoStack.pop();
-            // Move back to undo stack
-            undoStacks.computeIfAbsent(accountId, k -> new Stack<>()).push(transaction);
-            return transaction;
-        }
-        return null;
+        return move(accountId, false, null);
+    }
+
+    /**
+     * Move the given transaction from the redo stack back to the undo stack; false if it is gone
+     */
+    public boolean popRedo(String accountId, Transaction transaction) {
+        return move(accountId, false, transaction) != null;
     }
-    
+
     /**
      * Check if undo is available for an account
      */
     public boolean canUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return undoStack != null && !undoStack.isEmpty();
+        return getUndoStackSize(accountId) > 0;
     }
-    
+
     /**
      * Check if redo is available for an account
      */
     public boolean canRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return redoStack != null && !redoStack.isEmpty();
+        return getRedoStackSize(accountId) > 0;
     }
-    
+
     /**
      * Get the size of undo stack for an account
      */
     public int getUndoStackSize(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return undoStack != null ? undoStack.size() : 0;
+        History history = histories.get(accountId);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.undo.size;
+        }
     }
-    
+
     /**
      * Get the size of redo stack for an account
      */
     public int getRedoStackSize(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return redoStack != null ? redoStack.size() : 0;
+        History history = histories.get(accountId);
+        if (history == null) {
+            return 0;
+        }
+        synchronized (history) {
+            return history.redo.size;
+        }
     }
-    
+
     /**
      * Clear all stacks for an account
      */
     public void clearStacks(String accountId) {
-        undoStacks.remove(accountId);
-        redoStacks.remove(accountId);
+        History history = histories.get(accountId);
+        if (history != null) {
+            discard(accountId, history);
+        }
     }
-    
+
     /**
      * Clear all stacks for all accounts
      */
     public void clearAllStacks() {
-        undoStacks.clear();
-        redoStacks.clear();
+        for (Map.Entry<String, History> entry : histories.entrySet()) {
+            discard(entry.getKey(), entry.getValue());
+        }
     }
-    
+
     /**
      * Get the last transaction that can be undone for an account
      */
     public Transaction peekUndo(String accountId) {
-        Stack<Transaction> undoStack = undoStacks.get(accountId);
-        return (undoStack != null && !undoStack.isEmpty()) ? undoStack.peek() : null;
+        History history = histories.get(accountId);
+        if (history == null) {
+            return null;
+        }
+        synchronized (history) {
+            return history.undo.peek();
+        }
     }
-    
+
     /**
      * Get the last transaction that can be redone for an account
      */
     public Transaction peekRedo(String accountId) {
-        Stack<Transaction> redoStack = redoStacks.get(accountId);
-        return (redoStack != null && !redoStack.isEmpty()) ? redoStack.peek() : null;
+        History history = histories.get(accountId);
+        if (history == null) {
+            return null;
+        }
+        synchronized (history) {
+            return history.redo.peek();
+        }
+    }
+
+    /**
+     * Number of transactions held across all undo and redo stacks
+     */
+    public long getRetainedEntries() {
+        return retainedEntries.get();
+    }
+
+    /**
+     * Estimated heap held by those transactions
+     */
+    public long getRetainedBytes() {
+        return retainedBytes.get();
+    }
+
+    /**
+     * Number of accounts with a history
+     */
+    public int getAccountCount() {
+        return histories.size();
+    }
+
+    /**
+     * Get retained entries/bytes and eviction statistics
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("accounts", histories.size());
+        stats.put("depth", depth);
+        stats.put("retainedEntries", retainedEntries.get());
+        stats.put("retainedBytes", retainedBytes.get());
+        stats.put("maxBytes", maxBytes);
+        stats.put("droppedEntries", droppedEntries.get());
+        stats.put("evictedAccounts", evictedAccounts.get());
+        return stats;
+    }
+
+    /**
+     * Take the top entry (or the given transaction, when not null) from one side and push
+     * it onto the other (undo -> redo, or redo -> undo)
+     */
+    private Transaction move(String accountId, boolean fromUndo, Transaction expected) {
+        History history = histories.get(accountId);
+        if (history == null) {
+            return null;
+        }
+        synchronized (history) {
+            Ring from = fromUndo ? history.undo : history.redo;
+            Ring to = fromUndo ? history.redo : history.undo;
+            Entry entry = expected == null ? from.pop() : from.remove(expected);
+            if (entry == null) {
+                return null;
+            }
+            history.touch();
+            // The entry stays retained, it only changes side
+            Entry dropped = to.push(entry);
+            if (dropped != null) {
+                release(dropped);
+                droppedEntries.incrementAndGet();
+            }
+            return entry.transaction;
+        }
+    }
+
+    /**
+     * Push onto a ring, accounting for the new entry and for the one it may overwrite;
+     * caller holds the history's monitor
+     */
+    private void push(Ring ring, Transaction transaction) {
+        Entry entry = new Entry(transaction, estimateBytes(transaction));
+        retainedEntries.incrementAndGet();
+        retainedBytes.addAndGet(entry.bytes);
+        Entry dropped = ring.push(entry);
+        if (dropped != null) {
+            release(dropped);
+            droppedEntries.incrementAndGet();
+        }
+    }
+
+    private void clear(Ring ring) {
+        Entry entry;
+        while ((entry = ring.pop()) != null) {
+            release(entry);
+        }
+    }
+
+    private void release(Entry entry) {
+        retainedEntries.decrementAndGet();
+        retainedBytes.addAndGet(-entry.bytes);
+    }
+
+    private void discard(String accountId, History history) {
+        synchronized (history) {
+            if (history.evicted) {
+                return;
+            }
+            history.evicted = true;
+            clear(history.undo);
+            clear(history.redo);
+        }
+        histories.remove(accountId, history);
+    }
+
+    /**
+     * Drop the histories of the least recently used accounts until the budget is met
+     */
+    private void evict(String justUsed) {
+        while (retainedBytes.get() > maxBytes && histories.size() > 1) {
+            String victim = null;
+            History victimHistory = null;
+            long oldest = Long.MAX_VALUE;
+            int skip = ThreadLocalRandom.current().nextInt(Math.min(MAX_EVICTION_SKIP, Math.max(1, histories.size())));
+            Iterator<Map.Entry<String, History>> it = histories.entrySet().iterator();
+            for (int i = 0; i < skip && it.hasNext(); i++) {
+                it.next();
+            }
+            for (int i = 0; i < EVICTION_SAMPLES && it.hasNext(); i++) {
+                Map.Entry<String, History> candidate = it.next();
+                if (!candidate.getKey().equals(justUsed) && candidate.getValue().lastUsed < oldest) {
+                    oldest = candidate.getValue().lastUsed;
+                    victim = candidate.getKey();
+                    victimHistory = candidate.getValue();
+                }
+            }
+            if (victim == null) {
+                continue;
+            }
+            discard(victim, victimHistory);
+            evictedAccounts.incrementAndGet();
+        }
+    }
+
+    private static long estimateBytes(Transaction transaction) {
+        long bytes = ENTRY_OVERHEAD_BYTES;
+        bytes += 2L * length(transaction.getTransactionId());
+        bytes += 2L * length(transaction.getDescription());
+        bytes += 2L * length(transaction.getReferenceNumber());
+        bytes += 2L * length(transaction.getRemarks());
+        return bytes;
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+
+    /**
+     * Undo and redo rings of one account
+     */
+    private static class History {
+        private final Ring undo;
+        private final Ring redo;
+        private volatile long lastUsed;
+        private boolean evicted;
+
+        private History(int depth) {
+            this.undo = new Ring(depth);
+            this.redo = new Ring(depth);
+            touch();
+        }
+
+        private void touch() {
+            lastUsed = System.nanoTime();
+        }
+    }
+
+    /**
+     * A held transaction and the bytes charged for it
+     */
+    private static class Entry {
+        private final Transaction transaction;
+        private final long bytes;
+
+        private Entry(Transaction transaction, long bytes) {
+            this.transaction = transaction;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Fixed-capacity stack; pushing onto a full ring overwrites the oldest entry
+     */
+    private static class Ring {
+        private final Entry[] items;
+        private int top;
+        private int size;
+
+        private Ring(int capacity) {
+            this.items = new Entry[capacity];
+        }
+
+        /**
+         * Push and return the entry that was overwritten, if any
+         */
+        private Entry push(Entry entry) {
+            Entry overwritten = size == items.length ? items[top] : null;
+            items[top] = entry;
+            top = (top + 1) % items.length;
+            size = Math.min(size + 1, items.length);
+            return overwritten;
+        }
+
+        private Entry pop() {
+            if (size == 0) {
+                return null;
+            }
+            top = (top - 1 + items.length) % items.length;
+            Entry entry = items[top];
+            items[top] = null;
+            size--;
+            return entry;
+        }
+
+        /**
+         * Remove the entry holding exactly this transaction, shifting newer entries down
+         */
+        private Entry remove(Transaction transaction) {
+            for (int i = 0; i < size; i++) {
+                int index = slot(i);
+                if (items[index].transaction == transaction) {
+                    Entry entry = items[index];
+                    for (int j = i; j > 0; j--) {
+                        items[slot(j)] = items[slot(j - 1)];
+                    }
+                    // The top slot is now duplicated one below, so dropping it finishes the removal
+                    pop();
+                    return entry;
+                }
+            }
+            return null;
+        }
+
+        private Transaction peek() {
+            return size == 0 ? null : items[slot(0)].transaction;
+        }
+
+        /**
+         * Array index of the i-th entry from the top
+         */
+        private int slot(int fromTop) {
+            return (top - 1 - fromTop + 2 * items.length) % items.length;
+        }
     }
 }
@@ -0,0 +1,102 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.util.AccountLockManager;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Account Lock Manager Unit Tests")
+class AccountLockManagerTest {
+
+    @Test
+    @DisplayName("Should serialize updates on the same account")
+    void shouldSerializeUpdatesOnSameAccount() throws Exception {
+        // Given
+        AccountLockManager lockManager = new AccountLockManager(64, 1000);
+        int[] balance = {0};
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    lockManager.withAccountLock("ACC123456", () -> balance[0]++);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(balance[0]).isEqualTo(8000);
+        assertThat(lockManager.getAcquisitions()).isEqualTo(8000);
+    }
+
+    @Test
+    @DisplayName("Should not deadlock on opposing transfers")
+    void shouldNotDeadlockOnOpposingTransfers() throws Exception {
+        // Given
+        AccountLockManager lockManager = new AccountLockManager(64, 1000);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        // When
+        Future<?> forward = executor.submit(() -> {
+            for (int i = 0; i < 5000; i++) {
+                lockManager.withAccountLocks("ACC123456", "ACC123457", () -> null);
+            }
+        });
+        Future<?> backward = executor.submit(() -> {
+            for (int i = 0; i < 5000; i++) {
+                lockManager.withAccountLocks("ACC123457", "ACC123456", () -> null);
+            }
+        });
+
+        // Then
+        forward.get(10, TimeUnit.SECONDS);
+        backward.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+        assertThat(lockManager.getTimeouts()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should time out when the account lock is held too long")
+    void shouldTimeOutWhenLockIsHeld() throws Exception {
+        // Given
+        AccountLockManager lockManager = new AccountLockManager(64, 50);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> lockManager.withAccountLock("ACC123456", () -> {
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        }));
+        holder.start();
+        locked.await();
+
+        // When & Then
+        assertThatThrownBy(() -> lockManager.withAccountLock("ACC123456", () -> null))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Timed out waiting for account lock");
+        assertThat(lockManager.getTimeouts()).isEqualTo(1);
+        assertThat(lockManager.getContendedAcquisitions()).isEqualTo(1);
+
+        release.countDown();
+        holder.join();
+    }
+}
@@ -0,0 +1,158 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.util.AccountState;
+import com.bankingsystem.util.AccountStateTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Account State Table Unit Tests")
+class AccountStateTableTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private final List<AccountStateTable> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(AccountStateTable::close);
+    }
+
+    private AccountStateTable newTable() {
+        AccountStateTable table = new AccountStateTable(true, directory.toString(), 64, 10, true);
+        ReflectionTestUtils.setField(table, "mongoTemplate", mongoTemplate);
+        table.open();
+        opened.add(table);
+        return table;
+    }
+
+    private Account account(String accountNumber, String balance, long version) {
+        Account account = new Account(accountNumber, new Customer(), Account.AccountType.SAVINGS);
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(version);
+        return account;
+    }
+
+    @Test
+    @DisplayName("Should serve the written state and never go back to an older version")
+    void testVersionedWriteThrough() {
+        // Given
+        AccountStateTable table = newTable();
+
+        // When
+        table.put(account("ACC000000000001", "1500.50", 4));
+        table.put(account("ACC000000000001", "900.00", 3));
+
+        // Then
+        AccountState state = table.get("ACC000000000001");
+        assertThat(state.getBalance()).isEqualByComparingTo("1500.50");
+        assertThat(state.getVersion()).isEqualTo(4);
+        assertThat(state.getCurrencyCode()).isEqualTo("INR");
+        assertThat(state.canWithdraw(new BigDecimal("1500.50"))).isTrue();
+        assertThat(state.canWithdraw(new BigDecimal("1500.51"))).isFalse();
+        assertThat(table.get("ACC000000000002")).isNull();
+        assertThat(table.getStats()).containsEntry("entries", 1).containsEntry("staleWritesRejected", 1L);
+    }
+
+    @Test
+    @DisplayName("Should be warm after reopening, with removals kept")
+    void testWarmRestart() {
+        // Given
+        AccountStateTable table = newTable();
+        for (int i = 0; i < 20; i++) {
+            table.put(account(String.format("ACC%012d", i), i + ".25", 1));
+        }
+        table.remove("ACC000000000007");
+        table.close();
+
+        // When
+        AccountStateTable reopened = newTable();
+
+        // Then
+        assertThat(reopened.getStats()).containsEntry("reopenedEntries", 19);
+        assertThat(reopened.get("ACC000000000013").getBalance()).isEqualByComparingTo("13.25");
+        assertThat(reopened.get("ACC000000000007")).isNull();
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    @DisplayName("Should let readers see whole states while a writer keeps updating")
+    void testReadersNeverSeeTornState() throws InterruptedException {
+        // Given
+        AccountStateTable table = newTable();
+        table.put(account("ACC000000000001", "0.00", 0));
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> torn = new AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                AccountState state = table.get("ACC000000000001");
+                // Every write stores balance == version, so any mix of two writes shows up
+                if (state.getBalance().compareTo(BigDecimal.valueOf(state.getVersion())) != 0) {
+                    torn.set(state.getBalance() + " at version " + state.getVersion());
+                }
+            }
+        });
+        reader.start();
+
+        // When
+        for (int version = 1; version <= 20_000; version++) {
+            table.put(account("ACC000000000001", version + ".00", version));
+        }
+        running.set(false);
+        reader.join();
+
+        // Then
+        assertThat(torn.get()).isNull();
+        assertThat(table.get("ACC000000000001").getVersion()).isEqualTo(20_000);
+    }
+
+    @Test
+    @DisplayName("Should refresh stale entries from MongoDB and report how far behind they were")
+    @SuppressWarnings("unchecked")
+    void testStalenessVerification() {
+        // Given
+        AccountStateTable table = newTable();
+        table.put(account("ACC000000000001", "100.00", 2));
+        table.put(account("ACC000000000002", "200.00", 5));
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(
+                account("ACC000000000001", "175.00", 6),
+                account("ACC000000000002", "200.00", 5)));
+
+        // When
+        table.verify();
+
+        // Then
+        assertThat(table.get("ACC000000000001").getBalance()).isEqualByComparingTo("175.00");
+        Map<String, Object> staleness = (Map<String, Object>) table.getStats().get("staleness");
+        assertThat(staleness)
+                .containsEntry("entriesVerified", 2L)
+                .containsEntry("staleEntries", 1L)
+                .containsEntry("lastMaxVersionLag", 4L);
+    }
+}
@@ -0,0 +1,179 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.archive.ArchiveQuery;
+import com.bankingsystem.archive.AuditArchive;
+import com.bankingsystem.archive.BloomFilter;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Audit Archive Unit Tests")
+class AuditArchiveTest {
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AuditBuckets auditBuckets;
+
+    private final LocalDateTime cutoff = LocalDateTime.of(2024, 3, 1, 0, 0);
+    private final List<AuditArchive> opened = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        opened.forEach(AuditArchive::close);
+    }
+
+    private AuditArchive newArchive() {
+        AuditArchive archive = new AuditArchive(true, directory.toString(), 3, 0.01, 2);
+        ReflectionTestUtils.setField(archive, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(archive, "auditBuckets", auditBuckets);
+        ReflectionTestUtils.setField(archive, "objectMapper", new ObjectMapper());
+        archive.open();
+        opened.add(archive);
+        return archive;
+    }
+
+    private AuditLog log(String actionId, String userId, String action, LocalDateTime timestamp) {
+        AuditLog auditLog = new AuditLog(actionId, userId, action, "ACCOUNT", "ACC-" + userId);
+        auditLog.setTimestamp(timestamp);
+        auditLog.markAsSuccess(action + " by " + userId);
+        return auditLog;
+    }
+
+    private void stubAgedLogs() {
+        LocalDateTime january = LocalDateTime.of(2024, 1, 10, 9, 0);
+        LocalDateTime february = LocalDateTime.of(2024, 2, 10, 9, 0);
+        AuditLog withDetails = log("A1", "USER001", "DEPOSIT", january);
+        withDetails.setDetails(Map.of("amount", 500, "channel", "ATM"));
+        when(auditBuckets.bucketsFor(null, cutoff)).thenReturn(List.of("audit_logs_2024_01", "audit_logs_2024_02"));
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_01"))).thenReturn(Stream.of(
+                withDetails,
+                log("A2", "USER001", "WITHDRAW", january.plusMinutes(1)),
+                log("A3", "USER001", "DEPOSIT", january.plusMinutes(2))));
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_02"))).thenReturn(Stream.of(
+                log("A4", "USER002", "DEPOSIT", february),
+                log("A5", "USER002", "TRANSFER", february.plusMinutes(1))));
+    }
+
+    @Test
+    @DisplayName("Should write aged logs into segments and prune segments that cannot match")
+    @SuppressWarnings("unchecked")
+    void testArchiveAndPrunedSearch() {
+        // Given
+        stubAgedLogs();
+        AuditArchive archive = newArchive();
+
+        // When
+        long archived = archive.archiveBefore(cutoff);
+        List<AuditLog> february = archive.search(new ArchiveQuery(
+                LocalDateTime.of(2024, 2, 1, 0, 0), LocalDateTime.of(2024, 2, 29, 0, 0), null, null, "TRANSFER"));
+        List<AuditLog> user = archive.search(new ArchiveQuery(null, null, "USER001", null, "DEPOSIT"));
+
+        // Then
+        assertThat(archived).isEqualTo(5);
+        assertThat(archive.getStats()).containsEntry("segments", 2).containsEntry("rows", 5L);
+        assertThat(february).extracting(AuditLog::getActionId).containsExactly("A5");
+        assertThat(user).extracting(AuditLog::getActionId).containsExactly("A1", "A3");
+        assertThat(user.get(0).getDetails()).containsEntry("channel", "ATM").containsEntry("amount", 500);
+        assertThat(user.get(0).getDescription()).isEqualTo("DEPOSIT by USER001");
+        assertThat(user.get(0).getTimestamp()).isEqualTo(LocalDateTime.of(2024, 1, 10, 9, 0));
+        assertThat((Long) archive.getStats().get("segmentsPruned")).isGreaterThanOrEqualTo(1L);
+    }
+
+    @Test
+    @DisplayName("Should reload segments after restart and not archive the same range twice")
+    void testReopenKeepsArchive() {
+        // Given
+        stubAgedLogs();
+        newArchive().archiveBefore(cutoff);
+
+        // When
+        AuditArchive reopened = newArchive();
+        long archivedAgain = reopened.archiveBefore(cutoff);
+
+        // Then
+        assertThat(archivedAgain).isZero();
+        verify(auditBuckets, times(1)).bucketsFor(any(), any());
+        assertThat(reopened.search(new ArchiveQuery(null, null, "USER002", null, null)))
+                .extracting(AuditLog::getActionId)
+                .containsExactly("A4", "A5");
+        assertThat(reopened.getStats()).containsEntry("archivedUntil", cutoff);
+    }
+
+    @Test
+    @DisplayName("Should not archive logs twice after a crash before the marker advanced")
+    void testCrashBeforeMarkerAdvanced() throws Exception {
+        // Given - the last segment reached disk but the run died before recording the cutoff
+        stubAgedLogs();
+        LocalDateTime february = LocalDateTime.of(2024, 2, 10, 9, 0);
+        when(auditBuckets.bucketsFor(february, cutoff)).thenReturn(List.of("audit_logs_2024_02"));
+        newArchive().archiveBefore(cutoff);
+        Files.writeString(directory.resolve("archived-until"), february.toString());
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_02"))).thenReturn(Stream.of(
+                log("A4", "USER002", "DEPOSIT", february),
+                log("A5", "USER002", "TRANSFER", february.plusMinutes(1))));
+
+        // When
+        AuditArchive reopened = newArchive();
+        long archivedAgain = reopened.archiveBefore(cutoff);
+
+        // Then - the unrecorded segment was replaced, not duplicated
+        assertThat(archivedAgain).isEqualTo(2);
+        assertThat(reopened.getStats()).containsEntry("segments", 2).containsEntry("rows", 5L)
+                .containsEntry("archivedUntil", cutoff);
+        assertThat(reopened.search(new ArchiveQuery(null, null, null, null, null)))
+                .extracting(AuditLog::getActionId)
+                .containsExactly("A1", "A2", "A3", "A4", "A5");
+    }
+
+    @Test
+    @DisplayName("Bloom filter should never miss an added value and rarely report absent ones")
+    void testBloomFilter() {
+        // Given
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("USER" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (filter.mightContain("USER" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("USER" + i)).isTrue();
+        }
+        assertThat(falsePositives).isLessThan(300);
+    }
+}
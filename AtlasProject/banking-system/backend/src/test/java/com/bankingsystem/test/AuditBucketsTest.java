@@ -0,0 +1,95 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Audit Buckets Unit Tests")
+class AuditBucketsTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    private final AuditBuckets auditBuckets = new AuditBuckets();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(auditBuckets, "mongoTemplate", mongoTemplate);
+        when(mongoTemplate.getCollectionNames()).thenReturn(Set.of(
+                "audit_logs_2024_01", "audit_logs_2024_02", "audit_logs_2024_03", "audit_counters", "accounts"));
+        auditBuckets.init();
+    }
+
+    @Test
+    @DisplayName("Should route a date range to the existing buckets of the months it covers")
+    void testRangeRouting() {
+        // When
+        List<String> february = auditBuckets.bucketsFor(
+                LocalDateTime.of(2024, 2, 10, 0, 0), LocalDateTime.of(2024, 2, 20, 0, 0));
+        List<String> fromFebruary = auditBuckets.bucketsFor(LocalDateTime.of(2024, 2, 10, 0, 0), null);
+        List<String> beforeAny = auditBuckets.bucketsFor(null, LocalDateTime.of(2023, 12, 31, 0, 0));
+
+        // Then
+        assertThat(february).containsExactly("audit_logs_2024_02");
+        assertThat(fromFebruary).containsExactly("audit_logs_2024_02", "audit_logs_2024_03");
+        assertThat(beforeAny).isEmpty();
+        assertThat(auditBuckets.newestFirst()).first().isEqualTo("audit_logs_2024_03");
+    }
+
+    @Test
+    @DisplayName("Should insert into the bucket of each log's month and index new buckets once")
+    void testInsertCreatesBucket() {
+        // Given
+        when(mongoTemplate.indexOps("audit_logs_2024_04")).thenReturn(indexOperations);
+        AuditLog april = new AuditLog("A1", "USER001", "DEPOSIT", "ACCOUNT", "ACC123456");
+        april.setTimestamp(LocalDateTime.of(2024, 4, 2, 9, 0));
+        AuditLog march = new AuditLog("A2", "USER001", "DEPOSIT", "ACCOUNT", "ACC123456");
+        march.setTimestamp(LocalDateTime.of(2024, 3, 31, 23, 59));
+
+        // When
+        auditBuckets.insert(List.of(april, march));
+        auditBuckets.insert(List.of(april));
+
+        // Then
+        verify(mongoTemplate, times(1)).indexOps("audit_logs_2024_04");
+        verify(mongoTemplate, never()).indexOps("audit_logs_2024_03");
+        verify(mongoTemplate, times(2)).insert(List.of(april), "audit_logs_2024_04");
+        verify(mongoTemplate).insert(List.of(march), "audit_logs_2024_03");
+        assertThat(auditBuckets.allBuckets()).endsWith("audit_logs_2024_04");
+    }
+
+    @Test
+    @DisplayName("Should drop buckets past retention and trim the bucket of the cutoff month")
+    void testExpireBefore() {
+        // When
+        List<String> dropped = auditBuckets.expireBefore(LocalDateTime.of(2024, 2, 15, 0, 0));
+
+        // Then
+        assertThat(dropped).containsExactly("audit_logs_2024_01");
+        verify(mongoTemplate).dropCollection("audit_logs_2024_01");
+        verify(mongoTemplate, never()).dropCollection("audit_logs_2024_02");
+        verify(mongoTemplate).remove(any(Query.class), eq("audit_logs_2024_02"));
+        assertThat(auditBuckets.allBuckets()).containsExactly("audit_logs_2024_02", "audit_logs_2024_03");
+    }
+}
@@ -0,0 +1,154 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.service.AuditStatistics;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Audit Statistics Unit Tests")
+class AuditStatisticsTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private MongoCollection<Document> counters;
+
+    @Mock
+    private AggregateIterable<Document> aggregation;
+
+    @Mock
+    private IndexOperations indexOperations;
+
+    @Mock
+    private AuditBuckets auditBuckets;
+
+    private final AuditStatistics auditStatistics = new AuditStatistics();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(auditStatistics, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(auditStatistics, "auditBuckets", auditBuckets);
+    }
+
+    private AuditLog log(String action, boolean success, LocalDateTime timestamp) {
+        AuditLog auditLog = new AuditLog("A" + System.nanoTime(), "USER001", action, "ACCOUNT", "ACC123456");
+        auditLog.setTimestamp(timestamp);
+        if (success) {
+            auditLog.markAsSuccess("ok");
+        } else {
+            auditLog.markAsFailure("failed");
+        }
+        return auditLog;
+    }
+
+    @Test
+    @DisplayName("Should add a batch to the hourly counters with one $inc upsert per distinct counter")
+    void shouldIncrementHourlyCounters() {
+        // Given
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq("audit_counters"))).thenReturn(bulkOperations);
+        LocalDateTime hour = LocalDateTime.of(2024, 3, 1, 10, 0);
+
+        // When
+        auditStatistics.record(List.of(
+                log("DEPOSIT", true, hour.plusMinutes(5)),
+                log("DEPOSIT", true, hour.plusMinutes(55)),
+                log("DEPOSIT", false, hour.plusMinutes(56)),
+                log("DEPOSIT", true, hour.plusMinutes(61))));
+
+        // Then
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(bulkOperations, times(3)).upsert(any(Query.class), updates.capture());
+        assertThat(updates.getAllValues())
+                .extracting(update -> update.getUpdateObject().get("$inc", Document.class).get("count"))
+                .containsExactly(2L, 1L, 1L);
+        verify(bulkOperations).execute();
+    }
+
+    @Test
+    @DisplayName("Should redo a rebuild that never completed, with its original cutoff")
+    @SuppressWarnings("unchecked")
+    void shouldRedoInterruptedRebuild() {
+        // Given - a crash after some buckets were merged left the marker incomplete
+        LocalDateTime cutoff = LocalDateTime.of(2024, 3, 1, 9, 30);
+        Date storedCutoff = Date.from(cutoff.atZone(ZoneId.systemDefault()).toInstant());
+        when(mongoTemplate.indexOps("audit_counters")).thenReturn(indexOperations);
+        when(mongoTemplate.findById("rebuild", Document.class, "audit_counters_state"))
+                .thenReturn(new Document("_id", "rebuild").append("cutoff", storedCutoff).append("completed", false));
+        when(auditBuckets.bucketsFor(null, cutoff)).thenReturn(List.of("audit_logs_2024_02", "audit_logs_2024_03"));
+        when(mongoTemplate.getCollection(startsWith("audit_logs_"))).thenReturn(counters);
+        when(counters.aggregate(anyList())).thenReturn(aggregation);
+
+        // When
+        auditStatistics.init();
+
+        // Then - counts are set, not added, so merging a bucket twice is harmless
+        ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(counters, times(2)).aggregate(pipeline.capture());
+        Document merge = pipeline.getValue().get(2).get("$merge", Document.class);
+        assertThat(merge.getList("whenMatched", Document.class).get(0).get("$set", Document.class))
+                .containsEntry("rebuilt", "$$new.rebuilt");
+        verify(aggregation, times(2)).toCollection();
+        ArgumentCaptor<Update> marker = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(2)).upsert(any(Query.class), marker.capture(), eq("audit_counters_state"));
+        assertThat(marker.getAllValues()).extracting(update -> update.getUpdateObject().get("$set", Document.class))
+                .extracting(set -> set.get("completed"), set -> set.get("cutoff"))
+                .containsExactly(tuple(false, storedCutoff), tuple(true, storedCutoff));
+    }
+
+    @Test
+    @DisplayName("Should answer statistics from one aggregation over the counters")
+    @SuppressWarnings("unchecked")
+    void shouldAggregateCounters() {
+        // Given
+        when(mongoTemplate.getCollection("audit_counters")).thenReturn(counters);
+        when(counters.aggregate(anyList())).thenReturn(aggregation);
+        when(aggregation.first()).thenReturn(new Document()
+                .append("byResult", List.of(new Document("_id", "SUCCESS").append("count", 90L),
+                        new Document("_id", "FAILURE").append("count", 10)))
+                .append("byAction", List.of(new Document("_id", "DEPOSIT").append("count", 100L)))
+                .append("byEntityType", List.of(new Document("_id", "ACCOUNT").append("count", 100L))));
+
+        // When
+        Map<String, Object> stats = auditStatistics.getStats(LocalDateTime.of(2024, 3, 1, 0, 0), null);
+
+        // Then
+        assertThat(stats).containsEntry("totalLogs", 100L)
+                .containsEntry("successLogs", 90L)
+                .containsEntry("failureLogs", 10L)
+                .containsEntry("actionCounts", Map.of("DEPOSIT", 100L));
+        ArgumentCaptor<List<Document>> pipeline = ArgumentCaptor.forClass(List.class);
+        verify(counters).aggregate(pipeline.capture());
+        assertThat(pipeline.getValue()).hasSize(2);
+        assertThat(pipeline.getValue().get(0).get("$match", Document.class)).containsKey("_id.hour");
+    }
+}
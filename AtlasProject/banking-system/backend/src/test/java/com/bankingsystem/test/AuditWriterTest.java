@@ -0,0 +1,193 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.service.AuditStatistics;
+import com.bankingsystem.service.AuditWriter;
+import com.bankingsystem.service.DynamoBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Audit Writer Unit Tests")
+class AuditWriterTest {
+
+    @Mock
+    private AuditBuckets auditBuckets;
+
+    @Mock
+    private DynamoBatchWriter dynamoBatchWriter;
+
+    @Mock
+    private AuditStatistics auditStatistics;
+
+    private final AuditWriter writer = new AuditWriter();
+    private boolean started;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "auditBuckets", auditBuckets);
+        ReflectionTestUtils.setField(writer, "dynamoBatchWriter", dynamoBatchWriter);
+        ReflectionTestUtils.setField(writer, "auditStatistics", auditStatistics);
+        ReflectionTestUtils.setField(writer, "dynamoTableName", "BankingAuditLogs");
+        ReflectionTestUtils.setField(writer, "queueCapacity", 100);
+        ReflectionTestUtils.setField(writer, "enqueueTimeoutMillis", 1L);
+        ReflectionTestUtils.setField(writer, "mongoMaxRetries", 3);
+        ReflectionTestUtils.setField(writer, "mongoBackoffBaseMillis", 1L);
+        lenient().when(dynamoBatchWriter.putAllAsync(anyString(), anyList()))
+                .thenReturn(CompletableFuture.completedFuture(0));
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (started) {
+            writer.stop();
+        }
+    }
+
+    private void start(int batchSize, long flushIntervalMillis) {
+        ReflectionTestUtils.setField(writer, "batchSize", batchSize);
+        ReflectionTestUtils.setField(writer, "flushIntervalMillis", flushIntervalMillis);
+        writer.start();
+        started = true;
+    }
+
+    private AuditLog event(int i) {
+        return new AuditLog("ACT" + i, "USER1", "DEPOSIT", "ACCOUNT", "ACC" + i);
+    }
+
+    private List<AuditLog> events(int count) {
+        return IntStream.range(0, count).mapToObj(this::event).toList();
+    }
+
+    private void flush(List<AuditLog> batch) {
+        ReflectionTestUtils.invokeMethod(writer, "flush", batch);
+    }
+
+    @Test
+    @DisplayName("Should flush a batch as soon as it is full")
+    void testFlushOnBatchSize() {
+        // Given - an interval far longer than the test
+        start(3, 60_000);
+
+        // When
+        events(3).forEach(writer::submit);
+
+        // Then
+        verify(auditBuckets, timeout(5000)).insert(argThat(batch -> batch.size() == 3));
+        verify(auditStatistics, timeout(5000)).record(argThat(batch -> batch.size() == 3));
+        verify(dynamoBatchWriter, timeout(5000)).putAllAsync(eq("BankingAuditLogs"), argThat(items -> items.size() == 3));
+    }
+
+    @Test
+    @DisplayName("Should flush a partial batch once the flush interval elapses")
+    void testFlushOnInterval() {
+        // Given
+        start(100, 50);
+
+        // When
+        events(2).forEach(writer::submit);
+
+        // Then
+        verify(auditBuckets, timeout(5000)).insert(argThat(batch -> batch.size() == 2));
+        assertThat(writer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should write the event on the caller's thread when the queue is full")
+    void testInlineFlushWhenQueueFull() {
+        // Given - a full buffer and no writer thread draining it
+        BlockingQueue<AuditLog> queue = new ArrayBlockingQueue<>(1);
+        queue.add(event(0));
+        ReflectionTestUtils.setField(writer, "queue", queue);
+        AuditLog overflow = event(1);
+
+        // When
+        writer.submit(overflow);
+
+        // Then
+        verify(auditBuckets).insert(List.of(overflow));
+        verify(auditStatistics).record(List.of(overflow));
+        assertThat(writer.getStats()).containsEntry("backpressureFlushes", 1L);
+        assertThat(queue).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should retry a failed MongoDB insert before counting it")
+    void testRetriesMongoFailure() {
+        // Given
+        ReflectionTestUtils.setField(writer, "queue", new ArrayBlockingQueue<>(1));
+        List<AuditLog> batch = events(3);
+        doThrow(new DataAccessResourceFailureException("primary stepped down"))
+                .doNothing()
+                .when(auditBuckets).insert(batch);
+
+        // When
+        flush(batch);
+
+        // Then
+        verify(auditBuckets, times(2)).insert(batch);
+        verify(auditStatistics).record(batch);
+        assertThat(writer.getStats())
+                .containsEntry("mongoRetries", 1L)
+                .containsEntry("mongoFailures", 0L);
+    }
+
+    @Test
+    @DisplayName("Should count events as failed only after retries run out")
+    void testMongoFailureAfterRetries() {
+        // Given
+        ReflectionTestUtils.setField(writer, "queue", new ArrayBlockingQueue<>(1));
+        List<AuditLog> batch = events(3);
+        doThrow(new DataAccessResourceFailureException("no primary")).when(auditBuckets).insert(batch);
+
+        // When
+        flush(batch);
+
+        // Then - first attempt plus three retries, and nothing added to the counters
+        verify(auditBuckets, times(4)).insert(batch);
+        verify(auditStatistics, never()).record(anyList());
+        assertThat(writer.getStats())
+                .containsEntry("mongoRetries", 3L)
+                .containsEntry("mongoFailures", 3L);
+    }
+
+    @Test
+    @DisplayName("Should keep events a failed attempt already stored")
+    void testPartiallyStoredBatch() {
+        // Given - the first insert stored ACT0 and then failed
+        ReflectionTestUtils.setField(writer, "queue", new ArrayBlockingQueue<>(1));
+        List<AuditLog> batch = events(3);
+        doThrow(new DataAccessResourceFailureException("connection reset"))
+                .doThrow(new DuplicateKeyException("E11000 actionId ACT0"))
+                .when(auditBuckets).insert(batch);
+        doThrow(new DuplicateKeyException("E11000 actionId ACT0")).when(auditBuckets).insert(List.of(batch.get(0)));
+
+        // When
+        flush(batch);
+
+        // Then - every event is counted exactly once
+        verify(auditBuckets).insert(List.of(batch.get(1)));
+        verify(auditBuckets).insert(List.of(batch.get(2)));
+        verify(auditStatistics).record(batch);
+        assertThat(writer.getStats()).containsEntry("mongoFailures", 0L);
+    }
+}
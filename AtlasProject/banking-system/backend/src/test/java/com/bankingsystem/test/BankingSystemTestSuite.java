@@ -8,7 +8,30 @@ import org.junit.platform.suite.api.SuiteDisplayName;
 @SuiteDisplayName("Banking System Test Suite")
 @SelectClasses({
     DepositServiceTest.class,
-    TransferServiceTest.class
+    TransferServiceTest.class,
+    AccountLockManagerTest.class,
+    IdGeneratorTest.class,
+    NearCacheTest.class,
+    LedgerEngineTest.class,
+    TransactionJournalTest.class,
+    SettlementEngineTest.class,
+    DurableSettlementQueueTest.class,
+    NettingStageTest.class,
+    UndoRedoStackTest.class,
+    CompensationServiceTest.class,
+    TransactionPaginationTest.class,
+    TransactionReferenceResolverTest.class,
+    AuditStatisticsTest.class,
+    ExportServiceTest.class,
+    DataSyncServiceTest.class,
+    ChangeStreamReplicatorTest.class,
+    DynamoBatchWriterTest.class,
+    AuditBucketsTest.class,
+    AuditArchiveTest.class,
+    AccountStateTableTest.class,
+    OperationMetricsTest.class,
+    BatchTransactionServiceTest.class,
+    AuditWriterTest.class
 })
 public class BankingSystemTestSuite {
     // Test suite runner
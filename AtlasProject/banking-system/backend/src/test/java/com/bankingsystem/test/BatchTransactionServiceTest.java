@@ -0,0 +1,287 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.BatchTransactionService;
+import com.bankingsystem.service.WithdrawService;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
+import com.bankingsystem.util.UndoRedoStack;
+import com.mongodb.bulk.BulkWriteResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Batch Transaction Service Unit Tests")
+class BatchTransactionServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private UndoRedoStack undoRedoStack;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private BulkOperations accountUpdates;
+
+    @Mock
+    private BulkOperations transactionInserts;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16, 1000);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @Spy
+    private EntityCacheManager entityCacheManager = new EntityCacheManager(100, 60000, 100, 60000);
+
+    @InjectMocks
+    private BatchTransactionService batchTransactionService;
+
+    @TempDir
+    Path directory;
+
+    private AccountStateTable accountStateTable;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(batchTransactionService, "maxBatchSize", 100);
+        ReflectionTestUtils.setField(batchTransactionService, "maxLockedAccounts", 256);
+        accountStateTable = new AccountStateTable(true, directory.toString(), 64, 10, true);
+        accountStateTable.open();
+        ReflectionTestUtils.setField(batchTransactionService, "accountStateTable", accountStateTable);
+    }
+
+    @AfterEach
+    void tearDown() {
+        accountStateTable.close();
+    }
+
+    private Account account(String accountNumber, String balance) {
+        Account account = new Account();
+        account.setId("id-" + accountNumber);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(3L);
+        return account;
+    }
+
+    private BatchTransactionService.BatchPosting posting(Transaction.TransactionType type, String accountNumber,
+                                                         String destination, String amount) {
+        BatchTransactionService.BatchPosting posting = new BatchTransactionService.BatchPosting();
+        posting.setType(type);
+        posting.setAccountNumber(accountNumber);
+        posting.setDestinationAccountNumber(destination);
+        posting.setAmount(new BigDecimal(amount));
+        posting.setDescription("Batch posting");
+        return posting;
+    }
+
+    private void stubAccounts(Account... accounts) {
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(accounts));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Transaction.class))).thenReturn(transactionInserts);
+    }
+
+    private List<BatchTransactionService.BatchPosting> depositAndTransfer() {
+        return List.of(
+                posting(Transaction.TransactionType.DEPOSIT, "ACC123456", null, "500"),
+                posting(Transaction.TransactionType.TRANSFER, "ACC123456", "ACC123457", "200"));
+    }
+
+    @Test
+    @DisplayName("Should record the transactions before moving balances and complete them afterwards")
+    void shouldApplyBatch() {
+        // Given
+        stubAccounts(account("ACC123456", "1000"), account("ACC123457", "100"));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(accountUpdates);
+        when(accountUpdates.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2);
+
+        // When
+        BatchTransactionService.BatchResult result = batchTransactionService.processBatch("B1", depositAndTransfer(), "USER1");
+
+        // Then
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getResults().get(1).getBalance()).isEqualByComparingTo("1300");
+        InOrder order = inOrder(transactionInserts, accountUpdates, mongoTemplate);
+        order.verify(transactionInserts).execute();
+        order.verify(accountUpdates).execute();
+        ArgumentCaptor<Update> completion = ArgumentCaptor.forClass(Update.class);
+        order.verify(mongoTemplate).updateMulti(any(Query.class), completion.capture(), eq(Transaction.class));
+        assertThat(completion.getValue().getUpdateObject().get("$set", Document.class).get("status"))
+                .isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        verify(undoRedoStack, times(3)).pushUndo(anyString(), any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("Should drop stale account states, so a withdrawal of the deposited funds passes pre-validation")
+    void shouldNotLeaveStaleAccountState() {
+        // Given
+        Account before = account("ACC123456", "100");
+        accountStateTable.put(before);
+        stubAccounts(before);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(accountUpdates);
+        when(accountUpdates.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        batchTransactionService.processBatch("B5",
+                List.of(posting(Transaction.TransactionType.DEPOSIT, "ACC123456", null, "500")), "USER1");
+
+        AccountRepository accountRepository = mock(AccountRepository.class);
+        Account after = account("ACC123456", "300");
+        when(accountRepository.debitBalance("ACC123456", new BigDecimal("300"))).thenReturn(Optional.of(after));
+        WithdrawService withdrawService = new WithdrawService();
+        ReflectionTestUtils.setField(withdrawService, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(withdrawService, "transactionRepository", mock(TransactionRepository.class));
+        ReflectionTestUtils.setField(withdrawService, "auditService", auditService);
+        ReflectionTestUtils.setField(withdrawService, "undoRedoStack", undoRedoStack);
+        ReflectionTestUtils.setField(withdrawService, "accountLockManager", accountLockManager);
+        ReflectionTestUtils.setField(withdrawService, "idGenerator", idGenerator);
+        ReflectionTestUtils.setField(withdrawService, "ledgerEngine", ledgerEngine);
+        ReflectionTestUtils.setField(withdrawService, "operationMetrics", new OperationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(withdrawService, "accountStateTable", accountStateTable);
+
+        // When
+        Transaction withdrawal = withdrawService.processWithdrawal("ACC123456", new BigDecimal("300"), "Rent", "USER1");
+
+        // Then
+        assertThat(withdrawal.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        verify(accountRepository).debitBalance("ACC123456", new BigDecimal("300"));
+    }
+
+    @Test
+    @DisplayName("Should fail only the bad posting and apply the rest")
+    void shouldFailBadPostingOnly() {
+        // Given
+        stubAccounts(account("ACC123456", "100"));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(accountUpdates);
+        when(accountUpdates.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+        List<BatchTransactionService.BatchPosting> postings = List.of(
+                posting(Transaction.TransactionType.WITHDRAWAL, "ACC123456", null, "40"),
+                posting(Transaction.TransactionType.WITHDRAWAL, "ACC123456", null, "500"),
+                posting(Transaction.TransactionType.DEPOSIT, "ACC999999", null, "10"),
+                posting(Transaction.TransactionType.DEPOSIT, "ACC123456", null, "-5"));
+
+        // When
+        BatchTransactionService.BatchResult result = batchTransactionService.processBatch("B2", postings, "USER1");
+
+        // Then
+        assertThat(result.getResults()).extracting(BatchTransactionService.BatchItemResult::isSuccess)
+                .containsExactly(true, false, false, false);
+        assertThat(result.getResults().get(1).getMessage()).contains("Insufficient balance");
+        assertThat(result.getResults().get(2).getMessage()).contains("Account not found");
+        assertThat(result.getResults().get(3).getMessage()).contains("greater than zero");
+        verify(transactionInserts).insert(argThat((List<? extends Object> inserted) -> inserted.size() == 1));
+    }
+
+    @Test
+    @DisplayName("Should revert landed updates by their tag and fail the transactions on a version conflict")
+    void shouldRevertOnVersionConflict() {
+        // Given
+        stubAccounts(account("ACC123456", "1000"), account("ACC123457", "100"));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(accountUpdates);
+        when(accountUpdates.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+
+        // When & Then
+        assertThatThrownBy(() -> batchTransactionService.processBatch("B3", depositAndTransfer(), "USER1"))
+                .hasMessageContaining("modified concurrently");
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(accountUpdates, times(4)).updateOne(queries.capture(), any(Update.class));
+        assertThat(queries.getAllValues().subList(2, 4)).allSatisfy(revert ->
+                assertThat(revert.getQueryObject().toJson()).contains("\"appliedBatchIds\": \"BAT"));
+        ArgumentCaptor<Update> failure = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateMulti(any(Query.class), failure.capture(), eq(Transaction.class));
+        assertThat(failure.getValue().getUpdateObject().get("$set", Document.class).get("status"))
+                .isEqualTo(Transaction.TransactionStatus.FAILED);
+        verify(undoRedoStack, never()).pushUndo(anyString(), any(Transaction.class));
+        verify(auditService).logFailure(eq("USER1"), eq("BATCH_POSTING"), eq("BATCH"), eq("B3"), anyString(), anyString());
+    }
+
+    @Test
+    @DisplayName("Should lock a large batch in sub-batches and fail only the sub-batch that is rejected")
+    void shouldApplyInSubBatches() {
+        // Given - at most two accounts locked at a time, and the second sub-batch hits a conflict
+        ReflectionTestUtils.setField(batchTransactionService, "maxLockedAccounts", 2);
+        when(mongoTemplate.find(any(Query.class), eq(Account.class)))
+                .thenReturn(List.of(account("ACC123456", "1000"), account("ACC123457", "100")))
+                .thenReturn(List.of(account("ACC123458", "50")));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Transaction.class))).thenReturn(transactionInserts);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(accountUpdates);
+        when(accountUpdates.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2, 0);
+        List<BatchTransactionService.BatchPosting> postings = List.of(
+                posting(Transaction.TransactionType.DEPOSIT, "ACC123456", null, "500"),
+                posting(Transaction.TransactionType.TRANSFER, "ACC123456", "ACC123457", "200"),
+                posting(Transaction.TransactionType.DEPOSIT, "ACC123458", null, "10"));
+
+        // When
+        BatchTransactionService.BatchResult result = batchTransactionService.processBatch("B5", postings, "USER1");
+
+        // Then
+        assertThat(result.getSucceeded()).isEqualTo(2);
+        assertThat(result.getResults().get(2).isSuccess()).isFalse();
+        assertThat(result.getResults().get(2).getMessage()).contains("modified concurrently");
+        verify(mongoTemplate, times(2)).find(any(Query.class), eq(Account.class));
+        verify(undoRedoStack, times(3)).pushUndo(anyString(), any(Transaction.class));
+        assertThat(accountLockManager.getStats()).containsEntry("currentlyHeld", 0L);
+    }
+
+    @Test
+    @DisplayName("Should remove inserted transactions and leave balances alone when the insert fails")
+    void shouldNotTouchBalancesWhenInsertFails() {
+        // Given
+        stubAccounts(account("ACC123456", "1000"), account("ACC123457", "100"));
+        when(transactionInserts.execute()).thenThrow(new RuntimeException("E11000 duplicate key"));
+
+        // When & Then
+        assertThatThrownBy(() -> batchTransactionService.processBatch("B4", depositAndTransfer(), "USER1"))
+                .hasMessageContaining("could not be recorded");
+        verify(mongoTemplate).remove(any(Query.class), eq(Transaction.class));
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class));
+        verify(undoRedoStack, never()).pushUndo(anyString(), any(Transaction.class));
+    }
+}
@@ -0,0 +1,162 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.bankingsystem.service.ChangeStreamReplicator;
+import com.bankingsystem.service.DataSyncService;
+import com.bankingsystem.service.DynamoBatchWriter;
+import com.mongodb.MongoNamespace;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.BsonString;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Change Stream Replicator Unit Tests")
+class ChangeStreamReplicatorTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionReferenceResolver referenceResolver;
+
+    @Mock
+    private DynamoBatchWriter dynamoBatchWriter;
+
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    private final DataSyncService dataSyncService = new DataSyncService();
+    private final ChangeStreamReplicator replicator = new ChangeStreamReplicator();
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        lenient().when(mongoTemplate.getConverter()).thenReturn(converter);
+
+        ReflectionTestUtils.setField(dataSyncService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(dataSyncService, "referenceResolver", referenceResolver);
+        ReflectionTestUtils.setField(dataSyncService, "dynamoBatchWriter", dynamoBatchWriter);
+        ReflectionTestUtils.setField(dataSyncService, "dynamoDbAsyncClient", dynamoDbAsyncClient);
+
+        ReflectionTestUtils.setField(replicator, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(replicator, "dataSyncService", dataSyncService);
+        ReflectionTestUtils.setField(replicator, "windowMillis", 500L);
+        ReflectionTestUtils.setField(replicator, "maxBatch", 1000);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ChangeStreamDocument<Document> event(OperationType type, String id, Document fullDocument) {
+        ChangeStreamDocument<Document> event = mock(ChangeStreamDocument.class);
+        when(event.getNamespace()).thenReturn(new MongoNamespace("banking_system", "customers"));
+        when(event.getDocumentKey()).thenReturn(new BsonDocument("_id", new BsonString(id)));
+        when(event.getOperationType()).thenReturn(type);
+        lenient().when(event.getFullDocument()).thenReturn(fullDocument);
+        lenient().when(event.getClusterTime()).thenReturn(new BsonTimestamp((int) (System.currentTimeMillis() / 1000), 1));
+        return event;
+    }
+
+    private Document customer(String id, String city) {
+        return new Document("_id", id).append("firstName", "Asha").append("lastName", "Sharma").append("city", city);
+    }
+
+    private void accept(ChangeStreamDocument<Document> event) {
+        ReflectionTestUtils.invokeMethod(replicator, "accept", event);
+    }
+
+    private boolean flush() {
+        return Boolean.TRUE.equals(ReflectionTestUtils.invokeMethod(replicator, "flush"));
+    }
+
+    @Test
+    @DisplayName("Should coalesce updates per document and write only the latest version")
+    @SuppressWarnings("unchecked")
+    void testCoalescesPerDocument() {
+        // Given
+        accept(event(OperationType.INSERT, "C1", customer("C1", "Pune")));
+        accept(event(OperationType.UPDATE, "C1", customer("C1", "Mumbai")));
+        accept(event(OperationType.UPDATE, "C2", customer("C2", "Delhi")));
+        when(dynamoBatchWriter.putAllAsync(eq("BankingCustomers"), anyList())).thenReturn(completedFuture(0));
+
+        // When
+        boolean flushed = flush();
+
+        // Then
+        ArgumentCaptor<List<Map<String, AttributeValue>>> items = ArgumentCaptor.forClass(List.class);
+        verify(dynamoBatchWriter).putAllAsync(eq("BankingCustomers"), items.capture());
+        assertThat(flushed).isTrue();
+        assertThat(items.getValue()).extracting(item -> item.get("city").s()).containsExactly("Mumbai", "Delhi");
+        assertThat(replicator.getStats())
+                .containsEntry("eventsReceived", 3L)
+                .containsEntry("eventsCoalesced", 1L)
+                .containsEntry("itemsWritten", 2L)
+                .containsEntry("flushes", 1L);
+    }
+
+    @Test
+    @DisplayName("Should keep changes pending when a batch write fails and report the lag")
+    void testFailedFlushKeepsPending() {
+        // Given
+        accept(event(OperationType.UPDATE, "C1", customer("C1", "Pune")));
+        when(dynamoBatchWriter.putAllAsync(eq("BankingCustomers"), anyList())).thenReturn(completedFuture(1), completedFuture(0));
+
+        // When
+        boolean first = flush();
+        long lagWhilePending = (Long) replicator.getStats().get("replicationLagMs");
+        boolean second = flush();
+
+        // Then
+        assertThat(first).isFalse();
+        assertThat(second).isTrue();
+        assertThat(lagWhilePending).isGreaterThanOrEqualTo(0);
+        verify(dynamoBatchWriter, times(2)).putAllAsync(eq("BankingCustomers"), anyList());
+        assertThat(replicator.getStats()).containsEntry("failedFlushes", 1L).containsEntry("flushes", 1L);
+    }
+
+    @Test
+    @DisplayName("Should drop a pending document that is deleted within the window")
+    void testDeleteDropsPendingDocument() {
+        // Given
+        accept(event(OperationType.INSERT, "C1", customer("C1", "Pune")));
+        accept(event(OperationType.DELETE, "C1", null));
+
+        // When
+        boolean flushed = flush();
+
+        // Then
+        assertThat(flushed).isTrue();
+        verifyNoInteractions(dynamoBatchWriter);
+        assertThat(replicator.getStats()).containsEntry("deletesSkipped", 1L);
+    }
+}
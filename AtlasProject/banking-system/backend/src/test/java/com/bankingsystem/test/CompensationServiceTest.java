@@ -0,0 +1,181 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.CompensationService;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.UndoRedoStack;
+import com.mongodb.client.result.UpdateResult;
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Compensation Service Unit Tests")
+class CompensationServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    private final UndoRedoStack undoRedoStack = new UndoRedoStack(20, Long.MAX_VALUE);
+
+    private CompensationService compensationService;
+
+    @BeforeEach
+    void setUp() {
+        compensationService = new CompensationService(4, 10000);
+        ReflectionTestUtils.setField(compensationService, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(compensationService, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(compensationService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(compensationService, "auditService", auditService);
+        ReflectionTestUtils.setField(compensationService, "undoRedoStack", undoRedoStack);
+        ReflectionTestUtils.setField(compensationService, "accountLockManager", new AccountLockManager(16, 1000));
+        ReflectionTestUtils.setField(compensationService, "idGenerator", new IdGenerator(1));
+        ReflectionTestUtils.setField(compensationService, "ledgerEngine", ledgerEngine);
+        compensationService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        compensationService.stop();
+    }
+
+    private Account account(String accountNumber, String balance) {
+        Account account = new Account();
+        account.setId("id-" + accountNumber);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        account.setStatus(Account.AccountStatus.ACTIVE);
+        return account;
+    }
+
+    private Transaction completed(String transactionId, Transaction.TransactionType type, String amount,
+                                  String source, String destination) {
+        Transaction transaction = new Transaction(transactionId, type, new BigDecimal(amount),
+                account(source, "0"), destination != null ? account(destination, "0") : null, "Posting");
+        transaction.markAsCompleted();
+        return transaction;
+    }
+
+    private UpdateResult modified(long count) {
+        return UpdateResult.acknowledged(count, count, null);
+    }
+
+    @Test
+    @DisplayName("Should undo a transfer with a compensating transfer and mark the original reversed")
+    void shouldUndoTransfer() {
+        // Given
+        Transaction original = completed("TRF1", Transaction.TransactionType.TRANSFER, "300.00", "ACC123456", "ACC123457");
+        undoRedoStack.pushUndo("id-ACC123456", original);
+        when(transactionRepository.findByTransactionId("TRF1")).thenReturn(Optional.empty());
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Transaction.class))).thenReturn(modified(1));
+        when(accountRepository.debitBalance("ACC123457", new BigDecimal("300.00")))
+                .thenReturn(Optional.of(account("ACC123457", "200.00")));
+        when(accountRepository.creditBalance("ACC123456", new BigDecimal("300.00")))
+                .thenReturn(Optional.of(account("ACC123456", "1300.00")));
+
+        // When
+        Transaction compensation = compensationService.undoLast("id-ACC123456", "USER001");
+
+        // Then
+        assertThat(compensation.getType()).isEqualTo(Transaction.TransactionType.TRANSFER);
+        assertThat(compensation.getSourceAccount().getAccountNumber()).isEqualTo("ACC123457");
+        assertThat(compensation.getDestinationAccount().getAccountNumber()).isEqualTo("ACC123456");
+        assertThat(compensation.getRelatedTransactionId()).isEqualTo("TRF1");
+        assertThat(original.getStatus()).isEqualTo(Transaction.TransactionStatus.REVERSED);
+        assertThat(undoRedoStack.canUndo("id-ACC123456")).isFalse();
+        assertThat(undoRedoStack.peekRedo("id-ACC123456")).isSameAs(original);
+        verify(transactionRepository).save(compensation);
+    }
+
+    @Test
+    @DisplayName("Should not compensate a posting that was already reversed by someone else")
+    void shouldRejectDoubleReversal() {
+        // Given
+        Transaction original = completed("DEP1", Transaction.TransactionType.DEPOSIT, "100.00", "ACC123456", null);
+        Transaction stored = completed("DEP1", Transaction.TransactionType.DEPOSIT, "100.00", "ACC123456", null);
+        stored.markAsReversed("Reversed by user USER002");
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Transaction.class))).thenReturn(modified(0));
+        when(transactionRepository.findByTransactionId("DEP1")).thenReturn(Optional.of(stored));
+
+        // When / Then
+        assertThatThrownBy(() -> compensationService.reverse(original, "USER001"))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("already reversed");
+        verify(accountRepository, never()).debitBalance(anyString(), any(BigDecimal.class));
+        verify(transactionRepository, never()).save(any(Transaction.class));
+    }
+
+    @Test
+    @DisplayName("Should undo a batch across accounts and hand back postings that cannot be undone")
+    void shouldUndoBatch() {
+        // Given
+        Transaction deposit = completed("DEP1", Transaction.TransactionType.DEPOSIT, "100.00", "ACC123456", null);
+        Transaction withdrawal = completed("WTH1", Transaction.TransactionType.WITHDRAWAL, "50.00", "ACC123457", null);
+        Transaction spent = completed("DEP2", Transaction.TransactionType.DEPOSIT, "500.00", "ACC123458", null);
+        Transaction failed = completed("DEP3", Transaction.TransactionType.DEPOSIT, "10.00", "ACC123459", null);
+        failed.markAsFailed("Rejected");
+        when(transactionRepository.findByBatchIdOrderByTransactionDateAscTransactionIdAsc("BATCH1")).thenReturn(List.of(deposit, withdrawal, spent, failed));
+        when(mongoTemplate.updateFirst(any(Query.class), any(Update.class), eq(Transaction.class))).thenReturn(modified(1));
+        when(accountRepository.debitBalance(eq("ACC123456"), any(BigDecimal.class)))
+                .thenReturn(Optional.of(account("ACC123456", "0.00")));
+        when(accountRepository.creditBalance(eq("ACC123457"), any(BigDecimal.class)))
+                .thenReturn(Optional.of(account("ACC123457", "50.00")));
+        when(accountRepository.debitBalance(eq("ACC123458"), any(BigDecimal.class))).thenReturn(Optional.empty());
+        when(accountRepository.findByAccountNumber("ACC123458")).thenReturn(Optional.of(account("ACC123458", "20.00")));
+
+        // When
+        CompensationService.BatchUndoResult result = compensationService.undoBatch("BATCH1", "USER001");
+
+        // Then: the deposit to ACC123458 has already been spent
+        assertThat(result.getTotal()).isEqualTo(4);
+        assertThat(result.getReversed()).isEqualTo(2);
+        assertThat(result.getSkipped()).isEqualTo(1);
+        assertThat(result.getFailed()).containsOnlyKeys("DEP2");
+        assertThat(result.getFailed().get("DEP2")).contains("Insufficient balance");
+        assertThat(spent.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+
+        // Three claims plus handing DEP2 back
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(4)).updateFirst(any(Query.class), updates.capture(), eq(Transaction.class));
+        assertThat(updates.getAllValues()).filteredOn(update ->
+                update.getUpdateObject().get("$set", Document.class).get("status") == Transaction.TransactionStatus.COMPLETED)
+                .hasSize(1);
+        verify(transactionRepository, times(2)).save(any(Transaction.class));
+    }
+}
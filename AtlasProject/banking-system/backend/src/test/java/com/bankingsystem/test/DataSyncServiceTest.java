@@ -0,0 +1,182 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.bankingsystem.service.DataSyncService;
+import com.bankingsystem.service.DynamoBatchWriter;
+import com.bankingsystem.util.OperationMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Data Sync Service Unit Tests")
+class DataSyncServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionReferenceResolver referenceResolver;
+
+    @Mock
+    private DynamoBatchWriter dynamoBatchWriter;
+
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    @Mock
+    private AuditBuckets auditBuckets;
+
+    private final DataSyncService dataSyncService = new DataSyncService();
+
+    private final Date lastChange = new Date(System.currentTimeMillis() - 60_000);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(dataSyncService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(dataSyncService, "referenceResolver", referenceResolver);
+        ReflectionTestUtils.setField(dataSyncService, "dynamoBatchWriter", dynamoBatchWriter);
+        ReflectionTestUtils.setField(dataSyncService, "dynamoDbAsyncClient", dynamoDbAsyncClient);
+        ReflectionTestUtils.setField(dataSyncService, "auditBuckets", auditBuckets);
+        ReflectionTestUtils.setField(dataSyncService, "operationMetrics", new OperationMetrics(new SimpleMeterRegistry()));
+        ReflectionTestUtils.setField(dataSyncService, "pageSize", 1000);
+        ReflectionTestUtils.setField(dataSyncService, "safetyLagMillis", 5000L);
+    }
+
+    private void useRealConverter() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+    }
+
+    private Document customer(ObjectId id, String firstName) {
+        return new Document("_id", id)
+                .append("firstName", firstName)
+                .append("lastName", "Sharma")
+                .append("email", firstName.toLowerCase() + "@example.com")
+                .append("updatedAt", lastChange);
+    }
+
+    private void stubPages(List<Document> customers) {
+        when(mongoTemplate.find(any(Query.class), eq(Document.class), anyString())).thenAnswer(invocation ->
+                "customers".equals(invocation.getArgument(2)) ? customers : List.of());
+    }
+
+    @Test
+    @DisplayName("Should write changed documents in batches and advance the high-water mark")
+    @SuppressWarnings("unchecked")
+    void testFirstSyncWritesAndCheckpoints() {
+        // Given
+        useRealConverter();
+        ObjectId last = new ObjectId();
+        stubPages(List.of(customer(new ObjectId(), "Asha"), customer(last, "Ravi")));
+        when(dynamoBatchWriter.putAllAsync(eq("BankingCustomers"), anyList())).thenReturn(completedFuture(0));
+
+        // When
+        Map<String, Object> results = dataSyncService.syncAllDataToDynamoDB();
+
+        // Then
+        ArgumentCaptor<List<Map<String, AttributeValue>>> items = ArgumentCaptor.forClass(List.class);
+        verify(dynamoBatchWriter).putAllAsync(eq("BankingCustomers"), items.capture());
+        assertThat(items.getValue()).extracting(item -> item.get("firstName").s()).containsExactly("Asha", "Ravi");
+        assertThat(items.getValue().get(1).get("customerId").s()).isEqualTo(last.toHexString());
+
+        ArgumentCaptor<Update> checkpoint = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).upsert(any(Query.class), checkpoint.capture(), eq("sync_checkpoints"));
+        Document set = (Document) checkpoint.getValue().getUpdateObject().get("$set");
+        assertThat(set.get("watermark")).isEqualTo(lastChange);
+        assertThat(set.get("lastId")).isEqualTo(last);
+        assertThat((Map<String, Object>) results.get("BankingCustomers")).containsEntry("itemsSynced", 2L);
+    }
+
+    @Test
+    @DisplayName("Should only query past the checkpoint and write nothing when unchanged")
+    void testResyncUnchangedIsFree() {
+        // Given
+        ObjectId lastId = new ObjectId();
+        when(mongoTemplate.findById(anyString(), eq(Document.class), eq("sync_checkpoints"))).thenAnswer(invocation ->
+                new Document("_id", invocation.getArgument(0)).append("watermark", lastChange).append("lastId", lastId));
+        stubPages(List.of());
+
+        // When
+        dataSyncService.syncAllDataToDynamoDB();
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Document.class), eq("customers"));
+        assertThat(query.getValue().getQueryObject().toJson()).contains("$gt").contains(lastId.toHexString());
+        assertThat(query.getValue().getLimit()).isEqualTo(1000);
+        verifyNoInteractions(dynamoBatchWriter, referenceResolver);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), anyString());
+    }
+
+    @Test
+    @DisplayName("Should read up to now when the caller already tails the change stream")
+    @SuppressWarnings("unchecked")
+    void testSyncWithoutSafetyLag() {
+        // Given
+        stubPages(List.of());
+        Date before = new Date();
+
+        // When
+        dataSyncService.syncAllDataToDynamoDB(0);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Document.class), eq("customers"));
+        List<Document> branches = (List<Document>) query.getValue().getQueryObject().get("$or");
+        Date upperBound = (Date) ((Document) branches.get(1).get("updatedAt")).get("$lt");
+        assertThat(upperBound).isAfterOrEqualTo(before);
+    }
+
+    @Test
+    @DisplayName("Should keep the previous checkpoint when items stay unprocessed")
+    @SuppressWarnings("unchecked")
+    void testFailedPageKeepsCheckpoint() {
+        // Given
+        useRealConverter();
+        stubPages(List.of(customer(new ObjectId(), "Asha"), customer(new ObjectId(), "Ravi")));
+        when(dynamoBatchWriter.putAllAsync(eq("BankingCustomers"), anyList())).thenReturn(completedFuture(1));
+
+        // When
+        Map<String, Object> results = dataSyncService.syncAllDataToDynamoDB();
+
+        // Then
+        assertThat((Map<String, Object>) results.get("BankingCustomers"))
+                .containsEntry("itemsFailed", 1L)
+                .containsEntry("itemsSynced", 1L);
+        verify(mongoTemplate, never()).upsert(any(Query.class), any(Update.class), anyString());
+    }
+}
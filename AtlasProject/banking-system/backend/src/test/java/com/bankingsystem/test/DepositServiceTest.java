@@ -1,5 +1,6 @@
 package com.bankingsystem.test;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Customer;
 import com.bankingsystem.model.Transaction;
@@ -8,13 +9,18 @@ import com.bankingsystem.repository.CustomerRepository;
 import com.bankingsystem.repository.TransactionRepository;
 import com.bankingsystem.service.AuditService;
 import com.bankingsystem.service.DepositService;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.UndoRedoStack;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -43,6 +49,18 @@ class DepositServiceTest {
     @Mock
     private AuditService auditService;
     
+    @Mock
+    private LedgerEngine ledgerEngine;
+    
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16, 1000);
+    
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+    
+    @Spy
+    private OperationMetrics operationMetrics = new OperationMetrics(new SimpleMeterRegistry());
+    
     @InjectMocks
     private DepositService depositService;
     
@@ -68,10 +86,8 @@ class DepositServiceTest {
         BigDecimal depositAmount = new BigDecimal("10000");
         String description = "Test deposit";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
+        when(accountRepository.creditBalance("ACC123456", depositAmount))
                 .thenReturn(Optional.of(testAccount));
-        when(accountRepository.save(any(Account.class)))
-                .thenReturn(testAccount);
         when(transactionRepository.save(any(Transaction.class)))
                 .thenReturn(new Transaction("TEST123", Transaction.TransactionType.DEPOSIT, 
                         depositAmount, testAccount, description));
@@ -91,8 +107,9 @@ class DepositServiceTest {
         assertThat(transaction.getDescription()).isEqualTo(description);
         assertThat(transaction.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
-        verify(accountRepository).save(testAccount);
+        verify(accountRepository).creditBalance("ACC123456", depositAmount);
+        verify(accountRepository, never()).findByAccountNumber(anyString());
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -115,6 +132,7 @@ class DepositServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Account not found");
         
+        verify(accountRepository).creditBalance(invalidAccountNumber, depositAmount);
         verify(accountRepository).findByAccountNumber(invalidAccountNumber);
         verify(accountRepository, never()).save(any(Account.class));
     }
@@ -126,9 +144,6 @@ class DepositServiceTest {
         BigDecimal negativeAmount = new BigDecimal("-1000");
         String description = "Test deposit";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
-                .thenReturn(Optional.of(testAccount));
-        
         // When & Then
         assertThatThrownBy(() -> depositService.processDeposit(
                 "ACC123456", 
@@ -138,7 +153,7 @@ class DepositServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Deposit amount must be greater than zero");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
+        verify(accountRepository, never()).creditBalance(anyString(), any(BigDecimal.class));
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -149,9 +164,6 @@ class DepositServiceTest {
         BigDecimal zeroAmount = BigDecimal.ZERO;
         String description = "Test deposit";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
-                .thenReturn(Optional.of(testAccount));
-        
         // When & Then
         assertThatThrownBy(() -> depositService.processDeposit(
                 "ACC123456", 
@@ -161,7 +173,7 @@ class DepositServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Deposit amount must be greater than zero");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
+        verify(accountRepository, never()).creditBalance(anyString(), any(BigDecimal.class));
         verify(accountRepository, never()).save(any(Account.class));
     }
 }
\ No newline at end of file
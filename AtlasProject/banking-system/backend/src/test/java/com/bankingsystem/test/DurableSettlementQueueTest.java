@@ -0,0 +1,123 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.DurableSettlementQueue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Durable Settlement Queue Unit Tests")
+class DurableSettlementQueueTest {
+
+    @TempDir
+    Path directory;
+
+    private DurableSettlementQueue openQueue(int capacity) {
+        DurableSettlementQueue queue = new DurableSettlementQueue(directory.toString(), capacity, 1, 50, false);
+        queue.open();
+        return queue;
+    }
+
+    private Transaction transfer(String transactionId) {
+        Account source = new Account();
+        source.setId("id-ACC123456");
+        source.setAccountNumber("ACC123456");
+        source.setBalance(new BigDecimal("1500.00"));
+        Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.TRANSFER,
+                new BigDecimal("500.00"), source, "Rent");
+        transaction.markAsCompleted();
+        return transaction;
+    }
+
+    private List<String> ids(List<Transaction> transactions) {
+        return transactions.stream().map(Transaction::getTransactionId).toList();
+    }
+
+    @Test
+    @DisplayName("Should keep unacknowledged transactions across a restart")
+    void shouldSurviveRestart() {
+        // Given
+        DurableSettlementQueue queue = openQueue(100);
+        for (int i = 1; i <= 5; i++) {
+            queue.enqueue(transfer("TRF" + i));
+        }
+
+        // When: two are settled, one is drained but never acknowledged
+        List<Transaction> settled = queue.drainTo(2);
+        settled.forEach(t -> queue.markAsProcessed(t.getTransactionId()));
+        queue.drainTo(1);
+        queue.close();
+
+        // Then
+        DurableSettlementQueue reopened = openQueue(100);
+        assertThat(reopened.getPendingCount()).isEqualTo(3);
+        List<Transaction> recovered = reopened.drainAll();
+        assertThat(ids(recovered)).containsExactly("TRF3", "TRF4", "TRF5");
+        assertThat(recovered.get(0).getAmount()).isEqualByComparingTo("500.00");
+        assertThat(recovered.get(0).getSourceAccount().getAccountNumber()).isEqualTo("ACC123456");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should deliver a requeued transaction once and reject enqueues beyond capacity")
+    void shouldApplyBackpressure() {
+        // Given
+        DurableSettlementQueue queue = openQueue(2);
+        queue.enqueue(transfer("TRF1"));
+        queue.enqueue(transfer("TRF2"));
+
+        // When & Then: in-flight transactions still count against the capacity
+        List<Transaction> drained = queue.drainTo(10);
+        assertThatThrownBy(() -> queue.enqueue(transfer("TRF3")))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessageContaining("Settlement queue is full");
+
+        // When: one is retried, the other acknowledged
+        queue.enqueue(drained.get(0));
+        queue.markAsProcessed("TRF2");
+        queue.enqueue(transfer("TRF3"));
+        queue.close();
+
+        // Then
+        DurableSettlementQueue reopened = openQueue(2);
+        assertThat(ids(reopened.drainAll())).containsExactly("TRF1", "TRF3");
+        reopened.close();
+    }
+
+    @Test
+    @DisplayName("Should delete chunks once everything in them is acknowledged")
+    void shouldCompactAcknowledgedChunks() throws Exception {
+        // Given: enough records to fill several 1 MB chunks
+        DurableSettlementQueue queue = openQueue(20000);
+        for (int i = 0; i < 20000; i++) {
+            queue.enqueue(transfer("TRF" + i));
+        }
+        assertThat(chunkCount()).isGreaterThan(1);
+
+        // When
+        queue.drainAll().forEach(t -> queue.markAsProcessed(t.getTransactionId()));
+        queue.drainTo(1);
+
+        // Then
+        assertThat(chunkCount()).isEqualTo(1);
+        queue.close();
+        DurableSettlementQueue reopened = openQueue(20000);
+        assertThat(reopened.isEmpty()).isTrue();
+        reopened.close();
+    }
+
+    private long chunkCount() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(f -> f.getFileName().toString().endsWith(".q")).count();
+        }
+    }
+}
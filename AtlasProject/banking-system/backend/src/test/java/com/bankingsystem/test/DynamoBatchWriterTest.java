@@ -0,0 +1,107 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.service.DynamoBatchWriter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import software.amazon.awssdk.awscore.exception.AwsErrorDetails;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.ProvisionedThroughputExceededException;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("DynamoDB Batch Writer Unit Tests")
+class DynamoBatchWriterTest {
+
+    @Mock
+    private DynamoDbAsyncClient dynamoDbAsyncClient;
+
+    private final DynamoBatchWriter writer = new DynamoBatchWriter();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(writer, "dynamoDbAsyncClient", dynamoDbAsyncClient);
+        ReflectionTestUtils.setField(writer, "maxRetries", 3);
+        ReflectionTestUtils.setField(writer, "backoffBaseMillis", 1L);
+        ReflectionTestUtils.setField(writer, "maxInFlight", 4);
+        writer.init();
+    }
+
+    private List<Map<String, AttributeValue>> items(int count) {
+        List<Map<String, AttributeValue>> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(Map.of("actionId", AttributeValue.builder().s("A" + i).build()));
+        }
+        return items;
+    }
+
+    private BatchWriteItemResponse unprocessed(int count) {
+        List<WriteRequest> requests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            requests.add(WriteRequest.builder().putRequest(PutRequest.builder()
+                    .item(Map.of("actionId", AttributeValue.builder().s("U" + i).build())).build()).build());
+        }
+        return BatchWriteItemResponse.builder().unprocessedItems(Map.of("BankingAuditLogs", requests)).build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> tableStats() {
+        return (Map<String, Object>) ((Map<String, Object>) writer.getStats().get("tables")).get("BankingAuditLogs");
+    }
+
+    @Test
+    @DisplayName("Should split into 25-item requests and retry unprocessed items")
+    void testRetriesUnprocessedItems() {
+        // Given
+        when(dynamoDbAsyncClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(CompletableFuture.completedFuture(unprocessed(2)))
+                .thenReturn(CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build()));
+
+        // When
+        int failed = writer.putAllAsync("BankingAuditLogs", items(30)).join();
+
+        // Then
+        assertThat(failed).isZero();
+        verify(dynamoDbAsyncClient, times(3)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertThat(writer.getStats()).containsEntry("itemsWritten", 30L).containsEntry("inFlight", 0);
+        assertThat(tableStats()).containsEntry("requests", 3L).containsEntry("unprocessedRetries", 1L);
+    }
+
+    @Test
+    @DisplayName("Should retry throttled requests and report failures after the retry budget")
+    void testThrottlingIsCountedAndBounded() {
+        // Given
+        ProvisionedThroughputExceededException throttled = ProvisionedThroughputExceededException.builder()
+                .statusCode(400)
+                .awsErrorDetails(AwsErrorDetails.builder().errorCode("ProvisionedThroughputExceededException").build())
+                .build();
+        when(dynamoDbAsyncClient.batchWriteItem(any(BatchWriteItemRequest.class)))
+                .thenReturn(CompletableFuture.failedFuture(throttled));
+
+        // When
+        int failed = writer.putAllAsync("BankingAuditLogs", items(5)).join();
+
+        // Then
+        assertThat(failed).isEqualTo(5);
+        verify(dynamoDbAsyncClient, times(4)).batchWriteItem(any(BatchWriteItemRequest.class));
+        assertThat(tableStats()).containsEntry("throttled", 4L).containsEntry("itemsFailed", 5L);
+        assertThat(writer.getStats()).containsEntry("inFlight", 0);
+    }
+}
@@ -0,0 +1,132 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.repository.AuditBuckets;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.bankingsystem.service.ExportService;
+import com.bankingsystem.service.ExportService.ExportFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Export Service Unit Tests")
+class ExportServiceTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private TransactionReferenceResolver referenceResolver;
+
+    @Mock
+    private AuditBuckets auditBuckets;
+
+    private final ExportService exportService = new ExportService();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(exportService, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(exportService, "referenceResolver", referenceResolver);
+        ReflectionTestUtils.setField(exportService, "auditBuckets", auditBuckets);
+        ReflectionTestUtils.setField(exportService, "objectMapper", new ObjectMapper().findAndRegisterModules());
+        ReflectionTestUtils.setField(exportService, "batchSize", 2);
+        when(auditBuckets.bucketsFor(any(), any())).thenReturn(List.of("audit_logs_2024_01"));
+    }
+
+    private AuditLog log(String actionId, String description) {
+        AuditLog auditLog = new AuditLog(actionId, "USER001", "DEPOSIT", "ACCOUNT", "ACC123456");
+        auditLog.setTimestamp(LocalDateTime.of(2024, 1, 15, 10, 30));
+        auditLog.markAsSuccess(description);
+        return auditLog;
+    }
+
+    @Test
+    @DisplayName("Should write a CSV header and escape fields")
+    void testCsvExport() throws IOException {
+        // Given
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_01")))
+                .thenReturn(Stream.of(log("A1", "plain"), log("A2", "said \"hi\", twice")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long written = exportService.exportAuditLogs(out, ExportFormat.CSV, null, null, null, null);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertThat(written).isEqualTo(2);
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).startsWith("actionId,timestamp,userId,action");
+        assertThat(lines[1]).startsWith("A1,2024-01-15T10:30,USER001,DEPOSIT,ACCOUNT,ACC123456,SUCCESS,plain,");
+        assertThat(lines[2]).contains(",\"said \"\"hi\"\", twice\",");
+    }
+
+    @Test
+    @DisplayName("Should write one JSON document per line with filters and batch size applied")
+    void testNdjsonExport() throws IOException {
+        // Given
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_01")))
+                .thenReturn(Stream.of(log("A1", "first"), log("A2", "second"), log("A3", "third")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exportService.exportAuditLogs(out, ExportFormat.NDJSON, LocalDateTime.of(2024, 1, 1, 0, 0), null, "DEPOSIT", null);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[1]).startsWith("{").contains("\"actionId\":\"A2\"");
+
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).stream(query.capture(), eq(AuditLog.class), eq("audit_logs_2024_01"));
+        assertThat(query.getValue().getMeta().getCursorBatchSize()).isEqualTo(2);
+        assertThat(query.getValue().getQueryObject()).containsKeys("timestamp", "action");
+    }
+
+    @Test
+    @DisplayName("Should stop reading and close the cursor when the client disconnects")
+    void testClientDisconnect() {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        AtomicBoolean exhausted = new AtomicBoolean();
+        Stream<AuditLog> records = Stream.iterate(1, i -> i + 1)
+                .peek(i -> exhausted.set(i > 10))
+                .map(i -> log("A" + i, "record"))
+                .onClose(() -> closed.set(true));
+        when(mongoTemplate.stream(any(Query.class), eq(AuditLog.class), eq("audit_logs_2024_01"))).thenReturn(records);
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        // When / Then
+        assertThatThrownBy(() -> exportService.exportAuditLogs(disconnected, ExportFormat.NDJSON, null, null, null, null))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Broken pipe");
+        assertThat(closed).isTrue();
+        assertThat(exhausted).isFalse();
+    }
+}
@@ -0,0 +1,95 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.util.IdGenerator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("ID Generator Unit Tests")
+class IdGeneratorTest {
+
+    @Test
+    @DisplayName("Should generate strictly increasing IDs that sort as strings")
+    void shouldGenerateIncreasingIds() {
+        // Given
+        IdGenerator idGenerator = new IdGenerator(7);
+
+        // When
+        List<String> ids = new ArrayList<>();
+        long previous = -1;
+        for (int i = 0; i < 50000; i++) {
+            long id = idGenerator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+            ids.add(IdGenerator.format("TRF", id));
+        }
+
+        // Then
+        assertThat(ids).isSorted();
+        assertThat(ids).allSatisfy(id -> assertThat(id).hasSize(16).startsWith("TRF"));
+        assertThat(IdGenerator.timestampOf(previous)).isCloseTo(System.currentTimeMillis(), within(5000L));
+    }
+
+    @Test
+    @DisplayName("Should not repeat IDs across concurrent callers")
+    void shouldNotRepeatIdsAcrossThreads() throws Exception {
+        // Given
+        IdGenerator idGenerator = new IdGenerator(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 10000; j++) {
+                    ids.add(idGenerator.nextId());
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(ids).hasSize(80000);
+    }
+
+    @Test
+    @DisplayName("Should reject node ids outside the 10-bit range")
+    void shouldRejectInvalidNodeId() {
+        // When & Then
+        assertThatThrownBy(() -> new IdGenerator(1024))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Node id");
+    }
+
+    @Test
+    @DisplayName("Should require an explicit node id outside development")
+    void shouldRequireNodeIdOutsideDevelopment() {
+        // Given
+        MockEnvironment production = new MockEnvironment();
+        production.setActiveProfiles("production");
+        MockEnvironment development = new MockEnvironment();
+        development.setActiveProfiles("development");
+
+        // When & Then
+        assertThatThrownBy(() -> new IdGenerator(null, production))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("banking.node-id");
+        assertThat(new IdGenerator(5L, production).getNodeId()).isEqualTo(5);
+        assertThat(new IdGenerator(null, development).getNodeId()).isEqualTo(1);
+    }
+}
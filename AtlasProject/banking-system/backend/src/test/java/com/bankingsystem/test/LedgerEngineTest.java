@@ -0,0 +1,185 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.ledger.TransactionJournal;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Ledger Engine Unit Tests")
+class LedgerEngineTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    private LedgerEngine ledgerEngine;
+
+    @BeforeEach
+    void setUp() {
+        // Flushes only on shutdown, so the test controls when balances are written back
+        ledgerEngine = new LedgerEngine(true, 4, 1024, 1000, 3600000, 1000, 100);
+        ReflectionTestUtils.setField(ledgerEngine, "accountRepository", accountRepository);
+        ReflectionTestUtils.setField(ledgerEngine, "transactionRepository", transactionRepository);
+        ReflectionTestUtils.setField(ledgerEngine, "transactionJournal", new TransactionJournal(false, "unused", 1, 500));
+        ledgerEngine.start();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledgerEngine.stop();
+    }
+
+    private Account account(String accountNumber, String balance) {
+        Customer customer = new Customer("Rajesh", "Kumar", "rajesh@test.com",
+                "9876543210", "123 MG Road", "Mumbai", "Maharashtra", "400001");
+        Account account = new Account(accountNumber, customer, Account.AccountType.SAVINGS);
+        account.setId("id-" + accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+
+    @Test
+    @DisplayName("Should apply concurrent postings without losing updates")
+    @SuppressWarnings("unchecked")
+    void shouldApplyConcurrentPostings() throws Exception {
+        // Given
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(account("ACC123456", "1000")));
+        when(accountRepository.findByAccountNumber("ACC123457")).thenReturn(Optional.of(account("ACC123457", "0")));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When: 8 x 500 deposits of 1 into the first account, 8 x 250 debit/credit hand-offs of 1 to the second
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < 500; j++) {
+                    ledgerEngine.creditBalance("ACC123456", BigDecimal.ONE);
+                    if (j % 2 == 0 && ledgerEngine.debitBalance("ACC123456", BigDecimal.ONE).isPresent()) {
+                        ledgerEngine.creditBalance("ACC123457", BigDecimal.ONE);
+                    }
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Then
+        assertThat(ledgerEngine.findByAccountNumber("ACC123456").get().getBalance()).isEqualByComparingTo("3000");
+        assertThat(ledgerEngine.findByAccountNumber("ACC123457").get().getBalance()).isEqualByComparingTo("2000");
+        verify(accountRepository, times(1)).findByAccountNumber("ACC123456");
+    }
+
+    @Test
+    @DisplayName("Should write back the newest balance of committed transactions")
+    @SuppressWarnings("unchecked")
+    void shouldWriteBackNewestBalance() throws Exception {
+        // Given
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(account("ACC123456", "1000")));
+        Account older = ledgerEngine.creditBalance("ACC123456", BigDecimal.TEN).get();
+        Account newer = ledgerEngine.creditBalance("ACC123456", BigDecimal.TEN).get();
+
+        // When: committed out of order
+        ledgerEngine.commit(new Transaction("DEP2", Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, null, newer, "Deposit"));
+        ledgerEngine.commit(new Transaction("DEP1", Transaction.TransactionType.DEPOSIT, BigDecimal.TEN, null, older, "Deposit"));
+        ledgerEngine.stop();
+
+        // Then
+        ArgumentCaptor<List<Transaction>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository).saveAll(inserted.capture());
+        assertThat(inserted.getValue()).extracting(Transaction::getTransactionId).containsExactly("DEP2", "DEP1");
+        ArgumentCaptor<Collection<Account>> written = ArgumentCaptor.forClass(Collection.class);
+        verify(accountRepository).saveBalanceSnapshot(written.capture());
+        assertThat(written.getValue()).singleElement().satisfies(account -> {
+            assertThat(account.getBalance()).isEqualByComparingTo("1020");
+            assertThat(account.getVersion()).isEqualTo(newer.getVersion());
+        });
+    }
+
+    @Test
+    @DisplayName("Should reverse the postings when the journal refuses the transaction")
+    void shouldRevertWhenJournalFails() throws Exception {
+        // Given
+        TransactionJournal journal = mock(TransactionJournal.class);
+        when(journal.isEnabled()).thenReturn(true);
+        when(journal.append(any())).thenThrow(new IllegalStateException("Journal record too large"));
+        ReflectionTestUtils.setField(ledgerEngine, "transactionJournal", journal);
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(account("ACC123456", "1000")));
+        when(accountRepository.findByAccountNumber("ACC123457")).thenReturn(Optional.of(account("ACC123457", "0")));
+        Account debited = ledgerEngine.debitBalance("ACC123456", new BigDecimal("300")).get();
+        Account credited = ledgerEngine.creditBalance("ACC123457", new BigDecimal("300")).get();
+        Transaction transfer = new Transaction("TRF1", Transaction.TransactionType.TRANSFER,
+                new BigDecimal("300"), debited, credited, "Transfer");
+
+        // When & Then
+        assertThatThrownBy(() -> ledgerEngine.commit(transfer)).isInstanceOf(IllegalStateException.class);
+        assertThat(ledgerEngine.findByAccountNumber("ACC123456").get().getBalance()).isEqualByComparingTo("1000");
+        assertThat(ledgerEngine.findByAccountNumber("ACC123457").get().getBalance()).isEqualByComparingTo("0");
+        ledgerEngine.stop();
+        verify(transactionRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should continue ledger versions after the last write-back")
+    void shouldContinueFromLedgerVersion() {
+        // Given - a status change bumped @Version, the last write-back stored ledgerVersion 7
+        Account stored = account("ACC123456", "1000");
+        stored.setVersion(3L);
+        stored.setLedgerVersion(7L);
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(stored));
+
+        // When
+        Account credited = ledgerEngine.creditBalance("ACC123456", BigDecimal.TEN).get();
+
+        // Then - newer than the stored write-back, and the repository's copy is untouched
+        assertThat(credited.getVersion()).isEqualTo(8L);
+        assertThat(stored.getBalance()).isEqualByComparingTo("1000");
+    }
+
+    @Test
+    @DisplayName("Should reject debits beyond the balance and postings to inactive accounts")
+    void shouldRejectInvalidPostings() {
+        // Given
+        Account closed = account("ACC123457", "500");
+        closed.setStatus(Account.AccountStatus.CLOSED);
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(account("ACC123456", "100")));
+        when(accountRepository.findByAccountNumber("ACC123457")).thenReturn(Optional.of(closed));
+        when(accountRepository.findByAccountNumber("ACC999999")).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThat(ledgerEngine.debitBalance("ACC123456", new BigDecimal("100.01"))).isEmpty();
+        assertThat(ledgerEngine.creditBalance("ACC123457", BigDecimal.TEN)).isEmpty();
+        assertThat(ledgerEngine.creditBalance("ACC999999", BigDecimal.TEN)).isEmpty();
+        assertThat(ledgerEngine.adjustBalance("ACC123456", new BigDecimal("-50")).get().getBalance())
+                .isEqualByComparingTo("50");
+    }
+}
@@ -0,0 +1,80 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.util.NearCache;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Near Cache Unit Tests")
+class NearCacheTest {
+
+    private NearCache<String, Account> newCache(int maxSize) {
+        return new NearCache<>("accounts", maxSize, 60000, Account::new,
+                account -> account.getVersion() != null ? account.getVersion() : -1L);
+    }
+
+    private Account account(String accountNumber, long version, String balance) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        account.setVersion(version);
+        account.setBalance(new BigDecimal(balance));
+        return account;
+    }
+
+    @Test
+    @DisplayName("Should return copies and ignore puts older than the cached version")
+    void shouldKeepNewestVersion() {
+        // Given
+        NearCache<String, Account> cache = newCache(100);
+        cache.put("ACC123456", account("ACC123456", 5, "1500.00"));
+
+        // When
+        cache.put("ACC123456", account("ACC123456", 4, "1000.00"));
+        Account cached = cache.get("ACC123456");
+        cached.setBalance(BigDecimal.ZERO);
+
+        // Then
+        assertThat(cache.get("ACC123456").getBalance()).isEqualByComparingTo("1500.00");
+        assertThat(cache.getStats()).containsEntry("stalePutsRejected", 1L).containsEntry("hits", 2L);
+    }
+
+    @Test
+    @DisplayName("Should only accept values at least as new as a versioned invalidation")
+    void shouldHonourVersionedInvalidation() {
+        // Given
+        NearCache<String, Account> cache = newCache(100);
+        cache.put("ACC123456", account("ACC123456", 5, "1500.00"));
+
+        // When
+        cache.invalidate("ACC123456", 6);
+        Account afterInvalidate = cache.get("ACC123456");
+        cache.put("ACC123456", account("ACC123456", 5, "1500.00"));
+        Account afterStalePut = cache.get("ACC123456");
+        cache.put("ACC123456", account("ACC123456", 6, "2000.00"));
+
+        // Then
+        assertThat(afterInvalidate).isNull();
+        assertThat(afterStalePut).isNull();
+        assertThat(cache.get("ACC123456").getBalance()).isEqualByComparingTo("2000.00");
+    }
+
+    @Test
+    @DisplayName("Should evict entries beyond the size bound")
+    void shouldRespectSizeBound() {
+        // Given
+        NearCache<String, Account> cache = newCache(50);
+
+        // When
+        for (int i = 0; i < 500; i++) {
+            cache.put("ACC" + i, account("ACC" + i, 0, "100.00"));
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(50);
+        assertThat(cache.getStats()).containsEntry("evictions", 450L);
+    }
+}
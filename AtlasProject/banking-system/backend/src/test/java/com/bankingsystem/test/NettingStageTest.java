@@ -0,0 +1,246 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.NettingBatch;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.NettingBatchRepository;
+import com.bankingsystem.settlement.NettingResult;
+import com.bankingsystem.settlement.NettingStage;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.EntityCacheManager;
+import com.bankingsystem.util.IdGenerator;
+import com.mongodb.bulk.BulkWriteResult;
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Netting Stage Unit Tests")
+class NettingStageTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private NettingBatchRepository nettingBatchRepository;
+
+    @Mock
+    private LedgerEngine ledgerEngine;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private BulkWriteResult bulkWriteResult;
+
+    @Mock
+    private AccountStateTable accountStateTable;
+
+    @Spy
+    private EntityCacheManager entityCacheManager = new EntityCacheManager(100, 60000, 100, 60000);
+
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16, 1000);
+
+    @InjectMocks
+    private NettingStage nettingStage;
+
+    private Account account(String accountNumber, String balance, Account.AccountStatus status) {
+        Account account = new Account();
+        account.setId("id-" + accountNumber);
+        account.setAccountNumber(accountNumber);
+        account.setBalance(new BigDecimal(balance));
+        account.setStatus(status);
+        account.setVersion(3L);
+        return account;
+    }
+
+    private Transaction transfer(String transactionId, String from, String to, String amount) {
+        Account source = new Account();
+        source.setAccountNumber(from);
+        Account destination = new Account();
+        destination.setAccountNumber(to);
+        return new Transaction(transactionId, Transaction.TransactionType.TRANSFER, new BigDecimal(amount),
+                source, destination, "Transfer");
+    }
+
+    @Test
+    @DisplayName("Should apply one balance update per account and unwind postings that would overdraw")
+    void shouldNetPendingTransfers() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(
+                account("ACC123456", "100", Account.AccountStatus.ACTIVE),
+                account("ACC123457", "50", Account.AccountStatus.ACTIVE),
+                account("ACC123458", "0", Account.AccountStatus.ACTIVE),
+                account("ACC123459", "0", Account.AccountStatus.CLOSED)));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(2);
+
+        Transaction completed = transfer("TRF0", "ACC123456", "ACC123457", "999");
+        completed.markAsCompleted();
+        List<Transaction> batch = List.of(
+                completed,
+                transfer("TRF1", "ACC123456", "ACC123457", "80"),
+                transfer("TRF2", "ACC123457", "ACC123456", "70"),
+                transfer("TRF3", "ACC123457", "ACC123458", "100"),
+                transfer("TRF4", "ACC123456", "ACC123459", "10"),
+                transfer("TRF5", "ACC123456", "ACC123457", "30"));
+
+        // When
+        NettingResult result = nettingStage.net(batch);
+
+        // Then: TRF3 would take ACC123457 to -40, TRF4 credits a closed account
+        assertThat(result.getNetted()).isEqualTo(3);
+        assertThat(result.getBalanceWrites()).isEqualTo(2);
+        assertThat(result.getRejected()).containsOnlyKeys("TRF3", "TRF4");
+        assertThat(result.getRejection("TRF3")).contains("insufficient balance");
+        assertThat(batch.get(1).getNettingBatchId()).isEqualTo(result.getNettingBatchId());
+        assertThat(completed.getNettingBatchId()).isNull();
+        verify(bulkOperations, times(2)).updateOne(any(Query.class), any(Update.class));
+
+        ArgumentCaptor<NettingBatch> record = ArgumentCaptor.forClass(NettingBatch.class);
+        verify(nettingBatchRepository).insert(record.capture());
+        assertThat(record.getValue().getStatus()).isEqualTo(NettingBatch.Status.PENDING);
+        assertThat(record.getValue().getTransactionIds()).containsExactly("TRF1", "TRF2", "TRF5");
+        verify(mongoTemplate).updateFirst(any(Query.class), any(Update.class), eq(NettingBatch.class));
+        verify(accountLockManager).withAccountLocks(anyCollection(), any());
+        verify(accountStateTable).remove("ACC123456");
+        verify(accountStateTable).remove("ACC123457");
+        assertThat(record.getValue().getAccountPositions())
+                .extracting(NettingBatch.AccountPosition::getAccountNumber, p -> p.getNet().intValue())
+                .containsExactly(tuple("ACC123456", -40), tuple("ACC123457", 40));
+        assertThat(record.getValue().getPairPositions()).singleElement().satisfies(pair -> {
+            assertThat(pair.getNetToSecond()).isEqualByComparingTo("40");
+            assertThat(pair.getTransfers()).isEqualTo(3);
+        });
+    }
+
+    @Test
+    @DisplayName("Should not net transactions again that are already recorded in a netting batch")
+    void shouldSkipAlreadyNettedTransactions() {
+        // Given
+        NettingBatch previous = new NettingBatch("NET1");
+        previous.getTransactionIds().add("TRF1");
+        when(nettingBatchRepository.findByTransactionIdsIn(anyCollection())).thenReturn(List.of(previous));
+        Transaction redelivered = transfer("TRF1", "ACC123456", "ACC123457", "80");
+
+        // When
+        NettingResult result = nettingStage.net(List.of(redelivered));
+
+        // Then
+        assertThat(result.getNetted()).isZero();
+        assertThat(redelivered.getNettingBatchId()).isEqualTo("NET1");
+        verify(mongoTemplate, never()).bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class));
+        verify(nettingBatchRepository, never()).insert(any(NettingBatch.class));
+    }
+
+    @Test
+    @DisplayName("Should finish a batch cut off while applying, only on accounts that do not carry it yet")
+    void shouldResumePendingBatch() {
+        // Given
+        NettingBatch pending = new NettingBatch("NET1");
+        pending.setStatus(NettingBatch.Status.PENDING);
+        pending.getTransactionIds().add("TRF1");
+        NettingBatch.AccountPosition debtor = new NettingBatch.AccountPosition("ACC123456");
+        debtor.debit(new BigDecimal("80"));
+        NettingBatch.AccountPosition creditor = new NettingBatch.AccountPosition("ACC123457");
+        creditor.credit(new BigDecimal("80"));
+        pending.setAccountPositions(List.of(debtor, creditor));
+        when(nettingBatchRepository.findByTransactionIdsIn(anyCollection())).thenReturn(List.of(pending));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(bulkOperations);
+        Transaction redelivered = transfer("TRF1", "ACC123456", "ACC123457", "80");
+
+        // When
+        NettingResult result = nettingStage.net(List.of(redelivered));
+
+        // Then
+        assertThat(result.getNetted()).isZero();
+        assertThat(redelivered.getNettingBatchId()).isEqualTo("NET1");
+        ArgumentCaptor<Query> guards = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(2)).updateOne(guards.capture(), any(Update.class));
+        assertThat(guards.getAllValues()).allSatisfy(guard ->
+                assertThat(guard.getQueryObject().toJson())
+                        .contains("\"appliedBatchIds\": {\"$ne\": \"NET1\"}")
+                        .contains("\"appliedBatchIds.31\": {\"$exists\": false}"));
+        ArgumentCaptor<Update> status = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), status.capture(), eq(NettingBatch.class));
+        assertThat(status.getValue().getUpdateObject().get("$set", Document.class))
+                .containsEntry("status", NettingBatch.Status.APPLIED);
+        verify(nettingBatchRepository, never()).insert(any(NettingBatch.class));
+    }
+
+    @Test
+    @DisplayName("Should flag a resumed batch for review when a trimmed tag leaves an account undecided")
+    void shouldFlagUnprovableResume() {
+        // Given - ACC123456 has a full tag list and was written since netting
+        NettingBatch pending = new NettingBatch("NET1");
+        pending.setStatus(NettingBatch.Status.PENDING);
+        pending.getTransactionIds().add("TRF1");
+        NettingBatch.AccountPosition debtor = new NettingBatch.AccountPosition("ACC123456");
+        debtor.debit(new BigDecimal("80"));
+        debtor.setAccountVersion(3L);
+        pending.setAccountPositions(List.of(debtor));
+        when(nettingBatchRepository.findByTransactionIdsIn(anyCollection())).thenReturn(List.of(pending));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(bulkOperations);
+        when(mongoTemplate.find(any(Query.class), eq(Account.class)))
+                .thenReturn(List.of(account("ACC123456", "20", Account.AccountStatus.ACTIVE)));
+
+        // When
+        nettingStage.net(List.of(transfer("TRF1", "ACC123456", "ACC123457", "80")));
+
+        // Then - only applied where the missing tag proves it, otherwise left for review
+        ArgumentCaptor<Query> guard = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations).updateOne(guard.capture(), any(Update.class));
+        assertThat(guard.getValue().getQueryObject().toJson()).contains("\"version\": 3");
+        ArgumentCaptor<Update> status = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), status.capture(), eq(NettingBatch.class));
+        assertThat(status.getValue().getUpdateObject().get("$set", Document.class))
+                .containsEntry("status", NettingBatch.Status.NEEDS_REVIEW)
+                .containsEntry("unresolvedAccounts", List.of("ACC123456"));
+    }
+
+    @Test
+    @DisplayName("Should revert the updates that landed by their tag and drop the record on a version conflict")
+    void shouldRevertByTagOnConflict() {
+        // Given
+        when(mongoTemplate.find(any(Query.class), eq(Account.class))).thenReturn(List.of(
+                account("ACC123456", "100", Account.AccountStatus.ACTIVE),
+                account("ACC123457", "50", Account.AccountStatus.ACTIVE)));
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Account.class))).thenReturn(bulkOperations);
+        when(bulkOperations.execute()).thenReturn(bulkWriteResult);
+        when(bulkWriteResult.getMatchedCount()).thenReturn(1);
+
+        // When & Then
+        assertThatThrownBy(() -> nettingStage.net(List.of(transfer("TRF1", "ACC123456", "ACC123457", "80"))))
+                .hasMessageContaining("modified concurrently");
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(bulkOperations, times(4)).updateOne(queries.capture(), any(Update.class));
+        assertThat(queries.getAllValues().subList(2, 4)).allSatisfy(revert ->
+                assertThat(revert.getQueryObject().toJson()).contains("\"appliedBatchIds\": \"NET"));
+        verify(mongoTemplate).remove(any(Query.class), eq(NettingBatch.class));
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(NettingBatch.class));
+    }
+}
@@ -0,0 +1,85 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.config.MetricsConfig;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.InMemorySettlementQueue;
+import com.bankingsystem.util.OperationMetrics;
+import com.bankingsystem.util.UndoRedoStack;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Operation Metrics Unit Tests")
+class OperationMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should count successes and failures per operation on a histogram timer")
+    void testOutcomesPerOperation() {
+        // Given
+        OperationMetrics metrics = new OperationMetrics(registry);
+
+        // When
+        metrics.start("deposit").success();
+        metrics.start("deposit").success();
+        metrics.start("deposit").failure();
+        metrics.start("transfer").success();
+
+        // Then
+        Timer depositSuccess = registry.get(OperationMetrics.TIMER_NAME)
+                .tags("operation", "deposit", "outcome", "success").timer();
+        assertThat(depositSuccess.count()).isEqualTo(2);
+        assertThat(registry.get(OperationMetrics.TIMER_NAME)
+                .tags("operation", "deposit", "outcome", "failure").timer().count()).isEqualTo(1);
+        assertThat(registry.get(OperationMetrics.TIMER_NAME)
+                .tags("operation", "transfer").timers()).hasSize(1);
+    }
+
+    @Test
+    @DisplayName("Should publish histogram buckets on the Prometheus scrape")
+    void testPrometheusHistogram() {
+        // Given
+        PrometheusMeterRegistry prometheus = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        OperationMetrics metrics = new OperationMetrics(prometheus);
+
+        // When
+        metrics.start("withdrawal").success();
+
+        // Then
+        assertThat(prometheus.scrape())
+                .contains("banking_operation_seconds_bucket{")
+                .contains("operation=\"withdrawal\"")
+                .contains("outcome=\"success\"");
+    }
+
+    @Test
+    @DisplayName("Should expose settlement queue depth and undo/redo footprint as gauges")
+    void testStateGauges() {
+        // Given
+        MetricsConfig config = new MetricsConfig();
+        InMemorySettlementQueue queue = new InMemorySettlementQueue();
+        UndoRedoStack undoRedoStack = new UndoRedoStack(20, 1_000_000);
+        config.settlementQueueMetrics(queue).bindTo(registry);
+        config.undoRedoMetrics(undoRedoStack).bindTo(registry);
+
+        // When
+        Transaction transaction = new Transaction("TXN1", Transaction.TransactionType.DEPOSIT,
+                new BigDecimal("100"), null, "Test deposit");
+        queue.enqueue(transaction);
+        undoRedoStack.pushUndo("ACC1", transaction);
+
+        // Then
+        assertThat(registry.get("banking.settlement.queue.size").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("banking.undo.retained.entries").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("banking.undo.accounts").gauge().value()).isEqualTo(1.0);
+        assertThat(registry.get("banking.undo.retained.bytes").gauge().value()).isPositive();
+    }
+}
@@ -0,0 +1,127 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.settlement.NettingResult;
+import com.bankingsystem.settlement.NettingStage;
+import com.bankingsystem.settlement.SettlementEngine;
+import com.bankingsystem.settlement.SettlementReport;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.InMemorySettlementQueue;
+import com.bankingsystem.util.SettlementQueue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Settlement Engine Unit Tests")
+class SettlementEngineTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private BulkOperations bulkOperations;
+
+    @Mock
+    private NettingStage nettingStage;
+
+    private final SettlementQueue settlementQueue = new InMemorySettlementQueue();
+
+    private SettlementEngine settlementEngine;
+
+    private SettlementEngine newEngine(int parallelism, int batchSize, long timeoutMillis) {
+        SettlementEngine engine = new SettlementEngine(parallelism, batchSize, timeoutMillis);
+        ReflectionTestUtils.setField(engine, "settlementQueue", settlementQueue);
+        ReflectionTestUtils.setField(engine, "mongoTemplate", mongoTemplate);
+        ReflectionTestUtils.setField(engine, "idGenerator", new IdGenerator(1));
+        ReflectionTestUtils.setField(engine, "nettingStage", nettingStage);
+        engine.start();
+        return engine;
+    }
+
+    @AfterEach
+    void tearDown() {
+        settlementEngine.stop();
+    }
+
+    private List<Transaction> enqueueTransfers(int count, int accounts) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Account source = new Account();
+            source.setAccountNumber("ACC" + (123456 + i % accounts));
+            Transaction transaction = new Transaction("TRF" + i, Transaction.TransactionType.TRANSFER,
+                    new BigDecimal("100.00"), source, "Transfer");
+            transaction.markAsCompleted();
+            settlementQueue.enqueue(transaction);
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    @Test
+    @DisplayName("Should settle all queued transactions in parallel batches and reject invalid ones")
+    void shouldSettleInBatches() {
+        // Given
+        settlementEngine = newEngine(4, 20, 10000);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Transaction.class))).thenReturn(bulkOperations);
+        when(nettingStage.net(anyList())).thenReturn(NettingResult.none());
+        List<Transaction> transactions = enqueueTransfers(50, 10);
+        transactions.get(7).setAmount(BigDecimal.ZERO);
+
+        // When
+        SettlementReport report = settlementEngine.settle();
+
+        // Then
+        assertThat(report.getBatches()).isEqualTo(3);
+        assertThat(report.getSettled()).isEqualTo(49);
+        assertThat(report.getRejected()).isEqualTo(1);
+        assertThat(report.getFailed()).isZero();
+        assertThat(report.getRemaining()).isZero();
+        assertThat(transactions.get(7).getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+        assertThat(transactions.get(8).getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        verify(bulkOperations, times(50)).updateOne(any(Query.class), any(Update.class));
+        // One bulk write per lane: at most 4 lanes in each of the 3 batches
+        verify(bulkOperations, atMost(12)).execute();
+        verify(mongoTemplate, times(5)).upsert(any(Query.class), any(Update.class), eq("settlement_checkpoints"));
+    }
+
+    @Test
+    @DisplayName("Should requeue lanes that exceed the batch timeout")
+    void shouldRequeueTimedOutLanes() {
+        // Given
+        settlementEngine = newEngine(2, 100, 100);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Transaction.class))).thenReturn(bulkOperations);
+        when(nettingStage.net(anyList())).thenReturn(NettingResult.none());
+        when(bulkOperations.execute()).thenAnswer(invocation -> {
+            Thread.sleep(10000);
+            return null;
+        });
+        enqueueTransfers(10, 4);
+
+        // When
+        SettlementReport report = settlementEngine.settle();
+
+        // Then
+        assertThat(report.getSettled()).isZero();
+        assertThat(report.getTimedOut()).isEqualTo(10);
+        assertThat(report.getRemaining()).isEqualTo(10);
+        assertThat(settlementQueue.getPendingCount()).isEqualTo(10);
+    }
+}
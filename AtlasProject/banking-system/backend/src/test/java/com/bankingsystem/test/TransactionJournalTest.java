@@ -0,0 +1,106 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.ledger.TransactionJournal;
+import com.bankingsystem.ledger.TransactionJournal.JournalEntry;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Transaction Journal Unit Tests")
+class TransactionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private TransactionJournal newJournal() {
+        return new TransactionJournal(true, directory.toString(), 1, 200);
+    }
+
+    private Transaction deposit(String transactionId, String balance) {
+        Account account = new Account();
+        account.setId("id-ACC123456");
+        account.setAccountNumber("ACC123456");
+        account.setBalance(new BigDecimal(balance));
+        account.setVersion(7L);
+        Transaction transaction = new Transaction(transactionId, Transaction.TransactionType.DEPOSIT,
+                new BigDecimal("500.00"), null, account, "Salary");
+        transaction.markAsCompleted();
+        return transaction;
+    }
+
+    @Test
+    @DisplayName("Should replay durable entries after restart until they are checkpointed")
+    void shouldReplayUntilCheckpoint() {
+        // Given
+        TransactionJournal journal = newJournal();
+        assertThat(journal.open()).isEmpty();
+        long first = journal.append(deposit("DEP1", "1500.00"));
+        long second = journal.append(deposit("DEP2", "2000.00"));
+        journal.awaitDurable(second);
+        journal.close();
+
+        // When
+        TransactionJournal reopened = newJournal();
+        List<JournalEntry> replayed = reopened.open();
+
+        // Then
+        assertThat(replayed).extracting(JournalEntry::getSequence).containsExactly(first, second);
+        Transaction transaction = replayed.get(1).getTransaction();
+        assertThat(transaction.getTransactionId()).isEqualTo("DEP2");
+        assertThat(transaction.getAmount()).isEqualByComparingTo("500.00");
+        assertThat(transaction.getDestinationAccount().getBalance()).isEqualByComparingTo("2000.00");
+        assertThat(transaction.getDestinationAccount().getVersion()).isEqualTo(7L);
+
+        // When: the first entry is applied and checkpointed
+        reopened.checkpoint(first);
+        long third = reopened.append(deposit("DEP3", "2500.00"));
+        reopened.awaitDurable(third);
+        reopened.close();
+
+        // Then
+        TransactionJournal restarted = newJournal();
+        assertThat(restarted.open()).extracting(e -> e.getTransaction().getTransactionId())
+                .containsExactly("DEP2", "DEP3");
+        restarted.close();
+    }
+
+    @Test
+    @DisplayName("Should stop replay at a record with a bad checksum")
+    void shouldIgnoreTornTail() throws Exception {
+        // Given
+        TransactionJournal journal = newJournal();
+        journal.open();
+        journal.append(deposit("DEP1", "1500.00"));
+        long last = journal.append(deposit("DEP2", "2000.00"));
+        journal.awaitDurable(last);
+        journal.close();
+
+        // When: the last byte of the last record (its account version) is damaged
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(f -> f.getFileName().toString().endsWith(".log")).findFirst().orElseThrow();
+        }
+        byte[] bytes = Files.readAllBytes(segment);
+        int end = bytes.length - 1;
+        while (bytes[end] == 0) {
+            end--;
+        }
+        bytes[end] ^= 0x7F;
+        Files.write(segment, bytes);
+
+        // Then
+        TransactionJournal reopened = newJournal();
+        assertThat(reopened.open()).extracting(e -> e.getTransaction().getTransactionId()).containsExactly("DEP1");
+        reopened.close();
+    }
+}
@@ -0,0 +1,118 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.TransactionCursor;
+import com.bankingsystem.repository.TransactionPage;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.bankingsystem.repository.TransactionRepositoryCustom;
+import com.bankingsystem.repository.TransactionRepositoryImpl;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Transaction Pagination Unit Tests")
+class TransactionPaginationTest {
+
+    @Mock
+    private TransactionReferenceResolver referenceResolver;
+
+    private final TransactionRepositoryImpl repository = new TransactionRepositoryImpl();
+
+    private final Account account = new Account();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(repository, "referenceResolver", referenceResolver);
+        account.setId("id-ACC123456");
+        account.setAccountNumber("ACC123456");
+    }
+
+    private List<Transaction> deposits(int count, LocalDateTime newest) {
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Transaction transaction = new Transaction("DEP" + (100 - i), Transaction.TransactionType.DEPOSIT,
+                    new BigDecimal("10.00"), account, "Deposit");
+            transaction.setTransactionDate(newest.minusSeconds(i));
+            transactions.add(transaction);
+        }
+        return transactions;
+    }
+
+    @Test
+    @DisplayName("Should read one posting beyond the page and hand out a cursor at the last returned one")
+    void shouldReturnNextCursor() {
+        // Given
+        LocalDateTime newest = LocalDateTime.of(2024, 3, 1, 10, 0);
+        when(referenceResolver.find(any(Query.class))).thenReturn(deposits(4, newest));
+
+        // When
+        TransactionPage page = repository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.SOURCE,
+                Transaction.TransactionType.DEPOSIT, null, 3);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(referenceResolver).find(query.capture());
+        assertThat(query.getValue().getLimit()).isEqualTo(4);
+        assertThat(query.getValue().getSortObject()).isEqualTo(new Document("transactionDate", -1).append("transactionId", -1));
+        assertThat(query.getValue().getQueryObject()).containsEntry("type", Transaction.TransactionType.DEPOSIT);
+
+        assertThat(page.getTransactions()).hasSize(3);
+        assertThat(page.hasMore()).isTrue();
+        TransactionCursor cursor = TransactionCursor.decode(page.getNextCursor());
+        assertThat(cursor.getTransactionId()).isEqualTo("DEP98");
+        assertThat(cursor.getTransactionDate()).isEqualTo(newest.minusSeconds(2));
+    }
+
+    @Test
+    @DisplayName("Should seek past the cursor instead of skipping and report the last page")
+    void shouldSeekFromCursor() {
+        // Given
+        LocalDateTime at = LocalDateTime.of(2024, 3, 1, 9, 59, 58, 123_000_000);
+        when(referenceResolver.find(any(Query.class))).thenReturn(deposits(2, at));
+        TransactionCursor cursor = TransactionCursor.decode(new TransactionCursor(at, "DEP98").encode());
+
+        // When
+        TransactionPage page = repository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.EITHER,
+                null, cursor, 3);
+
+        // Then
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(referenceResolver).find(query.capture());
+        assertThat(query.getValue().getSkip()).isZero();
+        List<?> branches = query.getValue().getQueryObject().get("$or", List.class);
+        assertThat(branches).hasSize(2);
+        Document source = (Document) branches.get(0);
+        assertThat(source.get("transactionDate", Document.class)).containsEntry("$lte", at);
+        assertThat(source).containsKey("$nor");
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    @DisplayName("Should reject malformed cursors and oversized pages")
+    void shouldValidateInput() {
+        assertThatThrownBy(() -> TransactionCursor.decode("not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> repository.findAccountPage(account, TransactionRepositoryCustom.AccountSide.SOURCE,
+                null, null, 5000))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
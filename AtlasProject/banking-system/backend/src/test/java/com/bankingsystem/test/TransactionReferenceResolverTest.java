@@ -0,0 +1,145 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.TransactionReferenceResolver;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Transaction Reference Resolver Unit Tests")
+class TransactionReferenceResolverTest {
+
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    @Mock
+    private MongoCollection<Document> transactions;
+
+    @Mock
+    private MongoCollection<Document> accounts;
+
+    @Mock
+    private MongoCollection<Document> customers;
+
+    private final TransactionReferenceResolver resolver = new TransactionReferenceResolver();
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        MongoMappingContext mappingContext = new MongoMappingContext();
+        mappingContext.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        mappingContext.afterPropertiesSet();
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, mappingContext);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+        when(mongoTemplate.getConverter()).thenReturn(converter);
+        ReflectionTestUtils.setField(resolver, "mongoTemplate", mongoTemplate);
+    }
+
+    @SuppressWarnings("unchecked")
+    private FindIterable<Document> results(Document... documents) {
+        FindIterable<Document> iterable = mock(FindIterable.class);
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        Iterator<Document> iterator = List.of(documents).iterator();
+        lenient().when(iterable.sort(any())).thenReturn(iterable);
+        lenient().when(iterable.limit(anyInt())).thenReturn(iterable);
+        when(iterable.iterator()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        lenient().when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return iterable;
+    }
+
+    private Document transaction(String transactionId, String sourceRef, Document sourceSnapshot) {
+        return new Document("_id", "tx-" + transactionId)
+                .append("transactionId", transactionId)
+                .append("type", "DEPOSIT")
+                .append("amount", "100.00")
+                .append("status", "COMPLETED")
+                .append("sourceAccount", sourceRef)
+                .append("sourceSnapshot", sourceSnapshot);
+    }
+
+    @Test
+    @DisplayName("Should use embedded snapshots and resolve the remaining references with one $in per collection")
+    void shouldResolveRemainingReferencesInBatch() {
+        // Given
+        when(mongoTemplate.getCollectionName(any())).thenAnswer(invocation ->
+                ((Class<?>) invocation.getArgument(0)).getSimpleName().toLowerCase() + "s");
+        when(mongoTemplate.getCollection("transactions")).thenReturn(transactions);
+        when(mongoTemplate.getCollection("accounts")).thenReturn(accounts);
+        when(mongoTemplate.getCollection("customers")).thenReturn(customers);
+        FindIterable<Document> page = results(
+                transaction("DEP1", "acc-1", new Document("accountNumber", "ACC123456")
+                        .append("accountType", "SAVINGS").append("holderName", "Rajesh Kumar")),
+                transaction("DEP2", "acc-2", new Document("accountNumber", "ACC123457")),
+                transaction("DEP3", "acc-2", null));
+        when(transactions.find(any(Document.class))).thenReturn(page);
+        FindIterable<Document> accountRows = results(new Document("_id", "acc-2")
+                .append("accountNumber", "ACC123457").append("accountType", "CURRENT")
+                .append("balance", new BigDecimal("500.00")).append("customer", "cust-2"));
+        when(accounts.find(any(Document.class))).thenReturn(accountRows);
+        FindIterable<Document> customerRows = results(new Document("_id", "cust-2")
+                .append("firstName", "Priya").append("lastName", "Sharma"));
+        when(customers.find(any(Document.class))).thenReturn(customerRows);
+
+        // When
+        List<Transaction> result = resolver.find(new Query(Criteria.where("batchId").is("BATCH1")).limit(10));
+
+        // Then
+        assertThat(result).extracting(Transaction::getTransactionId).containsExactly("DEP1", "DEP2", "DEP3");
+        assertThat(result.get(0).getSourceAccount()).isNull();
+        assertThat(result.get(0).getSourceSnapshot().getHolderName()).isEqualTo("Rajesh Kumar");
+        assertThat(result.get(1).getSourceSnapshot().getHolderName()).isEqualTo("Priya Sharma");
+        assertThat(result.get(2).getSourceAccount().getAccountNumber()).isEqualTo("ACC123457");
+        assertThat(result.get(2).getSourceAccount().getCustomer().getFullName()).isEqualTo("Priya Sharma");
+
+        ArgumentCaptor<Document> accountFilter = ArgumentCaptor.forClass(Document.class);
+        verify(accounts).find(accountFilter.capture());
+        assertThat(accountFilter.getValue().get("_id", Document.class).get("$in", List.class)).containsExactly("acc-2");
+        verify(customers, times(1)).find(any(Document.class));
+    }
+
+    @Test
+    @DisplayName("Should not touch the account collection when every snapshot is complete")
+    void shouldSkipLookupsForCompleteSnapshots() {
+        // Given
+        when(mongoTemplate.getCollectionName(Transaction.class)).thenReturn("transactions");
+        when(mongoTemplate.getCollection("transactions")).thenReturn(transactions);
+        FindIterable<Document> page = results(transaction("DEP1", "acc-1", new Document("accountNumber", "ACC123456")
+                .append("holderName", "Rajesh Kumar")));
+        when(transactions.find(any(Document.class))).thenReturn(page);
+
+        // When
+        List<Transaction> result = resolver.find(new Query());
+
+        // Then
+        assertThat(result).singleElement().satisfies(transaction ->
+                assertThat(transaction.getSourceSnapshot().getAccountNumber()).isEqualTo("ACC123456"));
+        verify(mongoTemplate, never()).getCollection("accounts");
+    }
+}
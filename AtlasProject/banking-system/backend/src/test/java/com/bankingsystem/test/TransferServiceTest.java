@@ -1,5 +1,6 @@
 package com.bankingsystem.test;
 
+import com.bankingsystem.ledger.LedgerEngine;
 import com.bankingsystem.model.Account;
 import com.bankingsystem.model.Customer;
 import com.bankingsystem.model.Transaction;
@@ -7,16 +8,27 @@ import com.bankingsystem.repository.AccountRepository;
 import com.bankingsystem.repository.TransactionRepository;
 import com.bankingsystem.service.AuditService;
 import com.bankingsystem.service.TransferService;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountState;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
 import com.bankingsystem.util.UndoRedoStack;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.*;
@@ -39,6 +51,21 @@ class TransferServiceTest {
     @Mock
     private AuditService auditService;
     
+    @Mock
+    private LedgerEngine ledgerEngine;
+    
+    @Mock
+    private AccountStateTable accountStateTable;
+    
+    @Spy
+    private AccountLockManager accountLockManager = new AccountLockManager(16, 1000);
+    
+    @Spy
+    private IdGenerator idGenerator = new IdGenerator(1);
+    
+    @Spy
+    private OperationMetrics operationMetrics = new OperationMetrics(new SimpleMeterRegistry());
+    
     @InjectMocks
     private TransferService transferService;
     
@@ -74,15 +101,18 @@ class TransferServiceTest {
         BigDecimal transferAmount = new BigDecimal("10000");
         String description = "Test transfer";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
+        List<Transaction.TransactionStatus> saved = new ArrayList<>();
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByAccountNumber("ACC123457")).thenReturn(Optional.of(destinationAccount));
+        when(accountRepository.debitForTransfer(eq("ACC123456"), eq(transferAmount), anyString()))
                 .thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findByAccountNumber("ACC123457"))
+        when(accountRepository.creditForTransfer(eq("ACC123457"), eq(transferAmount), anyString()))
                 .thenReturn(Optional.of(destinationAccount));
-        when(accountRepository.save(any(Account.class)))
-                .thenReturn(sourceAccount, destinationAccount);
-        when(transactionRepository.save(any(Transaction.class)))
-                .thenReturn(new Transaction("TEST123", Transaction.TransactionType.TRANSFER, 
-                        transferAmount, sourceAccount, description));
+        when(transactionRepository.save(any(Transaction.class))).thenAnswer(invocation -> {
+            Transaction t = invocation.getArgument(0);
+            saved.add(t.getStatus());
+            return t;
+        });
         
         // When
         Transaction transaction = transferService.processTransfer(
@@ -100,9 +130,17 @@ class TransferServiceTest {
         assertThat(transaction.getDescription()).isEqualTo(description);
         assertThat(transaction.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
-        verify(accountRepository).findByAccountNumber("ACC123457");
-        verify(accountRepository, times(2)).save(any(Account.class));
+        // Recorded as PENDING before any money moved, then completed and untagged
+        assertThat(saved).containsExactly(Transaction.TransactionStatus.PENDING, Transaction.TransactionStatus.COMPLETED);
+        InOrder inOrder = inOrder(transactionRepository, accountRepository);
+        inOrder.verify(transactionRepository).save(transaction);
+        inOrder.verify(accountRepository).debitForTransfer("ACC123456", transferAmount, transaction.getTransactionId());
+        inOrder.verify(accountRepository).creditForTransfer("ACC123457", transferAmount, transaction.getTransactionId());
+        inOrder.verify(transactionRepository).save(transaction);
+        inOrder.verify(accountRepository).releaseTransferLeg("ACC123456", transaction.getTransactionId());
+        inOrder.verify(accountRepository).releaseTransferLeg("ACC123457", transaction.getTransactionId());
+        verify(accountRepository, never()).reverseTransferLeg(anyString(), any(BigDecimal.class), anyString());
+        verify(accountRepository, never()).save(any(Account.class));
     }
 
     @Test
@@ -116,6 +154,7 @@ class TransferServiceTest {
                 .thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findByAccountNumber("ACC123457"))
                 .thenReturn(Optional.of(destinationAccount));
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
         
         // When & Then
         assertThatThrownBy(() -> transferService.processTransfer(
@@ -127,9 +166,107 @@ class TransferServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Insufficient balance");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
-        verify(accountRepository).findByAccountNumber("ACC123457");
+        verify(accountRepository).debitForTransfer(eq("ACC123456"), eq(excessiveAmount), anyString());
+        verify(accountRepository, never()).creditForTransfer(anyString(), any(BigDecimal.class), anyString());
         verify(accountRepository, never()).save(any(Account.class));
+        verify(transactionRepository, times(2)).save(saved.capture());
+        assertThat(saved.getValue().getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("Should reject from the account state table without touching MongoDB")
+    void shouldRejectFromAccountState() {
+        // Given
+        BigDecimal excessiveAmount = new BigDecimal("100000");
+        when(accountStateTable.stateForValidation("ACC123456")).thenReturn(new AccountState("ACC123456",
+                Account.AccountStatus.ACTIVE, new BigDecimal("50000.00"), "INR", 3L, System.currentTimeMillis()));
+        
+        // When & Then
+        assertThatThrownBy(() -> transferService.processTransfer(
+                "ACC123456", 
+                "ACC123457", 
+                excessiveAmount, 
+                "Test transfer", 
+                testUserId
+        )).isInstanceOf(RuntimeException.class)
+          .hasMessageContaining("Insufficient balance in source account. Available: ₹50000.00");
+        
+        verifyNoInteractions(accountRepository);
+    }
+
+    @Test
+    @DisplayName("Should reverse the debit and fail the transfer when the credit is rejected")
+    void shouldReverseDebitWhenCreditRejected() {
+        // Given
+        BigDecimal transferAmount = new BigDecimal("1000");
+        destinationAccount.setStatus(Account.AccountStatus.INACTIVE);
+        when(accountRepository.findByAccountNumber("ACC123456")).thenReturn(Optional.of(sourceAccount));
+        when(accountRepository.findByAccountNumber("ACC123457")).thenReturn(Optional.of(destinationAccount));
+        when(accountRepository.debitForTransfer(eq("ACC123456"), eq(transferAmount), anyString()))
+                .thenReturn(Optional.of(sourceAccount));
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        
+        // When & Then
+        assertThatThrownBy(() -> transferService.processTransfer(
+                "ACC123456", "ACC123457", transferAmount, "Test transfer", testUserId))
+                .hasMessageContaining("Destination account is not active");
+        
+        verify(transactionRepository, times(2)).save(saved.capture());
+        String transactionId = saved.getValue().getTransactionId();
+        verify(accountRepository).reverseTransferLeg("ACC123456", transferAmount, transactionId);
+        assertThat(saved.getValue().getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+    }
+
+    @Test
+    @DisplayName("Should complete an interrupted transfer whose legs were both applied")
+    void shouldCompleteInterruptedTransfer() {
+        // Given
+        Transaction pending = pendingTransfer("TRF", idGenerator);
+        sourceAccount.setPendingTransfers(List.of(pending.getTransactionId()));
+        destinationAccount.setPendingTransfers(List.of(pending.getTransactionId()));
+        when(transactionRepository.findByTypeAndStatus(Transaction.TransactionType.TRANSFER,
+                Transaction.TransactionStatus.PENDING)).thenReturn(List.of(pending));
+        when(accountRepository.findWithPendingTransfers()).thenReturn(List.of(sourceAccount, destinationAccount));
+        when(transactionRepository.findByTransactionId(pending.getTransactionId())).thenReturn(Optional.of(pending));
+        
+        // When
+        transferService.recoverPendingTransfers();
+        
+        // Then
+        assertThat(pending.getStatus()).isEqualTo(Transaction.TransactionStatus.COMPLETED);
+        verify(transactionRepository).save(pending);
+        verify(accountRepository).releaseTransferLeg("ACC123456", pending.getTransactionId());
+        verify(accountRepository).releaseTransferLeg("ACC123457", pending.getTransactionId());
+        verify(accountRepository, never()).reverseTransferLeg(anyString(), any(BigDecimal.class), anyString());
+    }
+
+    @Test
+    @DisplayName("Should roll back an interrupted transfer that was only debited")
+    void shouldRollBackInterruptedTransfer() {
+        // Given
+        Transaction pending = pendingTransfer("TRF", idGenerator);
+        Transaction otherNode = pendingTransfer("TRF", new IdGenerator(2));
+        sourceAccount.setPendingTransfers(List.of(pending.getTransactionId(), otherNode.getTransactionId()));
+        when(transactionRepository.findByTypeAndStatus(Transaction.TransactionType.TRANSFER,
+                Transaction.TransactionStatus.PENDING)).thenReturn(List.of(pending, otherNode));
+        when(accountRepository.findWithPendingTransfers()).thenReturn(List.of(sourceAccount));
+        when(transactionRepository.findByTransactionId(pending.getTransactionId())).thenReturn(Optional.of(pending));
+        
+        // When
+        transferService.recoverPendingTransfers();
+        
+        // Then - the other node's transfer may still be in flight and is left alone
+        assertThat(pending.getStatus()).isEqualTo(Transaction.TransactionStatus.FAILED);
+        verify(accountRepository).reverseTransferLeg("ACC123456", new BigDecimal("1000"), pending.getTransactionId());
+        verify(accountRepository, never()).reverseTransferLeg(anyString(), any(BigDecimal.class),
+                eq(otherNode.getTransactionId()));
+        verify(transactionRepository, never()).findByTransactionId(otherNode.getTransactionId());
+        assertThat(otherNode.getStatus()).isEqualTo(Transaction.TransactionStatus.PENDING);
+    }
+
+    private Transaction pendingTransfer(String prefix, IdGenerator generator) {
+        return new Transaction(generator.nextId(prefix), Transaction.TransactionType.TRANSFER,
+                new BigDecimal("1000"), sourceAccount, destinationAccount, "Test transfer");
     }
 
     @Test
@@ -139,9 +276,6 @@ class TransferServiceTest {
         BigDecimal transferAmount = new BigDecimal("1000");
         String description = "Test transfer";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
-                .thenReturn(Optional.of(sourceAccount));
-        
         // When & Then
         assertThatThrownBy(() -> transferService.processTransfer(
                 "ACC123456", 
@@ -152,7 +286,7 @@ class TransferServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Cannot transfer to the same account");
         
-        verify(accountRepository, times(2)).findByAccountNumber("ACC123456");
+        verify(accountRepository, never()).debitForTransfer(anyString(), any(BigDecimal.class), anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -178,8 +312,8 @@ class TransferServiceTest {
           .hasMessageContaining("Source account not found");
         
         verify(accountRepository).findByAccountNumber(invalidSourceAccount);
-        verify(accountRepository, never()).findByAccountNumber("ACC123457");
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).debitForTransfer(anyString(), any(BigDecimal.class), anyString());
+        verifyNoInteractions(transactionRepository);
     }
 
     @Test
@@ -205,9 +339,9 @@ class TransferServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Destination account not found");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
         verify(accountRepository).findByAccountNumber(invalidDestinationAccount);
-        verify(accountRepository, never()).save(any(Account.class));
+        verify(accountRepository, never()).debitForTransfer(anyString(), any(BigDecimal.class), anyString());
+        verifyNoInteractions(transactionRepository);
     }
 
     @Test
@@ -217,11 +351,6 @@ class TransferServiceTest {
         BigDecimal negativeAmount = new BigDecimal("-1000");
         String description = "Test transfer";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
-                .thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findByAccountNumber("ACC123457"))
-                .thenReturn(Optional.of(destinationAccount));
-        
         // When & Then
         assertThatThrownBy(() -> transferService.processTransfer(
                 "ACC123456", 
@@ -232,8 +361,7 @@ class TransferServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Transfer amount must be greater than zero");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
-        verify(accountRepository).findByAccountNumber("ACC123457");
+        verify(accountRepository, never()).debitForTransfer(anyString(), any(BigDecimal.class), anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 
@@ -244,11 +372,6 @@ class TransferServiceTest {
         BigDecimal zeroAmount = BigDecimal.ZERO;
         String description = "Test transfer";
         
-        when(accountRepository.findByAccountNumber("ACC123456"))
-                .thenReturn(Optional.of(sourceAccount));
-        when(accountRepository.findByAccountNumber("ACC123457"))
-                .thenReturn(Optional.of(destinationAccount));
-        
         // When & Then
         assertThatThrownBy(() -> transferService.processTransfer(
                 "ACC123456", 
@@ -259,8 +382,7 @@ class TransferServiceTest {
         )).isInstanceOf(RuntimeException.class)
           .hasMessageContaining("Transfer amount must be greater than zero");
         
-        verify(accountRepository).findByAccountNumber("ACC123456");
-        verify(accountRepository).findByAccountNumber("ACC123457");
+        verify(accountRepository, never()).debitForTransfer(anyString(), any(BigDecimal.class), anyString());
         verify(accountRepository, never()).save(any(Account.class));
     }
 }
\ No newline at end of file
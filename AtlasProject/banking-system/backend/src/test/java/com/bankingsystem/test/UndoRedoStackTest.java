@@ -0,0 +1,108 @@
+package com.bankingsystem.test;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.UndoRedoStack;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.*;
+
+@DisplayName("Undo/Redo Stack Unit Tests")
+class UndoRedoStackTest {
+
+    private Transaction deposit(String transactionId, String accountNumber) {
+        Account account = new Account();
+        account.setAccountNumber(accountNumber);
+        return new Transaction(transactionId, Transaction.TransactionType.DEPOSIT, new BigDecimal("100.00"),
+                account, null, "Deposit");
+    }
+
+    @Test
+    @DisplayName("Should keep only the latest entries up to the configured depth")
+    void shouldBoundHistoryDepth() {
+        // Given
+        UndoRedoStack stack = new UndoRedoStack(3, Long.MAX_VALUE);
+
+        // When
+        for (int i = 1; i <= 5; i++) {
+            stack.pushUndo("ACC123456", deposit("DEP" + i, "ACC123456"));
+        }
+
+        // Then
+        assertThat(stack.getUndoStackSize("ACC123456")).isEqualTo(3);
+        assertThat(stack.popUndo("ACC123456").getTransactionId()).isEqualTo("DEP5");
+        assertThat(stack.popUndo("ACC123456").getTransactionId()).isEqualTo("DEP4");
+        assertThat(stack.popUndo("ACC123456").getTransactionId()).isEqualTo("DEP3");
+        assertThat(stack.popUndo("ACC123456")).isNull();
+        assertThat(stack.getRedoStackSize("ACC123456")).isEqualTo(3);
+        assertThat(stack.popRedo("ACC123456").getTransactionId()).isEqualTo("DEP3");
+        assertThat(stack.getStats()).containsEntry("retainedEntries", 3L).containsEntry("droppedEntries", 2L);
+    }
+
+    @Test
+    @DisplayName("Should pop the peeked transaction even after newer ones were pushed")
+    void shouldPopByIdentity() {
+        // Given - DEP1 was peeked for undo, then DEP2 was pushed on top of it
+        UndoRedoStack stack = new UndoRedoStack(3, Long.MAX_VALUE);
+        Transaction peeked = deposit("DEP1", "ACC123456");
+        stack.pushUndo("ACC123456", deposit("DEP0", "ACC123456"));
+        stack.pushUndo("ACC123456", peeked);
+        stack.pushUndo("ACC123456", deposit("DEP2", "ACC123456"));
+        long retainedBytes = stack.getRetainedBytes();
+
+        // When - the held transaction grows while it sits in the history
+        peeked.markAsReversed("Reversed by user USER001 after a long review");
+        boolean popped = stack.popUndo("ACC123456", peeked);
+
+        // Then
+        assertThat(popped).isTrue();
+        assertThat(stack.popUndo("ACC123456", peeked)).isFalse();
+        assertThat(stack.peekRedo("ACC123456")).isSameAs(peeked);
+        assertThat(stack.popUndo("ACC123456").getTransactionId()).isEqualTo("DEP2");
+        assertThat(stack.popUndo("ACC123456").getTransactionId()).isEqualTo("DEP0");
+        assertThat(stack.getRetainedBytes()).isEqualTo(retainedBytes);
+        stack.clearAllStacks();
+        assertThat(stack.getRetainedBytes()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should clear the redo history when a new transaction is pushed")
+    void shouldClearRedoOnPush() {
+        // Given
+        UndoRedoStack stack = new UndoRedoStack(20, Long.MAX_VALUE);
+        stack.pushUndo("ACC123456", deposit("DEP1", "ACC123456"));
+        stack.popUndo("ACC123456");
+
+        // When
+        stack.pushUndo("ACC123456", deposit("DEP2", "ACC123456"));
+
+        // Then
+        assertThat(stack.canRedo("ACC123456")).isFalse();
+        assertThat(stack.peekUndo("ACC123456").getTransactionId()).isEqualTo("DEP2");
+        assertThat(stack.getStats()).containsEntry("retainedEntries", 1L);
+    }
+
+    @Test
+    @DisplayName("Should evict idle accounts to stay within the memory budget")
+    void shouldEvictIdleAccountsOverBudget() {
+        // Given
+        long maxBytes = 8 * 1024;
+        UndoRedoStack stack = new UndoRedoStack(20, maxBytes);
+
+        // When
+        for (int i = 0; i < 200; i++) {
+            stack.pushUndo("ACC" + i, deposit("DEP" + i, "ACC" + i));
+        }
+
+        // Then
+        assertThat((Long) stack.getStats().get("retainedBytes")).isLessThanOrEqualTo(maxBytes);
+        assertThat((Long) stack.getStats().get("evictedAccounts")).isPositive();
+        assertThat(stack.canUndo("ACC199")).isTrue();
+
+        stack.clearAllStacks();
+        assertThat(stack.getStats()).containsEntry("retainedEntries", 0L).containsEntry("retainedBytes", 0L);
+    }
+}
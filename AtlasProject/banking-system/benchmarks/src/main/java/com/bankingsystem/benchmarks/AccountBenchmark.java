@@ -0,0 +1,63 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal balance math on a single account (Account.deposit / withdraw / canWithdraw)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AccountBenchmark {
+
+    /** Whole rupees versus paise, which changes the BigDecimal scale alignment */
+    @Param({"500", "499.75"})
+    private String amount;
+
+    private Account account;
+    private BigDecimal value;
+
+    @Setup
+    public void setUp() {
+        account = new Account("ACC000000000001", new Customer(), Account.AccountType.SAVINGS);
+        account.setBalance(new BigDecimal("1000000000.00"));
+        value = new BigDecimal(amount);
+    }
+
+    @Benchmark
+    public BigDecimal deposit() {
+        account.deposit(value);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal depositThenWithdraw() {
+        // Keeps the balance steady, so every withdrawal passes its checks
+        account.deposit(value);
+        account.withdraw(value);
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public boolean canWithdraw() {
+        return account.canWithdraw(value);
+    }
+}
@@ -0,0 +1,63 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Customer;
+import com.bankingsystem.model.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.TimeZone;
+
+/**
+ * Sample customers, accounts and transactions shared by the benchmarks
+ */
+final class Fixtures {
+
+    static final BigDecimal OPENING_BALANCE = new BigDecimal("1000000000.00");
+
+    private Fixtures() {
+    }
+
+    static String accountNumber(int index) {
+        return String.format("ACC%012d", index);
+    }
+
+    static Customer customer(int index) {
+        Customer customer = new Customer("Rajesh", "Kumar", "rajesh" + index + "@example.com",
+                "9876543210", "123 MG Road", "Mumbai", "Maharashtra", "400001");
+        customer.setId("customer-" + index);
+        customer.setPanNumber("ABCDE1234F");
+        return customer;
+    }
+
+    static Account account(int index) {
+        Account account = new Account(accountNumber(index), customer(index), Account.AccountType.SAVINGS);
+        account.setId("account-" + index);
+        account.setBalance(OPENING_BALANCE);
+        account.setVersion(0L);
+        return account;
+    }
+
+    static Transaction transaction(Transaction.TransactionType type) {
+        BigDecimal amount = new BigDecimal("2500.50");
+        Transaction transaction = type == Transaction.TransactionType.TRANSFER
+                ? new Transaction("TXN0019XKQ2V8C0G1", type, amount, account(1), account(2), "Rent for March")
+                : new Transaction("TXN0019XKQ2V8C0G1", type, amount, account(1), "Cash at branch");
+        transaction.setId("65f1c2a9e4b0a1b2c3d4e5f6");
+        transaction.setReferenceNumber("REF0019XKQ2V8C0G2");
+        transaction.markAsCompleted();
+        return transaction;
+    }
+
+    /**
+     * The application's ObjectMapper (spring.jackson.* in application.properties)
+     */
+    static ObjectMapper objectMapper() {
+        return Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .timeZone(TimeZone.getTimeZone("Asia/Kolkata"))
+                .build();
+    }
+}
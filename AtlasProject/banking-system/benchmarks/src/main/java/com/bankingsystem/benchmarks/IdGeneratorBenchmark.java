@@ -0,0 +1,45 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.util.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction ID generation, alone and with several threads sharing one generator
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+    private final IdGenerator idGenerator = new IdGenerator(1);
+
+    @Benchmark
+    public long numericId() {
+        return idGenerator.nextId();
+    }
+
+    @Benchmark
+    public String prefixedId() {
+        return idGenerator.nextId("TXN");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String prefixedIdContended() {
+        return idGenerator.nextId("TXN");
+    }
+}
@@ -0,0 +1,157 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.AuditLog;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.service.AuditWriter;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Map-backed stand-ins for the MongoDB repositories, so the posting services can be
+ * measured without a database. Only the calls the posting paths make are supported.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    /**
+     * Account repository over the given accounts, keyed by account number. Balance
+     * updates follow the guarded findAndModify semantics and return a fresh copy.
+     */
+    static AccountRepository accounts(Map<String, Account> accounts) {
+        return proxy(AccountRepository.class, (method, args) -> switch (method.getName()) {
+            case "findByAccountNumber" -> Optional.ofNullable(accounts.get((String) args[0])).map(Account::new);
+            case "creditBalance" -> update(accounts, (String) args[0], (BigDecimal) args[1], true);
+            case "debitBalance" -> update(accounts, (String) args[0], ((BigDecimal) args[1]).negate(), true);
+            case "adjustBalance" -> update(accounts, (String) args[0], (BigDecimal) args[1], false);
+            case "debitForTransfer" -> updateLeg(accounts, (String) args[0], ((BigDecimal) args[1]).negate(), (String) args[2], true);
+            case "creditForTransfer" -> updateLeg(accounts, (String) args[0], (BigDecimal) args[1], (String) args[2], true);
+            case "reverseTransferLeg" -> updateLeg(accounts, (String) args[0], (BigDecimal) args[1], (String) args[2], false);
+            case "releaseTransferLeg" -> {
+                updateLeg(accounts, (String) args[0], BigDecimal.ZERO, (String) args[1], false);
+                yield null;
+            }
+            case "save" -> {
+                Account account = (Account) args[0];
+                accounts.put(account.getAccountNumber(), new Account(account));
+                yield account;
+            }
+            default -> throw unsupported(method);
+        });
+    }
+
+    /**
+     * Transaction repository that keeps nothing, only counts saves
+     */
+    static TransactionRepository transactions(AtomicLong saved) {
+        return proxy(TransactionRepository.class, (method, args) -> switch (method.getName()) {
+            case "save" -> {
+                saved.incrementAndGet();
+                Transaction transaction = (Transaction) args[0];
+                yield transaction;
+            }
+            default -> throw unsupported(method);
+        });
+    }
+
+    private static Optional<Account> update(Map<String, Account> accounts, String accountNumber,
+                                            BigDecimal delta, boolean guarded) {
+        Account[] updated = new Account[1];
+        accounts.computeIfPresent(accountNumber, (key, current) -> {
+            BigDecimal balance = current.getBalance().add(delta);
+            if (guarded && (current.getStatus() != Account.AccountStatus.ACTIVE || balance.signum() < 0)) {
+                return current;
+            }
+            Account next = new Account(current);
+            next.setBalance(balance);
+            next.setVersion(current.getVersion() + 1);
+            updated[0] = next;
+            return next;
+        });
+        return Optional.ofNullable(updated[0]).map(Account::new);
+    }
+
+    /**
+     * A transfer leg: applying one (guarded) adds the transfer tag, reversing or
+     * releasing one requires the tag and removes it
+     */
+    private static Optional<Account> updateLeg(Map<String, Account> accounts, String accountNumber,
+                                               BigDecimal delta, String transactionId, boolean apply) {
+        Account[] updated = new Account[1];
+        accounts.computeIfPresent(accountNumber, (key, current) -> {
+            List<String> tags = current.getPendingTransfers() != null ? current.getPendingTransfers() : List.of();
+            BigDecimal balance = current.getBalance().add(delta);
+            if (apply ? tags.contains(transactionId) || current.getStatus() != Account.AccountStatus.ACTIVE
+                    || balance.signum() < 0 : !tags.contains(transactionId)) {
+                return current;
+            }
+            List<String> nextTags = new ArrayList<>(tags);
+            if (apply) {
+                nextTags.add(transactionId);
+            } else {
+                nextTags.remove(transactionId);
+            }
+            Account next = new Account(current);
+            next.setBalance(balance);
+            next.setPendingTransfers(nextTags);
+            next.setVersion(current.getVersion() + 1);
+            updated[0] = next;
+            return next;
+        });
+        return Optional.ofNullable(updated[0]).map(Account::new);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "equals" -> proxy == args[0];
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    default -> "InMemory" + type.getSimpleName();
+                };
+            }
+            return handler.handle(method, args);
+        };
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, invocationHandler);
+    }
+
+    private static UnsupportedOperationException unsupported(Method method) {
+        return new UnsupportedOperationException("Not supported by the in-memory stand-in: " + method.getName());
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object handle(Method method, Object[] args);
+    }
+
+    /**
+     * Audit writer that counts events instead of batching them to MongoDB and DynamoDB
+     */
+    static final class CountingAuditWriter extends AuditWriter {
+
+        private final AtomicLong submitted = new AtomicLong();
+
+        @Override
+        public void submit(AuditLog auditLog) {
+            submitted.incrementAndGet();
+        }
+
+        long getSubmitted() {
+            return submitted.get();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.ledger.LedgerEngine;
+import com.bankingsystem.model.Account;
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.repository.AccountRepository;
+import com.bankingsystem.repository.TransactionRepository;
+import com.bankingsystem.service.AuditService;
+import com.bankingsystem.service.DepositService;
+import com.bankingsystem.service.TransferService;
+import com.bankingsystem.service.WithdrawService;
+import com.bankingsystem.util.AccountLockManager;
+import com.bankingsystem.util.AccountStateTable;
+import com.bankingsystem.util.IdGenerator;
+import com.bankingsystem.util.OperationMetrics;
+import com.bankingsystem.util.UndoRedoStack;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Deposit, withdrawal and transfer through the real services (locking, ID generation,
+ * undo history, audit event creation and metrics) on the MongoDB path, with map-backed
+ * repositories in place of the database. Few accounts means lock contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class PostingServiceBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+    private static final String USER_ID = "BENCH_USER";
+
+    @Param({"8", "10000"})
+    private int accounts;
+
+    private DepositService depositService;
+    private WithdrawService withdrawService;
+    private TransferService transferService;
+    private String[] accountNumbers;
+
+    @Setup
+    public void setUp() {
+        Map<String, Account> store = new ConcurrentHashMap<>();
+        accountNumbers = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            Account account = Fixtures.account(i);
+            store.put(account.getAccountNumber(), account);
+            accountNumbers[i] = account.getAccountNumber();
+        }
+
+        AccountRepository accountRepository = InMemoryRepositories.accounts(store);
+        TransactionRepository transactionRepository = InMemoryRepositories.transactions(new AtomicLong());
+        OperationMetrics operationMetrics = new OperationMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        AuditService auditService = new AuditService();
+        ReflectionTestUtils.setField(auditService, "auditWriter", new InMemoryRepositories.CountingAuditWriter());
+        ReflectionTestUtils.setField(auditService, "operationMetrics", operationMetrics);
+
+        Map<String, Object> collaborators = Map.of(
+                "accountRepository", accountRepository,
+                "transactionRepository", transactionRepository,
+                "auditService", auditService,
+                "undoRedoStack", new UndoRedoStack(20, 64L * 1024 * 1024),
+                "accountLockManager", new AccountLockManager(1024, 5000),
+                "idGenerator", new IdGenerator(1),
+                "ledgerEngine", new LedgerEngine(false, 8, 65536, 100, 50, 1000, 1000),
+                "operationMetrics", operationMetrics,
+                "accountStateTable", new AccountStateTable(false, "./data/account-state", 1024, 1, false));
+
+        depositService = wire(new DepositService(), collaborators);
+        withdrawService = wire(new WithdrawService(), collaborators);
+        transferService = wire(new TransferService(), collaborators);
+    }
+
+    @Benchmark
+    public Transaction deposit() {
+        return depositService.processDeposit(randomAccount(), AMOUNT, "Benchmark deposit", USER_ID);
+    }
+
+    @Benchmark
+    public Transaction withdraw() {
+        return withdrawService.processWithdrawal(randomAccount(), AMOUNT, "Benchmark withdrawal", USER_ID);
+    }
+
+    @Benchmark
+    public Transaction transfer() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accountNumbers.length);
+        int destination = (source + 1 + random.nextInt(accountNumbers.length - 1)) % accountNumbers.length;
+        return transferService.processTransfer(accountNumbers[source], accountNumbers[destination],
+                AMOUNT, "Benchmark transfer", USER_ID);
+    }
+
+    private String randomAccount() {
+        return accountNumbers[ThreadLocalRandom.current().nextInt(accountNumbers.length)];
+    }
+
+    /**
+     * Set each collaborator the service declares, as Spring's field injection would
+     */
+    private static <T> T wire(T service, Map<String, Object> collaborators) {
+        collaborators.forEach((field, value) -> {
+            if (ReflectionUtils.findField(service.getClass(), field) != null) {
+                ReflectionTestUtils.setField(service, field, value);
+            }
+        });
+        return service;
+    }
+}
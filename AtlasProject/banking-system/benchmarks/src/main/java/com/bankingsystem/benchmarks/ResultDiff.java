@@ -0,0 +1,91 @@
+package com.bankingsystem.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compare two JMH JSON result files (e.g. jmh-result-1.0.0.json and jmh-result-1.1.0.json).
+ * Prints the score change of every benchmark present in both and exits with status 1 if
+ * any got worse by more than the threshold (default 5%) and by more than the error margins.
+ *
+ * Usage: java -cp benchmarks.jar com.bankingsystem.benchmarks.ResultDiff old.json new.json [threshold-percent]
+ */
+public class ResultDiff {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: ResultDiff <old.json> <new.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+        Map<String, JsonNode> before = load(Path.of(args[0]));
+        Map<String, JsonNode> after = load(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : after.entrySet()) {
+            JsonNode previous = before.get(entry.getKey());
+            if (previous == null) {
+                System.out.println("🆕 " + entry.getKey() + ": " + score(entry.getValue()));
+                continue;
+            }
+            JsonNode current = entry.getValue();
+            double oldScore = previous.at("/primaryMetric/score").asDouble();
+            double newScore = current.at("/primaryMetric/score").asDouble();
+            double change = oldScore == 0 ? 0 : (newScore - oldScore) / oldScore * 100;
+            // Throughput should go up; every other mode measures time, which should go down
+            double worse = "thrpt".equals(current.path("mode").asText()) ? -change : change;
+            double margin = errorOf(previous) + errorOf(current);
+            boolean regressed = worse > threshold && Math.abs(newScore - oldScore) > margin;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%s %s: %s -> %s (%+.1f%%)%n", regressed ? "❌" : worse < -threshold ? "🚀" : "✅",
+                    entry.getKey(), score(previous), score(current), change);
+        }
+        for (String removed : before.keySet()) {
+            if (!after.containsKey(removed)) {
+                System.out.println("🗑️ " + removed + ": no longer measured");
+            }
+        }
+
+        System.out.println("📊 " + after.size() + " results compared, " + regressions + " regressions over "
+                + threshold + "%");
+        if (regressions > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Results keyed by benchmark name, mode and parameters
+     */
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText());
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            fields.forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            params.forEach((name, value) -> key.append(", ").append(name).append('=').append(value));
+            results.put(key.append(']').toString(), result);
+        }
+        return results;
+    }
+
+    private static double errorOf(JsonNode result) {
+        double error = result.at("/primaryMetric/scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String score(JsonNode result) {
+        return String.format("%.3f %s", result.at("/primaryMetric/score").asDouble(),
+                result.at("/primaryMetric/scoreUnit").asText());
+    }
+}
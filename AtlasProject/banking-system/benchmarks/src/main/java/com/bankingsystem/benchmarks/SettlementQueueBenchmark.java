@@ -0,0 +1,86 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.DurableSettlementQueue;
+import com.bankingsystem.util.InMemorySettlementQueue;
+import com.bankingsystem.util.SettlementQueue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One settlement cycle per invocation: enqueue a batch, drain it and acknowledge every
+ * transaction, against the in-memory queue and the file-backed durable queue
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@OperationsPerInvocation(SettlementQueueBenchmark.BATCH)
+public class SettlementQueueBenchmark {
+
+    static final int BATCH = 1000;
+
+    @Param({"memory", "durable"})
+    private String queueType;
+
+    private SettlementQueue settlementQueue;
+    private Path directory;
+    private Transaction[] transactions;
+
+    @Setup
+    public void setUp() throws IOException {
+        if ("durable".equals(queueType)) {
+            directory = Files.createTempDirectory("settlement-queue-bench");
+            DurableSettlementQueue durable = new DurableSettlementQueue(directory.toString(), BATCH * 2, 16, 1000, false);
+            durable.open();
+            settlementQueue = durable;
+        } else {
+            settlementQueue = new InMemorySettlementQueue();
+        }
+        transactions = new Transaction[BATCH];
+        for (int i = 0; i < BATCH; i++) {
+            transactions[i] = Fixtures.transaction(Transaction.TransactionType.TRANSFER);
+            transactions[i].setTransactionId(String.format("TXN%013d", i));
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (settlementQueue instanceof DurableSettlementQueue durable) {
+            durable.close();
+            FileSystemUtils.deleteRecursively(directory);
+        }
+    }
+
+    @Benchmark
+    public int enqueueDrainAcknowledge() {
+        for (Transaction transaction : transactions) {
+            settlementQueue.enqueue(transaction);
+        }
+        List<Transaction> drained = settlementQueue.drainTo(BATCH);
+        for (Transaction transaction : drained) {
+            settlementQueue.markAsProcessed(transaction.getTransactionId());
+        }
+        return drained.size();
+    }
+}
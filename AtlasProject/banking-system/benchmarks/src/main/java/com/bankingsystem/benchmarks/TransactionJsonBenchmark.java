@@ -0,0 +1,64 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Transaction;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transaction JSON as the REST API writes it: nested accounts, each with its customer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionJsonBenchmark {
+
+    /** One nested account (deposit) or two (transfer) */
+    @Param({"DEPOSIT", "TRANSFER"})
+    private Transaction.TransactionType type;
+
+    private Transaction transaction;
+    private ObjectWriter writer;
+    private ObjectMapper objectMapper;
+    private byte[] json;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        transaction = Fixtures.transaction(type);
+        objectMapper = Fixtures.objectMapper();
+        writer = objectMapper.writerFor(Transaction.class);
+        json = writer.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return writer.writeValueAsBytes(transaction);
+    }
+
+    @Benchmark
+    public String serializeToString() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(transaction);
+    }
+
+    @Benchmark
+    public Transaction deserialize() throws IOException {
+        return objectMapper.readValue(json, Transaction.class);
+    }
+}
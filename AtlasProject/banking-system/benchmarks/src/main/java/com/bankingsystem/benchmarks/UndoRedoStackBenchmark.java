@@ -0,0 +1,74 @@
+package com.bankingsystem.benchmarks;
+
+import com.bankingsystem.model.Transaction;
+import com.bankingsystem.util.UndoRedoStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Undo history push/pop with four threads sharing one stack; a single account makes
+ * every thread contend on the same history, many accounts spread them out
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class UndoRedoStackBenchmark {
+
+    @Param({"1", "1024"})
+    private int accounts;
+
+    private UndoRedoStack undoRedoStack;
+    private String[] accountIds;
+    private Transaction transaction;
+
+    @Setup
+    public void setUp() {
+        undoRedoStack = new UndoRedoStack(20, 64L * 1024 * 1024);
+        accountIds = new String[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = "account-" + i;
+        }
+        transaction = Fixtures.transaction(Transaction.TransactionType.DEPOSIT);
+    }
+
+    @Benchmark
+    public void push() {
+        undoRedoStack.pushUndo(randomAccount(), transaction);
+    }
+
+    @Benchmark
+    public Transaction pushThenUndo() {
+        String accountId = randomAccount();
+        undoRedoStack.pushUndo(accountId, transaction);
+        return undoRedoStack.popUndo(accountId);
+    }
+
+    @Benchmark
+    public Transaction undoThenRedo() {
+        String accountId = randomAccount();
+        undoRedoStack.pushUndo(accountId, transaction);
+        undoRedoStack.popUndo(accountId);
+        return undoRedoStack.popRedo(accountId);
+    }
+
+    private String randomAccount() {
+        return accountIds[ThreadLocalRandom.current().nextInt(accountIds.length)];
+    }
+}
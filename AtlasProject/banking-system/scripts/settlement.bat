@@ -1,13 +1,14 @@
 @echo off
 REM Banking System - Windows Batch Settlement Script
-REM This script processes queued transactions for settlement
-REM Should be run as a scheduled task (e.g., daily at 2 AM)
+REM This script triggers settlement of queued transactions on the running server
+REM The server already settles daily on banking.settlement.cron; use this for
+REM manual or extra runs
 
 REM Configuration
-set JAVA_HOME=C:\Program Files\Java\jdk-17
-set APP_HOME=C:\opt\banking-system
+if "%BANKING_SERVER_URL%"=="" (set SERVER_URL=http://localhost:8080) else (set SERVER_URL=%BANKING_SERVER_URL%)
+set SETTLEMENT_URL=%SERVER_URL%/api/settlement/run
+set SETTLEMENT_TIMEOUT=600
 set LOG_DIR=C:\var\log\banking-system
-set JAR_FILE=%APP_HOME%\banking-system-1.0.0.jar
 
 REM Create log directory if it doesn't exist
 if not exist %LOG_DIR% mkdir %LOG_DIR%
@@ -26,47 +27,36 @@ echo [%date% %time%] ========================================== >> %LOG_FILE%
 echo [%date% %time%] Starting Banking System Settlement Process >> %LOG_FILE%
 echo [%date% %time%] ========================================== >> %LOG_FILE%
 
-REM Check if Java is available
-java -version >nul 2>&1
+REM Check if curl is available
+curl --version >nul 2>&1
 if %errorlevel% neq 0 (
-    echo [%date% %time%] ERROR: Java is not installed or not in PATH >> %LOG_FILE%
-    echo [%date% %time%] NOTIFICATION: Settlement Failed - Java is not available >> %LOG_FILE%
+    echo [%date% %time%] ERROR: curl is not installed or not in PATH >> %LOG_FILE%
+    echo [%date% %time%] NOTIFICATION: Settlement Failed - curl is not available >> %LOG_FILE%
     exit /b 1
 )
 
-REM Check if JAR file exists
-if not exist "%JAR_FILE%" (
-    echo [%date% %time%] ERROR: JAR file not found: %JAR_FILE% >> %LOG_FILE%
-    echo [%date% %time%] NOTIFICATION: Settlement Failed - JAR file not found >> %LOG_FILE%
-    exit /b 1
-)
-
-REM Set Java options
-set JAVA_OPTS=-Xmx512m -Xms256m
-set JAVA_OPTS=%JAVA_OPTS% -Dspring.profiles.active=production
-set JAVA_OPTS=%JAVA_OPTS% -Dlogging.file.name=%LOG_DIR%\banking-system.log
-
-REM MongoDB connection (adjust as needed)
-set SPRING_DATA_MONGODB_URI=mongodb://localhost:27017/banking_system
-
-REM DynamoDB configuration (adjust as needed)
-set AWS_REGION=ap-south-1
-set AWS_ACCESS_KEY_ID=your-access-key
-set AWS_SECRET_ACCESS_KEY=your-secret-key
-
-echo [%date% %time%] Java version: >> %LOG_FILE%
-java -version >> %LOG_FILE% 2>&1
-echo [%date% %time%] JAR file: %JAR_FILE% >> %LOG_FILE%
-echo [%date% %time%] Log file: %LOG_FILE% >> %LOG_FILE%
+REM The running server owns the settlement queue (it holds an exclusive lock on the
+REM queue directory) and already settles on banking.settlement.cron, so this script
+REM asks that server to run settlement instead of starting a second JVM.
+echo [%date% %time%] Settlement endpoint: %SETTLEMENT_URL% >> %LOG_FILE%
 
 REM Run settlement process
 echo [%date% %time%] Starting settlement process... >> %LOG_FILE%
 
 REM Execute the settlement
-java %JAVA_OPTS% -jar %JAR_FILE% --spring.main.class=com.bankingsystem.SettlementRunner >> %LOG_FILE% 2>&1
+set RESPONSE_FILE=%TEMP%\settlement-response.json
+curl -sS -X POST --max-time %SETTLEMENT_TIMEOUT% %SETTLEMENT_URL% > "%RESPONSE_FILE%" 2>&1
 
 REM Capture exit code
 set EXIT_CODE=%errorlevel%
+type "%RESPONSE_FILE%" >> %LOG_FILE%
+echo. >> %LOG_FILE%
+
+REM The endpoint reports failures in the body rather than the HTTP status
+if %EXIT_CODE% equ 0 (
+    findstr /c:"\"success\":true" "%RESPONSE_FILE%" >nul || set EXIT_CODE=1
+)
+del "%RESPONSE_FILE%" 2>nul
 
 REM Check if settlement was successful
 if %EXIT_CODE% equ 0 (
@@ -1,14 +1,15 @@
 #!/bin/bash
 
 # Banking System - Batch Settlement Script
-# This script processes queued transactions for settlement
-# Should be run as a cron job (e.g., daily at 2 AM)
+# This script triggers settlement of queued transactions on the running server
+# The server already settles daily on banking.settlement.cron; use this for
+# manual or extra runs
 
 # Configuration
-JAVA_HOME="/usr/lib/jvm/java-17-openjdk"
-APP_HOME="/opt/banking-system"
+SERVER_URL="${BANKING_SERVER_URL:-http://localhost:8080}"
+SETTLEMENT_URL="$SERVER_URL/api/settlement/run"
+SETTLEMENT_TIMEOUT=600
 LOG_DIR="/var/log/banking-system"
-JAR_FILE="$APP_HOME/banking-system-1.0.0.jar"
 
 # Create log directory if it doesn't exist
 mkdir -p $LOG_DIR
@@ -36,45 +37,30 @@ log_message "=========================================="
 log_message "Starting Banking System Settlement Process"
 log_message "=========================================="
 
-# Check if Java is available
-if ! command -v java &> /dev/null; then
-    log_message "ERROR: Java is not installed or not in PATH"
-    send_notification "Settlement Failed" "Java is not available"
+# Check if curl is available
+if ! command -v curl &> /dev/null; then
+    log_message "ERROR: curl is not installed or not in PATH"
+    send_notification "Settlement Failed" "curl is not available"
     exit 1
 fi
 
-# Check if JAR file exists
-if [ ! -f "$JAR_FILE" ]; then
-    log_message "ERROR: JAR file not found: $JAR_FILE"
-    send_notification "Settlement Failed" "JAR file not found"
-    exit 1
-fi
-
-# Set Java options
-JAVA_OPTS="-Xmx512m -Xms256m"
-JAVA_OPTS="$JAVA_OPTS -Dspring.profiles.active=production"
-JAVA_OPTS="$JAVA_OPTS -Dlogging.file.name=$LOG_DIR/banking-system.log"
-
-# MongoDB connection (adjust as needed)
-export SPRING_DATA_MONGODB_URI="mongodb://localhost:27017/banking_system"
-
-# DynamoDB configuration (adjust as needed)
-export AWS_REGION="ap-south-1"
-export AWS_ACCESS_KEY_ID="your-access-key"
-export AWS_SECRET_ACCESS_KEY="your-secret-key"
-
-log_message "Java version: $(java -version 2>&1 | head -n 1)"
-log_message "JAR file: $JAR_FILE"
-log_message "Log file: $LOG_FILE"
+# The running server owns the settlement queue (it holds an exclusive lock on the
+# queue directory) and already settles on banking.settlement.cron, so this script
+# asks that server to run settlement instead of starting a second JVM.
+log_message "Settlement endpoint: $SETTLEMENT_URL"
 
 # Run settlement process
 log_message "Starting settlement process..."
 
 # Execute the settlement
-java $JAVA_OPTS -jar $JAR_FILE --spring.main.class=com.bankingsystem.SettlementRunner 2>&1 | tee -a $LOG_FILE
+RESPONSE=$(curl -sS -X POST --max-time "$SETTLEMENT_TIMEOUT" "$SETTLEMENT_URL" 2>&1)
+EXIT_CODE=$?
+log_message "Response: $RESPONSE"
 
-# Capture exit code
-EXIT_CODE=${PIPESTATUS[0]}
+# The endpoint reports failures in the body rather than the HTTP status
+if [ $EXIT_CODE -eq 0 ] && ! echo "$RESPONSE" | grep -q '"success":true'; then
+    EXIT_CODE=1
+fi
 
 # Check if settlement was successful
 if [ $EXIT_CODE -eq 0 ]; then